@@ -1,5 +1,6 @@
 package com.demo.bpm.config;
 
+import com.demo.bpm.service.ColumnMappingWarmupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flowable.engine.RepositoryService;
@@ -26,6 +27,7 @@ import java.util.List;
 public class ProcessDeploymentConfig {
 
     private final RepositoryService repositoryService;
+    private final ColumnMappingWarmupService columnMappingWarmupService;
 
     /**
      * Deploy all BPMN processes from the classpath on application startup.
@@ -80,6 +82,10 @@ public class ProcessDeploymentConfig {
                     log.info("  - {} (key: {}, version: {})",
                             def.getName(), def.getKey(), def.getVersion());
                 }
+
+                // Create the declared column mappings now rather than on the first saves
+                columnMappingWarmupService.warmUpAfterCommit(
+                        definitions.stream().map(ProcessDefinition::getKey).distinct().toList());
             } else {
                 log.warn("No process files were added to deployment");
             }
@@ -0,0 +1,77 @@
+package com.demo.bpm.controller;
+
+import com.demo.bpm.dto.BusinessQueryRequest;
+import com.demo.bpm.dto.BusinessQueryResult;
+import com.demo.bpm.entity.BusinessFieldIndex;
+import com.demo.bpm.service.BusinessIndexService;
+import com.demo.bpm.service.BusinessQueryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for querying documents by business fields and administering the
+ * indexes behind those queries.
+ */
+@RestController
+@RequestMapping("/api/business")
+@RequiredArgsConstructor
+@Validated
+public class BusinessQueryController {
+
+    private final BusinessQueryService businessQueryService;
+    private final BusinessIndexService businessIndexService;
+
+    /**
+     * Find documents of one process definition and document type by field predicates.
+     */
+    @PostMapping("/query")
+    public ResponseEntity<BusinessQueryResult> query(@Valid @RequestBody BusinessQueryRequest request) {
+        return ResponseEntity.ok(businessQueryService.query(request));
+    }
+
+    /**
+     * List the fields that have an index requested.
+     */
+    @GetMapping("/indexes")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<List<BusinessFieldIndex>> getIndexes() {
+        return ResponseEntity.ok(businessIndexService.getIndexes());
+    }
+
+    /**
+     * Index the column behind a document field.
+     */
+    @PostMapping("/indexes/{processDefinitionKey}/document-types/{type}/fields/{fieldName}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BusinessFieldIndex> createIndex(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @PathVariable String processDefinitionKey,
+            @PathVariable String type,
+            @PathVariable String fieldName) {
+
+        String userId = userDetails != null ? userDetails.getUsername() : null;
+        return ResponseEntity.ok(businessIndexService.createIndex(processDefinitionKey, type, fieldName, userId));
+    }
+
+    /**
+     * Remove the index request for a document field.
+     */
+    @DeleteMapping("/indexes/{processDefinitionKey}/document-types/{type}/fields/{fieldName}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Void> dropIndex(
+            @PathVariable String processDefinitionKey,
+            @PathVariable String type,
+            @PathVariable String fieldName) {
+
+        businessIndexService.dropIndex(processDefinitionKey, type, fieldName);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,12 +1,20 @@
 package com.demo.bpm.controller;
 
 import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.dto.FieldPromotionResult;
 import com.demo.bpm.dto.GridRowDTO;
+import com.demo.bpm.dto.GridSaveResult;
 import com.demo.bpm.dto.ProcessConfigDTO;
 import com.demo.bpm.dto.ProcessInstanceDTO;
 import com.demo.bpm.entity.ProcessConfig;
+import com.demo.bpm.service.BusinessIndexService;
 import com.demo.bpm.service.BusinessTableService;
+import com.demo.bpm.service.BusinessTableService.GridRowExport;
 import com.demo.bpm.service.ProcessService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -14,10 +22,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +46,8 @@ public class BusinessTableController {
 
     private final BusinessTableService businessTableService;
     private final ProcessService processService;
+    private final BusinessIndexService businessIndexService;
+    private final ObjectMapper objectMapper;
 
     // ==================== Document Endpoints ====================
 
@@ -52,13 +66,15 @@ public class BusinessTableController {
 
     /**
      * Get specific document by process instance ID and type.
+     * Pass {@code grids} to load only the named grids; an empty value loads none.
      */
     @GetMapping("/processes/{processInstanceId}/document-types/{type}")
     public ResponseEntity<DocumentDTO> getDocument(
             @PathVariable String processInstanceId,
-            @PathVariable String type) {
+            @PathVariable String type,
+            @RequestParam(required = false) List<String> grids) {
 
-        return businessTableService.getDocument(processInstanceId, type)
+        return businessTableService.getDocument(processInstanceId, type, grids)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -92,9 +108,10 @@ public class BusinessTableController {
      */
     @GetMapping("/document-types/{processInstanceId}")
     public ResponseEntity<DocumentDTO> getDocumentByProcessInstanceId(
-            @PathVariable String processInstanceId) {
+            @PathVariable String processInstanceId,
+            @RequestParam(required = false) List<String> grids) {
 
-        return businessTableService.getDocument(processInstanceId, "main")
+        return businessTableService.getDocument(processInstanceId, "main", grids)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -228,6 +245,44 @@ public class BusinessTableController {
         return ResponseEntity.ok(rows);
     }
 
+    /**
+     * Stream all rows of a grid as a JSON array of field objects.
+     */
+    @GetMapping(value = "/processes/{processInstanceId}/document-types/{type}/grids/{gridName}/rows",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamGridRows(
+            @PathVariable String processInstanceId,
+            @PathVariable String type,
+            @PathVariable String gridName) {
+
+        // Resolved up front: once the body starts streaming the status is already committed
+        GridRowExport export = businessTableService.prepareGridRowExport(processInstanceId, type, gridName);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                businessTableService.exportGridRows(export, gen);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Replace the rows of a grid from a JSON array of field objects, read as a stream.
+     */
+    @PutMapping(value = "/processes/{processInstanceId}/document-types/{type}/grids/{gridName}/rows",
+            consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<GridSaveResult> replaceGridRows(
+            @PathVariable String processInstanceId,
+            @PathVariable String type,
+            @PathVariable String gridName,
+            @RequestParam @NotBlank String processDefinitionKey,
+            HttpServletRequest request) throws IOException {
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            return ResponseEntity.ok(businessTableService.importGridRows(
+                    processInstanceId, processDefinitionKey, type, gridName, parser));
+        }
+    }
+
     /**
      * Delete grid rows with document type.
      */
@@ -315,11 +370,33 @@ public class BusinessTableController {
         ProcessConfig config = businessTableService.updateProcessConfig(
                 processDefinitionKey,
                 request.getPersistOnTaskComplete(),
-                request.getPersistOnProcessComplete()
+                request.getPersistOnProcessComplete(),
+                request.getAsyncPersistence()
         );
         return ResponseEntity.ok(convertToDTO(config));
     }
 
+    /**
+     * Promote a field stored in the overflow JSON into a typed column, optionally demoting another
+     * field of the same type to free its column. Pass {@code grid} for grid fields.
+     */
+    @PostMapping("/config/{processDefinitionKey}/document-types/{type}/fields/{fieldName}/promote")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<FieldPromotionResult> promoteField(
+            @PathVariable String processDefinitionKey,
+            @PathVariable String type,
+            @PathVariable String fieldName,
+            @RequestParam(required = false) String grid,
+            @RequestParam(required = false) String demote) {
+
+        FieldPromotionResult result = businessTableService.promoteField(processDefinitionKey, type, grid, fieldName, demote);
+        if (grid == null) {
+            // Indexes follow their fields; the promotion has committed, so the DDL runs on its own
+            businessIndexService.reconcile();
+        }
+        return ResponseEntity.ok(result);
+    }
+
     // ==================== Helper Methods ====================
 
     private ProcessConfigDTO convertToDTO(ProcessConfig config) {
@@ -328,6 +405,7 @@ public class BusinessTableController {
                 .processDefinitionKey(config.getProcessDefinitionKey())
                 .persistOnTaskComplete(config.getPersistOnTaskComplete())
                 .persistOnProcessComplete(config.getPersistOnProcessComplete())
+                .asyncPersistence(config.getAsyncPersistence())
                 .build();
     }
 
@@ -358,6 +436,7 @@ public class BusinessTableController {
     public static class UpdateProcessConfigRequest {
         private Boolean persistOnTaskComplete;
         private Boolean persistOnProcessComplete;
+        private Boolean asyncPersistence;
     }
 
     @lombok.Data
@@ -2,7 +2,8 @@ package com.demo.bpm.controller;
 
 import com.demo.bpm.dto.CompleteTaskRequest;
 import com.demo.bpm.dto.FormDefinitionDTO;
-import com.demo.bpm.dto.TaskDTO;
+import com.demo.bpm.dto.TaskPageDTO;
+import com.demo.bpm.dto.TaskView;
 import com.demo.bpm.service.FormDefinitionService;
 import com.demo.bpm.service.TaskService;
 import jakarta.validation.Valid;
@@ -14,7 +15,6 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.annotation.Validated;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -38,38 +38,58 @@ public class TaskController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the tasks",
                     content = { @Content(mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = TaskDTO.class))) }) })
+                            schema = @Schema(implementation = TaskPageDTO.class)) }) })
     @GetMapping
-    public ResponseEntity<List<TaskDTO>> getMyTasks(
+    public ResponseEntity<TaskPageDTO> getMyTasks(
             @AuthenticationPrincipal UserDetails userDetails,
             @Parameter(description = "Filter by task name (partial match)") @RequestParam(required = false) String text,
             @Parameter(description = "Filter by assignee username or 'Unassigned'") @RequestParam(required = false) String assignee,
-            @Parameter(description = "Filter by priority") @RequestParam(required = false) Integer priority) {
-
-        List<TaskDTO> tasks = taskService.getGroupTasks(userDetails.getUsername(), text, assignee, priority);
-        return ResponseEntity.ok(tasks);
+            @Parameter(description = "Filter by priority") @RequestParam(required = false) Integer priority,
+            @Parameter(description = "Projection: 'full' (default) or 'summary'") @RequestParam(required = false) String view,
+            @Parameter(description = "Document fields to include in summary view") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Continuation token returned as nextCursor by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped by bpm.tasks.max-page-size)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Also return the total number of matching tasks") @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        TaskPageDTO page = taskService.getGroupTaskPage(userDetails.getUsername(), text, assignee, priority,
+                TaskView.from(view), fields, cursor, size, includeTotal);
+        return ResponseEntity.ok(page);
     }
 
     @Operation(summary = "Get tasks assigned to the current user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the assigned tasks",
                     content = { @Content(mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = TaskDTO.class))) }) })
+                            schema = @Schema(implementation = TaskPageDTO.class)) }) })
     @GetMapping("/assigned")
-    public ResponseEntity<List<TaskDTO>> getAssignedTasks(@AuthenticationPrincipal UserDetails userDetails) {
-        List<TaskDTO> tasks = taskService.getAssignedTasks(userDetails.getUsername());
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<TaskPageDTO> getAssignedTasks(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Projection: 'full' (default) or 'summary'") @RequestParam(required = false) String view,
+            @Parameter(description = "Document fields to include in summary view") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Continuation token returned as nextCursor by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped by bpm.tasks.max-page-size)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Also return the total number of matching tasks") @RequestParam(defaultValue = "false") boolean includeTotal) {
+        TaskPageDTO page = taskService.getAssignedTaskPage(userDetails.getUsername(), TaskView.from(view), fields,
+                cursor, size, includeTotal);
+        return ResponseEntity.ok(page);
     }
 
     @Operation(summary = "Get tasks that can be claimed by the current user")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found the claimable tasks",
                     content = { @Content(mediaType = "application/json",
-                            array = @ArraySchema(schema = @Schema(implementation = TaskDTO.class))) }) })
+                            schema = @Schema(implementation = TaskPageDTO.class)) }) })
     @GetMapping("/claimable")
-    public ResponseEntity<List<TaskDTO>> getClaimableTasks(@AuthenticationPrincipal UserDetails userDetails) {
-        List<TaskDTO> tasks = taskService.getClaimableTasks(userDetails.getUsername());
-        return ResponseEntity.ok(tasks);
+    public ResponseEntity<TaskPageDTO> getClaimableTasks(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Parameter(description = "Projection: 'full' (default) or 'summary'") @RequestParam(required = false) String view,
+            @Parameter(description = "Document fields to include in summary view") @RequestParam(required = false) List<String> fields,
+            @Parameter(description = "Continuation token returned as nextCursor by the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (capped by bpm.tasks.max-page-size)") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Also return the total number of matching tasks") @RequestParam(defaultValue = "false") boolean includeTotal) {
+        TaskPageDTO page = taskService.getClaimableTaskPage(userDetails.getUsername(), TaskView.from(view), fields,
+                cursor, size, includeTotal);
+        return ResponseEntity.ok(page);
     }
 
     @Operation(summary = "Get task details by ID")
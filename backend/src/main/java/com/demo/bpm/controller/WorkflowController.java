@@ -63,8 +63,9 @@ public class WorkflowController {
 
     @GetMapping("/processes/{processInstanceId}/tasks")
     public ResponseEntity<List<TaskHistoryDTO>> getProcessTaskHistory(
-            @PathVariable String processInstanceId) {
-        List<TaskHistoryDTO> taskHistory = workflowHistoryService.getTaskHistory(processInstanceId);
+            @PathVariable String processInstanceId,
+            @RequestParam(defaultValue = "true") boolean includeVariables) {
+        List<TaskHistoryDTO> taskHistory = workflowHistoryService.getTaskHistory(processInstanceId, includeVariables);
         return ResponseEntity.ok(taskHistory);
     }
 
@@ -0,0 +1,67 @@
+package com.demo.bpm.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Query over the business fields of one (processDefinitionKey, documentType) scope.
+ * Filters are ANDed; results are paged by keyset using the opaque {@code cursor} of the previous page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessQueryRequest {
+
+    @NotBlank(message = "processDefinitionKey is required")
+    private String processDefinitionKey;
+
+    private String documentType;
+
+    @Valid
+    private List<FieldFilter> filters;
+
+    // Field to sort by; documents are always ordered by id within equal values
+    private String sortField;
+
+    private boolean descending;
+
+    @Min(value = 1, message = "limit must be at least 1")
+    @Max(value = 500, message = "limit must be at most 500")
+    private Integer limit;
+
+    private String cursor;
+
+    // Grids to include in each document; none when omitted
+    private List<String> grids;
+
+    public enum Operator {
+        EQ, NE, GT, GTE, LT, LTE, LIKE, IN, IS_NULL, NOT_NULL
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FieldFilter {
+        @NotBlank(message = "field is required")
+        private String field;
+
+        @NotNull(message = "op is required")
+        private Operator op;
+
+        private Object value;
+
+        // Values of an IN filter
+        private List<Object> values;
+    }
+}
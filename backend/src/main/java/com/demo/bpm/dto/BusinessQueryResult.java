@@ -0,0 +1,21 @@
+package com.demo.bpm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a business query; {@code nextCursor} is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessQueryResult {
+
+    private List<DocumentDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.demo.bpm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of promoting an overflow field into a typed column.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FieldPromotionResult {
+
+    private String processDefinitionKey;
+    private String documentType;
+    private String gridName;
+    private String fieldName;
+    private String columnName;
+    private String demotedFieldName;
+    private int rowsMigrated;
+}
@@ -19,6 +19,7 @@ public class GridRowDTO {
     private String processInstanceId;
     private String gridName;
     private Integer rowIndex;
+    private String rowKey;
 
     // Field values mapped by field name
     @Builder.Default
@@ -0,0 +1,29 @@
+package com.demo.bpm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row counts written by one grid save.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GridSaveResult {
+
+    private String gridName;
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unchanged;
+
+    /**
+     * Number of rows that caused a write.
+     */
+    public int getChanged() {
+        return inserted + updated + deleted;
+    }
+}
@@ -0,0 +1,21 @@
+package com.demo.bpm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a task list. Pass {@code nextCursor} back as {@code cursor} to get the next page.
+ * {@code totalElements} is only present when the caller asked for it.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskPageDTO {
+    private List<TaskDTO> content;
+    private String nextCursor;
+    private boolean hasMore;
+    private Long totalElements;
+}
@@ -0,0 +1,23 @@
+package com.demo.bpm.dto;
+
+/**
+ * Projection used when listing tasks.
+ * FULL carries the merged process variables and business document (including grids);
+ * SUMMARY carries only task metadata plus a whitelist of document header fields.
+ */
+public enum TaskView {
+    FULL,
+    SUMMARY;
+
+    public static TaskView from(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        for (TaskView view : values()) {
+            if (view.name().equalsIgnoreCase(value.trim())) {
+                return view;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task view: " + value + " (expected 'full' or 'summary')");
+    }
+}
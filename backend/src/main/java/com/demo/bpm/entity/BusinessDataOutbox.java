@@ -0,0 +1,93 @@
+package com.demo.bpm.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Business data waiting to be written to the document/grid tables.
+ * Rows are inserted in the same transaction that completes a task and removed once
+ * the payload has been persisted by the outbox worker.
+ */
+@Entity
+@Table(name = "business_data_outbox",
+       indexes = {
+           @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+           @Index(name = "idx_outbox_instance", columnList = "process_instance_id, document_type"),
+           @Index(name = "idx_outbox_claimed_by", columnList = "claimed_by")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessDataOutbox {
+
+    public enum Status {
+        PENDING,    // Waiting for (another) attempt
+        PROCESSING, // Claimed by a worker; released again if the claim goes stale
+        FAILED      // Gave up after the maximum number of attempts
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "process_instance_id", nullable = false, length = 64)
+    private String processInstanceId;
+
+    @Column(name = "business_key", length = 255)
+    private String businessKey;
+
+    @Column(name = "process_definition_key", length = 255)
+    private String processDefinitionKey;
+
+    @Column(name = "process_definition_name", length = 255)
+    private String processDefinitionName;
+
+    @Column(name = "document_type", nullable = false, length = 100)
+    private String documentType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "user_id", length = 255)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "last_error", length = 2000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
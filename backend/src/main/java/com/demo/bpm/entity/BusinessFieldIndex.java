@@ -0,0 +1,54 @@
+package com.demo.bpm.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A document field an administrator asked to have indexed. The record is kept per field, not per
+ * physical column, so the index follows the field when its mapping moves to another column.
+ */
+@Entity
+@Table(name = "business_field_index",
+       uniqueConstraints = @UniqueConstraint(
+           name = "uk_business_field_index",
+           columnNames = {"process_definition_key", "document_type", "field_name"}
+       ))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BusinessFieldIndex {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "process_definition_key", nullable = false, length = 255)
+    private String processDefinitionKey;
+
+    @Column(name = "document_type", nullable = false, length = 100)
+    private String documentType;
+
+    @Column(name = "field_name", nullable = false, length = 255)
+    private String fieldName;
+
+    // Physical column the field was last indexed on; refreshed when the mapping moves
+    @Column(name = "column_name", length = 20)
+    private String columnName;
+
+    @Column(name = "created_by", length = 255)
+    private String createdBy;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -10,16 +10,22 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "column_mapping",
-       uniqueConstraints = @UniqueConstraint(
-           name = "uk_column_mapping",
-           columnNames = {"scope_type", "process_definition_key", "document_type", "grid_name", "field_name"}
-       ))
+       uniqueConstraints = {
+           @UniqueConstraint(
+               name = "uk_column_mapping",
+               columnNames = {"scope_type", "process_definition_key", "document_type", "grid_name", "field_name"}),
+           @UniqueConstraint(name = "uk_column_mapping_field", columnNames = {"scope_key", "field_name"}),
+           @UniqueConstraint(name = "uk_column_mapping_slot", columnNames = {"scope_key", "column_slot"})
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class ColumnMapping {
 
+    /** Column name of fields stored in the overflow JSON instead of a typed column. */
+    public static final String OVERFLOW_COLUMN = "overflow";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -50,9 +56,44 @@ public class ColumnMapping {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    /**
+     * Key of the (scope type, process, document type, grid) a mapping belongs to, so the unique
+     * constraints also hold where document type or grid name are null. Assigned on every write;
+     * rows from before this column are keyed on startup by {@code ColumnMappingWriter.backfillKeys},
+     * which then declares the column NOT NULL. It is mapped nullable so schema auto-update can add it
+     * to a populated table.
+     */
+    @Column(name = "scope_key", length = 620)
+    private String scopeKey;
+
+    /**
+     * The claimed column, or {@code null} for overflow fields, which share no column.
+     */
+    @Column(name = "column_slot", length = 20)
+    private String columnSlot;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        assignKeys();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        assignKeys();
+    }
+
+    /**
+     * Derive {@link #scopeKey} and {@link #columnSlot} from the mapping's other columns.
+     */
+    public void assignKeys() {
+        scopeKey = scopeKey(scopeType, processDefinitionKey, documentType, gridName);
+        columnSlot = isOverflow() ? null : columnName;
+    }
+
+    public static String scopeKey(ScopeType scopeType, String processDefinitionKey, String documentType, String gridName) {
+        return scopeType + "|" + processDefinitionKey + "|" + (documentType != null ? documentType : "")
+                + "|" + (gridName != null ? gridName : "");
     }
 
     public enum ScopeType {
@@ -66,9 +107,16 @@ public class ColumnMapping {
         DATETIME
     }
 
+    /**
+     * Whether the field is stored in the row's overflow JSON rather than a typed column.
+     */
+    public boolean isOverflow() {
+        return OVERFLOW_COLUMN.equals(columnName);
+    }
+
     /**
      * Extract the column index from the column name.
-     * e.g., "varchar_7" -> 7, "float_12" -> 12
+     * e.g., "varchar_7" -> 7, "float_12" -> 12. Overflow fields have no index.
      */
     public int getColumnIndex() {
         if (columnName == null || !columnName.contains("_")) {
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import java.util.List;
            name = "uk_document_process_type",
            columnNames = {"process_instance_id", "type"}
        ))
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -312,6 +314,10 @@ public class Document {
     @Column(name = "datetime_30")
     private LocalDateTime datetime30;
 
+    // Fields beyond the typed columns, as a JSON object keyed by field name (see OverflowFields)
+    @Column(name = "overflow_json", columnDefinition = "TEXT")
+    private String overflowJson;
+
     // Audit columns
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -4,11 +4,13 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "grid_rows")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +33,10 @@ public class GridRow {
     @Column(name = "row_index", nullable = false)
     private Integer rowIndex;
 
+    // Optional stable key supplied by the client as "_rowKey", used to match rows across saves
+    @Column(name = "row_key", length = 255)
+    private String rowKey;
+
     // 30 VARCHAR columns
     @Column(name = "varchar_1", length = 4000)
     private String varchar1;
@@ -304,6 +310,10 @@ public class GridRow {
     @Column(name = "datetime_30")
     private LocalDateTime datetime30;
 
+    // Fields beyond the typed columns, as a JSON object keyed by field name (see OverflowFields)
+    @Column(name = "overflow_json", columnDefinition = "TEXT")
+    private String overflowJson;
+
     // Audit columns
     @Column(name = "created_at")
     private LocalDateTime createdAt;
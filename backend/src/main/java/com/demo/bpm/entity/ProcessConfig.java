@@ -31,6 +31,11 @@ public class ProcessConfig {
     @Builder.Default
     private Boolean persistOnProcessComplete = true;
 
+    // Queue business data in the outbox on task completion instead of writing it inline
+    @Column(name = "async_persistence")
+    @Builder.Default
+    private Boolean asyncPersistence = false;
+
     @Column(name = "document_type", length = 100)
     private String documentType;
 
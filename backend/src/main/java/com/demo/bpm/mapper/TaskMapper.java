@@ -1,9 +1,9 @@
 package com.demo.bpm.mapper;
 
 import com.demo.bpm.dto.TaskDTO;
-import org.flowable.engine.RepositoryService;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
 import org.flowable.engine.RuntimeService;
-import org.flowable.engine.repository.ProcessDefinition;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.task.api.Task;
 import org.springframework.stereotype.Component;
@@ -15,11 +15,11 @@ import java.util.Map;
 public class TaskMapper {
 
     private final RuntimeService runtimeService;
-    private final RepositoryService repositoryService;
+    private final ProcessDefinitionCache processDefinitionCache;
 
-    public TaskMapper(RuntimeService runtimeService, RepositoryService repositoryService) {
+    public TaskMapper(RuntimeService runtimeService, ProcessDefinitionCache processDefinitionCache) {
         this.runtimeService = runtimeService;
-        this.repositoryService = repositoryService;
+        this.processDefinitionCache = processDefinitionCache;
     }
 
     public TaskDTO toDTO(Task task, Map<String, Object> variables) {
@@ -29,12 +29,19 @@ public class TaskMapper {
 
         String businessKey = processInstance != null ? processInstance.getBusinessKey() : null;
 
-        ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
-                .processDefinitionId(task.getProcessDefinitionId())
-                .singleResult();
+        ProcessDefinitionInfo processDefinition = processDefinitionCache.get(task.getProcessDefinitionId()).orElse(null);
+
+        return toDTO(task, variables, businessKey, processDefinition);
+    }
 
-        String processName = processDefinition != null ? processDefinition.getName() : task.getProcessDefinitionId();
-        String processKey = processDefinition != null ? processDefinition.getKey() : null;
+    /**
+     * Map a task whose process instance and definition have already been loaded by the caller,
+     * avoiding the per-task lookups done by {@link #toDTO(Task, Map)}.
+     */
+    public TaskDTO toDTO(Task task, Map<String, Object> variables, String businessKey,
+                         ProcessDefinitionInfo processDefinition) {
+        String processName = processDefinition != null ? processDefinition.name() : task.getProcessDefinitionId();
+        String processKey = processDefinition != null ? processDefinition.key() : null;
 
         return TaskDTO.builder()
                 .id(task.getId())
@@ -0,0 +1,58 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.BusinessDataOutbox;
+import com.demo.bpm.entity.BusinessDataOutbox.Status;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BusinessDataOutboxRepository extends JpaRepository<BusinessDataOutbox, Long> {
+
+    // Entries due for an attempt, oldest first
+    List<BusinessDataOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            Status status, LocalDateTime now, Pageable pageable);
+
+    // Entries of one document in the given states, in write order, locked until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<BusinessDataOutbox> findByProcessInstanceIdAndDocumentTypeAndStatusInOrderByIdAsc(
+            String processInstanceId, String documentType, Collection<Status> statuses);
+
+    // Entries still held under a claim, locked until the caller commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<BusinessDataOutbox> findByClaimedByOrderByIdAsc(String claimedBy);
+
+    // Remove written entries, unless their claim expired and moved to another worker
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BusinessDataOutbox o WHERE o.claimedBy = :claim")
+    int deleteByClaim(@Param("claim") String claim);
+
+    // Hand entries of a worker that died or hung mid-write back to the pending queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE BusinessDataOutbox o SET o.status = :pending, " +
+           "o.claimedBy = NULL, o.claimedAt = NULL " +
+           "WHERE o.status = :processing AND o.claimedAt < :cutoff")
+    int releaseClaimsOlderThan(@Param("cutoff") LocalDateTime cutoff,
+                               @Param("pending") Status pending, @Param("processing") Status processing);
+
+    default int releaseClaimsOlderThan(LocalDateTime cutoff) {
+        return releaseClaimsOlderThan(cutoff, Status.PENDING, Status.PROCESSING);
+    }
+
+    Optional<BusinessDataOutbox> findFirstByStatusOrderByIdAsc(Status status);
+
+    long countByStatus(Status status);
+}
@@ -0,0 +1,13 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.BusinessFieldIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BusinessFieldIndexRepository extends JpaRepository<BusinessFieldIndex, Long> {
+    Optional<BusinessFieldIndex> findByProcessDefinitionKeyAndDocumentTypeAndFieldName(
+            String processDefinitionKey, String documentType, String fieldName);
+}
@@ -0,0 +1,47 @@
+package com.demo.bpm.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * DDL for constraints on {@code column_mapping} that schema auto-update cannot add to a populated
+ * table. {@code scope_key} is created nullable and only made mandatory once every row has a key.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class ColumnMappingConstraints {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Declare {@code scope_key} NOT NULL unless it already is. Every row must carry a key.
+     *
+     * @return whether the constraint was added by this call
+     */
+    public boolean requireScopeKey() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Unquoted identifiers are stored upper case by some databases and lower case by others
+            boolean upper = metaData.storesUpperCaseIdentifiers();
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null,
+                    upper ? "COLUMN_MAPPING" : "column_mapping", upper ? "SCOPE_KEY" : "scope_key")) {
+                if (rs.next() && "NO".equals(rs.getString("IS_NULLABLE"))) {
+                    return false;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE column_mapping ALTER COLUMN scope_key SET NOT NULL");
+            }
+            log.info("Declared column_mapping.scope_key NOT NULL");
+            return true;
+        }));
+    }
+}
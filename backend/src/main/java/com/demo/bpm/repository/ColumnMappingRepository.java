@@ -150,4 +150,9 @@ public interface ColumnMappingRepository extends JpaRepository<ColumnMapping, Lo
             @Param("documentType") String documentType,
             @Param("gridName") String gridName,
             @Param("columnName") String columnName);
+
+    /**
+     * Mappings created before scope keys were introduced.
+     */
+    List<ColumnMapping> findByScopeKeyIsNull();
 }
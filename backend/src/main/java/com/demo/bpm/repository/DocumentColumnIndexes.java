@@ -0,0 +1,78 @@
+package com.demo.bpm.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * DDL for the indexes on document value columns that back queried business fields.
+ * <p>
+ * There is one index per physical column, led by the scope columns so it serves any
+ * (processDefinitionKey, type) that maps a field there. Only indexes carrying the
+ * {@value #PREFIX} prefix are considered managed here.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class DocumentColumnIndexes {
+
+    static final String PREFIX = "ix_document_";
+
+    private static final Pattern VALUE_COLUMN = Pattern.compile("(varchar|float|datetime)_([1-9]|[12][0-9]|30)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String indexName(String columnName) {
+        return PREFIX + columnName;
+    }
+
+    public void create(String columnName) {
+        requireValueColumn(columnName);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + indexName(columnName)
+                + " ON document (process_definition_key, type, " + columnName + ")");
+        log.info("Ensured index {} on document.{}", indexName(columnName), columnName);
+    }
+
+    public void drop(String columnName) {
+        requireValueColumn(columnName);
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + indexName(columnName));
+        log.info("Dropped index {}", indexName(columnName));
+    }
+
+    /**
+     * Value columns that currently carry a managed index.
+     */
+    public Set<String> indexedColumns() {
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Unquoted identifiers are stored upper case by some databases and lower case by others
+            String table = metaData.storesUpperCaseIdentifiers() ? "DOCUMENT" : "document";
+            Set<String> columns = new TreeSet<>();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    String lower = name != null ? name.toLowerCase(Locale.ROOT) : "";
+                    if (lower.startsWith(PREFIX) && VALUE_COLUMN.matcher(lower.substring(PREFIX.length())).matches()) {
+                        columns.add(lower.substring(PREFIX.length()));
+                    }
+                }
+            }
+            return columns;
+        });
+    }
+
+    private static void requireValueColumn(String columnName) {
+        if (columnName == null || !VALUE_COLUMN.matcher(columnName).matches()) {
+            throw new IllegalArgumentException("Not a document value column: " + columnName);
+        }
+    }
+}
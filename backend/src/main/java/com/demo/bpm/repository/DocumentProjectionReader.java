@@ -0,0 +1,220 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.Document;
+import com.demo.bpm.service.cache.BoundedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+/**
+ * Column-projected reads of the document table.
+ * <p>
+ * Documents are read in two steps: {@code find*} methods load only the header columns, and
+ * {@link #loadColumns} then fills in the value columns that are mapped for the document's
+ * (processDefinitionKey, type) scope. Projection statements are cached by the set of columns they
+ * read, so scopes and queries that read different subsets of a scope's columns do not rebuild each
+ * other's statements. The returned {@link Document} instances are detached and only meant for
+ * reading.
+ */
+@Repository
+public class DocumentProjectionReader implements MeterBinder {
+
+    private static final String HEADER_SELECT = "SELECT id, process_instance_id, business_key, process_definition_key, "
+            + "process_definition_name, type, created_at, updated_at, created_by, updated_by FROM document";
+
+    private static final String OVERFLOW_COLUMN = "overflow_json";
+
+    // Keeps IN lists within what every supported database accepts
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeZone jdbcTimeZone;
+    private final BoundedLruCache<String, Projection> projections;
+
+    public DocumentProjectionReader(JdbcTemplate jdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone,
+                                    @Value("${bpm.cache.document-projections.max-size:200}") int maxProjections) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTimeZone = JdbcTimestamps.zone(jdbcTimeZone);
+        this.projections = new BoundedLruCache<>("document-projections", maxProjections);
+    }
+
+    public List<Document> findByProcessInstanceIdsAndType(Collection<String> processInstanceIds, String type) {
+        List<Document> documents = new ArrayList<>();
+        for (List<String> chunk : chunks(new ArrayList<>(processInstanceIds))) {
+            List<Object> args = new ArrayList<>(chunk);
+            args.add(type);
+            documents.addAll(jdbcTemplate.query(
+                    HEADER_SELECT + " WHERE process_instance_id IN (" + placeholders(chunk.size()) + ") AND type = ?",
+                    headerMapper(), args.toArray()));
+        }
+        return documents;
+    }
+
+    public List<Document> findByBusinessKeyAndType(String businessKey, String type) {
+        return jdbcTemplate.query(HEADER_SELECT + " WHERE business_key = ? AND type = ?",
+                headerMapper(), businessKey, type);
+    }
+
+    /**
+     * Load headers by id, returned in the order of the given ids.
+     */
+    public List<Document> findByIds(List<Long> ids) {
+        Map<Long, Document> byId = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbcTemplate.query(HEADER_SELECT + " WHERE id IN (" + placeholders(chunk.size()) + ")",
+                    headerMapper(), chunk.toArray()).forEach(document -> byId.put(document.getId(), document));
+        }
+
+        List<Document> documents = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Document document = byId.get(id);
+            if (document != null) {
+                documents.add(document);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Read the given mapped columns into documents previously returned by this reader.
+     * All documents must belong to the scope the mappings were resolved for.
+     */
+    public void loadColumns(Collection<ColumnMapping> mappings, Collection<Document> documents) {
+        if (mappings.isEmpty() || documents.isEmpty()) {
+            return;
+        }
+
+        Projection projection = projection(mappings);
+        Map<Long, Document> byId = new HashMap<>();
+        documents.forEach(document -> byId.put(document.getId(), document));
+
+        for (List<Long> chunk : chunks(new ArrayList<>(byId.keySet()))) {
+            jdbcTemplate.query(projection.sql() + placeholders(chunk.size()) + ")", rs -> {
+                Document document = byId.get(rs.getLong("id"));
+                for (ColumnMapping mapping : projection.columns()) {
+                    readColumn(rs, mapping, document);
+                }
+            }, chunk.toArray());
+        }
+    }
+
+    /**
+     * The projection reading exactly the columns of {@code mappings}. The column name fixes the
+     * type and index a mapping is read with, so a projection serves any mappings of the same columns.
+     */
+    private Projection projection(Collection<ColumnMapping> mappings) {
+        TreeSet<String> columns = new TreeSet<>();
+        mappings.forEach(mapping -> columns.add(columnName(mapping)));
+
+        return projections.get(String.join(",", columns), key -> {
+            List<ColumnMapping> distinct = new ArrayList<>();
+            TreeSet<String> seen = new TreeSet<>();
+            for (ColumnMapping mapping : mappings) {
+                if (seen.add(columnName(mapping))) {
+                    distinct.add(mapping);
+                }
+            }
+
+            StringJoiner select = new StringJoiner(", ", "SELECT id, ", " FROM document WHERE id IN (");
+            columns.forEach(select::add);
+            return new Projection(List.copyOf(distinct), select.toString());
+        });
+    }
+
+    private void readColumn(ResultSet rs, ColumnMapping mapping, Document document) throws SQLException {
+        if (mapping.isOverflow()) {
+            document.setOverflowJson(rs.getString(OVERFLOW_COLUMN));
+            return;
+        }
+        int index = mapping.getColumnIndex();
+        String column = columnName(mapping);
+        switch (mapping.getFieldType()) {
+            case VARCHAR -> document.setVarchar(index, rs.getString(column));
+            case FLOAT -> {
+                double value = rs.getDouble(column);
+                document.setFloat(index, rs.wasNull() ? null : value);
+            }
+            case DATETIME -> document.setDatetime(index, JdbcTimestamps.get(rs, column, jdbcTimeZone));
+        }
+    }
+
+    /**
+     * Column name derived from type and index rather than taken from the stored mapping,
+     * so nothing but known column names ever reaches the generated SQL. All overflow fields share
+     * the one overflow column.
+     */
+    private static String columnName(ColumnMapping mapping) {
+        if (mapping.isOverflow()) {
+            return OVERFLOW_COLUMN;
+        }
+        int index = mapping.getColumnIndex();
+        if (index < 1 || index > 30) {
+            throw new IllegalStateException("Invalid column index " + index + " for field " + mapping.getFieldName());
+        }
+        return switch (mapping.getFieldType()) {
+            case VARCHAR -> "varchar_" + index;
+            case FLOAT -> "float_" + index;
+            case DATETIME -> "datetime_" + index;
+        };
+    }
+
+    private RowMapper<Document> headerMapper() {
+        return (rs, rowNum) -> {
+            Document document = new Document();
+            document.setId(rs.getLong("id"));
+            document.setProcessInstanceId(rs.getString("process_instance_id"));
+            document.setBusinessKey(rs.getString("business_key"));
+            document.setProcessDefinitionKey(rs.getString("process_definition_key"));
+            document.setProcessDefinitionName(rs.getString("process_definition_name"));
+            document.setType(rs.getString("type"));
+            document.setCreatedAt(JdbcTimestamps.get(rs, "created_at", jdbcTimeZone));
+            document.setUpdatedAt(JdbcTimestamps.get(rs, "updated_at", jdbcTimeZone));
+            document.setCreatedBy(rs.getString("created_by"));
+            document.setUpdatedBy(rs.getString("updated_by"));
+            return document;
+        };
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        if (values.size() <= MAX_IN_PARAMETERS) {
+            return values.isEmpty() ? Collections.emptyList() : List.of(values);
+        }
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += MAX_IN_PARAMETERS) {
+            chunks.add(values.subList(i, Math.min(i + MAX_IN_PARAMETERS, values.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        projections.bindTo(registry);
+    }
+
+    /**
+     * Cached SELECT of one column set, with one mapping per column to read it with.
+     */
+    private record Projection(List<ColumnMapping> columns, String sql) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.dto.BusinessQueryRequest.Operator;
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Finds document ids by predicates on the physical value columns behind mapped fields.
+ * <p>
+ * Results are ordered by the sort column (nulls last) and then by id, and paged by keyset: the
+ * next page starts after the (sort value, id) of the last row, so deep pages cost the same as the
+ * first. Column names are derived from the mapping's type and index, never taken from input.
+ */
+@Repository
+public class DocumentQueryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeZone jdbcTimeZone;
+
+    public DocumentQueryRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTimeZone = JdbcTimestamps.zone(jdbcTimeZone);
+    }
+
+    /**
+     * @param sort  mapping to order by, or {@code null} to order by id only
+     * @param after last row of the previous page, or {@code null} for the first page
+     */
+    public List<KeysetRow> findIds(String processDefKey, String documentType, List<ColumnPredicate> predicates,
+                                   ColumnMapping sort, boolean descending, KeysetRow after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id");
+        String sortColumn = sort != null ? columnName(sort) : null;
+        if (sortColumn != null) {
+            sql.append(", ").append(sortColumn);
+        }
+        sql.append(" FROM document WHERE process_definition_key = ? AND type = ?");
+
+        List<Bound> args = new ArrayList<>();
+        args.add(new Bound(processDefKey, FieldType.VARCHAR));
+        args.add(new Bound(documentType, FieldType.VARCHAR));
+
+        for (ColumnPredicate predicate : predicates) {
+            sql.append(" AND ").append(predicateSql(predicate, args));
+        }
+
+        String idComparison = descending ? "<" : ">";
+        if (after != null) {
+            if (sortColumn == null) {
+                sql.append(" AND id ").append(idComparison).append(" ?");
+            } else if (after.sortValue() == null) {
+                // Past the last non-null value: only the trailing null block remains
+                sql.append(" AND ").append(sortColumn).append(" IS NULL AND id ").append(idComparison).append(" ?");
+            } else {
+                String valueComparison = descending ? "<" : ">";
+                sql.append(" AND (").append(sortColumn).append(' ').append(valueComparison).append(" ? OR (")
+                        .append(sortColumn).append(" = ? AND id ").append(idComparison).append(" ?) OR ")
+                        .append(sortColumn).append(" IS NULL)");
+                args.add(new Bound(after.sortValue(), sort.getFieldType()));
+                args.add(new Bound(after.sortValue(), sort.getFieldType()));
+            }
+            args.add(new Bound(after.id(), null));
+        }
+
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ");
+        if (sortColumn != null) {
+            sql.append(sortColumn).append(direction).append(" NULLS LAST, ");
+        }
+        sql.append("id").append(direction).append(" LIMIT ").append(limit);
+
+        return jdbcTemplate.query(sql.toString(), ps -> bind(ps, args), (rs, rowNum) ->
+                new KeysetRow(rs.getLong("id"), sortColumn != null ? readValue(rs, sortColumn, sort.getFieldType()) : null));
+    }
+
+    private String predicateSql(ColumnPredicate predicate, List<Bound> args) {
+        String column = columnName(predicate.mapping());
+        FieldType type = predicate.mapping().getFieldType();
+        List<Object> values = predicate.values();
+        String comparison = switch (predicate.op()) {
+            case EQ -> " = ?";
+            case NE -> " <> ?";
+            case GT -> " > ?";
+            case GTE -> " >= ?";
+            case LT -> " < ?";
+            case LTE -> " <= ?";
+            case LIKE -> " LIKE ?";
+            case IN -> " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")";
+            case IS_NULL -> " IS NULL";
+            case NOT_NULL -> " IS NOT NULL";
+        };
+        if (predicate.op() != Operator.IS_NULL && predicate.op() != Operator.NOT_NULL) {
+            values.forEach(value -> args.add(new Bound(value, type)));
+        }
+        return column + comparison;
+    }
+
+    private void bind(PreparedStatement ps, List<Bound> args) throws SQLException {
+        int index = 1;
+        for (Bound arg : args) {
+            if (arg.type() == null) {
+                ps.setLong(index++, (Long) arg.value());
+                continue;
+            }
+            switch (arg.type()) {
+                case VARCHAR -> ps.setString(index++, (String) arg.value());
+                case FLOAT -> ps.setDouble(index++, (Double) arg.value());
+                case DATETIME -> JdbcTimestamps.set(ps, index++, (LocalDateTime) arg.value(), jdbcTimeZone);
+            }
+        }
+    }
+
+    private Object readValue(ResultSet rs, String column, FieldType type) throws SQLException {
+        return switch (type) {
+            case VARCHAR -> rs.getString(column);
+            case FLOAT -> {
+                double value = rs.getDouble(column);
+                yield rs.wasNull() ? null : value;
+            }
+            case DATETIME -> JdbcTimestamps.get(rs, column, jdbcTimeZone);
+        };
+    }
+
+    /**
+     * Column name derived from type and index rather than taken from the stored mapping,
+     * so nothing but known column names ever reaches the generated SQL.
+     */
+    static String columnName(ColumnMapping mapping) {
+        if (mapping.isOverflow()) {
+            throw new IllegalArgumentException("Field '" + mapping.getFieldName()
+                    + "' is stored in the overflow column and cannot be queried; promote it first");
+        }
+        int index = mapping.getColumnIndex();
+        if (index < 1 || index > 30) {
+            throw new IllegalStateException("Invalid column index " + index + " for field " + mapping.getFieldName());
+        }
+        return switch (mapping.getFieldType()) {
+            case VARCHAR -> "varchar_" + index;
+            case FLOAT -> "float_" + index;
+            case DATETIME -> "datetime_" + index;
+        };
+    }
+
+    /**
+     * A filter on one mapped field; {@code values} are already converted to the field's storage type.
+     */
+    public record ColumnPredicate(ColumnMapping mapping, Operator op, List<Object> values) {
+    }
+
+    /**
+     * A result row: document id and its sort value, which together position the next page.
+     */
+    public record KeysetRow(long id, Object sortValue) {
+    }
+
+    private record Bound(Object value, FieldType type) {
+    }
+}
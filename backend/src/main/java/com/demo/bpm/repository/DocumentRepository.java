@@ -4,9 +4,10 @@ import com.demo.bpm.entity.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,6 +16,15 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     // Find all documents for a process instance
     Page<Document> findByProcessInstanceId(String processInstanceId, Pageable pageable);
 
+    // Page through document ids only; values are read with DocumentProjectionReader
+    @Query(value = "SELECT d.id FROM Document d WHERE d.processInstanceId = :processInstanceId ORDER BY d.id",
+           countQuery = "SELECT COUNT(d) FROM Document d WHERE d.processInstanceId = :processInstanceId")
+    Page<Long> findIdsByProcessInstanceId(@Param("processInstanceId") String processInstanceId, Pageable pageable);
+
+    @Query(value = "SELECT d.id FROM Document d WHERE d.businessKey = :businessKey ORDER BY d.id",
+           countQuery = "SELECT COUNT(d) FROM Document d WHERE d.businessKey = :businessKey")
+    Page<Long> findIdsByBusinessKey(@Param("businessKey") String businessKey, Pageable pageable);
+
     // Find specific document by process instance ID and type
     Optional<Document> findByProcessInstanceIdAndType(String processInstanceId, String type);
 
@@ -0,0 +1,130 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.GridRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.TimeZone;
+
+/**
+ * Bulk insert path for grid rows.
+ * <p>
+ * {@link GridRow} uses IDENTITY ids, which stops Hibernate from batching inserts, so whole grids
+ * are written here with JDBC batches instead. Only the value columns that at least one row of the
+ * grid uses (and the overflow column, if any row has overflow fields) are bound, which keeps
+ * statements small for narrow grids. Rows are inserted in list
+ * order so ids follow row_index.
+ */
+@Slf4j
+@Repository
+public class GridRowBatchWriter {
+
+    private static final int COLUMNS_PER_TYPE = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final TimeZone jdbcTimeZone;
+
+    public GridRowBatchWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${bpm.grid.batch-size:500}") int batchSize,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.jdbcTimeZone = JdbcTimestamps.zone(jdbcTimeZone);
+    }
+
+    /**
+     * Insert the given rows, which must all belong to the same document.
+     * Generated ids are not read back.
+     *
+     * @return the number of inserted rows
+     */
+    public int insertAll(Long documentId, List<GridRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> varcharColumns = new ArrayList<>();
+        List<Integer> floatColumns = new ArrayList<>();
+        List<Integer> datetimeColumns = new ArrayList<>();
+        for (int i = 1; i <= COLUMNS_PER_TYPE; i++) {
+            final int index = i;
+            if (rows.stream().anyMatch(row -> row.getVarchar(index) != null)) {
+                varcharColumns.add(index);
+            }
+            if (rows.stream().anyMatch(row -> row.getFloat(index) != null)) {
+                floatColumns.add(index);
+            }
+            if (rows.stream().anyMatch(row -> row.getDatetime(index) != null)) {
+                datetimeColumns.add(index);
+            }
+        }
+        boolean overflow = rows.stream().anyMatch(row -> row.getOverflowJson() != null);
+
+        String sql = buildInsert(varcharColumns, floatColumns, datetimeColumns, overflow);
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            int p = 1;
+            ps.setLong(p++, documentId);
+            ps.setString(p++, row.getProcessInstanceId());
+            ps.setString(p++, row.getGridName());
+            ps.setInt(p++, row.getRowIndex());
+            setNullable(ps, p++, row.getRowKey(), Types.VARCHAR);
+            for (int index : varcharColumns) {
+                setNullable(ps, p++, row.getVarchar(index), Types.VARCHAR);
+            }
+            for (int index : floatColumns) {
+                setNullable(ps, p++, row.getFloat(index), Types.DOUBLE);
+            }
+            for (int index : datetimeColumns) {
+                JdbcTimestamps.set(ps, p++, row.getDatetime(index), jdbcTimeZone);
+            }
+            if (overflow) {
+                setNullable(ps, p++, row.getOverflowJson(), Types.VARCHAR);
+            }
+            JdbcTimestamps.set(ps, p++, now, jdbcTimeZone);
+            JdbcTimestamps.set(ps, p, now, jdbcTimeZone);
+        });
+
+        log.debug("Batch inserted {} grid rows for document {} (batch size {})", rows.size(), documentId, batchSize);
+        return rows.size();
+    }
+
+    private String buildInsert(List<Integer> varcharColumns, List<Integer> floatColumns,
+                               List<Integer> datetimeColumns, boolean overflow) {
+        StringJoiner columns = new StringJoiner(", ");
+        columns.add("document_id").add("process_instance_id").add("grid_name").add("row_index").add("row_key");
+        varcharColumns.forEach(index -> columns.add("varchar_" + index));
+        floatColumns.forEach(index -> columns.add("float_" + index));
+        datetimeColumns.forEach(index -> columns.add("datetime_" + index));
+        if (overflow) {
+            columns.add("overflow_json");
+        }
+        columns.add("created_at").add("updated_at");
+
+        int count = 7 + varcharColumns.size() + floatColumns.size() + datetimeColumns.size() + (overflow ? 1 : 0);
+        StringJoiner placeholders = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) {
+            placeholders.add("?");
+        }
+        return "INSERT INTO grid_rows (" + columns + ") VALUES (" + placeholders + ")";
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value, sqlType);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.demo.bpm.repository;
 
-import com.demo.bpm.entity.GridRow;
 import com.demo.bpm.entity.GridRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,15 +17,20 @@ public interface GridRowRepository extends JpaRepository<GridRow, Long> {
 
     Page<GridRow> findByDocumentIdAndGridNameOrderByRowIndex(Long documentId, String gridName, Pageable pageable);
 
+    List<GridRow> findByDocumentIdAndGridNameOrderByRowIndexAsc(Long documentId, String gridName);
+
     List<GridRow> findByProcessInstanceIdAndGridNameOrderByRowIndex(String processInstanceId, String gridName);
 
-    List<GridRow> findByDocumentIdOrderByGridNameAscRowIndexAsc(Long documentId);
+    List<GridRow> findByDocumentIdInOrderByGridNameAscRowIndexAsc(Collection<Long> documentIds);
+
+    List<GridRow> findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(Collection<Long> documentIds,
+                                                                              Collection<String> gridNames);
 
     List<GridRow> findByProcessInstanceIdOrderByGridNameAscRowIndexAsc(String processInstanceId);
 
     @Modifying
     @Query("DELETE FROM GridRow gr WHERE gr.document.id = :documentId AND gr.gridName = :gridName")
-    void deleteByDocumentIdAndGridName(@Param("documentId") Long documentId, @Param("gridName") String gridName);
+    int deleteByDocumentIdAndGridName(@Param("documentId") Long documentId, @Param("gridName") String gridName);
 
     @Modifying
     @Query("DELETE FROM GridRow gr WHERE gr.document.id = :documentId")
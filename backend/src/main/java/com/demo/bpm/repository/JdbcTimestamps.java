@@ -0,0 +1,40 @@
+package com.demo.bpm.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Timestamp binding for the plain JDBC paths over business tables. Hibernate stores
+ * {@link LocalDateTime} values in {@code hibernate.jdbc.time_zone}, so values written or read
+ * here must use the same zone to line up with rows written through JPA.
+ */
+final class JdbcTimestamps {
+
+    private JdbcTimestamps() {
+    }
+
+    static TimeZone zone(String jdbcTimeZone) {
+        return jdbcTimeZone == null || jdbcTimeZone.isBlank() ? null : TimeZone.getTimeZone(jdbcTimeZone);
+    }
+
+    static void set(PreparedStatement ps, int index, LocalDateTime value, TimeZone zone) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else if (zone == null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value), Calendar.getInstance(zone));
+        }
+    }
+
+    static LocalDateTime get(ResultSet rs, String column, TimeZone zone) throws SQLException {
+        Timestamp timestamp = zone == null ? rs.getTimestamp(column) : rs.getTimestamp(column, Calendar.getInstance(zone));
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,180 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.util.OverflowFields;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Moves stored values between the overflow JSON and a typed column when a field is promoted.
+ * <p>
+ * Rows of the affected scope are processed in id order, one page of {@code bpm.grid.batch-size}
+ * rows at a time, so memory stays bounded for large tables. Each page is read with one query and
+ * written with one JDBC batch.
+ */
+@Slf4j
+@Repository
+public class OverflowColumnMigrator {
+
+    private static final String DOCUMENT_SCOPE = "process_definition_key = ? AND type = ?";
+    private static final String GRID_SCOPE = "document_id IN (SELECT id FROM document WHERE "
+            + DOCUMENT_SCOPE + ") AND grid_name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int pageSize;
+    private final TimeZone jdbcTimeZone;
+
+    public OverflowColumnMigrator(JdbcTemplate jdbcTemplate,
+                                  @Value("${bpm.grid.batch-size:500}") int pageSize,
+                                  @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pageSize = Math.max(1, pageSize);
+        this.jdbcTimeZone = JdbcTimestamps.zone(jdbcTimeZone);
+    }
+
+    /**
+     * Move {@code promotedField} out of the overflow JSON of every document of the scope into the
+     * given column. When {@code demotedField} is set, that field's current value of the column moves
+     * into the overflow JSON in the same pass.
+     *
+     * @return the number of rows rewritten
+     */
+    public int migrateDocuments(String processDefKey, String documentType, FieldType fieldType, int columnIndex,
+                                String promotedField, String demotedField) {
+        return migrate("document", DOCUMENT_SCOPE, new Object[]{processDefKey, documentType},
+                fieldType, columnIndex, promotedField, demotedField);
+    }
+
+    /**
+     * Grid counterpart of {@link #migrateDocuments}, for the rows of one grid across the scope's documents.
+     */
+    public int migrateGridRows(String processDefKey, String documentType, String gridName, FieldType fieldType,
+                               int columnIndex, String promotedField, String demotedField) {
+        return migrate("grid_rows", GRID_SCOPE, new Object[]{processDefKey, documentType, gridName},
+                fieldType, columnIndex, promotedField, demotedField);
+    }
+
+    private int migrate(String table, String scope, Object[] scopeArgs, FieldType fieldType, int columnIndex,
+                        String promotedField, String demotedField) {
+        String column = columnName(fieldType, columnIndex);
+        String candidates = demotedField != null
+                ? "(overflow_json IS NOT NULL OR " + column + " IS NOT NULL)"
+                : "overflow_json IS NOT NULL";
+        String select = "SELECT id, overflow_json, " + column + " FROM " + table
+                + " WHERE " + scope + " AND " + candidates + " AND id > ? ORDER BY id LIMIT " + pageSize;
+        String update = "UPDATE " + table + " SET " + column + " = ?, overflow_json = ? WHERE id = ?";
+
+        int migrated = 0;
+        long lastId = 0;
+        while (true) {
+            Object[] args = new Object[scopeArgs.length + 1];
+            System.arraycopy(scopeArgs, 0, args, 0, scopeArgs.length);
+            args[scopeArgs.length] = lastId;
+
+            List<Rewrite> page = jdbcTemplate.query(select, (rs, rowNum) -> {
+                Object current = switch (fieldType) {
+                    case VARCHAR -> rs.getString(column);
+                    case FLOAT -> {
+                        double value = rs.getDouble(column);
+                        yield rs.wasNull() ? null : value;
+                    }
+                    case DATETIME -> JdbcTimestamps.get(rs, column, jdbcTimeZone);
+                };
+                return rewrite(rs.getLong("id"), rs.getString("overflow_json"), current,
+                        fieldType, promotedField, demotedField);
+            }, args);
+            if (page.isEmpty()) {
+                break;
+            }
+            lastId = page.get(page.size() - 1).id();
+
+            List<Rewrite> changed = page.stream().filter(Rewrite::changed).toList();
+            if (changed.isEmpty()) {
+                continue;
+            }
+            jdbcTemplate.batchUpdate(update, changed, changed.size(), (ps, rewrite) -> {
+                bindColumn(ps, 1, rewrite.column(), fieldType);
+                if (rewrite.overflowJson() == null) {
+                    ps.setNull(2, Types.VARCHAR);
+                } else {
+                    ps.setString(2, rewrite.overflowJson());
+                }
+                ps.setLong(3, rewrite.id());
+            });
+            migrated += changed.size();
+        }
+
+        log.info("Migrated {} {} rows: '{}' from overflow to {}{}", migrated, table, promotedField, column,
+                demotedField != null ? ", '" + demotedField + "' to overflow" : "");
+        return migrated;
+    }
+
+    private static Rewrite rewrite(long id, String overflowJson, Object current, FieldType fieldType,
+                                   String promotedField, String demotedField) {
+        Map<String, Object> overflow = OverflowFields.read(overflowJson);
+        boolean hadPromoted = overflow.containsKey(promotedField);
+        Object promoted = OverflowFields.toColumn(overflow.remove(promotedField), fieldType);
+
+        Object column = current;
+        if (demotedField != null) {
+            // The column held the demoted field until now
+            if (current != null) {
+                overflow.put(demotedField, OverflowFields.toStored(current));
+            }
+            column = promoted;
+        } else if (current == null) {
+            column = promoted;
+        }
+        // Without a demotion a value already in the column was written after the promotion and wins
+
+        boolean changed = hadPromoted || (demotedField != null && current != null);
+        return new Rewrite(id, column, OverflowFields.write(overflow), changed);
+    }
+
+    private void bindColumn(PreparedStatement ps, int index, Object value, FieldType fieldType) throws SQLException {
+        switch (fieldType) {
+            case VARCHAR -> {
+                if (value == null) {
+                    ps.setNull(index, Types.VARCHAR);
+                } else {
+                    ps.setString(index, (String) value);
+                }
+            }
+            case FLOAT -> {
+                if (value == null) {
+                    ps.setNull(index, Types.DOUBLE);
+                } else {
+                    ps.setDouble(index, (Double) value);
+                }
+            }
+            case DATETIME -> JdbcTimestamps.set(ps, index, (LocalDateTime) value, jdbcTimeZone);
+        }
+    }
+
+    /**
+     * Column name derived from type and index, so nothing but known column names reaches the SQL.
+     */
+    private static String columnName(FieldType fieldType, int columnIndex) {
+        if (columnIndex < 1 || columnIndex > 30) {
+            throw new IllegalArgumentException("Invalid column index " + columnIndex);
+        }
+        return switch (fieldType) {
+            case VARCHAR -> "varchar_" + columnIndex;
+            case FLOAT -> "float_" + columnIndex;
+            case DATETIME -> "datetime_" + columnIndex;
+        };
+    }
+
+    private record Rewrite(long id, Object column, String overflowJson, boolean changed) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessDataOutbox;
+import com.demo.bpm.entity.BusinessDataOutbox.Status;
+import com.demo.bpm.repository.BusinessDataOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Claims the outbox entries of one document in their own transaction. The document's rows are
+ * locked while the claim is decided, so two workers, on this node or another, never hold entries
+ * of the same document at once and its writes are applied in id order.
+ */
+@Service
+@RequiredArgsConstructor
+public class BusinessDataOutboxClaimer {
+
+    private static final List<Status> OPEN = List.of(Status.PENDING, Status.PROCESSING);
+
+    private final BusinessDataOutboxRepository outboxRepository;
+
+    /**
+     * Move all pending entries of the document to {@code PROCESSING} under a new claim.
+     *
+     * @return the claimed entries in id order, or an empty list if nothing is pending or another
+     *         worker still holds entries of the document
+     */
+    @Transactional
+    public List<BusinessDataOutbox> claimDocument(String processInstanceId, String documentType) {
+        List<BusinessDataOutbox> entries = outboxRepository.findByProcessInstanceIdAndDocumentTypeAndStatusInOrderByIdAsc(
+                processInstanceId, documentType, OPEN);
+        if (entries.isEmpty() || entries.stream().anyMatch(entry -> entry.getStatus() == Status.PROCESSING)) {
+            return List.of();
+        }
+
+        String claim = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        for (BusinessDataOutbox entry : entries) {
+            entry.setStatus(Status.PROCESSING);
+            entry.setClaimedBy(claim);
+            entry.setClaimedAt(now);
+        }
+        return outboxRepository.saveAll(entries);
+    }
+
+    /**
+     * Check that the entries of {@code claim} have not been released to another worker, and delete
+     * them. Joins the caller's transaction, so the entries leave the outbox only if the caller's
+     * write commits, and a release waits until it has.
+     *
+     * @param count the number of entries claimed
+     * @return whether all of them were still held under the claim and have been deleted
+     */
+    @Transactional
+    public boolean dequeueClaim(String claim, int count) {
+        if (outboxRepository.findByClaimedByOrderByIdAsc(claim).size() != count) {
+            return false;
+        }
+        outboxRepository.deleteByClaim(claim);
+        return true;
+    }
+
+    /**
+     * Apply {@code update} to the entries still held under {@code claim} and save them. Entries
+     * released to another worker in the meantime are left alone.
+     *
+     * @return the updated entries in id order
+     */
+    @Transactional
+    public List<BusinessDataOutbox> updateClaimed(String claim, Consumer<BusinessDataOutbox> update) {
+        List<BusinessDataOutbox> entries = outboxRepository.findByClaimedByOrderByIdAsc(claim);
+        entries.forEach(update);
+        return outboxRepository.saveAll(entries);
+    }
+}
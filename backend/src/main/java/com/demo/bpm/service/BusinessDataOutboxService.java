@@ -0,0 +1,322 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessDataOutbox;
+import com.demo.bpm.entity.BusinessDataOutbox.Status;
+import com.demo.bpm.repository.BusinessDataOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable outbox for business data written on task completion.
+ * <p>
+ * {@link #enqueue} stores the payload in the caller's transaction, so it commits or rolls back
+ * together with the task completion. A background worker drains due entries in batches, merges
+ * all pending entries of the same document into a single {@code saveAllData} call, and retries
+ * failures with exponential backoff until {@code bpm.outbox.max-attempts} is reached.
+ * <p>
+ * Entries are claimed (moved to {@code PROCESSING}) per document by {@link BusinessDataOutboxClaimer}
+ * before they are written, so several application instances can drain the same table without writing
+ * an entry twice or applying a document's writes out of order. Claims older than
+ * {@code bpm.outbox.claim-timeout} are released back to {@code PENDING}; a worker whose claim was
+ * released neither writes nor deletes or updates the entries afterwards.
+ */
+@Slf4j
+@Service
+public class BusinessDataOutboxService implements MeterBinder {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final BusinessDataOutboxRepository outboxRepository;
+    private final BusinessDataOutboxClaimer outboxClaimer;
+    private final BusinessTableService businessTableService;
+    private final ObjectMapper objectMapper;
+
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final int workerThreads;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+
+    public BusinessDataOutboxService(BusinessDataOutboxRepository outboxRepository,
+                                     BusinessDataOutboxClaimer outboxClaimer,
+                                     BusinessTableService businessTableService,
+                                     ObjectMapper objectMapper,
+                                     @Value("${bpm.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                                     @Value("${bpm.outbox.batch-size:200}") int batchSize,
+                                     @Value("${bpm.outbox.worker-threads:2}") int workerThreads,
+                                     @Value("${bpm.outbox.max-attempts:10}") int maxAttempts,
+                                     @Value("${bpm.outbox.initial-backoff:PT2S}") Duration initialBackoff,
+                                     @Value("${bpm.outbox.max-backoff:PT10M}") Duration maxBackoff,
+                                     @Value("${bpm.outbox.claim-timeout:PT5M}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.outboxClaimer = outboxClaimer;
+        this.businessTableService = businessTableService;
+        this.objectMapper = objectMapper;
+        this.pollIntervalMs = pollIntervalMs;
+        this.batchSize = batchSize;
+        this.workerThreads = workerThreads;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+    }
+
+    /**
+     * Queue business data for asynchronous persistence. Must run inside the transaction
+     * that completes the task so both commit atomically.
+     */
+    @Transactional
+    public void enqueue(String processInstanceId, String businessKey, String processDefKey, String processDefName,
+                        String documentType, Map<String, Object> variables, String userId) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Business data is not serializable: " + e.getMessage(), e);
+        }
+
+        outboxRepository.save(BusinessDataOutbox.builder()
+                .processInstanceId(processInstanceId)
+                .businessKey(businessKey)
+                .processDefinitionKey(processDefKey)
+                .processDefinitionName(processDefName)
+                .documentType(documentType != null ? documentType : BusinessTableService.DEFAULT_DOCUMENT_TYPE)
+                .payload(payload)
+                .userId(userId)
+                .build());
+        log.debug("Queued business data for process instance {} ({} variables)", processInstanceId, variables.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        AtomicInteger workerIds = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + workerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drainSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Business data outbox worker started ({} threads, polling every {} ms)", workerThreads, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            workers.shutdownNow();
+            scheduler = null;
+            workers = null;
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Outbox drain failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Process one batch of due entries. Entries are grouped per document and each group is
+     * handled by one worker, so writes for the same document never run concurrently.
+     *
+     * @return the number of document groups processed
+     */
+    int drain() throws InterruptedException {
+        int released = outboxRepository.releaseClaimsOlderThan(LocalDateTime.now().minus(claimTimeout));
+        if (released > 0) {
+            log.warn("Released {} outbox entries whose claim expired after {}", released, claimTimeout);
+        }
+
+        List<BusinessDataOutbox> due = outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, BusinessDataOutbox> groups = new LinkedHashMap<>();
+        for (BusinessDataOutbox entry : due) {
+            groups.putIfAbsent(entry.getProcessInstanceId() + "|" + entry.getDocumentType(), entry);
+        }
+
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (BusinessDataOutbox head : groups.values()) {
+            jobs.add(() -> {
+                processGroup(head.getProcessInstanceId(), head.getDocumentType());
+                return null;
+            });
+        }
+        if (workers != null) {
+            workers.invokeAll(jobs);
+        } else {
+            for (BusinessDataOutbox head : groups.values()) {
+                processGroup(head.getProcessInstanceId(), head.getDocumentType());
+            }
+        }
+        return groups.size();
+    }
+
+    /**
+     * Persist all pending entries of one document as a single write. Later entries win
+     * field by field and grid by grid, which matches applying them one after another.
+     * Nothing is written while another worker still holds entries of the document, so an older
+     * claim can never overwrite the data of a newer one. The claim is checked again and its entries
+     * are deleted inside the write transaction, so the write and the dequeue commit together, and a
+     * worker whose claim expired mid-write leaves the entries to their new holder.
+     */
+    void processGroup(String processInstanceId, String documentType) {
+        List<BusinessDataOutbox> entries = outboxClaimer.claimDocument(processInstanceId, documentType);
+        if (entries.isEmpty()) {
+            log.debug("No outbox entries claimable for process instance {}, another worker may hold them", processInstanceId);
+            return;
+        }
+
+        BusinessDataOutbox latest = entries.get(entries.size() - 1);
+        String claim = latest.getClaimedBy();
+        try {
+            Map<String, Object> merged = new HashMap<>();
+            for (BusinessDataOutbox entry : entries) {
+                merged.putAll(objectMapper.readValue(entry.getPayload(), PAYLOAD_TYPE));
+            }
+
+            boolean written = businessTableService.saveAllData(
+                    processInstanceId,
+                    latest.getBusinessKey(),
+                    latest.getProcessDefinitionKey(),
+                    latest.getProcessDefinitionName(),
+                    documentType,
+                    merged,
+                    latest.getUserId(),
+                    () -> outboxClaimer.dequeueClaim(claim, entries.size())
+            );
+            if (!written) {
+                log.warn("Claim on {} outbox entries for process instance {} expired before they were written, "
+                        + "leaving them to the worker that holds them now", entries.size(), processInstanceId);
+                return;
+            }
+
+            processed.addAndGet(entries.size());
+            coalesced.addAndGet(entries.size() - 1L);
+            log.debug("Persisted {} outbox entries for process instance {}", entries.size(), processInstanceId);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            markFailed(processInstanceId, claim, e);
+        }
+    }
+
+    private void markFailed(String processInstanceId, String claim, Exception error) {
+        LocalDateTime now = LocalDateTime.now();
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        String lastError = message.length() > 2000 ? message.substring(0, 2000) : message;
+
+        List<BusinessDataOutbox> entries = outboxClaimer.updateClaimed(claim, entry -> {
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(lastError);
+            entry.setClaimedBy(null);
+            entry.setClaimedAt(null);
+            if (attempts >= maxAttempts) {
+                entry.setStatus(Status.FAILED);
+            } else {
+                entry.setStatus(Status.PENDING);
+                entry.setNextAttemptAt(now.plus(backoff(attempts)));
+            }
+        });
+        if (entries.isEmpty()) {
+            log.warn("Failed to persist business data for process instance {}, but its claim expired; "
+                    + "the worker that holds the entries now retries them: {}", processInstanceId, lastError);
+            return;
+        }
+
+        BusinessDataOutbox first = entries.get(0);
+        if (first.getStatus() == Status.FAILED) {
+            log.error("Giving up on business data for process instance {} after {} attempts: {}",
+                    first.getProcessInstanceId(), first.getAttempts(), lastError);
+        } else {
+            log.warn("Failed to persist business data for process instance {} (attempt {}), retrying at {}: {}",
+                    first.getProcessInstanceId(), first.getAttempts(), first.getNextAttemptAt(), lastError);
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private double lagSeconds() {
+        return outboxRepository.findFirstByStatusOrderByIdAsc(Status.PENDING)
+                .map(oldest -> (double) Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis() / 1000)
+                .orElse(0.0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bpm.outbox.pending", outboxRepository, repo -> repo.countByStatus(Status.PENDING))
+                .description("Outbox entries waiting to be persisted")
+                .register(registry);
+        Gauge.builder("bpm.outbox.failed", outboxRepository, repo -> repo.countByStatus(Status.FAILED))
+                .description("Outbox entries that exhausted their retries")
+                .register(registry);
+        Gauge.builder("bpm.outbox.lag", this, BusinessDataOutboxService::lagSeconds)
+                .baseUnit("seconds")
+                .description("Age of the oldest pending outbox entry")
+                .register(registry);
+        FunctionCounter.builder("bpm.outbox.processed", processed, AtomicLong::get)
+                .description("Outbox entries persisted to the business tables")
+                .register(registry);
+        FunctionCounter.builder("bpm.outbox.coalesced", coalesced, AtomicLong::get)
+                .description("Outbox entries merged into another write for the same document")
+                .register(registry);
+        FunctionCounter.builder("bpm.outbox.failures", failures, AtomicLong::get)
+                .description("Failed attempts to persist outbox entries")
+                .register(registry);
+    }
+}
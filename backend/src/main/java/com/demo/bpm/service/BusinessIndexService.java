@@ -0,0 +1,130 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessFieldIndex;
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.exception.ResourceNotFoundException;
+import com.demo.bpm.repository.BusinessFieldIndexRepository;
+import com.demo.bpm.repository.DocumentColumnIndexes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Administers database indexes behind frequently queried document fields.
+ * <p>
+ * Index requests are recorded per field in {@code business_field_index}; the physical indexes
+ * are derived from those records by {@link #reconcile()}, which follows fields to their current
+ * column after re-mapping and drops indexes no recorded field needs any more. DDL runs outside
+ * any transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BusinessIndexService {
+
+    private final BusinessFieldIndexRepository businessFieldIndexRepository;
+    private final DocumentColumnIndexes documentColumnIndexes;
+    private final ColumnMappingService columnMappingService;
+
+    public List<BusinessFieldIndex> getIndexes() {
+        return businessFieldIndexRepository.findAll();
+    }
+
+    /**
+     * Record an index request for a document field and create its index.
+     */
+    public BusinessFieldIndex createIndex(String processDefKey, String documentType, String fieldName, String userId) {
+        String docType = documentType != null ? documentType : BusinessTableService.DEFAULT_DOCUMENT_TYPE;
+        ColumnMapping mapping = columnMappingService.getDocumentMappings(processDefKey, docType, List.of(fieldName))
+                .get(fieldName);
+        if (mapping == null) {
+            throw new IllegalArgumentException("Unknown field: " + fieldName);
+        }
+        if (mapping.isOverflow()) {
+            throw new IllegalArgumentException("Field '" + fieldName
+                    + "' is stored in the overflow column and cannot be indexed; promote it first");
+        }
+
+        BusinessFieldIndex index = businessFieldIndexRepository
+                .findByProcessDefinitionKeyAndDocumentTypeAndFieldName(processDefKey, docType, fieldName)
+                .orElseGet(() -> BusinessFieldIndex.builder()
+                        .processDefinitionKey(processDefKey)
+                        .documentType(docType)
+                        .fieldName(fieldName)
+                        .createdBy(userId)
+                        .build());
+        index.setColumnName(mapping.getColumnName());
+        index = businessFieldIndexRepository.save(index);
+
+        documentColumnIndexes.create(mapping.getColumnName());
+        return index;
+    }
+
+    /**
+     * Remove the index request for a field. The physical index is dropped unless another
+     * recorded field maps to the same column.
+     */
+    public void dropIndex(String processDefKey, String documentType, String fieldName) {
+        String docType = documentType != null ? documentType : BusinessTableService.DEFAULT_DOCUMENT_TYPE;
+        BusinessFieldIndex index = businessFieldIndexRepository
+                .findByProcessDefinitionKeyAndDocumentTypeAndFieldName(processDefKey, docType, fieldName)
+                .orElseThrow(() -> new ResourceNotFoundException("No index on field '" + fieldName
+                        + "' of " + processDefKey + " (type: " + docType + ")"));
+        businessFieldIndexRepository.delete(index);
+        reconcile();
+    }
+
+    /**
+     * Bring the physical indexes in line with the recorded requests: refresh each record's column
+     * from the current mapping, create missing indexes and drop managed ones nothing needs.
+     */
+    public synchronized void reconcile() {
+        Set<String> wanted = new TreeSet<>();
+        for (BusinessFieldIndex index : businessFieldIndexRepository.findAll()) {
+            ColumnMapping mapping = columnMappingService
+                    .getDocumentMappings(index.getProcessDefinitionKey(), index.getDocumentType(),
+                            List.of(index.getFieldName()))
+                    .get(index.getFieldName());
+            if (mapping == null || mapping.isOverflow()) {
+                // Kept on record so the index returns once the field has a column again
+                log.warn("Indexed field '{}' of {} (type: {}) has no column, skipping",
+                        index.getFieldName(), index.getProcessDefinitionKey(), index.getDocumentType());
+                continue;
+            }
+            if (!mapping.getColumnName().equals(index.getColumnName())) {
+                log.info("Indexed field '{}' moved from {} to {}", index.getFieldName(),
+                        index.getColumnName(), mapping.getColumnName());
+                index.setColumnName(mapping.getColumnName());
+                businessFieldIndexRepository.save(index);
+            }
+            wanted.add(mapping.getColumnName());
+        }
+
+        Set<String> existing = documentColumnIndexes.indexedColumns();
+        for (String column : wanted) {
+            if (!existing.contains(column)) {
+                documentColumnIndexes.create(column);
+            }
+        }
+        for (String column : existing) {
+            if (!wanted.contains(column)) {
+                documentColumnIndexes.drop(column);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Failed to reconcile business field indexes: {}", e.getMessage(), e);
+        }
+    }
+}
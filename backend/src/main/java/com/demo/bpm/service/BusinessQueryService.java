@@ -0,0 +1,158 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.dto.BusinessQueryRequest;
+import com.demo.bpm.dto.BusinessQueryRequest.FieldFilter;
+import com.demo.bpm.dto.BusinessQueryRequest.Operator;
+import com.demo.bpm.dto.BusinessQueryResult;
+import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.repository.DocumentQueryRepository;
+import com.demo.bpm.repository.DocumentQueryRepository.ColumnPredicate;
+import com.demo.bpm.repository.DocumentQueryRepository.KeysetRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds documents by their business fields. Field names are translated through the scope's
+ * column mappings into predicates on the physical columns, so queries can use the indexes
+ * managed by {@link BusinessIndexService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BusinessQueryService {
+
+    static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_IN_VALUES = 500;
+
+    private final ColumnMappingService columnMappingService;
+    private final DocumentQueryRepository documentQueryRepository;
+    private final BusinessTableService businessTableService;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public BusinessQueryResult query(BusinessQueryRequest request) {
+        String processDefKey = request.getProcessDefinitionKey();
+        String docType = request.getDocumentType() != null
+                ? request.getDocumentType() : BusinessTableService.DEFAULT_DOCUMENT_TYPE;
+        Set<String> fieldNames = new HashSet<>();
+        if (request.getFilters() != null) {
+            request.getFilters().forEach(filter -> fieldNames.add(filter.getField()));
+        }
+        if (request.getSortField() != null) {
+            fieldNames.add(request.getSortField());
+        }
+        Map<String, ColumnMapping> mappings = columnMappingService.getDocumentMappings(processDefKey, docType, fieldNames);
+
+        List<ColumnPredicate> predicates = new ArrayList<>();
+        if (request.getFilters() != null) {
+            for (FieldFilter filter : request.getFilters()) {
+                predicates.add(predicate(mappings, filter));
+            }
+        }
+
+        ColumnMapping sort = request.getSortField() != null ? mapping(mappings, request.getSortField()) : null;
+        KeysetRow after = request.getCursor() != null ? decodeCursor(request.getCursor(), sort) : null;
+        int limit = request.getLimit() != null ? request.getLimit() : DEFAULT_LIMIT;
+
+        // One extra row tells whether another page follows
+        List<KeysetRow> rows = documentQueryRepository.findIds(processDefKey, docType, predicates, sort,
+                request.isDescending(), after, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<KeysetRow> page = hasMore ? rows.subList(0, limit) : rows;
+
+        List<DocumentDTO> items = page.isEmpty()
+                ? new ArrayList<>()
+                : businessTableService.getDocumentsByIds(page.stream().map(KeysetRow::id).toList(),
+                        request.getGrids() != null ? request.getGrids() : Collections.emptyList());
+
+        return BusinessQueryResult.builder()
+                .items(items)
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    private ColumnPredicate predicate(Map<String, ColumnMapping> mappings, FieldFilter filter) {
+        ColumnMapping mapping = mapping(mappings, filter.getField());
+        Operator op = filter.getOp();
+        if (op == Operator.LIKE && mapping.getFieldType() != FieldType.VARCHAR) {
+            throw new IllegalArgumentException("LIKE is only supported on text fields, not '" + filter.getField() + "'");
+        }
+
+        List<Object> values = new ArrayList<>();
+        switch (op) {
+            case IS_NULL, NOT_NULL -> {
+                // No operand
+            }
+            case IN -> {
+                if (filter.getValues() == null || filter.getValues().isEmpty() || filter.getValues().size() > MAX_IN_VALUES) {
+                    throw new IllegalArgumentException("IN on '" + filter.getField() + "' needs 1 to "
+                            + MAX_IN_VALUES + " values");
+                }
+                for (Object value : filter.getValues()) {
+                    values.add(convert(mapping, value));
+                }
+            }
+            default -> values.add(convert(mapping, filter.getValue()));
+        }
+        return new ColumnPredicate(mapping, op, values);
+    }
+
+    private ColumnMapping mapping(Map<String, ColumnMapping> mappings, String fieldName) {
+        ColumnMapping mapping = mappings.get(fieldName);
+        if (mapping == null) {
+            throw new IllegalArgumentException("Unknown field: " + fieldName);
+        }
+        if (mapping.isOverflow()) {
+            throw new IllegalArgumentException("Field '" + fieldName
+                    + "' is stored in the overflow column and cannot be queried; promote it first");
+        }
+        return mapping;
+    }
+
+    private Object convert(ColumnMapping mapping, Object value) {
+        Object converted = value != null ? columnMappingService.convertValueForStorage(value, mapping.getFieldType()) : null;
+        if (converted == null) {
+            throw new IllegalArgumentException("Invalid " + mapping.getFieldType() + " value for field '"
+                    + mapping.getFieldName() + "': " + value);
+        }
+        return converted;
+    }
+
+    private String encodeCursor(KeysetRow row) {
+        Object sortValue = row.sortValue() instanceof LocalDateTime dateTime ? dateTime.toString() : row.sortValue();
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(Arrays.asList(sortValue, row.id())));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode query cursor", e);
+        }
+    }
+
+    private KeysetRow decodeCursor(String cursor, ColumnMapping sort) {
+        try {
+            List<?> parts = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), List.class);
+            Object sortValue = parts.get(0) != null && sort != null
+                    ? columnMappingService.convertValueForStorage(parts.get(0), sort.getFieldType())
+                    : null;
+            return new KeysetRow(((Number) parts.get(1)).longValue(), sortValue);
+        } catch (IOException | IllegalArgumentException | ClassCastException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
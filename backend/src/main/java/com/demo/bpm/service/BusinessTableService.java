@@ -1,21 +1,44 @@
 package com.demo.bpm.service;
 
 import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.dto.FieldPromotionResult;
 import com.demo.bpm.dto.GridRowDTO;
+import com.demo.bpm.dto.GridSaveResult;
 import com.demo.bpm.dto.ProcessConfigDTO;
 import com.demo.bpm.entity.*;
 import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.repository.*;
+import com.demo.bpm.service.ColumnMappingService.ColumnReassignment;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.service.codec.GridRowCodec;
+import com.demo.bpm.util.OverflowFields;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -25,21 +48,45 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class BusinessTableService {
+public class BusinessTableService implements MeterBinder {
 
     private final DocumentRepository documentRepository;
     private final GridRowRepository gridRowRepository;
+    private final GridRowBatchWriter gridRowBatchWriter;
+    private final DocumentProjectionReader documentProjectionReader;
+    private final OverflowColumnMigrator overflowColumnMigrator;
     private final ProcessConfigRepository processConfigRepository;
     private final ColumnMappingService columnMappingService;
+    private final FieldTypeResolver fieldTypeResolver;
+    private final MergedVariableCache mergedVariableCache;
+    private final PlatformTransactionManager transactionManager;
 
     public static final String DEFAULT_DOCUMENT_TYPE = "main";
 
+    /** Optional per-row field clients can send to keep rows matched across reordering. */
+    public static final String ROW_KEY_FIELD = GridRowCodec.ROW_KEY_FIELD;
+
+    private static final int GRID_COLUMNS_PER_TYPE = 30;
+
+    /**
+     * How {@link #saveGridRows} writes a grid: DIFF only touches changed rows,
+     * REPLACE deletes and re-inserts every row.
+     */
+    public enum GridSaveMode { DIFF, REPLACE }
+
+    @Value("${bpm.grid.save-mode:DIFF}")
+    private GridSaveMode gridSaveMode = GridSaveMode.DIFF;
+
+    private final AtomicLong gridRowsInserted = new AtomicLong();
+    private final AtomicLong gridRowsUpdated = new AtomicLong();
+    private final AtomicLong gridRowsDeleted = new AtomicLong();
+    private final AtomicLong gridRowsUnchanged = new AtomicLong();
+
     // ==================== Document Operations ====================
 
     /**
      * Save or update document data for a process instance (default type "main").
      */
-    @Transactional
     public Document saveDocument(String processInstanceId, String businessKey,
                                   String processDefKey, String processDefName,
                                   Map<String, Object> variables, String userId) {
@@ -49,14 +96,20 @@ public class BusinessTableService {
 
     /**
      * Save or update document data for a process instance with specific type.
+     * Missing column mappings are created before the write transaction is opened.
      */
-    @Transactional
     public Document saveDocument(String processInstanceId, String businessKey,
                                   String processDefKey, String processDefName,
                                   String documentType, Map<String, Object> variables, String userId) {
-
         String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        ensureDocumentMappings(processDefKey, docType, variables);
+        return inTransaction(TransactionDefinition.PROPAGATION_REQUIRED, () -> writeDocument(
+                processInstanceId, businessKey, processDefKey, processDefName, docType, variables, userId));
+    }
 
+    private Document writeDocument(String processInstanceId, String businessKey,
+                                   String processDefKey, String processDefName,
+                                   String docType, Map<String, Object> variables, String userId) {
         // Get or create document by process instance ID and type
         Document document = documentRepository.findByProcessInstanceIdAndType(processInstanceId, docType)
                 .orElseGet(() -> {
@@ -67,40 +120,75 @@ public class BusinessTableService {
                     return newDoc;
                 });
 
-        document.setBusinessKey(businessKey);
-        document.setProcessDefinitionKey(processDefKey);
-        document.setProcessDefinitionName(processDefName);
-        document.setUpdatedBy(userId);
+        boolean isNew = document.getId() == null;
+        boolean dirty = isNew;
+        if (!Objects.equals(document.getBusinessKey(), businessKey)) {
+            document.setBusinessKey(businessKey);
+            dirty = true;
+        }
+        if (!Objects.equals(document.getProcessDefinitionKey(), processDefKey)) {
+            document.setProcessDefinitionKey(processDefKey);
+            dirty = true;
+        }
+        if (!Objects.equals(document.getProcessDefinitionName(), processDefName)) {
+            document.setProcessDefinitionName(processDefName);
+            dirty = true;
+        }
 
-        // Map and set field values
+        // Map and set field values; overflow fields are collected and encoded once
+        Map<String, Object> overflow = null;
         if (variables != null) {
             for (Map.Entry<String, Object> entry : variables.entrySet()) {
                 String fieldName = entry.getKey();
                 Object value = entry.getValue();
 
-                // Skip grid data (handled separately) and null values
+                // Skip grid data (handled separately) and system variables
                 if (value instanceof List || fieldName.startsWith("_")) {
                     continue;
                 }
 
-                // Determine field type and get/create mapping
-                FieldType fieldType = columnMappingService.determineFieldType(value);
+                // Resolve the declared field type and get/create mapping
+                FieldType fieldType = fieldTypeResolver.resolveDocumentField(processDefKey, docType, fieldName, value);
                 ColumnMapping mapping = columnMappingService.getOrCreateDocumentMapping(
                         processDefKey, docType, fieldName, fieldType);
 
-                // Set value in appropriate column
-                int columnIndex = mapping.getColumnIndex();
-                Object convertedValue = columnMappingService.convertValueForStorage(value, fieldType);
+                // Store by the mapping's type, which wins over the resolved one for existing fields
+                FieldType columnType = mapping.getFieldType();
+                Object convertedValue = columnMappingService.convertValueForStorage(value, columnType);
+                // A blank optional input converts to null and clears the field
+                checkConvertible(fieldName, docType, value, convertedValue, columnType);
 
-                switch (fieldType) {
-                    case VARCHAR -> document.setVarchar(columnIndex, (String) convertedValue);
-                    case FLOAT -> document.setFloat(columnIndex, (Double) convertedValue);
-                    case DATETIME -> document.setDatetime(columnIndex, (LocalDateTime) convertedValue);
+                if (mapping.isOverflow()) {
+                    if (overflow == null) {
+                        overflow = OverflowFields.read(document.getOverflowJson());
+                    }
+                    putOverflow(overflow, fieldName, convertedValue);
+                    continue;
                 }
+
+                // Set value in appropriate column, only touching columns whose value changes
+                dirty |= writeDocumentColumn(document, columnType, mapping.getColumnIndex(), convertedValue);
+            }
+        }
+        if (overflow != null) {
+            // Encoding is canonical, so an unchanged overflow gives the same string
+            String overflowJson = OverflowFields.write(overflow);
+            if (!Objects.equals(document.getOverflowJson(), overflowJson)) {
+                document.setOverflowJson(overflowJson);
+                dirty = true;
             }
         }
 
+        if (!dirty) {
+            // Nothing changed: leave the row (and its updated_at/updated_by) untouched
+            log.debug("Document type '{}' for process instance {} is unchanged, skipping write", docType, processInstanceId);
+            return document;
+        }
+
+        // Document is @DynamicUpdate, so an existing row only gets its changed columns written
+        document.setUpdatedBy(userId);
         document = documentRepository.save(document);
+        mergedVariableCache.invalidate(processInstanceId);
         log.info("Saved document type '{}' for process instance: {}", docType, processInstanceId);
 
         return document;
@@ -111,18 +199,143 @@ public class BusinessTableService {
      */
     @Transactional(readOnly = true)
     public Page<DocumentDTO> getDocumentsByProcessInstanceId(String processInstanceId, Pageable pageable) {
-        return documentRepository.findByProcessInstanceId(processInstanceId, pageable)
-                .map(this::convertToDTO);
+        Page<Long> ids = documentRepository.findIdsByProcessInstanceId(processInstanceId, pageable);
+        return new PageImpl<>(readDocuments(documentProjectionReader.findByIds(ids.getContent()), null),
+                pageable, ids.getTotalElements());
     }
 
     /**
-     * Get specific document by process instance ID and type.
+     * Get specific document by process instance ID and type, including all of its grids.
      */
     @Transactional(readOnly = true)
     public Optional<DocumentDTO> getDocument(String processInstanceId, String documentType) {
+        return getDocument(processInstanceId, documentType, null);
+    }
+
+    /**
+     * Get specific document by process instance ID and type. Only the mapped columns are read.
+     *
+     * @param gridNames grids to load; {@code null} loads all grids, an empty collection none
+     */
+    @Transactional(readOnly = true)
+    public Optional<DocumentDTO> getDocument(String processInstanceId, String documentType,
+                                             Collection<String> gridNames) {
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        return readDocuments(documentProjectionReader.findByProcessInstanceIdsAndType(
+                List.of(processInstanceId), docType), gridNames).stream().findFirst();
+    }
+
+    /**
+     * Get documents of one type for many process instances, keyed by process instance ID.
+     * Documents and grid rows are loaded with one query each and column mappings once per
+     * mapping scope, so the number of round trips does not grow with the number of instances.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, DocumentDTO> getDocuments(Collection<String> processInstanceIds, String documentType) {
+        return getDocuments(processInstanceIds, documentType, null);
+    }
+
+    /**
+     * Batch variant of {@link #getDocument(String, String, Collection)}.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, DocumentDTO> getDocuments(Collection<String> processInstanceIds, String documentType,
+                                                 Collection<String> gridNames) {
+        if (processInstanceIds == null || processInstanceIds.isEmpty()) {
+            return new HashMap<>();
+        }
         String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
-        return documentRepository.findByProcessInstanceIdAndType(processInstanceId, docType)
-                .map(this::convertToDTO);
+
+        Map<String, DocumentDTO> result = new HashMap<>();
+        for (DocumentDTO dto : readDocuments(
+                documentProjectionReader.findByProcessInstanceIdsAndType(processInstanceIds, docType), gridNames)) {
+            result.put(dto.getProcessInstanceId(), dto);
+        }
+        return result;
+    }
+
+    /**
+     * Get selected top-level fields of one document type for many process instances,
+     * keyed by process instance ID. Grid rows are never loaded and only the mapped columns
+     * of the requested fields are read from each document.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, Object>> getDocumentFields(Collection<String> processInstanceIds,
+                                                               String documentType,
+                                                               Collection<String> fieldNames) {
+        if (processInstanceIds == null || processInstanceIds.isEmpty() || fieldNames == null || fieldNames.isEmpty()) {
+            return new HashMap<>();
+        }
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        Set<String> wanted = new HashSet<>(fieldNames);
+
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        List<Document> documents = documentProjectionReader.findByProcessInstanceIdsAndType(processInstanceIds, docType);
+        for (Map.Entry<String, List<Document>> scope : groupByScope(documents).entrySet()) {
+            Document first = scope.getValue().get(0);
+            List<ColumnMapping> mappings = columnMappingService
+                    .getDocumentMappings(first.getProcessDefinitionKey(), first.getType()).values().stream()
+                    .filter(mapping -> wanted.contains(mapping.getFieldName()))
+                    .collect(Collectors.toList());
+            documentProjectionReader.loadColumns(mappings, scope.getValue());
+
+            for (Document document : scope.getValue()) {
+                Map<String, Object> fields = new HashMap<>();
+                Map<String, Object> overflow = OverflowFields.read(document.getOverflowJson());
+                for (ColumnMapping mapping : mappings) {
+                    Object value = readDocumentColumn(document, mapping, overflow);
+                    if (value != null) {
+                        fields.put(mapping.getFieldName(), value);
+                    }
+                }
+                result.put(document.getProcessInstanceId(), fields);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get selected fields and grids of one document. Only the mapped columns of the requested
+     * names are read, and grid rows are only queried for names that are declared or mapped grids
+     * of the document type; other names (e.g. process variables) cost no query.
+     *
+     * @return the document holding just the requested values, or empty if there is no document
+     */
+    @Transactional(readOnly = true)
+    public Optional<DocumentDTO> getDocumentValues(String processInstanceId, String documentType,
+                                                   Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Optional.empty();
+        }
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        List<Document> documents = documentProjectionReader.findByProcessInstanceIdsAndType(
+                List.of(processInstanceId), docType);
+        if (documents.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Document document = documents.get(0);
+        String processDefKey = document.getProcessDefinitionKey();
+        Map<String, ColumnMapping> allMappings = columnMappingService.getDocumentMappings(processDefKey, document.getType());
+        Map<String, Map<String, FieldType>> declaredGrids = fieldTypeResolver.declaredGridFields(processDefKey, document.getType());
+        Map<String, ColumnMapping> mappings = new HashMap<>();
+        List<String> gridNames = new ArrayList<>();
+        for (String name : new HashSet<>(names)) {
+            ColumnMapping mapping = allMappings.get(name);
+            if (mapping != null) {
+                mappings.put(name, mapping);
+            } else if (declaredGrids.containsKey(name)
+                    // Grids saved without a declaration are only known by their mappings
+                    || !columnMappingService.getGridMappings(processDefKey, document.getType(), name).isEmpty()) {
+                gridNames.add(name);
+            }
+        }
+        documentProjectionReader.loadColumns(mappings.values(), documents);
+
+        List<GridRow> rows = loadGridRows(List.of(document.getId()), gridNames)
+                .getOrDefault(document.getId(), Collections.emptyList());
+        return Optional.of(convertToDTO(document, mappings, rows,
+                gridName -> columnMappingService.getGridMappings(processDefKey, document.getType(), gridName)));
     }
 
     /**
@@ -141,8 +354,8 @@ public class BusinessTableService {
     @Transactional(readOnly = true)
     public Optional<DocumentDTO> getDocumentByBusinessKey(String businessKey, String documentType) {
         String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
-        return documentRepository.findByBusinessKeyAndType(businessKey, docType)
-                .map(this::convertToDTO);
+        return readDocuments(documentProjectionReader.findByBusinessKeyAndType(businessKey, docType), null)
+                .stream().findFirst();
     }
 
     /**
@@ -150,8 +363,72 @@ public class BusinessTableService {
      */
     @Transactional(readOnly = true)
     public Page<DocumentDTO> getDocumentsByBusinessKey(String businessKey, Pageable pageable) {
-        return documentRepository.findByBusinessKey(businessKey, pageable)
-                .map(this::convertToDTO);
+        Page<Long> ids = documentRepository.findIdsByBusinessKey(businessKey, pageable);
+        return new PageImpl<>(readDocuments(documentProjectionReader.findByIds(ids.getContent()), null),
+                pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Get documents by id, in the order of the given ids. Only the mapped columns are read.
+     *
+     * @param gridNames grids to load; {@code null} loads all grids, an empty collection none
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentDTO> getDocumentsByIds(List<Long> ids, Collection<String> gridNames) {
+        return readDocuments(documentProjectionReader.findByIds(ids), gridNames);
+    }
+
+    /**
+     * Turn document headers into DTOs: reads the mapped columns once per mapping scope and the
+     * requested grids of all documents in one query. Keeps the order of {@code documents}.
+     */
+    private List<DocumentDTO> readDocuments(List<Document> documents, Collection<String> gridNames) {
+        if (documents.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Map<String, ColumnMapping>> documentMappingsByScope = new HashMap<>();
+        for (Map.Entry<String, List<Document>> scope : groupByScope(documents).entrySet()) {
+            Document first = scope.getValue().get(0);
+            Map<String, ColumnMapping> mappings = columnMappingService.getDocumentMappings(
+                    first.getProcessDefinitionKey(), first.getType());
+            documentProjectionReader.loadColumns(mappings.values(), scope.getValue());
+            documentMappingsByScope.put(scope.getKey(), mappings);
+        }
+
+        Map<Long, List<GridRow>> rowsByDocument = loadGridRows(
+                documents.stream().map(Document::getId).collect(Collectors.toList()), gridNames);
+
+        // Grid mappings are shared by every document of the same scope
+        Map<String, Map<String, ColumnMapping>> gridMappingsByScope = new HashMap<>();
+        List<DocumentDTO> result = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            String processDefKey = document.getProcessDefinitionKey();
+            String docType = document.getType();
+            result.add(convertToDTO(document, documentMappingsByScope.get(scopeKey(document)),
+                    rowsByDocument.getOrDefault(document.getId(), Collections.emptyList()),
+                    gridName -> gridMappingsByScope.computeIfAbsent(processDefKey + "|" + docType + "|" + gridName,
+                            key -> columnMappingService.getGridMappings(processDefKey, docType, gridName))));
+        }
+        return result;
+    }
+
+    private Map<Long, List<GridRow>> loadGridRows(List<Long> documentIds, Collection<String> gridNames) {
+        if (gridNames != null && gridNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<GridRow> rows = gridNames == null
+                ? gridRowRepository.findByDocumentIdInOrderByGridNameAscRowIndexAsc(documentIds)
+                : gridRowRepository.findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(documentIds, gridNames);
+        return rows.stream().collect(Collectors.groupingBy(row -> row.getDocument().getId()));
+    }
+
+    private Map<String, List<Document>> groupByScope(List<Document> documents) {
+        return documents.stream().collect(Collectors.groupingBy(this::scopeKey, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private String scopeKey(Document document) {
+        return document.getProcessDefinitionKey() + "|" + document.getType();
     }
 
     // ==================== Grid Row Operations ====================
@@ -160,77 +437,309 @@ public class BusinessTableService {
      * Save grid rows for a document (default type "main").
      * Replaces existing rows for the specified grid.
      */
-    @Transactional
-    public List<GridRow> saveGridRows(String processInstanceId, String processDefKey,
+    public GridSaveResult saveGridRows(String processInstanceId, String processDefKey,
                                        String gridName, List<Map<String, Object>> rows) {
         return saveGridRows(processInstanceId, processDefKey, DEFAULT_DOCUMENT_TYPE, gridName, rows);
     }
 
     /**
      * Save grid rows for a document with specific type.
-     * Replaces existing rows for the specified grid.
+     * Replaces the stored content of the specified grid with the given rows. In DIFF mode (the default,
+     * see {@code bpm.grid.save-mode}) incoming rows are matched to stored rows by their optional
+     * {@code _rowKey} field, falling back to row index, and only changed rows are written.
+     * In REPLACE mode all rows are deleted and re-inserted.
+     * Missing column mappings are created before the write transaction is opened.
      */
-    @Transactional
-    public List<GridRow> saveGridRows(String processInstanceId, String processDefKey,
+    public GridSaveResult saveGridRows(String processInstanceId, String processDefKey,
                                        String documentType, String gridName,
                                        List<Map<String, Object>> rows) {
-
         String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        ensureGridMappings(processDefKey, docType, gridName, rows);
+        return inTransaction(TransactionDefinition.PROPAGATION_REQUIRED,
+                () -> writeGridRows(processInstanceId, processDefKey, docType, gridName, rows));
+    }
 
+    private GridSaveResult writeGridRows(String processInstanceId, String processDefKey,
+                                         String docType, String gridName, List<Map<String, Object>> rows) {
         // Get document by type
         Document document = documentRepository.findByProcessInstanceIdAndType(processInstanceId, docType)
                 .orElseThrow(() -> new IllegalArgumentException(
                         "Document type '" + docType + "' not found for process instance: " + processInstanceId));
 
-        // Delete existing rows for this grid
-        gridRowRepository.deleteByDocumentIdAndGridName(document.getId(), gridName);
+        List<GridRow> incoming = new ArrayList<>(rows != null ? rows.size() : 0);
+        if (rows != null) {
+            for (int i = 0; i < rows.size(); i++) {
+                incoming.add(buildGridRow(document, processDefKey, docType, gridName, i, rows.get(i)));
+            }
+        }
+        return applyGridRows(document, gridName, incoming);
+    }
+
+    /**
+     * Streaming variant of {@link #saveGridRows(String, String, String, String, List)}: reads a JSON
+     * array of row objects from {@code parser} without materialising a map per row. The rows are not
+     * known up front, so mappings of the grid's declared fields are created before the write
+     * transaction is opened and any other field must already be mapped; an unmapped field is rejected
+     * rather than mapped on a second connection mid-write.
+     */
+    public GridSaveResult importGridRows(String processInstanceId, String processDefKey,
+                                         String documentType, String gridName,
+                                         JsonParser parser) throws IOException {
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        Map<String, FieldType> declared = fieldTypeResolver.declaredGridFields(processDefKey, docType)
+                .getOrDefault(gridName, Map.of());
+        if (!declared.isEmpty()) {
+            columnMappingService.ensureGridMappings(processDefKey, docType, gridName, declared);
+        }
+        Set<String> mapped = columnMappingService.getGridMappings(processDefKey, docType, gridName).keySet();
+        try {
+            return inTransaction(TransactionDefinition.PROPAGATION_REQUIRED, () -> {
+                try {
+                    return streamGridRows(processInstanceId, processDefKey, docType, gridName, mapped, parser);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private GridSaveResult streamGridRows(String processInstanceId, String processDefKey,
+                                          String docType, String gridName, Set<String> mapped,
+                                          JsonParser parser) throws IOException {
+        Document document = documentRepository.findByProcessInstanceIdAndType(processInstanceId, docType)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Document type '" + docType + "' not found for process instance: " + processInstanceId));
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Grid rows must be a JSON array");
+        }
+        List<GridRow> incoming = new ArrayList<>();
+        for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+            if (element != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException(element == null
+                        ? "Grid rows array is not terminated"
+                        : "Grid row " + incoming.size() + " must be a JSON object, found " + element);
+            }
+            GridRow gridRow = newGridRow(document, gridName, incoming.size());
+            Map<String, Object> overflow = new TreeMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    // Nested values cannot be stored in a grid cell
+                    parser.skipChildren();
+                    continue;
+                }
+                Object value = switch (token) {
+                    case VALUE_STRING -> parser.getText();
+                    case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+                    case VALUE_TRUE -> Boolean.TRUE;
+                    case VALUE_FALSE -> Boolean.FALSE;
+                    default -> null;
+                };
+                if (ROW_KEY_FIELD.equals(fieldName)) {
+                    gridRow.setRowKey(value != null ? value.toString() : null);
+                } else if (value != null && !fieldName.startsWith("_") && !mapped.contains(fieldName)) {
+                    throw new IllegalArgumentException("Grid field '" + gridName + "." + fieldName
+                            + "' is not declared for document type '" + docType + "' and has no column mapping yet");
+                } else {
+                    applyGridField(gridRow, processDefKey, docType, gridName, fieldName, value, overflow);
+                }
+            }
+            gridRow.setOverflowJson(OverflowFields.write(overflow));
+            incoming.add(gridRow);
+        }
+        if (parser.nextToken() != null) {
+            throw new IllegalArgumentException("Unexpected content after the grid rows array");
+        }
+        return applyGridRows(document, gridName, incoming);
+    }
 
-        if (rows == null || rows.isEmpty()) {
-            return Collections.emptyList();
+    private GridSaveResult applyGridRows(Document document, String gridName, List<GridRow> incoming) {
+        Set<String> rowKeys = new HashSet<>();
+        for (GridRow row : incoming) {
+            if (row.getRowKey() != null && !rowKeys.add(row.getRowKey())) {
+                throw new IllegalArgumentException(
+                        "Duplicate " + ROW_KEY_FIELD + " '" + row.getRowKey() + "' in grid '" + gridName + "'");
+            }
         }
 
-        List<GridRow> savedRows = new ArrayList<>();
+        GridSaveResult result = gridSaveMode == GridSaveMode.REPLACE
+                ? replaceGridRows(document, gridName, incoming)
+                : mergeGridRows(document, gridName, incoming);
 
-        for (int i = 0; i < rows.size(); i++) {
-            Map<String, Object> rowData = rows.get(i);
+        gridRowsInserted.addAndGet(result.getInserted());
+        gridRowsUpdated.addAndGet(result.getUpdated());
+        gridRowsDeleted.addAndGet(result.getDeleted());
+        gridRowsUnchanged.addAndGet(result.getUnchanged());
+        if (result.getInserted() + result.getUpdated() + result.getDeleted() > 0) {
+            mergedVariableCache.invalidate(document.getProcessInstanceId());
+        }
 
-            GridRow gridRow = new GridRow();
-            gridRow.setDocument(document);
-            gridRow.setProcessInstanceId(processInstanceId);
-            gridRow.setGridName(gridName);
-            gridRow.setRowIndex(i);
+        log.info("Saved grid '{}' in document type '{}' for process {}: {} inserted, {} updated, {} deleted, {} unchanged",
+                gridName, document.getType(), document.getProcessInstanceId(),
+                result.getInserted(), result.getUpdated(), result.getDeleted(), result.getUnchanged());
+        return result;
+    }
 
-            // Map each field in the row
-            for (Map.Entry<String, Object> entry : rowData.entrySet()) {
-                String fieldName = entry.getKey();
-                Object value = entry.getValue();
+    private GridRow buildGridRow(Document document, String processDefKey, String docType, String gridName,
+                                 int rowIndex, Map<String, Object> rowData) {
+        GridRow gridRow = newGridRow(document, gridName, rowIndex);
 
-                if (value == null || fieldName.startsWith("_")) {
-                    continue;
-                }
+        Object rowKey = rowData.get(ROW_KEY_FIELD);
+        if (rowKey != null) {
+            gridRow.setRowKey(rowKey.toString());
+        }
 
-                // Determine field type and get/create mapping
-                FieldType fieldType = columnMappingService.determineFieldType(value);
-                ColumnMapping mapping = columnMappingService.getOrCreateGridMapping(
-                        processDefKey, docType, gridName, fieldName, fieldType);
+        // Map each field in the row
+        Map<String, Object> overflow = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : rowData.entrySet()) {
+            applyGridField(gridRow, processDefKey, docType, gridName, entry.getKey(), entry.getValue(), overflow);
+        }
+        gridRow.setOverflowJson(OverflowFields.write(overflow));
+        return gridRow;
+    }
 
-                // Set value in appropriate column
-                int columnIndex = mapping.getColumnIndex();
-                Object convertedValue = columnMappingService.convertValueForStorage(value, fieldType);
+    private GridRow newGridRow(Document document, String gridName, int rowIndex) {
+        GridRow gridRow = new GridRow();
+        gridRow.setDocument(document);
+        gridRow.setProcessInstanceId(document.getProcessInstanceId());
+        gridRow.setGridName(gridName);
+        gridRow.setRowIndex(rowIndex);
+        return gridRow;
+    }
 
-                switch (fieldType) {
-                    case VARCHAR -> gridRow.setVarchar(columnIndex, (String) convertedValue);
-                    case FLOAT -> gridRow.setFloat(columnIndex, (Double) convertedValue);
-                    case DATETIME -> gridRow.setDatetime(columnIndex, (LocalDateTime) convertedValue);
-                }
+    /**
+     * Set one field of a row being built; overflow fields are collected in {@code overflow}
+     * and encoded by the caller once the row is complete.
+     */
+    private void applyGridField(GridRow gridRow, String processDefKey, String docType, String gridName,
+                                String fieldName, Object value, Map<String, Object> overflow) {
+        if (value == null || fieldName.startsWith("_")) {
+            return;
+        }
+
+        // Resolve the declared field type and get/create mapping
+        FieldType fieldType = fieldTypeResolver.resolveGridField(processDefKey, docType, gridName, fieldName, value);
+        ColumnMapping mapping = columnMappingService.getOrCreateGridMapping(
+                processDefKey, docType, gridName, fieldName, fieldType);
+
+        // Store by the mapping's type, which wins over the resolved one for existing fields
+        FieldType columnType = mapping.getFieldType();
+        int columnIndex = mapping.getColumnIndex();
+        Object convertedValue = columnMappingService.convertValueForStorage(value, columnType);
+        checkConvertible(gridName + "." + fieldName, docType, value, convertedValue, columnType);
+        if (convertedValue == null) {
+            // Blank input: the cell stays empty
+            return;
+        }
+        if (mapping.isOverflow()) {
+            putOverflow(overflow, fieldName, convertedValue);
+            return;
+        }
+
+        switch (columnType) {
+            case VARCHAR -> gridRow.setVarchar(columnIndex, (String) convertedValue);
+            case FLOAT -> gridRow.setFloat(columnIndex, (Double) convertedValue);
+            case DATETIME -> gridRow.setDatetime(columnIndex, (LocalDateTime) convertedValue);
+        }
+    }
+
+    private GridSaveResult replaceGridRows(Document document, String gridName, List<GridRow> incoming) {
+        int deleted = gridRowRepository.deleteByDocumentIdAndGridName(document.getId(), gridName);
+        int inserted = gridRowBatchWriter.insertAll(document.getId(), incoming);
+        return GridSaveResult.builder()
+                .gridName(gridName)
+                .inserted(inserted)
+                .deleted(deleted)
+                .build();
+    }
+
+    /**
+     * Write only the difference between the stored rows and the incoming ones: changed rows are
+     * updated in place (only their changed columns, via {@code @DynamicUpdate}), new rows are batch
+     * inserted and stored rows without a counterpart are deleted.
+     */
+    private GridSaveResult mergeGridRows(Document document, String gridName, List<GridRow> incoming) {
+        List<GridRow> stored = gridRowRepository.findByDocumentIdAndGridNameOrderByRowIndexAsc(document.getId(), gridName);
+
+        // Queues, so rows stored under the same key before duplicates were rejected are still
+        // either matched or deleted
+        Map<String, Deque<GridRow>> storedByKey = new HashMap<>();
+        Map<Integer, GridRow> storedByIndex = new HashMap<>();
+        for (GridRow row : stored) {
+            if (row.getRowKey() != null) {
+                storedByKey.computeIfAbsent(row.getRowKey(), key -> new ArrayDeque<>()).add(row);
+            } else {
+                storedByIndex.put(row.getRowIndex(), row);
+            }
+        }
+
+        List<GridRow> toInsert = new ArrayList<>();
+        int updated = 0;
+        int unchanged = 0;
+        for (GridRow row : incoming) {
+            Deque<GridRow> keyed = row.getRowKey() != null ? storedByKey.get(row.getRowKey()) : null;
+            GridRow match = keyed != null ? keyed.poll() : null;
+            if (match == null) {
+                // Rows saved before the client sent keys are still matched by position
+                match = storedByIndex.remove(row.getRowIndex());
             }
 
-            savedRows.add(gridRowRepository.save(gridRow));
+            if (match == null) {
+                toInsert.add(row);
+            } else if (sameGridRowContent(match, row)) {
+                unchanged++;
+            } else {
+                copyGridRowContent(row, match);
+                updated++;
+            }
         }
 
-        log.info("Saved {} rows for grid '{}' in document type '{}' for process {}",
-                savedRows.size(), gridName, docType, processInstanceId);
-        return savedRows;
+        List<Long> toDelete = new ArrayList<>();
+        storedByKey.values().forEach(rows -> rows.forEach(row -> toDelete.add(row.getId())));
+        storedByIndex.values().forEach(row -> toDelete.add(row.getId()));
+        if (!toDelete.isEmpty()) {
+            gridRowRepository.deleteAllByIdInBatch(toDelete);
+        }
+        gridRowBatchWriter.insertAll(document.getId(), toInsert);
+
+        return GridSaveResult.builder()
+                .gridName(gridName)
+                .inserted(toInsert.size())
+                .updated(updated)
+                .deleted(toDelete.size())
+                .unchanged(unchanged)
+                .build();
+    }
+
+    private boolean sameGridRowContent(GridRow stored, GridRow incoming) {
+        if (!Objects.equals(stored.getRowIndex(), incoming.getRowIndex())
+                || !Objects.equals(stored.getRowKey(), incoming.getRowKey())
+                || !Objects.equals(stored.getOverflowJson(), incoming.getOverflowJson())) {
+            return false;
+        }
+        for (int i = 1; i <= GRID_COLUMNS_PER_TYPE; i++) {
+            if (!Objects.equals(stored.getVarchar(i), incoming.getVarchar(i))
+                    || !Objects.equals(stored.getFloat(i), incoming.getFloat(i))
+                    || !Objects.equals(stored.getDatetime(i), incoming.getDatetime(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void copyGridRowContent(GridRow source, GridRow target) {
+        target.setRowIndex(source.getRowIndex());
+        target.setRowKey(source.getRowKey());
+        target.setOverflowJson(source.getOverflowJson());
+        for (int i = 1; i <= GRID_COLUMNS_PER_TYPE; i++) {
+            target.setVarchar(i, source.getVarchar(i));
+            target.setFloat(i, source.getFloat(i));
+            target.setDatetime(i, source.getDatetime(i));
+        }
     }
 
     /**
@@ -258,9 +767,49 @@ public class BusinessTableService {
                 document.getId(), gridName, pageable);
 
         String processDefKey = document.getProcessDefinitionKey();
-        Map<String, ColumnMapping> mappings = columnMappingService.getGridMappings(processDefKey, docType, gridName);
+        GridRowCodec codec = GridRowCodec.of(
+                columnMappingService.getGridMappings(processDefKey, docType, gridName).values());
+
+        return rows.map(row -> convertGridRowToDTO(row, codec));
+    }
+
+    /**
+     * A grid resolved for streaming: the document holding it and the codec for its column mappings.
+     */
+    public record GridRowExport(Long documentId, String gridName, GridRowCodec codec) {
+    }
+
+    /**
+     * Resolve the document and grid mappings of a grid before its rows are streamed, so a missing
+     * document is reported while the response status can still be set.
+     *
+     * @throws ResourceNotFoundException if the process instance has no document of this type
+     */
+    @Transactional(readOnly = true)
+    public GridRowExport prepareGridRowExport(String processInstanceId, String documentType, String gridName) {
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+
+        List<Document> documents = documentProjectionReader.findByProcessInstanceIdsAndType(
+                List.of(processInstanceId), docType);
+        if (documents.isEmpty()) {
+            throw new ResourceNotFoundException(
+                    "Document type '" + docType + "' not found for process instance: " + processInstanceId);
+        }
+        Document document = documents.get(0);
+
+        GridRowCodec codec = GridRowCodec.of(columnMappingService.getGridMappings(
+                document.getProcessDefinitionKey(), docType, gridName).values());
+        return new GridRowExport(document.getId(), gridName, codec);
+    }
 
-        return rows.map(row -> convertGridRowToDTO(row, mappings));
+    /**
+     * Stream all rows of a prepared grid to {@code gen} as a JSON array of field objects, in row order.
+     * Rows are encoded directly from their columns, without an intermediate map per row.
+     */
+    @Transactional(readOnly = true)
+    public void exportGridRows(GridRowExport export, JsonGenerator gen) throws IOException {
+        export.codec().writeAll(gridRowRepository.findByDocumentIdAndGridNameOrderByRowIndexAsc(
+                export.documentId(), export.gridName()), gen);
     }
 
     /**
@@ -274,11 +823,50 @@ public class BusinessTableService {
                 .orElse(null);
         if (document != null) {
             gridRowRepository.deleteByDocumentIdAndGridName(document.getId(), gridName);
+            mergedVariableCache.invalidate(processInstanceId);
             log.info("Deleted grid '{}' rows from document type '{}' for process {}",
                     gridName, docType, processInstanceId);
         }
     }
 
+    // ==================== Overflow Promotion ====================
+
+    /**
+     * Promote a field of a document type from the overflow JSON into a typed column and move its
+     * stored values there. With {@code demoteFieldName}, that field's column is reused and its values
+     * move to the overflow JSON. Saves that run concurrently with a promotion may be overwritten, so
+     * this is meant for quiet periods.
+     *
+     * @param gridName grid of the field, or {@code null} for a document field
+     */
+    @Transactional
+    public FieldPromotionResult promoteField(String processDefKey, String documentType, String gridName,
+                                             String fieldName, String demoteFieldName) {
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+
+        List<ColumnReassignment> changes = gridName == null
+                ? columnMappingService.promoteDocumentField(processDefKey, docType, fieldName, demoteFieldName)
+                : columnMappingService.promoteGridField(processDefKey, docType, gridName, fieldName, demoteFieldName);
+        ColumnMapping promoted = changes.get(0).mapping();
+        String demoted = changes.size() > 1 ? changes.get(1).mapping().getFieldName() : null;
+
+        int migrated = gridName == null
+                ? overflowColumnMigrator.migrateDocuments(processDefKey, docType, promoted.getFieldType(),
+                        promoted.getColumnIndex(), fieldName, demoted)
+                : overflowColumnMigrator.migrateGridRows(processDefKey, docType, gridName, promoted.getFieldType(),
+                        promoted.getColumnIndex(), fieldName, demoted);
+
+        return FieldPromotionResult.builder()
+                .processDefinitionKey(processDefKey)
+                .documentType(docType)
+                .gridName(gridName)
+                .fieldName(fieldName)
+                .columnName(promoted.getColumnName())
+                .demotedFieldName(demoted)
+                .rowsMigrated(migrated)
+                .build();
+    }
+
     // ==================== Process Config Operations ====================
 
     /**
@@ -292,6 +880,7 @@ public class BusinessTableService {
                             .processDefinitionKey(processDefKey)
                             .persistOnTaskComplete(true)
                             .persistOnProcessComplete(true)
+                            .asyncPersistence(false)
                             .build();
                     return processConfigRepository.save(config);
                 });
@@ -302,6 +891,15 @@ public class BusinessTableService {
      */
     @Transactional
     public ProcessConfig updateProcessConfig(String processDefKey, Boolean persistOnTask, Boolean persistOnProcess) {
+        return updateProcessConfig(processDefKey, persistOnTask, persistOnProcess, null);
+    }
+
+    /**
+     * Update process configuration, including the asynchronous persistence mode.
+     */
+    @Transactional
+    public ProcessConfig updateProcessConfig(String processDefKey, Boolean persistOnTask, Boolean persistOnProcess,
+                                             Boolean asyncPersistence) {
         ProcessConfig config = getOrCreateProcessConfig(processDefKey);
 
         if (persistOnTask != null) {
@@ -310,6 +908,9 @@ public class BusinessTableService {
         if (persistOnProcess != null) {
             config.setPersistOnProcessComplete(persistOnProcess);
         }
+        if (asyncPersistence != null) {
+            config.setAsyncPersistence(asyncPersistence);
+        }
 
         return processConfigRepository.save(config);
     }
@@ -341,7 +942,6 @@ public class BusinessTableService {
      * Uses REQUIRES_NEW propagation to run in a separate transaction,
      * preventing rollback-only issues when called from other transactional methods.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void saveAllData(String processInstanceId, String businessKey,
                             String processDefKey, String processDefName,
                             Map<String, Object> variables, String userId) {
@@ -352,11 +952,26 @@ public class BusinessTableService {
      * Save all data (document + grids) for a process instance with specific type.
      * Uses REQUIRES_NEW propagation to run in a separate transaction,
      * preventing rollback-only issues when called from other transactional methods.
+     * Missing column mappings are created first, before that transaction holds a connection.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void saveAllData(String processInstanceId, String businessKey,
                             String processDefKey, String processDefName,
                             String documentType, Map<String, Object> variables, String userId) {
+        saveAllData(processInstanceId, businessKey, processDefKey, processDefName, documentType, variables, userId,
+                () -> true);
+    }
+
+    /**
+     * Fenced variant of {@link #saveAllData(String, String, String, String, String, Map, String)}:
+     * {@code fence} runs first inside the write transaction, and nothing is written unless it returns
+     * true. Locks it takes are held until the data is committed.
+     *
+     * @return whether the data was written
+     */
+    public boolean saveAllData(String processInstanceId, String businessKey,
+                               String processDefKey, String processDefName,
+                               String documentType, Map<String, Object> variables, String userId,
+                               BooleanSupplier fence) {
 
         if (processInstanceId == null || processInstanceId.isBlank()) {
             throw new IllegalArgumentException("processInstanceId is required for saving business data");
@@ -391,59 +1006,180 @@ public class BusinessTableService {
             }
         }
 
-        // Save document first
-        saveDocument(processInstanceId, businessKey, processDefKey, processDefName, docType, documentVars, userId);
+        ensureDocumentMappings(processDefKey, docType, documentVars);
+        grids.forEach((gridName, rows) -> ensureGridMappings(processDefKey, docType, gridName, rows));
+
+        return inTransaction(TransactionDefinition.PROPAGATION_REQUIRES_NEW, () -> {
+            if (!fence.getAsBoolean()) {
+                return false;
+            }
+
+            // Save document first
+            writeDocument(processInstanceId, businessKey, processDefKey, processDefName, docType, documentVars, userId);
+
+            // Save grid data
+            for (Map.Entry<String, List<Map<String, Object>>> entry : grids.entrySet()) {
+                writeGridRows(processInstanceId, processDefKey, docType, entry.getKey(), entry.getValue());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Check that every business field of {@code variables} can be stored in its column, without
+     * writing anything. Task completion runs this before completing the task in Flowable, as the
+     * business fields are kept only in the business tables and a save failing afterwards would
+     * lose them. A field without a mapping yet is checked against the type it would be mapped as.
+     *
+     * @throws IllegalArgumentException naming the first field whose value cannot be stored
+     */
+    public void validateStorableValues(String processDefKey, String documentType, Map<String, Object> variables) {
+        if (processDefKey == null || variables == null) {
+            return;
+        }
+        String docType = documentType != null ? documentType : DEFAULT_DOCUMENT_TYPE;
+        Map<String, ColumnMapping> documentMappings = columnMappingService.getDocumentMappings(processDefKey, docType);
+
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            String fieldName = entry.getKey();
+            Object value = entry.getValue();
+            if (fieldName.startsWith("_")) {
+                continue;
+            }
+            if (value instanceof List<?> listValue) {
+                if (!listValue.isEmpty() && listValue.get(0) instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    List<Map<String, Object>> rows = (List<Map<String, Object>>) listValue;
+                    validateGridValues(processDefKey, docType, fieldName, rows);
+                }
+                continue;
+            }
+            ColumnMapping mapping = documentMappings.get(fieldName);
+            FieldType columnType = mapping != null
+                    ? mapping.getFieldType()
+                    : fieldTypeResolver.resolveDocumentField(processDefKey, docType, fieldName, value);
+            checkConvertible(fieldName, docType, value, columnMappingService.convertValueForStorage(value, columnType), columnType);
+        }
+    }
+
+    private void validateGridValues(String processDefKey, String docType, String gridName,
+                                    List<Map<String, Object>> rows) {
+        // Unmapped fields take the type of their first non-null value, as in ensureGridMappings
+        Map<String, FieldType> columnTypes = new HashMap<>();
+        columnMappingService.getGridMappings(processDefKey, docType, gridName)
+                .forEach((fieldName, mapping) -> columnTypes.put(fieldName, mapping.getFieldType()));
+
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                String fieldName = entry.getKey();
+                Object value = entry.getValue();
+                if (value == null || fieldName.startsWith("_")) {
+                    continue;
+                }
+                FieldType columnType = columnTypes.computeIfAbsent(fieldName,
+                        name -> fieldTypeResolver.resolveGridField(processDefKey, docType, gridName, name, value));
+                checkConvertible(gridName + "." + fieldName, docType, value,
+                        columnMappingService.convertValueForStorage(value, columnType), columnType);
+            }
+        }
+    }
 
-        // Save grid data
-        for (Map.Entry<String, List<Map<String, Object>>> entry : grids.entrySet()) {
-            saveGridRows(processInstanceId, processDefKey, docType, entry.getKey(), entry.getValue());
+    /**
+     * Reject a value that did not convert to its column type. Blank strings are let through:
+     * they convert to null, which clears the field.
+     */
+    private static void checkConvertible(String fieldName, String docType, Object value, Object convertedValue,
+                                         FieldType columnType) {
+        if (value != null && convertedValue == null && !(value instanceof String text && text.isBlank())) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' of document type '" + docType
+                    + "' cannot be stored as " + columnType + ": " + value);
+        }
+    }
+
+    // ==================== Mapping Preparation ====================
+
+    /**
+     * Create the mappings of document fields that have none yet. Runs before the write transaction:
+     * a new mapping is committed on a connection of its own, and a save already holding one while
+     * waiting for another could exhaust the pool once enough first saves run at the same time.
+     */
+    private void ensureDocumentMappings(String processDefKey, String docType, Map<String, Object> variables) {
+        if (variables == null) {
+            return;
+        }
+        Map<String, FieldType> fields = new HashMap<>();
+        for (Map.Entry<String, Object> entry : variables.entrySet()) {
+            String fieldName = entry.getKey();
+            if (entry.getValue() instanceof List || fieldName.startsWith("_")) {
+                continue;
+            }
+            fields.put(fieldName, fieldTypeResolver.resolveDocumentField(processDefKey, docType, fieldName, entry.getValue()));
+        }
+        if (!fields.isEmpty()) {
+            columnMappingService.ensureDocumentMappings(processDefKey, docType, fields);
+        }
+    }
+
+    /**
+     * Grid counterpart of {@link #ensureDocumentMappings}. A field's type is resolved from its first
+     * non-null value, as the row-by-row write would do when it creates the mapping.
+     */
+    private void ensureGridMappings(String processDefKey, String docType, String gridName,
+                                    List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return;
+        }
+        Map<String, FieldType> fields = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                String fieldName = entry.getKey();
+                if (entry.getValue() == null || fieldName.startsWith("_") || fields.containsKey(fieldName)) {
+                    continue;
+                }
+                fields.put(fieldName, fieldTypeResolver.resolveGridField(
+                        processDefKey, docType, gridName, fieldName, entry.getValue()));
+            }
         }
+        if (!fields.isEmpty()) {
+            columnMappingService.ensureGridMappings(processDefKey, docType, gridName, fields);
+        }
+    }
+
+    private <T> T inTransaction(int propagation, Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(propagation);
+        return template.execute(status -> work.get());
     }
 
     // ==================== Conversion Methods ====================
 
-    private DocumentDTO convertToDTO(Document document) {
-        String processDefKey = document.getProcessDefinitionKey();
+    private DocumentDTO convertToDTO(Document document, Map<String, ColumnMapping> mappings, List<GridRow> allRows,
+                                     Function<String, Map<String, ColumnMapping>> gridMappingsLookup) {
         String docType = document.getType() != null ? document.getType() : DEFAULT_DOCUMENT_TYPE;
-        Map<String, ColumnMapping> mappings = columnMappingService.getDocumentMappings(processDefKey, docType);
 
         // Convert column values back to field names
         Map<String, Object> fields = new HashMap<>();
+        Map<String, Object> overflow = OverflowFields.read(document.getOverflowJson());
         for (ColumnMapping mapping : mappings.values()) {
-            int columnIndex = mapping.getColumnIndex();
-            Object value;
-
-            switch (mapping.getFieldType()) {
-                case VARCHAR -> value = document.getVarchar(columnIndex);
-                case FLOAT -> value = document.getFloat(columnIndex);
-                case DATETIME -> {
-                    LocalDateTime dt = document.getDatetime(columnIndex);
-                    // Convert to ISO string for JSON serialization
-                    value = dt != null ? dt.toString() : null;
-                }
-                default -> value = null;
-            }
-
+            Object value = readDocumentColumn(document, mapping, overflow);
             if (value != null) {
                 fields.put(mapping.getFieldName(), value);
             }
         }
 
-        // Get grid data
+        // Group grid rows by grid name
         Map<String, List<Map<String, Object>>> grids = new HashMap<>();
-        List<GridRow> allRows = gridRowRepository.findByDocumentIdOrderByGridNameAscRowIndexAsc(document.getId());
-
-        // Group by grid name
         Map<String, List<GridRow>> groupedRows = allRows.stream()
                 .collect(Collectors.groupingBy(GridRow::getGridName));
 
         for (Map.Entry<String, List<GridRow>> entry : groupedRows.entrySet()) {
             String gridName = entry.getKey();
-            Map<String, ColumnMapping> gridMappings = columnMappingService.getGridMappings(processDefKey, docType, gridName);
+            GridRowCodec codec = GridRowCodec.of(gridMappingsLookup.apply(gridName).values());
 
-            List<Map<String, Object>> rowData = entry.getValue().stream()
-                    .map(row -> convertGridRowToMap(row, gridMappings))
-                    .collect(Collectors.toList());
+            List<Map<String, Object>> rowData = new ArrayList<>(entry.getValue().size());
+            for (GridRow row : entry.getValue()) {
+                rowData.add(codec.toMap(row));
+            }
 
             grids.put(gridName, rowData);
         }
@@ -464,8 +1200,55 @@ public class BusinessTableService {
                 .build();
     }
 
-    private GridRowDTO convertGridRowToDTO(GridRow row, Map<String, ColumnMapping> mappings) {
-        Map<String, Object> fields = convertGridRowToMap(row, mappings);
+    /**
+     * Set a document column unless it already holds the value.
+     *
+     * @return true when the column changed
+     */
+    private boolean writeDocumentColumn(Document document, FieldType fieldType, int columnIndex, Object value) {
+        Object current = switch (fieldType) {
+            case VARCHAR -> document.getVarchar(columnIndex);
+            case FLOAT -> document.getFloat(columnIndex);
+            case DATETIME -> document.getDatetime(columnIndex);
+        };
+        if (Objects.equals(current, value)) {
+            return false;
+        }
+
+        switch (fieldType) {
+            case VARCHAR -> document.setVarchar(columnIndex, (String) value);
+            case FLOAT -> document.setFloat(columnIndex, (Double) value);
+            case DATETIME -> document.setDatetime(columnIndex, (LocalDateTime) value);
+        }
+        return true;
+    }
+
+    private static void putOverflow(Map<String, Object> overflow, String fieldName, Object convertedValue) {
+        if (convertedValue == null) {
+            overflow.remove(fieldName);
+        } else {
+            overflow.put(fieldName, OverflowFields.toStored(convertedValue));
+        }
+    }
+
+    private Object readDocumentColumn(Document document, ColumnMapping mapping, Map<String, Object> overflow) {
+        if (mapping.isOverflow()) {
+            return OverflowFields.fromStored(overflow.get(mapping.getFieldName()), mapping.getFieldType());
+        }
+        int columnIndex = mapping.getColumnIndex();
+        return switch (mapping.getFieldType()) {
+            case VARCHAR -> document.getVarchar(columnIndex);
+            case FLOAT -> document.getFloat(columnIndex);
+            case DATETIME -> {
+                LocalDateTime dt = document.getDatetime(columnIndex);
+                // Convert to ISO string for JSON serialization
+                yield dt != null ? dt.toString() : null;
+            }
+        };
+    }
+
+    private GridRowDTO convertGridRowToDTO(GridRow row, GridRowCodec codec) {
+        Map<String, Object> fields = codec.toMap(row);
 
         return GridRowDTO.builder()
                 .id(row.getId())
@@ -473,33 +1256,23 @@ public class BusinessTableService {
                 .processInstanceId(row.getProcessInstanceId())
                 .gridName(row.getGridName())
                 .rowIndex(row.getRowIndex())
+                .rowKey(row.getRowKey())
                 .fields(fields)
                 .build();
     }
 
-    private Map<String, Object> convertGridRowToMap(GridRow row, Map<String, ColumnMapping> mappings) {
-        Map<String, Object> fields = new HashMap<>();
-
-        for (ColumnMapping mapping : mappings.values()) {
-            int columnIndex = mapping.getColumnIndex();
-            Object value;
-
-            switch (mapping.getFieldType()) {
-                case VARCHAR -> value = row.getVarchar(columnIndex);
-                case FLOAT -> value = row.getFloat(columnIndex);
-                case DATETIME -> {
-                    LocalDateTime dt = row.getDatetime(columnIndex);
-                    // Convert to ISO string for JSON serialization
-                    value = dt != null ? dt.toString() : null;
-                }
-                default -> value = null;
-            }
-
-            if (value != null) {
-                fields.put(mapping.getFieldName(), value);
-            }
-        }
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registerGridRowCounter(registry, "inserted", gridRowsInserted);
+        registerGridRowCounter(registry, "updated", gridRowsUpdated);
+        registerGridRowCounter(registry, "deleted", gridRowsDeleted);
+        registerGridRowCounter(registry, "unchanged", gridRowsUnchanged);
+    }
 
-        return fields;
+    private void registerGridRowCounter(MeterRegistry registry, String operation, AtomicLong counter) {
+        FunctionCounter.builder("bpm.grid.rows", counter, AtomicLong::get)
+                .tag("operation", operation)
+                .description("Grid rows handled by saveGridRows, by resulting write")
+                .register(registry);
     }
 }
@@ -6,18 +6,29 @@ import com.demo.bpm.entity.ColumnMapping.ScopeType;
 import com.demo.bpm.repository.ColumnMappingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Service for managing field-to-column mappings using hash-based assignment
- * with collision resolution.
+ * with collision resolution. Mappings are served from per-scope in-memory snapshots
+ * loaded from the database, so lookups on the save path do not query. A snapshot is
+ * reloaded once it is older than {@code bpm.column-mapping.snapshot-ttl}, and reads that
+ * name a field it lacks reload it at once, so mappings created on another node show up.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,71 +36,59 @@ import java.util.*;
 public class ColumnMappingService {
 
     private static final int MAX_COLUMNS = 30;
+    private static final int NO_COLUMN = 0;
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_CREATE_ATTEMPTS = 5;
+
+    // ISO date (2024-01-15) and the date-time prefix checked before handing a string to the parser
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern ISO_DATE_TIME_PREFIX = Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}");
 
     private final ColumnMappingRepository columnMappingRepository;
+    private final ColumnMappingWriter columnMappingWriter;
+
+    @Value("${bpm.column-mapping.snapshot-ttl:PT30S}")
+    private Duration snapshotTtl = Duration.ofSeconds(30);
+
+    // Per-scope mapping snapshots; replaced (never mutated) when a mapping is added or the scope reloaded
+    private final ConcurrentHashMap<String, ScopeSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Creation and promotion are serialised per scope through a fixed set of lock stripes
+    private final Object[] scopeLocks = newStripes();
 
     /**
      * Get or create column mapping for a document field (legacy - no document type).
      */
-    @Transactional
     public ColumnMapping getOrCreateDocumentMapping(String processDefKey, String fieldName, FieldType fieldType) {
         return getOrCreateDocumentMapping(processDefKey, null, fieldName, fieldType);
     }
 
     /**
      * Get or create column mapping for a document field with document type.
+     * <p>
+     * A new mapping is committed on its own (see {@link ColumnMappingWriter}) before it is
+     * returned, so it survives a rollback of the caller's transaction.
      */
-    @Transactional
     public ColumnMapping getOrCreateDocumentMapping(String processDefKey, String documentType,
                                                      String fieldName, FieldType fieldType) {
-        // 1. Check for existing mapping (with document type specificity)
-        List<ColumnMapping> existingMappings = columnMappingRepository.findDocumentFieldMappings(
-                processDefKey, documentType, fieldName);
-        if (!existingMappings.isEmpty()) {
-            // Return the most specific mapping (document-type-specific first)
-            return existingMappings.get(0);
+        // Check for existing mapping in the scope snapshot (document-type-specific first, then legacy)
+        ColumnMapping existing = documentSnapshot(processDefKey).resolve(documentType, fieldName);
+        if (existing != null) {
+            return existing;
         }
 
-        // Fallback: check legacy mapping without document type
-        Optional<ColumnMapping> legacyMapping = columnMappingRepository.findDocumentFieldMapping(processDefKey, fieldName);
-        if (legacyMapping.isPresent()) {
-            return legacyMapping.get();
+        // Only creation is serialised per scope; readers keep using the published snapshot
+        String scopeKey = documentScopeKey(processDefKey);
+        synchronized (lockFor(scopeKey)) {
+            createMissing(scopeKey, ScopeType.DOCUMENT, processDefKey, documentType, null,
+                    Map.of(fieldName, fieldType));
+            return documentSnapshot(processDefKey).resolve(documentType, fieldName);
         }
-
-        // 2. Calculate preferred column from hash
-        int preferredColumn = calculatePreferredColumn(fieldName);
-
-        // 3. Get used columns for this scope and type
-        Set<Integer> usedColumns = columnMappingRepository.findUsedDocumentColumnIndices(
-                processDefKey, documentType, fieldType);
-
-        // 4. Find available column (nearest to preferred)
-        int assignedColumn = findNearestAvailable(preferredColumn, usedColumns);
-
-        // 5. Create and save mapping
-        String columnName = getColumnPrefix(fieldType) + assignedColumn;
-
-        ColumnMapping mapping = ColumnMapping.builder()
-                .scopeType(ScopeType.DOCUMENT)
-                .processDefinitionKey(processDefKey)
-                .documentType(documentType)
-                .gridName(null)
-                .fieldName(fieldName)
-                .fieldType(fieldType)
-                .columnName(columnName)
-                .build();
-
-        mapping = columnMappingRepository.save(mapping);
-        log.info("Created document column mapping: {} -> {} for process {} (type: {})",
-                fieldName, columnName, processDefKey, documentType);
-
-        return mapping;
     }
 
     /**
      * Get or create column mapping for a grid field (legacy - no document type).
      */
-    @Transactional
     public ColumnMapping getOrCreateGridMapping(String processDefKey, String gridName,
                                                  String fieldName, FieldType fieldType) {
         return getOrCreateGridMapping(processDefKey, null, gridName, fieldName, fieldType);
@@ -98,52 +97,19 @@ public class ColumnMappingService {
     /**
      * Get or create column mapping for a grid field with document type.
      */
-    @Transactional
     public ColumnMapping getOrCreateGridMapping(String processDefKey, String documentType,
                                                  String gridName, String fieldName, FieldType fieldType) {
-        // 1. Check for existing mapping (with document type specificity)
-        List<ColumnMapping> existingMappings = columnMappingRepository.findGridFieldMappings(
-                processDefKey, documentType, gridName, fieldName);
-        if (!existingMappings.isEmpty()) {
-            // Return the most specific mapping (document-type-specific first)
-            return existingMappings.get(0);
+        ColumnMapping existing = gridSnapshot(processDefKey, gridName).resolve(documentType, fieldName);
+        if (existing != null) {
+            return existing;
         }
 
-        // Fallback: check legacy mapping without document type
-        Optional<ColumnMapping> legacyMapping = columnMappingRepository.findGridFieldMapping(
-                processDefKey, gridName, fieldName);
-        if (legacyMapping.isPresent()) {
-            return legacyMapping.get();
+        String scopeKey = gridScopeKey(processDefKey, gridName);
+        synchronized (lockFor(scopeKey)) {
+            createMissing(scopeKey, ScopeType.GRID, processDefKey, documentType, gridName,
+                    Map.of(fieldName, fieldType));
+            return gridSnapshot(processDefKey, gridName).resolve(documentType, fieldName);
         }
-
-        // 2. Calculate preferred column from hash
-        int preferredColumn = calculatePreferredColumn(fieldName);
-
-        // 3. Get used columns for this scope and type
-        Set<Integer> usedColumns = columnMappingRepository.findUsedGridColumnIndices(
-                processDefKey, documentType, gridName, fieldType);
-
-        // 4. Find available column (nearest to preferred)
-        int assignedColumn = findNearestAvailable(preferredColumn, usedColumns);
-
-        // 5. Create and save mapping
-        String columnName = getColumnPrefix(fieldType) + assignedColumn;
-
-        ColumnMapping mapping = ColumnMapping.builder()
-                .scopeType(ScopeType.GRID)
-                .processDefinitionKey(processDefKey)
-                .documentType(documentType)
-                .gridName(gridName)
-                .fieldName(fieldName)
-                .fieldType(fieldType)
-                .columnName(columnName)
-                .build();
-
-        mapping = columnMappingRepository.save(mapping);
-        log.info("Created grid column mapping: {}.{} -> {} for process {} (type: {})",
-                gridName, fieldName, columnName, processDefKey, documentType);
-
-        return mapping;
     }
 
     /**
@@ -159,12 +125,21 @@ public class ColumnMappingService {
      */
     @Transactional(readOnly = true)
     public Map<String, ColumnMapping> getDocumentMappings(String processDefKey, String documentType) {
-        List<ColumnMapping> mappings = columnMappingRepository.findAllDocumentMappings(processDefKey, documentType);
-        Map<String, ColumnMapping> result = new HashMap<>();
-        for (ColumnMapping mapping : mappings) {
-            result.put(mapping.getFieldName(), mapping);
+        return new HashMap<>(documentSnapshot(processDefKey).visibleMappings(documentType));
+    }
+
+    /**
+     * Get all document mappings for a process and document type, keyed by field name. If any of
+     * {@code fieldNames} is missing, the scope is reloaded first in case another node mapped it.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, ColumnMapping> getDocumentMappings(String processDefKey, String documentType,
+                                                          Collection<String> fieldNames) {
+        Map<String, ColumnMapping> mappings = documentSnapshot(processDefKey).visibleMappings(documentType);
+        if (!mappings.keySet().containsAll(fieldNames)) {
+            mappings = reloadDocumentSnapshot(processDefKey).visibleMappings(documentType);
         }
-        return result;
+        return new HashMap<>(mappings);
     }
 
     /**
@@ -180,16 +155,390 @@ public class ColumnMappingService {
      */
     @Transactional(readOnly = true)
     public Map<String, ColumnMapping> getGridMappings(String processDefKey, String documentType, String gridName) {
-        List<ColumnMapping> mappings = columnMappingRepository.findAllGridMappings(processDefKey, documentType, gridName);
-        Map<String, ColumnMapping> result = new HashMap<>();
-        for (ColumnMapping mapping : mappings) {
-            result.put(mapping.getFieldName(), mapping);
+        return new HashMap<>(gridSnapshot(processDefKey, gridName).visibleMappings(documentType));
+    }
+
+    // ==================== Batch Creation ====================
+
+    /**
+     * Create the mappings of every given document field that has none yet, in one batch.
+     * Fields are assigned in name order so the same declarations give the same columns.
+     * A new mapping is committed on a connection of its own, so callers should create mappings
+     * before opening their own transaction.
+     *
+     * @return number of mappings created
+     */
+    public int ensureDocumentMappings(String processDefKey, String documentType, Map<String, FieldType> fields) {
+        if (documentSnapshot(processDefKey).resolvesAll(documentType, fields.keySet())) {
+            return 0;
+        }
+        String scopeKey = documentScopeKey(processDefKey);
+        synchronized (lockFor(scopeKey)) {
+            return createMissing(scopeKey, ScopeType.DOCUMENT, processDefKey, documentType, null, fields);
         }
-        return result;
     }
 
     /**
-     * Determine the field type based on the value.
+     * Grid counterpart of {@link #ensureDocumentMappings}.
+     */
+    public int ensureGridMappings(String processDefKey, String documentType, String gridName,
+                                  Map<String, FieldType> fields) {
+        if (gridSnapshot(processDefKey, gridName).resolvesAll(documentType, fields.keySet())) {
+            return 0;
+        }
+        String scopeKey = gridScopeKey(processDefKey, gridName);
+        synchronized (lockFor(scopeKey)) {
+            return createMissing(scopeKey, ScopeType.GRID, processDefKey, documentType, gridName, fields);
+        }
+    }
+
+    /**
+     * Assign columns to the fields without a mapping and insert them. The stripe lock keeps this
+     * node's creations apart; the scope's unique constraints catch a concurrent creation on another
+     * node, after which the scope is reloaded and the assignment retried against what it committed.
+     * Must be called holding the scope's lock.
+     *
+     * @return number of mappings created
+     */
+    private int createMissing(String scopeKey, ScopeType scopeType, String processDefKey,
+                              String documentType, String gridName, Map<String, FieldType> fields) {
+        for (int attempt = 1; ; attempt++) {
+            ScopeSnapshot snapshot = scopeType == ScopeType.DOCUMENT
+                    ? documentSnapshot(processDefKey)
+                    : gridSnapshot(processDefKey, gridName);
+            List<ColumnMapping> created = assignColumns(snapshot, scopeType, processDefKey, documentType, gridName, fields);
+            if (created.isEmpty()) {
+                return 0;
+            }
+
+            try {
+                List<ColumnMapping> saved = columnMappingWriter.insert(created);
+                // Already committed, so published without waiting for the caller's transaction
+                snapshots.put(scopeKey, snapshot.withAll(saved));
+                for (ColumnMapping mapping : saved) {
+                    log.info("Created {} column mapping: {}{} -> {} for process {} (type: {})",
+                            scopeType, gridName != null ? gridName + "." : "", mapping.getFieldName(),
+                            mapping.getColumnName(), processDefKey, documentType);
+                }
+                return saved.size();
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_CREATE_ATTEMPTS) {
+                    throw new IllegalStateException("Could not create column mappings for process " + processDefKey
+                            + " (type: " + documentType + (gridName != null ? ", grid: " + gridName : "")
+                            + ") after " + attempt + " attempts", e);
+                }
+                log.info("Column mapping conflict in scope {} (attempt {}), reloading: {}",
+                        scopeKey, attempt, e.getMostSpecificCause().getMessage());
+                snapshots.remove(scopeKey);
+            }
+        }
+    }
+
+    private List<ColumnMapping> assignColumns(ScopeSnapshot snapshot, ScopeType scopeType, String processDefKey,
+                                              String documentType, String gridName, Map<String, FieldType> fields) {
+        Map<FieldType, Set<Integer>> usedByType = new EnumMap<>(FieldType.class);
+        List<ColumnMapping> created = new ArrayList<>();
+        for (Map.Entry<String, FieldType> field : new TreeMap<>(fields).entrySet()) {
+            String fieldName = field.getKey();
+            FieldType fieldType = field.getValue();
+            if (snapshot.resolve(documentType, fieldName) != null) {
+                continue;
+            }
+
+            // Nearest free column to the field's hash; once every column of the type is taken the field overflows
+            Set<Integer> used = usedByType.computeIfAbsent(fieldType,
+                    type -> snapshot.usedColumns(documentType, type));
+            int assignedColumn = findNearestAvailable(calculatePreferredColumn(fieldName), used);
+            String columnName;
+            if (assignedColumn != NO_COLUMN) {
+                used.add(assignedColumn);
+                columnName = getColumnPrefix(fieldType) + assignedColumn;
+            } else {
+                columnName = ColumnMapping.OVERFLOW_COLUMN;
+            }
+
+            created.add(ColumnMapping.builder()
+                    .scopeType(scopeType)
+                    .processDefinitionKey(processDefKey)
+                    .documentType(documentType)
+                    .gridName(gridName)
+                    .fieldName(fieldName)
+                    .fieldType(fieldType)
+                    .columnName(columnName)
+                    .build());
+        }
+        return created;
+    }
+
+    // ==================== Overflow Promotion ====================
+
+    /**
+     * Move a document field of the given document type from the overflow JSON into a typed column.
+     * If {@code demoteFieldName} is given, that field (of the same type) gives up its column and
+     * moves to the overflow JSON instead. Only the mappings change here; stored values are moved
+     * by the caller.
+     *
+     * @return the mappings whose column changed, promoted field first
+     */
+    @Transactional
+    public List<ColumnReassignment> promoteDocumentField(String processDefKey, String documentType,
+                                                         String fieldName, String demoteFieldName) {
+        String scopeKey = documentScopeKey(processDefKey);
+        synchronized (lockFor(scopeKey)) {
+            return promote(scopeKey, documentSnapshot(processDefKey), documentType, fieldName, demoteFieldName);
+        }
+    }
+
+    /**
+     * Grid counterpart of {@link #promoteDocumentField}.
+     */
+    @Transactional
+    public List<ColumnReassignment> promoteGridField(String processDefKey, String documentType, String gridName,
+                                                     String fieldName, String demoteFieldName) {
+        String scopeKey = gridScopeKey(processDefKey, gridName);
+        synchronized (lockFor(scopeKey)) {
+            return promote(scopeKey, gridSnapshot(processDefKey, gridName), documentType, fieldName, demoteFieldName);
+        }
+    }
+
+    private List<ColumnReassignment> promote(String scopeKey, ScopeSnapshot snapshot, String documentType,
+                                             String fieldName, String demoteFieldName) {
+        ColumnMapping promoted = typedMapping(snapshot, documentType, fieldName);
+        if (!promoted.isOverflow()) {
+            throw new IllegalArgumentException("Field '" + fieldName + "' is already stored in " + promoted.getColumnName());
+        }
+
+        List<ColumnReassignment> changes = new ArrayList<>();
+        String targetColumn;
+        if (demoteFieldName != null) {
+            ColumnMapping demoted = typedMapping(snapshot, documentType, demoteFieldName);
+            if (demoted.isOverflow() || demoted.getFieldType() != promoted.getFieldType()) {
+                throw new IllegalArgumentException("Field '" + demoteFieldName + "' does not hold a "
+                        + promoted.getFieldType() + " column that can be freed");
+            }
+            targetColumn = demoted.getColumnName();
+            changes.add(new ColumnReassignment(withColumn(promoted, targetColumn), promoted.getColumnName()));
+            changes.add(new ColumnReassignment(withColumn(demoted, ColumnMapping.OVERFLOW_COLUMN), targetColumn));
+        } else {
+            int column = findNearestAvailable(calculatePreferredColumn(fieldName),
+                    snapshot.usedColumns(documentType, promoted.getFieldType()));
+            if (column == NO_COLUMN) {
+                throw new IllegalStateException("No free " + promoted.getFieldType()
+                        + " column for field '" + fieldName + "'; name a field to demote");
+            }
+            targetColumn = getColumnPrefix(promoted.getFieldType()) + column;
+            changes.add(new ColumnReassignment(withColumn(promoted, targetColumn), promoted.getColumnName()));
+        }
+
+        // The freed column is flushed before it is claimed again, so the slot constraint never sees it
+        // taken twice. Save order alone is not enough: hibernate.order_updates sorts the updates by id.
+        List<ColumnMapping> saved = new ArrayList<>(changes.size());
+        if (changes.size() > 1) {
+            saved.add(columnMappingRepository.saveAndFlush(changes.get(1).mapping()));
+        }
+        saved.add(columnMappingRepository.save(changes.get(0).mapping()));
+        publish(scopeKey, snapshot.replacing(saved));
+        log.info("Promoted field '{}' (type: {}) from overflow to {}{}", fieldName, documentType, targetColumn,
+                demoteFieldName != null ? ", demoting '" + demoteFieldName + "'" : "");
+        return changes;
+    }
+
+    private ColumnMapping typedMapping(ScopeSnapshot snapshot, String documentType, String fieldName) {
+        ColumnMapping mapping = snapshot.resolve(documentType, fieldName);
+        if (mapping == null || !Objects.equals(mapping.getDocumentType(), documentType)) {
+            // Untyped and foreign mappings are shared with other document types, whose data would not move
+            throw new IllegalArgumentException("No mapping for field '" + fieldName + "' of document type " + documentType);
+        }
+        return mapping;
+    }
+
+    private static ColumnMapping withColumn(ColumnMapping mapping, String columnName) {
+        return ColumnMapping.builder()
+                .id(mapping.getId())
+                .scopeType(mapping.getScopeType())
+                .processDefinitionKey(mapping.getProcessDefinitionKey())
+                .documentType(mapping.getDocumentType())
+                .gridName(mapping.getGridName())
+                .fieldName(mapping.getFieldName())
+                .fieldType(mapping.getFieldType())
+                .columnName(columnName)
+                .createdAt(mapping.getCreatedAt())
+                .scopeKey(mapping.getScopeKey())
+                .build();
+    }
+
+    /**
+     * A mapping moved to another column by a promotion, with the column it used before.
+     */
+    public record ColumnReassignment(ColumnMapping mapping, String previousColumn) {
+    }
+
+    // ==================== Mapping Registry ====================
+
+    private static Object[] newStripes() {
+        Object[] stripes = new Object[LOCK_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        return stripes;
+    }
+
+    private Object lockFor(String scopeKey) {
+        return scopeLocks[Math.floorMod(scopeKey.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String documentScopeKey(String processDefKey) {
+        return "DOCUMENT|" + processDefKey;
+    }
+
+    private static String gridScopeKey(String processDefKey, String gridName) {
+        return "GRID|" + processDefKey + "|" + gridName;
+    }
+
+    private ScopeSnapshot documentSnapshot(String processDefKey) {
+        return snapshot(documentScopeKey(processDefKey), false,
+                () -> columnMappingRepository.findAllDocumentMappingsLegacy(processDefKey));
+    }
+
+    private ScopeSnapshot reloadDocumentSnapshot(String processDefKey) {
+        return snapshot(documentScopeKey(processDefKey), true,
+                () -> columnMappingRepository.findAllDocumentMappingsLegacy(processDefKey));
+    }
+
+    private ScopeSnapshot gridSnapshot(String processDefKey, String gridName) {
+        return snapshot(gridScopeKey(processDefKey, gridName), false,
+                () -> columnMappingRepository.findAllGridMappingsLegacy(processDefKey, gridName));
+    }
+
+    /**
+     * The scope's snapshot, loaded if there is none, it has expired or {@code reload} is set.
+     * A load only replaces the snapshot it started from, so a newer one published meanwhile wins.
+     */
+    private ScopeSnapshot snapshot(String scopeKey, boolean reload, Supplier<List<ColumnMapping>> loader) {
+        ScopeSnapshot current = snapshots.get(scopeKey);
+        if (current != null && !reload && !current.isOlderThan(snapshotTtl)) {
+            return current;
+        }
+        ScopeSnapshot loaded = new ScopeSnapshot(loader.get());
+        boolean installed = current == null
+                ? snapshots.putIfAbsent(scopeKey, loaded) == null
+                : snapshots.replace(scopeKey, current, loaded);
+        return installed ? loaded : snapshots.getOrDefault(scopeKey, loaded);
+    }
+
+    /**
+     * Publish a new snapshot for a scope. If the surrounding transaction rolls back, the
+     * scope is dropped so the next access reloads what was actually committed.
+     */
+    private void publish(String scopeKey, ScopeSnapshot snapshot) {
+        snapshots.put(scopeKey, snapshot);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        snapshots.remove(scopeKey);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Immutable view of every mapping in one scope (a process definition's document fields,
+     * or one of its grids) across all document types. Lookups reproduce the repository
+     * queries: document-type-specific mappings win over untyped ones, and a mapping from
+     * another document type is used as the legacy fallback.
+     */
+    private static final class ScopeSnapshot {
+        private final List<ColumnMapping> mappings;
+        private final Map<String, List<ColumnMapping>> byField;
+        private final long createdAtNanos = System.nanoTime();
+
+        ScopeSnapshot(List<ColumnMapping> mappings) {
+            this.mappings = List.copyOf(mappings);
+            Map<String, List<ColumnMapping>> index = new HashMap<>();
+            for (ColumnMapping mapping : this.mappings) {
+                index.computeIfAbsent(mapping.getFieldName(), key -> new ArrayList<>()).add(mapping);
+            }
+            this.byField = index;
+        }
+
+        ColumnMapping resolve(String documentType, String fieldName) {
+            List<ColumnMapping> candidates = byField.get(fieldName);
+            if (candidates == null) {
+                return null;
+            }
+            ColumnMapping untyped = null;
+            for (ColumnMapping candidate : candidates) {
+                if (candidate.getDocumentType() == null) {
+                    if (untyped == null) {
+                        untyped = candidate;
+                    }
+                } else if (candidate.getDocumentType().equals(documentType)) {
+                    return candidate;
+                }
+            }
+            return untyped != null ? untyped : candidates.get(0);
+        }
+
+        boolean isOlderThan(Duration ttl) {
+            return System.nanoTime() - createdAtNanos > ttl.toNanos();
+        }
+
+        boolean resolvesAll(String documentType, Collection<String> fieldNames) {
+            for (String fieldName : fieldNames) {
+                if (resolve(documentType, fieldName) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Map<String, ColumnMapping> visibleMappings(String documentType) {
+            Map<String, ColumnMapping> result = new HashMap<>();
+            for (ColumnMapping mapping : mappings) {
+                if (mapping.getDocumentType() == null) {
+                    result.putIfAbsent(mapping.getFieldName(), mapping);
+                } else if (mapping.getDocumentType().equals(documentType)) {
+                    result.put(mapping.getFieldName(), mapping);
+                }
+            }
+            return result;
+        }
+
+        Set<Integer> usedColumns(String documentType, FieldType fieldType) {
+            Set<Integer> used = new HashSet<>();
+            for (ColumnMapping mapping : mappings) {
+                boolean visible = mapping.getDocumentType() == null || mapping.getDocumentType().equals(documentType);
+                if (visible && mapping.getFieldType() == fieldType && !mapping.isOverflow()) {
+                    used.add(mapping.getColumnIndex());
+                }
+            }
+            return used;
+        }
+
+        ScopeSnapshot withAll(List<ColumnMapping> added) {
+            List<ColumnMapping> next = new ArrayList<>(mappings.size() + added.size());
+            next.addAll(mappings);
+            next.addAll(added);
+            return new ScopeSnapshot(next);
+        }
+
+        ScopeSnapshot replacing(List<ColumnMapping> replaced) {
+            Map<Long, ColumnMapping> byId = new HashMap<>();
+            replaced.forEach(mapping -> byId.put(mapping.getId(), mapping));
+            List<ColumnMapping> next = new ArrayList<>(mappings.size());
+            for (ColumnMapping mapping : mappings) {
+                next.add(byId.getOrDefault(mapping.getId(), mapping));
+            }
+            return new ScopeSnapshot(next);
+        }
+    }
+
+    /**
+     * Determine the field type based on the value. Only used as a fallback when no schema
+     * declares the field; see {@link FieldTypeResolver}.
      */
     public FieldType determineFieldType(Object value) {
         if (value == null) {
@@ -211,19 +560,9 @@ public class ColumnMappingService {
             return FieldType.FLOAT; // Store boolean as 0/1
         }
 
-        // Try to parse as datetime string (ISO-8601 format)
-        if (value instanceof String strValue) {
-            if (isDateTimeString(strValue)) {
-                return FieldType.DATETIME;
-            }
-            // Try to parse as number
-            try {
-                Double.parseDouble(strValue);
-                // It's a valid number string, but we'll keep it as varchar
-                // unless explicitly specified otherwise
-            } catch (NumberFormatException ignored) {
-                // Not a number
-            }
+        // Try to parse as datetime string (ISO-8601 format); numeric strings stay varchar
+        if (value instanceof String strValue && isDateTimeString(strValue)) {
+            return FieldType.DATETIME;
         }
 
         return FieldType.VARCHAR;
@@ -236,19 +575,18 @@ public class ColumnMappingService {
         if (value == null || value.length() < 10) {
             return false;
         }
-        // Common datetime patterns
-        try {
-            // Try ISO datetime format: 2024-01-15T10:30:00
-            if (value.contains("T") && value.length() >= 16) {
+        // Try ISO date format: 2024-01-15
+        if (value.length() == 10) {
+            return ISO_DATE.matcher(value).matches();
+        }
+        // Try ISO datetime format: 2024-01-15T10:30:00; the parser only sees strings of the right shape
+        if (value.length() >= 16 && ISO_DATE_TIME_PREFIX.matcher(value).lookingAt()) {
+            try {
                 DateTimeFormatter.ISO_LOCAL_DATE_TIME.parse(value.substring(0, Math.min(value.length(), 23)));
                 return true;
+            } catch (DateTimeParseException ignored) {
+                // Not a valid datetime
             }
-            // Try ISO date format: 2024-01-15
-            if (value.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                return true;
-            }
-        } catch (DateTimeParseException ignored) {
-            // Not a valid datetime
         }
         return false;
     }
@@ -276,6 +614,8 @@ public class ColumnMappingService {
     /**
      * Find the nearest available column to the preferred one.
      * Searches outward: preferred, +1, -1, +2, -2, etc.
+     *
+     * @return the column index, or {@link #NO_COLUMN} when all columns are used
      */
     private int findNearestAvailable(int preferred, Set<Integer> used) {
         if (used == null) {
@@ -309,7 +649,7 @@ public class ColumnMappingService {
             }
         }
 
-        throw new RuntimeException("No available columns - all " + MAX_COLUMNS + " columns are used");
+        return NO_COLUMN;
     }
 
     /**
@@ -332,6 +672,9 @@ public class ColumnMappingService {
                 return numValue.doubleValue();
             }
             if (value instanceof String strValue) {
+                if ("true".equalsIgnoreCase(strValue) || "false".equalsIgnoreCase(strValue)) {
+                    return Boolean.parseBoolean(strValue) ? 1.0 : 0.0;
+                }
                 try {
                     return Double.parseDouble(strValue);
                 } catch (NumberFormatException e) {
@@ -374,7 +717,7 @@ public class ColumnMappingService {
                     return LocalDateTime.parse(strValue.substring(0, Math.min(strValue.length(), 23)));
                 }
                 // Try ISO date format: 2024-01-15
-                if (strValue.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                if (ISO_DATE.matcher(strValue).matches()) {
                     return java.time.LocalDate.parse(strValue).atStartOfDay();
                 }
             } catch (DateTimeParseException e) {
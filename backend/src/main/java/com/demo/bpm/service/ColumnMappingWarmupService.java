@@ -0,0 +1,94 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.ProcessConfig;
+import com.demo.bpm.repository.ProcessConfigRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the column mappings of a deployed process definition up front, from the fields its
+ * forms and document type declare, so saves do not have to create them on the request path.
+ * Fields no schema declares are still mapped lazily on their first save.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ColumnMappingWarmupService {
+
+    private final FieldTypeResolver fieldTypeResolver;
+    private final ColumnMappingService columnMappingService;
+    private final ProcessConfigRepository processConfigRepository;
+
+    /**
+     * Warm up the given process definitions once the current transaction has committed, so the
+     * new definition and its process config are visible; immediately if no transaction is active.
+     * The type tables are dropped first: one rebuilt by a concurrent save before the commit still
+     * reflects the previous definition.
+     */
+    public void warmUpAfterCommit(Collection<String> processDefinitionKeys) {
+        Runnable warmUp = () -> {
+            fieldTypeResolver.invalidateAll();
+            processDefinitionKeys.forEach(this::warmUp);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    warmUp.run();
+                }
+            });
+        } else {
+            warmUp.run();
+        }
+    }
+
+    /**
+     * Create the missing document and grid mappings of a process definition, in the document type
+     * its saves use. Failures are logged and leave the lazy path to create the mappings.
+     *
+     * @return number of mappings created
+     */
+    public int warmUp(String processDefinitionKey) {
+        try {
+            String documentType = processConfigRepository.findByProcessDefinitionKey(processDefinitionKey)
+                    .map(ProcessConfig::getDocumentType)
+                    .orElse(BusinessTableService.DEFAULT_DOCUMENT_TYPE);
+
+            int created = columnMappingService.ensureDocumentMappings(processDefinitionKey, documentType,
+                    stored(fieldTypeResolver.declaredDocumentFields(processDefinitionKey, documentType)));
+            for (Map.Entry<String, Map<String, FieldType>> grid
+                    : fieldTypeResolver.declaredGridFields(processDefinitionKey, documentType).entrySet()) {
+                created += columnMappingService.ensureGridMappings(processDefinitionKey, documentType,
+                        grid.getKey(), stored(grid.getValue()));
+            }
+
+            log.info("Column mapping warm-up for process {} (type: {}) created {} mapping(s)",
+                    processDefinitionKey, documentType, created);
+            return created;
+        } catch (Exception e) {
+            log.warn("Column mapping warm-up failed for process {}: {}", processDefinitionKey, e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Drop the fields the save path never stores.
+     */
+    private static Map<String, FieldType> stored(Map<String, FieldType> declared) {
+        Map<String, FieldType> fields = new HashMap<>();
+        declared.forEach((name, type) -> {
+            if (!name.startsWith("_")) {
+                fields.put(name, type);
+            }
+        });
+        return fields;
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.repository.ColumnMappingConstraints;
+import com.demo.bpm.repository.ColumnMappingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts new column mappings in their own transaction, so a unique constraint violation caused by
+ * a concurrent creation on another node neither poisons the caller's transaction nor keeps the
+ * claimed columns hidden until the caller commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ColumnMappingWriter implements SmartInitializingSingleton {
+
+    private final ColumnMappingRepository columnMappingRepository;
+    private final ColumnMappingConstraints columnMappingConstraints;
+
+    /**
+     * Insert and commit the mappings.
+     *
+     * @throws DataIntegrityViolationException if a field or column is already taken in its scope
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<ColumnMapping> insert(List<ColumnMapping> mappings) {
+        return columnMappingRepository.saveAllAndFlush(mappings);
+    }
+
+    /**
+     * Runs {@link #backfillKeys()} once all singletons exist, before the web server and the outbox
+     * workers start, so no mapping is created while unkeyed rows escape the unique constraints.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillKeys();
+    }
+
+    /**
+     * Fill the scope keys of mappings created before they existed, then declare the key NOT NULL.
+     * Startup fails if a field or column is claimed twice in its scope: the values of both mappings
+     * share storage, so picking a winner automatically would silently lose data.
+     *
+     * @throws IllegalStateException listing the conflicting mappings, which must be resolved by hand
+     */
+    public void backfillKeys() {
+        List<ColumnMapping> unkeyed = columnMappingRepository.findByScopeKeyIsNull();
+        List<String> conflicts = new ArrayList<>();
+        for (ColumnMapping mapping : unkeyed) {
+            mapping.assignKeys();
+            try {
+                columnMappingRepository.save(mapping);
+            } catch (DataIntegrityViolationException e) {
+                conflicts.add(mapping.getId() + " (" + mapping.getFieldName() + " -> " + mapping.getColumnName()
+                        + " in " + mapping.getScopeKey() + ")");
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException("Column mapping(s) " + String.join(", ", conflicts)
+                    + " claim a field or column already taken in their scope; merge or delete them before starting");
+        }
+        if (!unkeyed.isEmpty()) {
+            log.info("Backfilled scope keys of {} column mapping(s)", unkeyed.size());
+        }
+        columnMappingConstraints.requireScopeKey();
+    }
+}
@@ -62,19 +62,13 @@ public class DashboardService {
         byStatus.put("COMPLETED", totalCompleted);
         byStatus.put("PENDING", totalPending);
 
-        // Convert to DTOs.
-        // Note: workflowHistoryService.getWorkflowHistory might be expensive (N+1).
-        // If performance becomes an issue, we should batch fetch variables/history.
-        // For now, let's keep it but be aware.
-
-        List<WorkflowHistoryDTO> recentCompletedList = completedProcesses.stream()
-                .map(hp -> workflowHistoryService.getWorkflowHistory(hp.getId()))
-                .collect(Collectors.toList());
+        // Each list is converted with a fixed number of set-based lookups, whatever the page size
+        List<WorkflowHistoryDTO> recentCompletedList = workflowHistoryService.getWorkflowHistories(
+                completedProcesses.stream().map(HistoricProcessInstance::getId).collect(Collectors.toList()));
         Page<WorkflowHistoryDTO> recentCompleted = new PageImpl<>(recentCompletedList, pageable, totalCompleted);
 
-        List<WorkflowHistoryDTO> activeWithDetailsList = activeProcessesForDisplay.stream()
-                .map(ap -> workflowHistoryService.getWorkflowHistory(ap.getId()))
-                .collect(Collectors.toList());
+        List<WorkflowHistoryDTO> activeWithDetailsList = workflowHistoryService.getWorkflowHistories(
+                activeProcessesForDisplay.stream().map(ProcessInstance::getId).collect(Collectors.toList()));
         Page<WorkflowHistoryDTO> activeWithDetails = new PageImpl<>(activeWithDetailsList, pageable, totalActive);
 
         List<Task> userTasks = taskService.createTaskQuery()
@@ -82,10 +76,8 @@ public class DashboardService {
                 .orderByTaskCreateTime().desc()
                 .listPage((int) pageable.getOffset(), pageable.getPageSize());
 
-        List<WorkflowHistoryDTO> myPendingApprovalsList = userTasks.stream()
-                .map(t -> workflowHistoryService.getWorkflowHistory(t.getProcessInstanceId()))
-                .distinct()
-                .collect(Collectors.toList());
+        List<WorkflowHistoryDTO> myPendingApprovalsList = workflowHistoryService.getWorkflowHistories(
+                userTasks.stream().map(Task::getProcessInstanceId).collect(Collectors.toList()));
         Page<WorkflowHistoryDTO> myPendingApprovals = new PageImpl<>(myPendingApprovalsList, pageable, myTasks);
 
         DashboardDTO.EscalationMetrics escalationMetrics = getEscalationMetrics(pendingEscalations);
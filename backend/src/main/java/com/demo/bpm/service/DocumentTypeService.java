@@ -3,6 +3,7 @@ package com.demo.bpm.service;
 import com.demo.bpm.dto.schema.ProcessFieldLibraryDTO;
 import com.demo.bpm.entity.DocumentTypeDefinition;
 import com.demo.bpm.repository.DocumentTypeRepository;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
@@ -10,6 +11,8 @@ import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
@@ -24,6 +27,8 @@ public class DocumentTypeService {
     private final DocumentTypeRepository repository;
     private final ObjectMapper objectMapper;
     private final Validator validator;
+    private final FieldTypeResolver fieldTypeResolver;
+    private final DocumentTypeSchemaCache documentTypeSchemaCache;
 
     public List<DocumentTypeDefinition> getAllDocumentTypes() {
         return repository.findAll();
@@ -39,7 +44,9 @@ public class DocumentTypeService {
             throw new IllegalArgumentException("Document type with key " + documentType.getKey() + " already exists");
         }
         validateSchema(documentType.getSchemaJson());
-        return repository.save(documentType);
+        DocumentTypeDefinition saved = repository.save(documentType);
+        invalidateAfterCommit(saved.getKey());
+        return saved;
     }
 
     @Transactional
@@ -52,7 +59,9 @@ public class DocumentTypeService {
         validateSchema(updatedInfo.getSchemaJson());
         existing.setSchemaJson(updatedInfo.getSchemaJson());
 
-        return repository.save(existing);
+        DocumentTypeDefinition saved = repository.save(existing);
+        invalidateAfterCommit(key);
+        return saved;
     }
 
     @Transactional
@@ -60,6 +69,28 @@ public class DocumentTypeService {
         DocumentTypeDefinition existing = repository.findByKey(key)
                 .orElseThrow(() -> new IllegalArgumentException("Document type with key " + key + " not found"));
         repository.delete(existing);
+        invalidateAfterCommit(key);
+    }
+
+    /**
+     * Drop the compiled schema and the type tables derived from it once the change is committed,
+     * so a concurrent reader cannot cache the old schema again in between.
+     */
+    private void invalidateAfterCommit(String key) {
+        Runnable invalidate = () -> {
+            documentTypeSchemaCache.invalidate(key);
+            fieldTypeResolver.invalidateAll();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        } else {
+            invalidate.run();
+        }
     }
 
     private void validateSchema(String schemaJson) {
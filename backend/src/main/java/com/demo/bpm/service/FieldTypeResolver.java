@@ -0,0 +1,175 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.dto.FormDefinitionDTO;
+import com.demo.bpm.dto.FormFieldDTO;
+import com.demo.bpm.dto.FormGridDTO;
+import com.demo.bpm.dto.ProcessFieldLibraryDTO;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.service.cache.BoundedLruCache;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache.CompiledSchema;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the storage type of document and grid fields from their declared form types.
+ * <p>
+ * Declarations are collected once per (processDefinitionKey, documentType) scope from the
+ * document type's schema and the latest process definition's field library and element forms,
+ * in that order; the first declaration of a field wins. Fields that are not declared anywhere
+ * fall back to {@link ColumnMappingService#determineFieldType}, so a value only decides the type
+ * of a field no schema knows about.
+ * <p>
+ * Tables are kept in a {@link BoundedLruCache}, so a table built from a schema that changed while
+ * it was being built is not cached past the invalidation.
+ */
+@Service
+@Slf4j
+public class FieldTypeResolver implements MeterBinder {
+
+    private final FormDefinitionService formDefinitionService;
+    private final RepositoryService repositoryService;
+    private final ColumnMappingService columnMappingService;
+
+    private final BoundedLruCache<String, TypeTable> tables;
+
+    public FieldTypeResolver(FormDefinitionService formDefinitionService,
+                             RepositoryService repositoryService,
+                             ColumnMappingService columnMappingService,
+                             @Value("${bpm.cache.field-types.max-size:500}") int maxSize) {
+        this.formDefinitionService = formDefinitionService;
+        this.repositoryService = repositoryService;
+        this.columnMappingService = columnMappingService;
+        this.tables = new BoundedLruCache<>("field-types", maxSize);
+    }
+
+    public FieldType resolveDocumentField(String processDefKey, String documentType, String fieldName, Object value) {
+        FieldType declared = table(processDefKey, documentType).fields().get(fieldName);
+        return declared != null ? declared : columnMappingService.determineFieldType(value);
+    }
+
+    public FieldType resolveGridField(String processDefKey, String documentType, String gridName,
+                                      String fieldName, Object value) {
+        Map<String, FieldType> columns = table(processDefKey, documentType).grids().get(gridName);
+        FieldType declared = columns != null ? columns.get(fieldName) : null;
+        return declared != null ? declared : columnMappingService.determineFieldType(value);
+    }
+
+    /**
+     * Every document field declared for the scope, with its storage type.
+     */
+    public Map<String, FieldType> declaredDocumentFields(String processDefKey, String documentType) {
+        return Collections.unmodifiableMap(table(processDefKey, documentType).fields());
+    }
+
+    /**
+     * Every grid declared for the scope, mapping grid name to its columns' storage types.
+     */
+    public Map<String, Map<String, FieldType>> declaredGridFields(String processDefKey, String documentType) {
+        return Collections.unmodifiableMap(table(processDefKey, documentType).grids());
+    }
+
+    /**
+     * Drop every cached type table, e.g. after a deployment or a document type schema change.
+     */
+    public void invalidateAll() {
+        tables.invalidateAll();
+    }
+
+    /**
+     * Storage type for a form field type, or {@code null} for types that carry no value.
+     */
+    static FieldType storageType(String formType) {
+        if (formType == null) {
+            return null;
+        }
+        return switch (formType.toLowerCase()) {
+            case "number", "currency", "percentage", "checkbox" -> FieldType.FLOAT;
+            case "date", "datetime" -> FieldType.DATETIME;
+            case "header" -> null;
+            default -> FieldType.VARCHAR;
+        };
+    }
+
+    private TypeTable table(String processDefKey, String documentType) {
+        return tables.get(processDefKey + "|" + documentType, scopeKey -> load(processDefKey, documentType));
+    }
+
+    private TypeTable load(String processDefKey, String documentType) {
+        TypeTable table = new TypeTable(new HashMap<>(), new HashMap<>());
+
+        if (documentType != null) {
+            CompiledSchema schema = formDefinitionService.getDocumentTypeSchema(documentType);
+            if (schema != null) {
+                addDeclarations(table, schema.fieldLibrary().getFields(), schema.fieldLibrary().getGrids());
+            }
+        }
+
+        if (processDefKey != null) {
+            ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                    .processDefinitionKey(processDefKey)
+                    .latestVersion()
+                    .singleResult();
+            if (definition != null) {
+                ProcessFieldLibraryDTO library = formDefinitionService.getProcessFormConfig(definition.getId()).getFieldLibrary();
+                if (library != null) {
+                    addDeclarations(table, library.getFields(), library.getGrids());
+                }
+                for (FormDefinitionDTO form : formDefinitionService.getAllFormDefinitions(definition.getId()).values()) {
+                    addDeclarations(table, form.getFields(), form.getGrids());
+                }
+            }
+        }
+
+        log.debug("Resolved {} field and {} grid declarations for process {} (type: {})",
+                table.fields().size(), table.grids().size(), processDefKey, documentType);
+        return table;
+    }
+
+    private void addDeclarations(TypeTable table, List<FormFieldDTO> fields, List<FormGridDTO> grids) {
+        if (fields != null) {
+            for (FormFieldDTO field : fields) {
+                declare(table.fields(), field.getName(), field.getType());
+            }
+        }
+        if (grids != null) {
+            for (FormGridDTO grid : grids) {
+                if (grid.getName() == null || grid.getColumns() == null) {
+                    continue;
+                }
+                Map<String, FieldType> columns = table.grids().computeIfAbsent(grid.getName(), key -> new HashMap<>());
+                for (FormGridDTO.GridColumnDTO column : grid.getColumns()) {
+                    declare(columns, column.getName(), column.getType());
+                }
+            }
+        }
+    }
+
+    private static void declare(Map<String, FieldType> target, String name, String formType) {
+        FieldType type = storageType(formType);
+        if (name != null && type != null) {
+            target.putIfAbsent(name, type);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        tables.bindTo(registry);
+    }
+
+    /**
+     * Declared storage types of one scope: document fields, and grid columns keyed by grid name.
+     * Only read once returned from {@link #tables}.
+     */
+    private record TypeTable(Map<String, FieldType> fields, Map<String, Map<String, FieldType>> grids) {
+    }
+}
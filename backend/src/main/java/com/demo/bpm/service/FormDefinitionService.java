@@ -10,29 +10,28 @@ import com.demo.bpm.entity.DocumentTypeDefinition;
 import com.demo.bpm.entity.ProcessConfig;
 import com.demo.bpm.repository.DocumentTypeRepository;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache.CompiledSchema;
+import com.demo.bpm.service.cache.FormDefinitionCache;
+import com.demo.bpm.service.cache.FormDefinitionCache.CompiledForms;
+import com.demo.bpm.util.BpmnFormExtractor;
+import com.demo.bpm.util.BpmnFormExtractor.BpmnForms;
+import com.demo.bpm.util.BpmnFormExtractor.ElementForm;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.flowable.bpmn.model.BpmnModel;
-import org.flowable.bpmn.model.FlowElement;
-import org.flowable.bpmn.model.StartEvent;
-import org.flowable.bpmn.model.UserTask;
 import org.flowable.engine.RepositoryService;
 import org.flowable.engine.TaskService;
 import org.flowable.task.api.Task;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -47,6 +46,8 @@ public class FormDefinitionService {
     private final ObjectMapper objectMapper;
     private final ProcessConfigRepository processConfigRepository;
     private final DocumentTypeRepository documentTypeRepository;
+    private final FormDefinitionCache formDefinitionCache;
+    private final DocumentTypeSchemaCache documentTypeSchemaCache;
 
     /**
      * Get form definition for a specific task
@@ -77,17 +78,27 @@ public class FormDefinitionService {
      * Get form definition for a specific element in a process
      */
     public FormDefinitionDTO getFormDefinitionForElement(String processDefinitionId, String elementId) {
-        try (InputStream bpmnStream = repositoryService.getProcessModel(processDefinitionId)) {
-            // Get the BPMN XML
-            String bpmnXml = new String(bpmnStream.readAllBytes(), StandardCharsets.UTF_8);
-
-            // Parse BPMN XML to find form definitions
-            return parseFormDefinitionFromXml(bpmnXml, elementId);
+        CompiledForms forms;
+        try {
+            forms = compiledForms(processDefinitionId);
         } catch (Exception e) {
             log.error("Error extracting form definition for process {} element {}: {}",
                     processDefinitionId, elementId, e.getMessage(), e);
             throw new RuntimeException("Failed to extract form definition: " + e.getMessage(), e);
         }
+        if (forms == null) {
+            throw new RuntimeException("Failed to extract form definition: no BPMN model for " + processDefinitionId);
+        }
+
+        FormDefinitionDTO form = elementId == null ? forms.defaultStartForm() : forms.form(elementId);
+        if (form == null) {
+            return FormDefinitionDTO.builder()
+                    .elementId(elementId)
+                    .fields(new ArrayList<>())
+                    .grids(new ArrayList<>())
+                    .build();
+        }
+        return form;
     }
 
     /**
@@ -96,27 +107,24 @@ public class FormDefinitionService {
     public Map<String, FormDefinitionDTO> getAllFormDefinitions(String processDefinitionId) {
         Map<String, FormDefinitionDTO> formDefinitions = new HashMap<>();
 
-        try (InputStream bpmnStream = repositoryService.getProcessModel(processDefinitionId)) {
-            BpmnModel bpmnModel = repositoryService.getBpmnModel(processDefinitionId);
-            String bpmnXml = new String(bpmnStream.readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            CompiledForms forms = compiledForms(processDefinitionId);
+            if (forms == null) {
+                return formDefinitions;
+            }
 
             // Get start event form
-            FormDefinitionDTO startForm = parseFormDefinitionFromXml(bpmnXml, null);
+            FormDefinitionDTO startForm = forms.defaultStartForm();
             if (startForm != null && hasFormContent(startForm)) {
                 formDefinitions.put("startEvent", startForm);
             }
 
             // Get all user task forms
-            for (org.flowable.bpmn.model.Process process : bpmnModel.getProcesses()) {
-                for (FlowElement element : process.getFlowElements()) {
-                    if (element instanceof UserTask) {
-                        FormDefinitionDTO taskForm = parseFormDefinitionFromXml(bpmnXml, element.getId());
-                        if (taskForm != null && hasFormContent(taskForm)) {
-                            formDefinitions.put(element.getId(), taskForm);
-                        }
-                    }
+            forms.userTaskForms().forEach((elementId, taskForm) -> {
+                if (hasFormContent(taskForm)) {
+                    formDefinitions.put(elementId, taskForm);
                 }
-            }
+            });
         } catch (Exception e) {
             log.error("Error getting all form definitions for process {}: {}",
                     processDefinitionId, e.getMessage(), e);
@@ -130,71 +138,57 @@ public class FormDefinitionService {
                (form.getGrids() != null && !form.getGrids().isEmpty());
     }
 
-    private FormDefinitionDTO parseFormDefinitionFromXml(String bpmnXml, String elementId) {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8)));
-
-            Element targetElement = null;
-            String elementName = null;
-            String elementType = null;
-
-            if (elementId == null) {
-                // Find start event
-                NodeList startEvents = document.getElementsByTagNameNS("http://www.omg.org/spec/BPMN/20100524/MODEL", "startEvent");
-                if (startEvents.getLength() > 0) {
-                    targetElement = (Element) startEvents.item(0);
-                    elementType = "bpmn:StartEvent";
-                }
-            } else {
-                // Find element by ID - search both userTask and startEvent
-                NodeList userTasks = document.getElementsByTagNameNS("http://www.omg.org/spec/BPMN/20100524/MODEL", "userTask");
-                for (int i = 0; i < userTasks.getLength(); i++) {
-                    Element el = (Element) userTasks.item(i);
-                    if (elementId.equals(el.getAttribute("id"))) {
-                        targetElement = el;
-                        elementType = "bpmn:UserTask";
-                        break;
-                    }
-                }
+    /**
+     * Parsed forms of a definition, from the cache or from a single parse of its BPMN model.
+     *
+     * @return the forms, or {@code null} if the definition has no model
+     */
+    private CompiledForms compiledForms(String processDefinitionId) {
+        return formDefinitionCache.get(processDefinitionId, this::compileForms);
+    }
 
-                if (targetElement == null) {
-                    NodeList startEvents = document.getElementsByTagNameNS("http://www.omg.org/spec/BPMN/20100524/MODEL", "startEvent");
-                    for (int i = 0; i < startEvents.getLength(); i++) {
-                        Element el = (Element) startEvents.item(i);
-                        if (elementId.equals(el.getAttribute("id"))) {
-                            targetElement = el;
-                            elementType = "bpmn:StartEvent";
-                            break;
-                        }
-                    }
-                }
+    private CompiledForms compileForms(String processDefinitionId) {
+        try (InputStream bpmnStream = repositoryService.getProcessModel(processDefinitionId)) {
+            if (bpmnStream == null) {
+                log.warn("No BPMN model found for process definition {}", processDefinitionId);
+                return null;
             }
 
-            if (targetElement == null) {
-                return FormDefinitionDTO.builder()
-                        .elementId(elementId)
-                        .fields(new ArrayList<>())
-                        .grids(new ArrayList<>())
-                        .build();
-            }
+            // One streaming pass collects the form attributes of every element
+            BpmnForms bpmnForms = BpmnFormExtractor.extract(bpmnStream);
 
-            elementName = targetElement.getAttribute("name");
+            Map<String, FormDefinitionDTO> startForms = new LinkedHashMap<>();
+            for (ElementForm element : bpmnForms.startEvents()) {
+                startForms.putIfAbsent(element.id(), toFormDefinition(element, "bpmn:StartEvent"));
+            }
 
-            // Extract form fields
-            String formFieldsJson = targetElement.getAttributeNS("http://flowable.org/bpmn", "formFields");
-            if (formFieldsJson.isEmpty()) {
-                formFieldsJson = targetElement.getAttribute("flowable:formFields");
+            Map<String, FormDefinitionDTO> userTaskForms = new LinkedHashMap<>();
+            for (ElementForm element : bpmnForms.userTasks()) {
+                userTaskForms.putIfAbsent(element.id(), toFormDefinition(element, "bpmn:UserTask"));
             }
 
-            // Extract form grids
-            String formGridsJson = targetElement.getAttributeNS("http://flowable.org/bpmn", "formGrids");
-            if (formGridsJson.isEmpty()) {
-                formGridsJson = targetElement.getAttribute("flowable:formGrids");
+            ProcessFieldLibraryDTO fieldLibrary = null;
+            List<FieldConditionRuleDTO> conditionRules = new ArrayList<>();
+            if (bpmnForms.hasProcess()) {
+                fieldLibrary = parseFieldLibrary(bpmnForms.fieldLibrary());
+                conditionRules = parseConditionRules(bpmnForms.conditionRules());
+            } else {
+                log.warn("No process element found in BPMN model of {}", processDefinitionId);
             }
 
+            log.debug("Parsed {} start and {} user task form(s) of process definition {}",
+                    startForms.size(), userTaskForms.size(), processDefinitionId);
+            return new CompiledForms(startForms, userTaskForms, fieldLibrary, conditionRules);
+        } catch (IOException | XMLStreamException e) {
+            throw new IllegalStateException("Failed to parse BPMN model of " + processDefinitionId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private FormDefinitionDTO toFormDefinition(ElementForm element, String elementType) {
+        try {
+            String formFieldsJson = element.formFields();
+            String formGridsJson = element.formGrids();
+
             List<FormFieldDTO> fields = new ArrayList<>();
             List<FormGridDTO> grids = new ArrayList<>();
             FormDefinitionDTO.GridConfigDTO gridConfig = null;
@@ -230,8 +224,8 @@ public class FormDefinitionService {
             }
 
             return FormDefinitionDTO.builder()
-                    .elementId(targetElement.getAttribute("id"))
-                    .elementName(elementName)
+                    .elementId(element.id())
+                    .elementName(element.name())
                     .elementType(elementType)
                     .fields(fields)
                     .grids(grids)
@@ -240,7 +234,7 @@ public class FormDefinitionService {
                     .build();
 
         } catch (Exception e) {
-            log.error("Error parsing form definition from XML: {}", e.getMessage(), e);
+            log.error("Error parsing form definition of element {}: {}", element.id(), e.getMessage(), e);
             throw new RuntimeException("Failed to parse form definition: " + e.getMessage(), e);
         }
     }
@@ -357,66 +351,17 @@ public class FormDefinitionService {
      * Get process-level form configuration including field library and condition rules
      */
     public ProcessFormConfigDTO getProcessFormConfig(String processDefinitionId) {
-        try (InputStream bpmnStream = repositoryService.getProcessModel(processDefinitionId)) {
-            if (bpmnStream == null) {
-                log.warn("No BPMN model found for process form config {}", processDefinitionId);
-                return createEmptyProcessFormConfig(processDefinitionId);
-            }
-
-            String bpmnXml = new String(bpmnStream.readAllBytes(), StandardCharsets.UTF_8);
-
-            return parseProcessFormConfigFromXml(bpmnXml, processDefinitionId);
-        } catch (Exception e) {
-            log.error("Error getting process form config for {}: {}", processDefinitionId, e.getMessage(), e);
-            return createEmptyProcessFormConfig(processDefinitionId);
-        }
-    }
-
-    private ProcessFormConfigDTO createEmptyProcessFormConfig(String processDefinitionId) {
-        return ProcessFormConfigDTO.builder()
-                .processDefinitionId(processDefinitionId)
-                .fieldLibrary(ProcessFieldLibraryDTO.builder()
-                        .fields(new ArrayList<>())
-                        .grids(new ArrayList<>())
-                        .build())
-                .globalConditions(new ArrayList<>())
-                .defaultGridConfig(ProcessFormConfigDTO.GridConfigDTO.builder()
-                        .columns(2)
-                        .gap(16)
-                        .build())
-                .build();
-    }
-
-    private ProcessFormConfigDTO parseProcessFormConfigFromXml(String bpmnXml, String processDefinitionId) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true);
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document document = builder.parse(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8)));
-
-            // Find the process element
-            NodeList processes = document.getElementsByTagNameNS("http://www.omg.org/spec/BPMN/20100524/MODEL", "process");
-            if (processes.getLength() == 0) {
-                log.warn("No process element found in BPMN XML");
+            CompiledForms forms = compiledForms(processDefinitionId);
+            if (forms == null || forms.fieldLibrary() == null) {
                 return createEmptyProcessFormConfig(processDefinitionId);
             }
 
-            Element processElement = (Element) processes.item(0);
-
-            // Extract field library
-            String fieldLibraryJson = processElement.getAttributeNS("http://flowable.org/bpmn", "fieldLibrary");
-            if (fieldLibraryJson.isEmpty()) {
-                fieldLibraryJson = processElement.getAttribute("flowable:fieldLibrary");
-            }
-
-            // Extract condition rules
-            String conditionRulesJson = processElement.getAttributeNS("http://flowable.org/bpmn", "conditionRules");
-            if (conditionRulesJson.isEmpty()) {
-                conditionRulesJson = processElement.getAttribute("flowable:conditionRules");
-            }
-
-            ProcessFieldLibraryDTO fieldLibrary = parseFieldLibrary(fieldLibraryJson);
-            List<FieldConditionRuleDTO> conditionRules = parseConditionRules(conditionRulesJson);
+            // Fresh lists, so merging document type fields never touches the cached library
+            ProcessFieldLibraryDTO fieldLibrary = ProcessFieldLibraryDTO.builder()
+                    .fields(new ArrayList<>(forms.fieldLibrary().getFields()))
+                    .grids(new ArrayList<>(forms.fieldLibrary().getGrids()))
+                    .build();
 
             // Enhance field library with Document Type fields if configured
             org.flowable.engine.repository.ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
@@ -426,9 +371,9 @@ public class FormDefinitionService {
             if (definition != null) {
                 Optional<ProcessConfig> config = processConfigRepository.findByProcessDefinitionKey(definition.getKey());
                 if (config.isPresent() && config.get().getDocumentType() != null) {
-                    Optional<DocumentTypeDefinition> docType = documentTypeRepository.findByKey(config.get().getDocumentType());
-                    if (docType.isPresent() && docType.get().getSchemaJson() != null) {
-                        ProcessFieldLibraryDTO docLibrary = parseFieldLibrary(docType.get().getSchemaJson());
+                    CompiledSchema docSchema = getDocumentTypeSchema(config.get().getDocumentType());
+                    if (docSchema != null) {
+                        ProcessFieldLibraryDTO docLibrary = docSchema.fieldLibrary();
                         // Merge document fields/grids into field library
                         // We prepend them so they appear first if not overridden
                         List<FormFieldDTO> mergedFields = new ArrayList<>(docLibrary.getFields());
@@ -445,19 +390,58 @@ public class FormDefinitionService {
             return ProcessFormConfigDTO.builder()
                     .processDefinitionId(processDefinitionId)
                     .fieldLibrary(fieldLibrary)
-                    .globalConditions(conditionRules)
+                    .globalConditions(new ArrayList<>(forms.conditionRules()))
                     .defaultGridConfig(ProcessFormConfigDTO.GridConfigDTO.builder()
                             .columns(2)
                             .gap(16)
                             .build())
                     .build();
-
         } catch (Exception e) {
-            log.error("Error parsing process form config from XML: {}", e.getMessage(), e);
+            log.error("Error getting process form config for {}: {}", processDefinitionId, e.getMessage(), e);
             return createEmptyProcessFormConfig(processDefinitionId);
         }
     }
 
+    /**
+     * Get the compiled schema of a document type. The schema JSON is parsed once per version of
+     * the document type and shared by form rendering and field type resolution.
+     *
+     * @return the compiled schema, or {@code null} if the document type does not exist
+     */
+    public CompiledSchema getDocumentTypeSchema(String documentType) {
+        return documentTypeSchemaCache.get(documentType, this::compileDocumentTypeSchema);
+    }
+
+    private CompiledSchema compileDocumentTypeSchema(String documentType) {
+        Optional<DocumentTypeDefinition> definition = documentTypeRepository.findByKey(documentType);
+        if (definition.isEmpty()) {
+            return null;
+        }
+        ProcessFieldLibraryDTO parsed = parseFieldLibrary(definition.get().getSchemaJson());
+        ProcessFieldLibraryDTO library = ProcessFieldLibraryDTO.builder()
+                .fields(List.copyOf(parsed.getFields()))
+                .grids(List.copyOf(parsed.getGrids()))
+                .build();
+        log.debug("Compiled schema of document type {}: {} field(s), {} grid(s)",
+                documentType, library.getFields().size(), library.getGrids().size());
+        return new CompiledSchema(documentType, definition.get().getUpdatedAt(), library);
+    }
+
+    private ProcessFormConfigDTO createEmptyProcessFormConfig(String processDefinitionId) {
+        return ProcessFormConfigDTO.builder()
+                .processDefinitionId(processDefinitionId)
+                .fieldLibrary(ProcessFieldLibraryDTO.builder()
+                        .fields(new ArrayList<>())
+                        .grids(new ArrayList<>())
+                        .build())
+                .globalConditions(new ArrayList<>())
+                .defaultGridConfig(ProcessFormConfigDTO.GridConfigDTO.builder()
+                        .columns(2)
+                        .gap(16)
+                        .build())
+                .build();
+    }
+
     @SuppressWarnings("unchecked")
     private ProcessFieldLibraryDTO parseFieldLibrary(String json) {
         if (json == null || json.isEmpty()) {
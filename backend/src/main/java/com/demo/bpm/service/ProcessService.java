@@ -6,6 +6,10 @@ import com.demo.bpm.entity.ProcessConfig;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.demo.bpm.service.cache.FormDefinitionCache;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
 import com.demo.bpm.util.VariableStorageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +26,8 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.ZoneId;
 import java.util.HashMap;
@@ -41,6 +47,11 @@ public class ProcessService {
     private final ProcessConfigRepository processConfigRepository;
     private final BusinessTableService businessTableService;
     private final com.demo.bpm.mapper.ProcessMapper processMapper;
+    private final ProcessDefinitionCache processDefinitionCache;
+    private final FieldTypeResolver fieldTypeResolver;
+    private final ColumnMappingWarmupService columnMappingWarmupService;
+    private final FormDefinitionCache formDefinitionCache;
+    private final MergedVariableCache mergedVariableCache;
 
     public List<ProcessDTO> getAvailableProcesses() {
         return repositoryService.createProcessDefinitionQuery()
@@ -124,15 +135,13 @@ public class ProcessService {
 
         if (instance != null) {
             Map<String, Object> variables = runtimeService.getVariables(processInstanceId);
-            ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
-                    .processDefinitionId(instance.getProcessDefinitionId())
-                    .singleResult();
+            ProcessDefinitionInfo definition = processDefinitionCache.get(instance.getProcessDefinitionId()).orElse(null);
 
             return processMapper.toInstanceDTO(
                     instance.getId(),
                     instance.getProcessDefinitionId(),
                     instance.getProcessDefinitionKey(),
-                    definition != null ? definition.getName() : null,
+                    definition != null ? definition.name() : null,
                     instance.getBusinessKey(),
                     instance.getStartTime(),
                     (String) variables.get("_startedBy"),
@@ -165,8 +174,10 @@ public class ProcessService {
     }
 
     public Page<ProcessInstanceDTO> getActiveProcesses(String userId, Pageable pageable) {
+        // The page's Flowable variables come with the instances, as getProcessInstance returns them
         List<ProcessInstance> instances = runtimeService.createProcessInstanceQuery()
                 .variableValueEquals("_startedBy", userId)
+                .includeProcessVariables()
                 .orderByStartTime().desc()
                 .listPage((int) pageable.getOffset(), pageable.getPageSize());
 
@@ -174,8 +185,26 @@ public class ProcessService {
                 .variableValueEquals("_startedBy", userId)
                 .count();
 
+        Map<String, ProcessDefinitionInfo> definitions = processDefinitionCache.getAll(
+                instances.stream().map(ProcessInstance::getProcessDefinitionId).collect(Collectors.toSet()));
+
         List<ProcessInstanceDTO> dtos = instances.stream()
-                .map(instance -> getProcessInstance(instance.getId()))
+                .map(instance -> {
+                    Map<String, Object> instanceVariables = instance.getProcessVariables();
+                    ProcessDefinitionInfo definition = definitions.get(instance.getProcessDefinitionId());
+                    return processMapper.toInstanceDTO(
+                            instance.getId(),
+                            instance.getProcessDefinitionId(),
+                            instance.getProcessDefinitionKey(),
+                            definition != null ? definition.name() : null,
+                            instance.getBusinessKey(),
+                            instance.getStartTime(),
+                            (String) instanceVariables.get("_startedBy"),
+                            instanceVariables,
+                            false,
+                            instance.isSuspended()
+                    );
+                })
                 .collect(Collectors.toList());
 
         return new PageImpl<>(dtos, pageable, total);
@@ -200,6 +229,7 @@ public class ProcessService {
 
             String documentType = extractDocumentTypeFromBpmn(definition.getId());
             updateProcessConfig(definition.getKey(), documentType);
+            columnMappingWarmupService.warmUpAfterCommit(List.of(definition.getKey()));
 
             return processMapper.toDTO(definition);
         } catch (Exception e) {
@@ -250,13 +280,23 @@ public class ProcessService {
 
     public void deleteProcessDefinition(String processDefinitionId, boolean cascade) {
         try {
-            repositoryService.deleteDeployment(
-                    repositoryService.createProcessDefinitionQuery()
-                            .processDefinitionId(processDefinitionId)
-                            .singleResult()
-                            .getDeploymentId(),
-                    cascade
-            );
+            String deploymentId = repositoryService.createProcessDefinitionQuery()
+                    .processDefinitionId(processDefinitionId)
+                    .singleResult()
+                    .getDeploymentId();
+            List<String> deletedDefinitionIds = repositoryService.createProcessDefinitionQuery()
+                    .deploymentId(deploymentId)
+                    .list()
+                    .stream()
+                    .map(ProcessDefinition::getId)
+                    .toList();
+            repositoryService.deleteDeployment(deploymentId, cascade);
+            deletedDefinitionIds.forEach(this::invalidateDefinitionAfterCommit);
+            formDefinitionCache.invalidateAll();
+            fieldTypeResolver.invalidateAll();
+            if (cascade) {
+                mergedVariableCache.invalidateAll();
+            }
             log.info("Deleted process definition: {}", processDefinitionId);
         } catch (Exception e) {
             log.error("Error deleting process: {}", e.getMessage(), e);
@@ -285,21 +325,42 @@ public class ProcessService {
     @Transactional
     public void suspendProcessDefinition(String processDefinitionId) {
         repositoryService.suspendProcessDefinitionById(processDefinitionId);
+        invalidateDefinitionAfterCommit(processDefinitionId);
         log.info("Suspended process definition: {}", processDefinitionId);
     }
 
     @Transactional
     public void activateProcessDefinition(String processDefinitionId) {
         repositoryService.activateProcessDefinitionById(processDefinitionId);
+        invalidateDefinitionAfterCommit(processDefinitionId);
         log.info("Activated process definition: {}", processDefinitionId);
     }
 
     @Transactional
     public void updateProcessDefinitionCategory(String processDefinitionId, String category) {
         repositoryService.setProcessDefinitionCategory(processDefinitionId, category);
+        invalidateDefinitionAfterCommit(processDefinitionId);
         log.info("Updated category for process definition {}: {}", processDefinitionId, category);
     }
 
+    /**
+     * Drop a cached definition once the change is committed, so a concurrent reader cannot cache
+     * the old suspended flag or category again in between. New deployments get new definition
+     * IDs, so deploying needs no invalidation.
+     */
+    private void invalidateDefinitionAfterCommit(String processDefinitionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    processDefinitionCache.invalidate(processDefinitionId);
+                }
+            });
+        } else {
+            processDefinitionCache.invalidate(processDefinitionId);
+        }
+    }
+
     @Transactional
     public void cancelProcessInstance(String processInstanceId, String reason, String userId, boolean isAdmin) {
         ProcessInstance instance = runtimeService.createProcessInstanceQuery()
@@ -317,6 +378,7 @@ public class ProcessService {
         }
 
         runtimeService.deleteProcessInstance(processInstanceId, reason != null ? reason : "Cancelled by user");
+        mergedVariableCache.invalidate(processInstanceId);
         log.info("Process instance {} cancelled by user {} (Admin: {}). Reason: {}", processInstanceId, userId, isAdmin, reason);
     }
 
@@ -0,0 +1,36 @@
+package com.demo.bpm.service;
+
+import org.flowable.task.api.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last task of a page in the (priority desc, createTime desc, id asc) ordering.
+ * Serialized as an opaque URL-safe token so clients cannot depend on its layout.
+ */
+record TaskCursor(int priority, Date createTime, String id) {
+
+    static TaskCursor of(Task task) {
+        return new TaskCursor(task.getPriority(), task.getCreateTime(), task.getId());
+    }
+
+    String encode() {
+        String raw = priority + "|" + createTime.getTime() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static TaskCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            return new TaskCursor(Integer.parseInt(parts[0]), new Date(Long.parseLong(parts[1])), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid task cursor");
+        }
+    }
+}
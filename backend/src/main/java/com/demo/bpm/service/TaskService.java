@@ -1,28 +1,37 @@
 package com.demo.bpm.service;
 
-import com.demo.bpm.dto.DocumentDTO;
 import com.demo.bpm.dto.TaskDTO;
+import com.demo.bpm.dto.TaskPageDTO;
+import com.demo.bpm.dto.TaskView;
 import com.demo.bpm.entity.ProcessConfig;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
+import com.demo.bpm.service.helpers.WorkflowContext;
 import com.demo.bpm.util.VariableStorageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flowable.engine.HistoryService;
-import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
-import org.flowable.engine.repository.ProcessDefinition;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.task.api.Task;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,57 +41,70 @@ public class TaskService {
 
     private final org.flowable.engine.TaskService flowableTaskService;
     private final RuntimeService runtimeService;
-    private final RepositoryService repositoryService;
     private final HistoryService historyService;
     private final BusinessTableService businessTableService;
     private final ProcessConfigRepository processConfigRepository;
     private final com.demo.bpm.mapper.TaskMapper taskMapper;
     private final com.demo.bpm.service.helpers.TaskCommonHelper taskCommonHelper;
     private final com.demo.bpm.service.helpers.VariableHelper variableHelper;
+    private final ProcessDefinitionCache processDefinitionCache;
+    private final MergedVariableCache mergedVariableCache;
+    private final BusinessDataOutboxService businessDataOutboxService;
+
+    /** Document fields returned in the SUMMARY task view when the caller does not list any. */
+    @Value("${bpm.tasks.summary-fields:}")
+    private List<String> defaultSummaryFields = new ArrayList<>();
+
+    @Value("${bpm.tasks.default-page-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${bpm.tasks.max-page-size:500}")
+    private int maxPageSize = 500;
 
     /**
-     * Retrieves tasks assigned to the specific user.
+     * Retrieves one page of the tasks assigned to the user or their groups, using keyset pagination.
      *
      * @param userId the ID of the user
-     * @return list of assigned tasks
+     * @param text filter by task name (partial)
+     * @param assignee filter by assignee
+     * @param priority filter by priority
+     * @param view FULL or SUMMARY projection
+     * @param fields document fields to include in SUMMARY view, or null for the configured defaults
+     * @param cursor continuation token from the previous page, or null for the first page
+     * @param size requested page size, capped at the configured maximum
+     * @param includeTotal whether to also count all matching tasks
+     * @return the page of tasks
      */
-    public List<TaskDTO> getAssignedTasks(String userId) {
-        log.debug("Fetching assigned tasks for user: {}", userId);
-        return getTasks(flowableTaskService.createTaskQuery().taskAssignee(userId));
+    public TaskPageDTO getGroupTaskPage(String userId, String text, String assignee, Integer priority,
+                                        TaskView view, Collection<String> fields,
+                                        String cursor, Integer size, boolean includeTotal) {
+        log.debug("Fetching group task page for user: {}, text: {}, assignee: {}, priority: {}, view: {}",
+                userId, text, assignee, priority, view);
+        return getTaskPage(() -> buildGroupTaskQuery(userId, text, assignee, priority),
+                view, fields, cursor, size, includeTotal);
     }
 
     /**
-     * Retrieves tasks that the user can claim (candidate tasks).
-     *
-     * @param userId the ID of the user
-     * @return list of claimable tasks
+     * Retrieves one page of the tasks assigned to the user, using keyset pagination.
      */
-    public List<TaskDTO> getClaimableTasks(String userId) {
-        log.debug("Fetching claimable tasks for user: {}", userId);
-        return getTasks(flowableTaskService.createTaskQuery().taskCandidateUser(userId));
+    public TaskPageDTO getAssignedTaskPage(String userId, TaskView view, Collection<String> fields,
+                                           String cursor, Integer size, boolean includeTotal) {
+        log.debug("Fetching assigned task page for user: {} (view: {})", userId, view);
+        return getTaskPage(() -> flowableTaskService.createTaskQuery().taskAssignee(userId),
+                view, fields, cursor, size, includeTotal);
     }
 
     /**
-     * Retrieves tasks assigned to the user or their groups (candidate or assigned).
-     *
-     * @param userId the ID of the user
-     * @return list of tasks
+     * Retrieves one page of the tasks the user can claim, using keyset pagination.
      */
-    public List<TaskDTO> getGroupTasks(String userId) {
-        return getGroupTasks(userId, null, null, null);
+    public TaskPageDTO getClaimableTaskPage(String userId, TaskView view, Collection<String> fields,
+                                            String cursor, Integer size, boolean includeTotal) {
+        log.debug("Fetching claimable task page for user: {} (view: {})", userId, view);
+        return getTaskPage(() -> flowableTaskService.createTaskQuery().taskCandidateUser(userId),
+                view, fields, cursor, size, includeTotal);
     }
 
-    /**
-     * Retrieves tasks assigned to the user or their groups with filtering.
-     *
-     * @param userId the ID of the user
-     * @param text filter by task name (partial)
-     * @param assignee filter by assignee
-     * @param priority filter by priority
-     * @return list of tasks
-     */
-    public List<TaskDTO> getGroupTasks(String userId, String text, String assignee, Integer priority) {
-        log.debug("Fetching group tasks for user: {}, text: {}, assignee: {}, priority: {}", userId, text, assignee, priority);
+    private org.flowable.task.api.TaskQuery buildGroupTaskQuery(String userId, String text, String assignee, Integer priority) {
         org.flowable.task.api.TaskQuery query = flowableTaskService.createTaskQuery()
                 .taskCandidateOrAssigned(userId);
 
@@ -102,7 +124,7 @@ public class TaskService {
              }
         }
 
-        return getTasks(query);
+        return query;
     }
 
     public TaskDTO getTaskById(String taskId) {
@@ -222,6 +244,20 @@ public class TaskService {
      * @param userId the user performing the completion
      */
     protected void internalCompleteTask(Task task, Map<String, Object> variables, String userId) {
+        internalCompleteTask(WorkflowContext.forTask(task, runtimeService, processDefinitionCache, variableHelper),
+                variables, userId);
+    }
+
+    /**
+     * Variant of {@link #internalCompleteTask(Task, Map, String)} for callers that already hold a
+     * context, so the process instance and definition they loaded are not queried again.
+     *
+     * @param context the operation's context
+     * @param variables the variables to complete the task with
+     * @param userId the user performing the completion
+     */
+    protected void internalCompleteTask(WorkflowContext context, Map<String, Object> variables, String userId) {
+        Task task = context.task();
         String taskId = task.getId();
 
         // If task is unassigned, claim it first
@@ -231,16 +267,11 @@ public class TaskService {
 
         // Get process info for business table persistence
         String processInstanceId = task.getProcessInstanceId();
-        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
-                .processInstanceId(processInstanceId)
-                .singleResult();
-
-        ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
-                .processDefinitionId(task.getProcessDefinitionId())
-                .singleResult();
+        ProcessInstance processInstance = context.processInstance();
+        ProcessDefinitionInfo processDefinition = context.processDefinition();
 
-        String processDefKey = processDefinition != null ? processDefinition.getKey() : null;
-        String processDefName = processDefinition != null ? processDefinition.getName() : null;
+        String processDefKey = processDefinition != null ? processDefinition.key() : null;
+        String processDefName = processDefinition != null ? processDefinition.name() : null;
         String businessKey = processInstance != null ? processInstance.getBusinessKey() : null;
 
         // Collect all variables (both system and business)
@@ -254,18 +285,36 @@ public class TaskService {
             allVars.put("_completedAt", java.time.LocalDateTime.now().toString());
         }
 
+        // One config read decides both whether and how to persist
+        Optional<ProcessConfig> config = processDefKey != null
+                ? processConfigRepository.findByProcessDefinitionKey(processDefKey)
+                : Optional.empty();
+        boolean persist = processDefKey != null && config.map(ProcessConfig::getPersistOnTaskComplete).orElse(true);
+        String documentType = config.map(ProcessConfig::getDocumentType).orElse(null);
+        if (persist) {
+            // Business fields are stored only in the business tables, so a value they cannot
+            // hold is rejected before the task is completed rather than lost after it
+            businessTableService.validateStorableValues(processDefKey, documentType, allVars);
+        }
+
         // Only pass system variables (starting with _) to Flowable
         Map<String, Object> systemVars = VariableStorageUtil.filterSystemVariables(allVars);
 
         flowableTaskService.complete(taskId, systemVars);
+        mergedVariableCache.invalidate(processInstanceId);
+        context.variablesChanged();
         log.info("Task {} completed by {}. System vars: {}, Total vars: {}", taskId, userId, systemVars.size(), allVars.size());
 
         // Persist to business tables if configured
-        if (processDefKey != null && businessTableService.shouldPersistOnTaskComplete(processDefKey)) {
-            try {
-                Optional<ProcessConfig> config = processConfigRepository.findByProcessDefinitionKey(processDefKey);
-                String documentType = config.map(ProcessConfig::getDocumentType).orElse(null);
+        if (persist) {
+            if (config.map(ProcessConfig::getAsyncPersistence).orElse(false)) {
+                // Queued in this transaction; failures roll the completion back with it
+                businessDataOutboxService.enqueue(processInstanceId, businessKey, processDefKey, processDefName,
+                        documentType, allVars, userId);
+                return;
+            }
 
+            try {
                 businessTableService.saveAllData(
                         processInstanceId,
                         businessKey,
@@ -282,18 +331,168 @@ public class TaskService {
         }
     }
 
-    private TaskDTO convertToDTO(Task task) {
-        // Get merged variables from both Flowable (system vars) and document tables (business data)
-        Map<String, Object> variables = variableHelper.getMergedVariables(task.getProcessInstanceId());
-        return taskMapper.toDTO(task, variables);
+    /**
+     * Builds one page with keyset pagination over (priority desc, createTime desc, id asc).
+     * Rows after the cursor come from three segments: same priority and create time with a
+     * greater id, same priority and older, then lower priority. The last two are single queries
+     * capped at the remaining page size. The task query cannot filter on an id range, so the tie
+     * segment is read from its start in pages of {@code size + 1} rows and ids up to the cursor are
+     * skipped in memory: it costs one query per {@code size + 1} ties at or before the cursor.
+     * Ties need equal create times, so this segment is normally a single short query.
+     */
+    private TaskPageDTO getTaskPage(Supplier<org.flowable.task.api.TaskQuery> baseQuery, TaskView view,
+                                    Collection<String> fields, String cursor, Integer size, boolean includeTotal) {
+        int pageSize = resolvePageSize(size);
+        List<Task> tasks = fetchTasksAfter(baseQuery, TaskCursor.decode(cursor), pageSize + 1);
+
+        boolean hasMore = tasks.size() > pageSize;
+        if (hasMore) {
+            tasks = tasks.subList(0, pageSize);
+        }
+
+        return TaskPageDTO.builder()
+                .content(view == TaskView.SUMMARY ? convertToSummaryDTOs(tasks, fields) : convertToDTOs(tasks))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? TaskCursor.of(tasks.get(tasks.size() - 1)).encode() : null)
+                .totalElements(includeTotal ? baseQuery.get().count() : null)
+                .build();
     }
 
-    private List<TaskDTO> getTasks(org.flowable.task.api.TaskQuery query) {
+    private List<Task> fetchTasksAfter(Supplier<org.flowable.task.api.TaskQuery> baseQuery, TaskCursor after, int limit) {
+        if (after == null) {
+            return orderForPaging(baseQuery.get()).listPage(0, limit);
+        }
+
+        List<Task> tasks = new ArrayList<>(limit);
+        // Ties on (priority, createTime) are rare; read them in bounded pages, skipping ids up to the cursor
+        for (int offset = 0; tasks.size() < limit; offset += limit) {
+            List<Task> ties = orderForPaging(baseQuery.get().taskPriority(after.priority()).taskCreatedOn(after.createTime()))
+                    .listPage(offset, limit);
+            ties.stream()
+                    .filter(task -> task.getId().compareTo(after.id()) > 0)
+                    .limit(limit - tasks.size())
+                    .forEach(tasks::add);
+            if (ties.size() < limit) {
+                break;
+            }
+        }
+
+        if (tasks.size() < limit) {
+            tasks.addAll(orderForPaging(baseQuery.get().taskPriority(after.priority()).taskCreatedBefore(after.createTime()))
+                    .listPage(0, limit - tasks.size()));
+        }
+        if (tasks.size() < limit) {
+            tasks.addAll(orderForPaging(baseQuery.get().taskMaxPriority(after.priority() - 1))
+                    .listPage(0, limit - tasks.size()));
+        }
+        return tasks;
+    }
+
+    private org.flowable.task.api.TaskQuery orderForPaging(org.flowable.task.api.TaskQuery query) {
         return query.orderByTaskPriority().desc()
                 .orderByTaskCreateTime().desc()
-                .list()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .orderByTaskId().asc();
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    /**
+     * Converts a list of tasks with a fixed number of lookups regardless of list size: the
+     * merged variables come from the batch loader of {@link com.demo.bpm.service.helpers.VariableHelper}, which serves cached
+     * instances from {@code MergedVariableCache}, and the business keys from one process
+     * instance query without variables.
+     */
+    private List<TaskDTO> convertToDTOs(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> processInstanceIds = tasks.stream()
+                .map(Task::getProcessInstanceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> processDefinitionIds = tasks.stream()
+                .map(Task::getProcessDefinitionId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, String> businessKeys = getBusinessKeys(processInstanceIds);
+        Map<String, Map<String, Object>> mergedVariables = processInstanceIds.isEmpty()
+                ? Map.of()
+                : variableHelper.getMergedVariables(processInstanceIds);
+
+        Map<String, ProcessDefinitionInfo> processDefinitions = processDefinitionCache.getAll(processDefinitionIds);
+
+        List<TaskDTO> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            result.add(taskMapper.toDTO(task,
+                    mergedVariables.getOrDefault(task.getProcessInstanceId(), Map.of()),
+                    businessKeys.get(task.getProcessInstanceId()),
+                    processDefinitions.get(task.getProcessDefinitionId())));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a list of tasks for the inbox view. Process variables and grids are never
+     * loaded; only the requested document header fields are read from the business tables.
+     */
+    private List<TaskDTO> convertToSummaryDTOs(List<Task> tasks, Collection<String> fields) {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> processInstanceIds = tasks.stream()
+                .map(Task::getProcessInstanceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> processDefinitionIds = tasks.stream()
+                .map(Task::getProcessDefinitionId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Collection<String> summaryFields = fields != null && !fields.isEmpty() ? fields : defaultSummaryFields;
+
+        Map<String, String> businessKeys = getBusinessKeys(processInstanceIds);
+        Map<String, Map<String, Object>> headerFields = new HashMap<>();
+        if (!processInstanceIds.isEmpty()) {
+            if (!summaryFields.isEmpty()) {
+                try {
+                    headerFields = businessTableService.getDocumentFields(
+                            processInstanceIds, BusinessTableService.DEFAULT_DOCUMENT_TYPE, summaryFields);
+                } catch (Exception e) {
+                    log.debug("Could not get document header fields: {}", e.getMessage());
+                }
+            }
+        }
+
+        Map<String, ProcessDefinitionInfo> processDefinitions = processDefinitionCache.getAll(processDefinitionIds);
+
+        List<TaskDTO> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Map<String, Object> variables = headerFields.getOrDefault(task.getProcessInstanceId(), new HashMap<>());
+            result.add(taskMapper.toDTO(task, variables,
+                    businessKeys.get(task.getProcessInstanceId()),
+                    processDefinitions.get(task.getProcessDefinitionId())));
+        }
+        return result;
+    }
+
+    /**
+     * Business keys of the given process instances, read without their variables.
+     */
+    private Map<String, String> getBusinessKeys(Set<String> processInstanceIds) {
+        Map<String, String> businessKeys = new HashMap<>();
+        if (!processInstanceIds.isEmpty()) {
+            runtimeService.createProcessInstanceQuery()
+                    .processInstanceIds(processInstanceIds)
+                    .list()
+                    .forEach(pi -> businessKeys.put(pi.getId(), pi.getBusinessKey()));
+        }
+        return businessKeys;
     }
 }
@@ -2,17 +2,17 @@ package com.demo.bpm.service;
 
 import com.demo.bpm.dto.*;
 import com.demo.bpm.exception.ResourceNotFoundException;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
 import com.demo.bpm.util.WorkflowConstants;
 import com.demo.bpm.util.WorkflowVariableUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flowable.engine.HistoryService;
-import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.TaskService;
 import org.flowable.engine.history.HistoricProcessInstance;
-import org.flowable.engine.repository.ProcessDefinition;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.task.api.Task;
 import org.flowable.task.api.history.HistoricTaskInstance;
@@ -29,10 +29,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WorkflowHistoryService {
 
+    // Keeps IN lists within what every supported database accepts
+    private static final int MAX_IN_PARAMETERS = 500;
+
     private final RuntimeService runtimeService;
     private final TaskService taskService;
     private final HistoryService historyService;
-    private final RepositoryService repositoryService;
+    private final ProcessDefinitionCache processDefinitionCache;
     private final com.demo.bpm.mapper.WorkflowHistoryMapper workflowHistoryMapper;
     private final com.demo.bpm.service.helpers.VariableHelper variableHelper;
 
@@ -57,27 +60,102 @@ public class WorkflowHistoryService {
         return builder.build();
     }
 
-    private Map<String, Object> mapActiveInstance(ProcessInstance instance, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
-        String processInstanceId = instance.getId();
-        Map<String, Object> variables = variableHelper.getMergedVariables(processInstanceId);
+    /**
+     * Batch variant of {@link #getWorkflowHistory(String)} for dashboards and list views.
+     * Instances, current tasks, task history, task-local variables and merged variables are each
+     * read with one set-based query for the whole page; only comments are still read per instance,
+     * as Flowable has no query for the comments of several instances. Unknown instances are skipped.
+     *
+     * @param processInstanceIds the process instance IDs
+     * @return workflow histories in the order of {@code processInstanceIds}, without duplicates
+     */
+    public List<WorkflowHistoryDTO> getWorkflowHistories(Collection<String> processInstanceIds) {
+        List<String> ids = processInstanceIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
-                .processDefinitionId(instance.getProcessDefinitionId())
-                .singleResult();
+        Map<String, ProcessInstance> activeInstances = runtimeService.createProcessInstanceQuery()
+                .processInstanceIds(new HashSet<>(ids))
+                .list()
+                .stream()
+                .collect(Collectors.toMap(ProcessInstance::getId, instance -> instance));
+        Set<String> inactiveIds = ids.stream()
+                .filter(id -> !activeInstances.containsKey(id))
+                .collect(Collectors.toSet());
+        Map<String, HistoricProcessInstance> historicInstances = inactiveIds.isEmpty() ? Map.of()
+                : historyService.createHistoricProcessInstanceQuery()
+                        .processInstanceIds(inactiveIds)
+                        .list()
+                        .stream()
+                        .collect(Collectors.toMap(HistoricProcessInstance::getId, instance -> instance));
+
+        Map<String, Map<String, Object>> variables = variableHelper.getMergedVariables(ids);
+        Map<String, ProcessDefinitionInfo> definitions = processDefinitionCache.getAll(activeInstances.values().stream()
+                .map(ProcessInstance::getProcessDefinitionId)
+                .collect(Collectors.toSet()));
+
+        Map<String, Task> currentTasks = new HashMap<>();
+        taskService.createTaskQuery()
+                .processInstanceIdIn(ids)
+                .list()
+                .forEach(task -> currentTasks.putIfAbsent(task.getProcessInstanceId(), task));
+        Map<String, List<TaskHistoryDTO>> taskHistories = getTaskHistories(ids);
+
+        List<WorkflowHistoryDTO> result = new ArrayList<>(ids.size());
+        for (String processInstanceId : ids) {
+            WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder = WorkflowHistoryDTO.builder()
+                    .processInstanceId(processInstanceId);
+            Map<String, Object> instanceVariables = variables.getOrDefault(processInstanceId, Map.of());
+
+            ProcessInstance activeInstance = activeInstances.get(processInstanceId);
+            HistoricProcessInstance historicInstance = historicInstances.get(processInstanceId);
+            if (activeInstance != null) {
+                applyActiveInstance(activeInstance, instanceVariables,
+                        definitions.get(activeInstance.getProcessDefinitionId()), builder);
+            } else if (historicInstance != null) {
+                applyHistoricInstance(historicInstance, instanceVariables, builder);
+            } else {
+                log.debug("Skipping unknown process instance {}", processInstanceId);
+                continue;
+            }
 
+            Task currentTask = currentTasks.get(processInstanceId);
+            if (currentTask != null) {
+                applyCurrentTask(currentTask, builder);
+            }
+            builder.taskHistory(taskHistories.getOrDefault(processInstanceId, new ArrayList<>()))
+                    .escalationHistory(workflowHistoryMapper.toEscalationHistory(instanceVariables))
+                    .approvals(workflowHistoryMapper.toApprovalHistory(processInstanceId, instanceVariables))
+                    .comments(getComments(processInstanceId));
+            result.add(builder.build());
+        }
+        return result;
+    }
+
+    private Map<String, Object> mapActiveInstance(ProcessInstance instance, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
+        Map<String, Object> variables = variableHelper.getMergedVariables(instance.getId());
+        ProcessDefinitionInfo definition = processDefinitionCache.get(instance.getProcessDefinitionId()).orElse(null);
+        applyActiveInstance(instance, variables, definition, builder);
+        return variables;
+    }
+
+    private void applyActiveInstance(ProcessInstance instance, Map<String, Object> variables, ProcessDefinitionInfo definition,
+                                     WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
         builder.status(instance.isSuspended() ? "SUSPENDED" : "ACTIVE")
                 .startTime(instance.getStartTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime())
                 .processDefinitionId(instance.getProcessDefinitionId())
                 .processDefinitionKey(instance.getProcessDefinitionKey())
-                .processDefinitionName(definition != null ? definition.getName() : null)
+                .processDefinitionName(definition != null ? definition.name() : null)
                 .businessKey(instance.getBusinessKey())
                 .initiatorId((String) variables.get(WorkflowConstants.VAR_STARTED_BY))
                 .initiatorName((String) variables.get(WorkflowConstants.VAR_EMPLOYEE_NAME))
                 .currentLevel(WorkflowVariableUtils.getStringVariable(variables, WorkflowConstants.VAR_CURRENT_LEVEL, WorkflowConstants.LEVEL_SUPERVISOR))
                 .escalationCount(WorkflowVariableUtils.getIntVariable(variables, WorkflowConstants.VAR_ESCALATION_COUNT, 0))
                 .variables(variables);
-
-        return variables;
     }
 
     private Map<String, Object> mapHistoricInstance(String processInstanceId, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
@@ -90,7 +168,12 @@ public class WorkflowHistoryService {
         }
 
         Map<String, Object> variables = variableHelper.getMergedVariables(processInstanceId);
+        applyHistoricInstance(historicInstance, variables, builder);
+        return variables;
+    }
 
+    private void applyHistoricInstance(HistoricProcessInstance historicInstance, Map<String, Object> variables,
+                                       WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
         builder.status(historicInstance.getEndTime() != null ? "COMPLETED" : "ACTIVE")
                 .startTime(historicInstance.getStartTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime())
                 .processDefinitionId(historicInstance.getProcessDefinitionId())
@@ -107,8 +190,6 @@ public class WorkflowHistoryService {
             builder.endTime(historicInstance.getEndTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime())
                     .durationInMillis(historicInstance.getDurationInMillis());
         }
-
-        return variables;
     }
 
     private void populateTaskInfo(String processInstanceId, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
@@ -117,13 +198,16 @@ public class WorkflowHistoryService {
                 .list();
 
         if (!currentTasks.isEmpty()) {
-            Task currentTask = currentTasks.get(0);
-            builder.currentTaskId(currentTask.getId())
-                    .currentTaskName(currentTask.getName())
-                    .currentAssignee(currentTask.getAssignee());
+            applyCurrentTask(currentTasks.get(0), builder);
         }
     }
 
+    private void applyCurrentTask(Task currentTask, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
+        builder.currentTaskId(currentTask.getId())
+                .currentTaskName(currentTask.getName())
+                .currentAssignee(currentTask.getAssignee());
+    }
+
     private void populateHistorySegments(String processInstanceId, Map<String, Object> variables, WorkflowHistoryDTO.WorkflowHistoryDTOBuilder builder) {
         builder.taskHistory(getTaskHistory(processInstanceId))
                 .escalationHistory(workflowHistoryMapper.toEscalationHistory(variables))
@@ -138,20 +222,61 @@ public class WorkflowHistoryService {
     }
 
     public List<TaskHistoryDTO> getTaskHistory(String processInstanceId) {
-        return historyService.createHistoricTaskInstanceQuery()
+        return getTaskHistory(processInstanceId, true);
+    }
+
+    /**
+     * Task history of a process instance, ordered by end time. Task-local variables of all tasks
+     * are read with one query and grouped in memory.
+     *
+     * @param includeVariables whether to load task-local variables; if not, every task has an empty map
+     */
+    public List<TaskHistoryDTO> getTaskHistory(String processInstanceId, boolean includeVariables) {
+        List<HistoricTaskInstance> tasks = historyService.createHistoricTaskInstanceQuery()
                 .processInstanceId(processInstanceId)
                 .orderByHistoricTaskInstanceEndTime().asc()
-                .list()
-                .stream()
-                .map(task -> {
-                    List<HistoricVariableInstance> taskVars = historyService.createHistoricVariableInstanceQuery()
-                            .taskId(task.getId())
-                            .list();
-                    return workflowHistoryMapper.toTaskHistoryDTO(task, taskVars);
-                })
+                .list();
+
+        Map<String, List<HistoricVariableInstance>> taskVars = includeVariables ? getTaskVariables(tasks) : Map.of();
+        return tasks.stream()
+                .map(task -> workflowHistoryMapper.toTaskHistoryDTO(task, taskVars.getOrDefault(task.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Task history of many process instances, keyed by process instance ID: one query for the
+     * historic tasks and one per 500 tasks for their local variables.
+     */
+    private Map<String, List<TaskHistoryDTO>> getTaskHistories(List<String> processInstanceIds) {
+        List<HistoricTaskInstance> tasks = historyService.createHistoricTaskInstanceQuery()
+                .processInstanceIdIn(processInstanceIds)
+                .orderByHistoricTaskInstanceEndTime().asc()
+                .list();
+
+        Map<String, List<HistoricVariableInstance>> taskVars = getTaskVariables(tasks);
+        Map<String, List<TaskHistoryDTO>> result = new HashMap<>();
+        for (HistoricTaskInstance task : tasks) {
+            result.computeIfAbsent(task.getProcessInstanceId(), id -> new ArrayList<>())
+                    .add(workflowHistoryMapper.toTaskHistoryDTO(task, taskVars.getOrDefault(task.getId(), List.of())));
+        }
+        return result;
+    }
+
+    /**
+     * Local variables of the given tasks keyed by task ID, one query per 500 tasks.
+     */
+    private Map<String, List<HistoricVariableInstance>> getTaskVariables(List<HistoricTaskInstance> tasks) {
+        List<String> taskIds = tasks.stream().map(HistoricTaskInstance::getId).collect(Collectors.toList());
+        Map<String, List<HistoricVariableInstance>> taskVars = new HashMap<>();
+        for (int i = 0; i < taskIds.size(); i += MAX_IN_PARAMETERS) {
+            historyService.createHistoricVariableInstanceQuery()
+                    .taskIds(new HashSet<>(taskIds.subList(i, Math.min(i + MAX_IN_PARAMETERS, taskIds.size()))))
+                    .list()
+                    .forEach(var -> taskVars.computeIfAbsent(var.getTaskId(), id -> new ArrayList<>()).add(var));
+        }
+        return taskVars;
+    }
+
     public List<WorkflowHistoryDTO> getAllProcesses(String status, String processType, int page, int size) {
         List<WorkflowHistoryDTO> result = new ArrayList<>();
 
@@ -165,9 +290,9 @@ public class WorkflowHistoryService {
 
             List<ProcessInstance> activeList = query.listPage(page * size, size);
 
-            for (ProcessInstance pi : activeList) {
-                result.add(getWorkflowHistory(pi.getId()));
-            }
+            result.addAll(getWorkflowHistories(activeList.stream()
+                    .map(ProcessInstance::getId)
+                    .collect(Collectors.toList())));
         }
 
         if ("COMPLETED".equals(status) || status == null) {
@@ -181,9 +306,9 @@ public class WorkflowHistoryService {
 
             List<HistoricProcessInstance> historicList = query.listPage(page * size, size);
 
-            for (HistoricProcessInstance hpi : historicList) {
-                result.add(getWorkflowHistory(hpi.getId()));
-            }
+            result.addAll(getWorkflowHistories(historicList.stream()
+                    .map(HistoricProcessInstance::getId)
+                    .collect(Collectors.toList())));
         }
 
         return result;
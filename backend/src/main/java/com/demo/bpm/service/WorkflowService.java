@@ -4,6 +4,7 @@ import com.demo.bpm.dto.*;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.service.helpers.HistoryRecorder;
+import com.demo.bpm.service.helpers.WorkflowContext;
 import com.demo.bpm.util.EscalationUtils;
 import com.demo.bpm.util.WorkflowConstants;
 import com.demo.bpm.util.WorkflowVariableUtils;
@@ -91,9 +92,9 @@ public class WorkflowService {
     }
 
     private EscalationDTO processEscalation(String taskId, EscalationRequest request, String userId, boolean isEscalation) {
-        Task task = taskCommonHelper.getTaskOrThrow(taskId);
-        String processInstanceId = task.getProcessInstanceId();
-        Map<String, Object> variables = variableHelper.getMergedVariables(processInstanceId);
+        WorkflowContext context = taskCommonHelper.openContext(taskId);
+        String processInstanceId = context.processInstanceId();
+        Map<String, Object> variables = context.variables();
         String currentLevel = WorkflowVariableUtils.getStringVariable(variables, WorkflowConstants.VAR_CURRENT_LEVEL, WorkflowConstants.LEVEL_SUPERVISOR);
 
         String targetLevel = request.getTargetLevel();
@@ -106,14 +107,13 @@ public class WorkflowService {
         validateEscalation(currentLevel, targetLevel, isEscalation);
 
         String id = historyRecorder.recordEscalationHistory(
-            processInstanceId, taskId, userId, currentLevel, targetLevel,
-            request.getReason(), isEscalation, variables
+            context, userId, currentLevel, targetLevel, request.getReason(), isEscalation
         );
 
         Map<String, Object> escalationVars = getEscalationVariables(isEscalation, variables, targetLevel, request.getReason(), userId);
 
         // Use unified task completion
-        appTaskService.internalCompleteTask(task, escalationVars, userId);
+        appTaskService.internalCompleteTask(context, escalationVars, userId);
 
         log.info("Task {} (ProcessInstance: {}) {} from {} to {} by {}", taskId, processInstanceId, isEscalation ? "escalated" : "de-escalated", currentLevel, targetLevel, userId);
 
@@ -177,7 +177,7 @@ public class WorkflowService {
 
     private String getCurrentLevel(String processInstanceId) {
         return WorkflowVariableUtils.getStringVariable(
-            variableHelper.getMergedVariables(processInstanceId),
+            variableHelper.getVariables(processInstanceId, Set.of(WorkflowConstants.VAR_CURRENT_LEVEL)),
             WorkflowConstants.VAR_CURRENT_LEVEL,
             WorkflowConstants.LEVEL_SUPERVISOR
         );
@@ -194,11 +194,11 @@ public class WorkflowService {
     @Transactional
     public void handoffTask(String taskId, String toUserId, String reason, String fromUserId) {
         log.debug("Handing off task {} from {} to {} due to: {}", taskId, fromUserId, toUserId, reason);
-        Task task = taskCommonHelper.getTaskOrThrow(taskId);
-        String processInstanceId = task.getProcessInstanceId();
+        WorkflowContext context = taskCommonHelper.openContext(taskId);
+        Task task = context.task();
+        String processInstanceId = context.processInstanceId();
 
-        historyRecorder.recordHandoffHistory(processInstanceId, taskId, task.getName(),
-            fromUserId, toUserId, reason, variableHelper.getMergedVariables(processInstanceId));
+        historyRecorder.recordHandoffHistory(context, fromUserId, toUserId, reason);
 
         // Unclaim and reassign
         if (task.getAssignee() != null) {
@@ -221,12 +221,13 @@ public class WorkflowService {
     @Transactional
     public ApprovalDTO recordApproval(String taskId, String decision, String comments, String userId) {
         log.debug("Recording approval for task {} by user {}. Decision: {}", taskId, userId, decision);
-        Task task = taskCommonHelper.getTaskOrThrow(taskId);
-        String processInstanceId = task.getProcessInstanceId();
-        String currentLevel = getCurrentLevel(processInstanceId);
+        WorkflowContext context = taskCommonHelper.openContext(taskId);
+        Task task = context.task();
+        String processInstanceId = context.processInstanceId();
+        String currentLevel = WorkflowVariableUtils.getStringVariable(
+            context.variables(), WorkflowConstants.VAR_CURRENT_LEVEL, WorkflowConstants.LEVEL_SUPERVISOR);
 
-        var result = historyRecorder.recordApprovalHistory(processInstanceId, taskId, task.getName(),
-            userId, currentLevel, decision, comments, variableHelper.getMergedVariables(processInstanceId));
+        var result = historyRecorder.recordApprovalHistory(context, userId, currentLevel, decision, comments);
 
         // Update variables
         Map<String, Object> updateVars = new HashMap<>();
@@ -235,7 +236,7 @@ public class WorkflowService {
         updateVars.put(WorkflowConstants.VAR_COMPLETED_BY, userId);
 
         // Use unified task completion
-        appTaskService.internalCompleteTask(task, updateVars, userId);
+        appTaskService.internalCompleteTask(context, updateVars, userId);
 
         log.info("Approval recorded for task {} (ProcessInstance: {}) by {} - Decision: {}", taskId, processInstanceId, userId, decision);
 
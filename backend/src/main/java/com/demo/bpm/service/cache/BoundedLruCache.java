@@ -0,0 +1,267 @@
+package com.demo.bpm.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-process cache bounded by entry count, evicting the least recently used entry, with
+ * {@code bpm.cache.*} meters tagged by the cache name. Subclasses may bound it by a total weight
+ * instead and let entries expire after a time to live.
+ * <p>
+ * Values are loaded outside the lock, so a concurrent miss on the same key loads it twice.
+ * A load that raced with an invalidation is returned but not cached, so a reader that loaded
+ * the state from before a change cannot put it back afterwards. {@code null} loads are never
+ * cached, nor are values heavier than the whole bound. Cached values are shared and must not be
+ * modified by callers.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@Slf4j
+public class BoundedLruCache<K, V> implements MeterBinder {
+
+    private record Entry<V>(V value, long weight, long loadedAt) {
+    }
+
+    private final String name;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final boolean weighted;
+    private final long timeToLiveNanos;
+    // Access-ordered, so the least recently used entry comes first
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Guarded by entries
+    private long totalWeight;
+    // Guarded by entries; bumped by every invalidation so loads that raced with one are not cached
+    private long generation;
+
+    /**
+     * @param name    value of the {@code cache} tag on the meters
+     * @param maxSize number of entries kept before the least recently used one is evicted
+     */
+    public BoundedLruCache(String name, int maxSize) {
+        this(name, maxSize, null, null);
+    }
+
+    /**
+     * @param name       value of the {@code cache} tag on the meters
+     * @param maxWeight  total weight kept before the least recently used entries are evicted
+     * @param weigher    weight of a value, or {@code null} to weigh every entry as one
+     * @param timeToLive how long an entry is served after it was loaded, or {@code null} to keep it
+     *                   until it is evicted or invalidated
+     */
+    protected BoundedLruCache(String name, long maxWeight, ToLongFunction<? super V> weigher, Duration timeToLive) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher != null ? weigher : value -> 1;
+        this.weighted = weigher != null;
+        this.timeToLiveNanos = timeToLive != null ? timeToLive.toNanos() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the value of a key, loading it with {@code loader} on a miss.
+     * Nothing is cached when the loader returns {@code null} or throws.
+     *
+     * @return the cached or loaded value, or {@code null} if the loader found nothing
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (entries) {
+            V cached = lookup(key);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (entries) {
+                store(key, loaded, loadGeneration);
+                evictToBound();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Get the values of several keys, loading all misses with a single call to {@code loader}.
+     *
+     * @param loader loads the values of the given keys; keys it has no value for are left out
+     * @return the values keyed by key; keys without a value are absent
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        long loadGeneration;
+        synchronized (entries) {
+            for (K key : keys) {
+                V cached = lookup(key);
+                if (cached != null) {
+                    result.put(key, cached);
+                } else {
+                    missing.add(key);
+                }
+            }
+            loadGeneration = generation;
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.addAndGet(missing.size());
+        Map<K, V> loaded = loader.apply(missing);
+        synchronized (entries) {
+            for (K key : missing) {
+                V value = loaded.get(key);
+                if (value == null) {
+                    continue;
+                }
+                result.put(key, value);
+                store(key, value, loadGeneration);
+            }
+            evictToBound();
+        }
+        return result;
+    }
+
+    /**
+     * Get the cached value of a key without loading it. Only hits are counted; the caller is
+     * expected to fall back to a cheaper read.
+     *
+     * @return the cached value, or {@code null} if the key is not cached or has expired
+     */
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            return lookup(key);
+        }
+    }
+
+    /**
+     * Drop a single entry.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            remove(key);
+            generation++;
+        }
+        log.debug("Invalidated {} in cache {}", key, name);
+    }
+
+    /**
+     * Drop every entry.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+            generation++;
+        }
+        log.debug("Invalidated all entries of cache {}", name);
+    }
+
+    /**
+     * Fresh cached value, counted as a hit, or {@code null}; drops an expired entry. Caller holds the lock.
+     */
+    private V lookup(K key) {
+        Entry<V> cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (System.nanoTime() - cached.loadedAt() < timeToLiveNanos) {
+            hits.incrementAndGet();
+            return cached.value();
+        }
+        remove(key);
+        evictions.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache a loaded value unless an invalidation happened since {@code loadGeneration} or it is
+     * heavier than the whole cache. Caller holds the lock and evicts afterwards.
+     */
+    private void store(K key, V value, long loadGeneration) {
+        if (generation != loadGeneration) {
+            return;
+        }
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            log.debug("Not caching {} in cache {}: weight {} exceeds {}", key, name, weight, maxWeight);
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry<>(value, weight, System.nanoTime()));
+        totalWeight += weight;
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight();
+        }
+    }
+
+    private void evictToBound() {
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            totalWeight -= eldest.next().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("bpm.cache.hits", hits, AtomicLong::get)
+                .tag("cache", name)
+                .description("Lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("bpm.cache.misses", misses, AtomicLong::get)
+                .tag("cache", name)
+                .description("Lookups that had to load the entry")
+                .register(registry);
+        FunctionCounter.builder("bpm.cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", name)
+                .description("Entries dropped to stay within the bound or because they expired")
+                .register(registry);
+        Gauge.builder("bpm.cache.size", this, cache -> {
+                    synchronized (cache.entries) {
+                        return cache.entries.size();
+                    }
+                })
+                .tag("cache", name)
+                .description("Number of cached entries")
+                .register(registry);
+        if (weighted) {
+            Gauge.builder("bpm.cache.weight", this, cache -> {
+                        synchronized (cache.entries) {
+                            return cache.totalWeight;
+                        }
+                    })
+                    .tag("cache", name)
+                    .description("Total weight of the cached entries")
+                    .register(registry);
+        }
+    }
+}
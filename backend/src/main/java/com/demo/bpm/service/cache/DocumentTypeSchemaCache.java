@@ -0,0 +1,31 @@
+package com.demo.bpm.service.cache;
+
+import com.demo.bpm.dto.ProcessFieldLibraryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bounded in-process cache of compiled document type schemas, keyed by document type key.
+ * Entries must be invalidated whenever a document type is created, updated or deleted; a schema
+ * compiled from the old definition while the invalidation happens is not cached. Cached
+ * libraries are shared and must not be modified by callers.
+ */
+@Component
+public class DocumentTypeSchemaCache extends BoundedLruCache<String, DocumentTypeSchemaCache.CompiledSchema> {
+
+    /**
+     * A document type's schema compiled into the field library the forms use.
+     *
+     * @param documentType the document type key
+     * @param version      last modification time of the definition the schema was compiled from
+     * @param fieldLibrary the schema's fields and grids, empty if it has none; lists are unmodifiable
+     */
+    public record CompiledSchema(String documentType, LocalDateTime version, ProcessFieldLibraryDTO fieldLibrary) {
+    }
+
+    public DocumentTypeSchemaCache(@Value("${bpm.cache.document-type-schemas.max-size:100}") int maxSize) {
+        super("document-type-schemas", maxSize);
+    }
+}
@@ -0,0 +1,53 @@
+package com.demo.bpm.service.cache;
+
+import com.demo.bpm.dto.FieldConditionRuleDTO;
+import com.demo.bpm.dto.FormDefinitionDTO;
+import com.demo.bpm.dto.ProcessFieldLibraryDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of the parsed forms of process definitions, keyed by definition ID.
+ * A deployed BPMN model never changes, so each definition is parsed once and its entry only
+ * needs to be dropped when its deployment is deleted. Cached DTOs are shared and must not be
+ * modified by callers.
+ */
+@Component
+public class FormDefinitionCache extends BoundedLruCache<String, FormDefinitionCache.CompiledForms> {
+
+    /**
+     * Everything the form endpoints read from one BPMN model.
+     *
+     * @param startForms     start event forms by element ID, in document order
+     * @param userTaskForms  user task forms by element ID, in document order
+     * @param fieldLibrary   the process element's field library, or {@code null} if the model has no process
+     * @param conditionRules the process element's condition rules
+     */
+    public record CompiledForms(Map<String, FormDefinitionDTO> startForms,
+                                Map<String, FormDefinitionDTO> userTaskForms,
+                                ProcessFieldLibraryDTO fieldLibrary,
+                                List<FieldConditionRuleDTO> conditionRules) {
+
+        /**
+         * Form of the first start event, or {@code null} if there is none.
+         */
+        public FormDefinitionDTO defaultStartForm() {
+            return startForms.isEmpty() ? null : startForms.values().iterator().next();
+        }
+
+        /**
+         * Form of a user task or start event; user tasks win if both use the ID.
+         */
+        public FormDefinitionDTO form(String elementId) {
+            FormDefinitionDTO form = userTaskForms.get(elementId);
+            return form != null ? form : startForms.get(elementId);
+        }
+    }
+
+    public FormDefinitionCache(@Value("${bpm.cache.form-definitions.max-size:200}") int maxSize) {
+        super("form-definitions", maxSize);
+    }
+}
@@ -0,0 +1,113 @@
+package com.demo.bpm.service.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of the merged (Flowable + business table) variables of process
+ * instances, keyed by process instance ID.
+ * <p>
+ * The bound is a total weight rather than an entry count, where an entry weighs one per variable
+ * plus one per grid row cell, so a few instances with large grids cannot crowd out the heap.
+ * Entries are dropped explicitly whenever an instance's variables or business data are written,
+ * and expire after {@code bpm.cache.merged-variables.time-to-live} as a safety net for changes
+ * made by the engine itself. Callers get unmodifiable snapshots; nested grid rows are shared and
+ * must not be modified either.
+ */
+@Component
+public class MergedVariableCache extends BoundedLruCache<String, Map<String, Object>> {
+
+    public MergedVariableCache(@Value("${bpm.cache.merged-variables.max-weight:200000}") long maxWeight,
+                               @Value("${bpm.cache.merged-variables.time-to-live:60s}") Duration timeToLive) {
+        super("merged-variables", maxWeight, MergedVariableCache::weigh, timeToLive);
+    }
+
+    /**
+     * Get the merged variables of a process instance, loading them with {@code loader} on a miss.
+     * An instance heavier than the whole cache is returned but not cached.
+     *
+     * @param processInstanceId the process instance ID
+     * @param loader            loads the merged variables, never {@code null}
+     * @return an unmodifiable snapshot of the merged variables
+     */
+    @Override
+    public Map<String, Object> get(String processInstanceId,
+                                   Function<? super String, ? extends Map<String, Object>> loader) {
+        return super.get(processInstanceId, id -> snapshot(loader.apply(id)));
+    }
+
+    /**
+     * Get the merged variables of many process instances, loading all misses with a single call
+     * to {@code loader}. Instances the loader returns nothing for get an empty snapshot.
+     *
+     * @param processInstanceIds the process instance IDs
+     * @param loader             loads the merged variables of the given instances, keyed by instance
+     * @return unmodifiable snapshots keyed by process instance ID
+     */
+    @Override
+    public Map<String, Map<String, Object>> getAll(Collection<? extends String> processInstanceIds,
+                                                   Function<Set<String>, Map<String, Map<String, Object>>> loader) {
+        return super.getAll(processInstanceIds, missing -> {
+            Map<String, Map<String, Object>> loaded = loader.apply(missing);
+            Map<String, Map<String, Object>> snapshots = new HashMap<>();
+            for (String processInstanceId : missing) {
+                Map<String, Object> variables = loaded.get(processInstanceId);
+                snapshots.put(processInstanceId, snapshot(variables != null ? variables : Map.of()));
+            }
+            return snapshots;
+        });
+    }
+
+    /**
+     * Drop a process instance now and, inside a transaction, again once it completes, so a reader
+     * that loaded the uncommitted or rolled back state in between is not served afterwards.
+     */
+    @Override
+    public void invalidate(String processInstanceId) {
+        if (processInstanceId == null) {
+            return;
+        }
+        super.invalidate(processInstanceId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    MergedVariableCache.super.invalidate(processInstanceId);
+                }
+            });
+        }
+    }
+
+    // HashMap copy because Flowable variables may be null
+    private static Map<String, Object> snapshot(Map<String, Object> variables) {
+        return Collections.unmodifiableMap(new HashMap<>(variables));
+    }
+
+    /**
+     * One per variable, plus the size of collection values and of each map inside them (grid rows).
+     */
+    static long weigh(Map<String, Object> variables) {
+        long weight = variables.size();
+        for (Object value : variables.values()) {
+            if (value instanceof Collection<?> collection) {
+                weight += collection.size();
+                for (Object item : collection) {
+                    if (item instanceof Map<?, ?> row) {
+                        weight += row.size();
+                    }
+                }
+            }
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,88 @@
+package com.demo.bpm.service.cache;
+
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-process cache of process definition metadata, keyed by definition ID.
+ * Deployed definitions are immutable apart from the suspended flag and category, so entries
+ * only need to be dropped when ProcessService changes or removes a definition.
+ */
+@Component
+public class ProcessDefinitionCache extends BoundedLruCache<String, ProcessDefinitionCache.ProcessDefinitionInfo> {
+
+    /**
+     * Immutable snapshot of the definition fields used by the service layer.
+     */
+    public record ProcessDefinitionInfo(String id, String key, String name, int version,
+                                        String deploymentId, boolean suspended, String category) {
+
+        static ProcessDefinitionInfo of(ProcessDefinition definition) {
+            return new ProcessDefinitionInfo(definition.getId(), definition.getKey(), definition.getName(),
+                    definition.getVersion(), definition.getDeploymentId(), definition.isSuspended(),
+                    definition.getCategory());
+        }
+    }
+
+    private final RepositoryService repositoryService;
+
+    public ProcessDefinitionCache(RepositoryService repositoryService,
+                                  @Value("${bpm.cache.process-definitions.max-size:1000}") int maxSize) {
+        super("process-definitions", maxSize);
+        this.repositoryService = repositoryService;
+    }
+
+    /**
+     * Get definition metadata by ID, loading it on a miss.
+     *
+     * @param processDefinitionId the process definition ID
+     * @return the metadata, or empty if no such definition exists
+     */
+    public Optional<ProcessDefinitionInfo> get(String processDefinitionId) {
+        if (processDefinitionId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(get(processDefinitionId, id -> {
+            ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                    .processDefinitionId(id)
+                    .singleResult();
+            return definition != null ? ProcessDefinitionInfo.of(definition) : null;
+        }));
+    }
+
+    /**
+     * Get metadata for several definitions, loading all misses with a single query.
+     *
+     * @param processDefinitionIds the process definition IDs
+     * @return metadata keyed by definition ID; unknown IDs are absent
+     */
+    public Map<String, ProcessDefinitionInfo> getAll(Collection<String> processDefinitionIds) {
+        List<String> ids = processDefinitionIds.stream().filter(Objects::nonNull).toList();
+        return getAll(ids, missing -> repositoryService.createProcessDefinitionQuery()
+                .processDefinitionIds(missing)
+                .list()
+                .stream()
+                .map(ProcessDefinitionInfo::of)
+                .collect(Collectors.toMap(ProcessDefinitionInfo::id, Function.identity())));
+    }
+
+    /**
+     * Drop a single definition, e.g. after it was suspended or re-categorised.
+     */
+    @Override
+    public void invalidate(String processDefinitionId) {
+        if (processDefinitionId != null) {
+            super.invalidate(processDefinitionId);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.demo.bpm.service.codec;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.GridRow;
+import com.demo.bpm.util.OverflowFields;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts grid rows of one mapping scope to field maps or JSON.
+ * <p>
+ * The mappings are resolved once into a slot array (field name, type, column index and
+ * pre-encoded JSON name), so converting a row does not parse column names or iterate maps.
+ * {@link #write} streams a row straight to a {@link JsonGenerator} without building a map.
+ * Fields mapped to the overflow JSON are decoded once per row, and only by codecs that have any.
+ * Instances are immutable and can be reused for every row of the grid.
+ */
+public final class GridRowCodec {
+
+    /** Field under which a row's stable key is exposed; see {@code BusinessTableService.ROW_KEY_FIELD}. */
+    public static final String ROW_KEY_FIELD = "_rowKey";
+
+    private static final SerializedString ROW_KEY_NAME = new SerializedString(ROW_KEY_FIELD);
+
+    private final Slot[] slots;
+    private final boolean hasOverflow;
+
+    private GridRowCodec(Slot[] slots) {
+        this.slots = slots;
+        boolean overflow = false;
+        for (Slot slot : slots) {
+            overflow |= slot.overflow;
+        }
+        this.hasOverflow = overflow;
+    }
+
+    public static GridRowCodec of(Collection<ColumnMapping> mappings) {
+        Slot[] slots = new Slot[mappings.size()];
+        int i = 0;
+        for (ColumnMapping mapping : mappings) {
+            boolean overflow = mapping.isOverflow();
+            slots[i++] = new Slot(mapping.getFieldName(), new SerializedString(mapping.getFieldName()),
+                    mapping.getFieldType(), overflow ? 0 : mapping.getColumnIndex(), overflow);
+        }
+        return new GridRowCodec(slots);
+    }
+
+    /**
+     * Field values of a row keyed by field name, with datetimes as ISO strings.
+     */
+    public Map<String, Object> toMap(GridRow row) {
+        Map<String, Object> fields = new HashMap<>(capacity(slots.length + 1));
+        Map<String, Object> overflow = overflow(row);
+        for (Slot slot : slots) {
+            Object value = slot.overflow
+                    ? OverflowFields.fromStored(overflow.get(slot.fieldName), slot.type)
+                    : columnValue(row, slot);
+            if (value != null) {
+                fields.put(slot.fieldName, value);
+            }
+        }
+        if (row.getRowKey() != null) {
+            fields.put(ROW_KEY_FIELD, row.getRowKey());
+        }
+        return fields;
+    }
+
+    /**
+     * Write one row as a JSON object with the same content as {@link #toMap}.
+     */
+    public void write(GridRow row, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        Map<String, Object> overflow = overflow(row);
+        for (Slot slot : slots) {
+            if (slot.overflow) {
+                writeOverflow(slot, OverflowFields.fromStored(overflow.get(slot.fieldName), slot.type), gen);
+                continue;
+            }
+            switch (slot.type) {
+                case VARCHAR -> {
+                    String value = row.getVarchar(slot.index);
+                    if (value != null) {
+                        gen.writeFieldName(slot.jsonName);
+                        gen.writeString(value);
+                    }
+                }
+                case FLOAT -> {
+                    Double value = row.getFloat(slot.index);
+                    if (value != null) {
+                        gen.writeFieldName(slot.jsonName);
+                        gen.writeNumber(value);
+                    }
+                }
+                case DATETIME -> {
+                    LocalDateTime value = row.getDatetime(slot.index);
+                    if (value != null) {
+                        gen.writeFieldName(slot.jsonName);
+                        gen.writeString(value.toString());
+                    }
+                }
+            }
+        }
+        if (row.getRowKey() != null) {
+            gen.writeFieldName(ROW_KEY_NAME);
+            gen.writeString(row.getRowKey());
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Write rows as a JSON array.
+     */
+    public void writeAll(List<GridRow> rows, JsonGenerator gen) throws IOException {
+        gen.writeStartArray();
+        for (GridRow row : rows) {
+            write(row, gen);
+        }
+        gen.writeEndArray();
+    }
+
+    private static Object columnValue(GridRow row, Slot slot) {
+        return switch (slot.type) {
+            case VARCHAR -> row.getVarchar(slot.index);
+            case FLOAT -> row.getFloat(slot.index);
+            case DATETIME -> {
+                LocalDateTime dt = row.getDatetime(slot.index);
+                // Convert to ISO string for JSON serialization
+                yield dt != null ? dt.toString() : null;
+            }
+        };
+    }
+
+    private Map<String, Object> overflow(GridRow row) {
+        return hasOverflow ? OverflowFields.read(row.getOverflowJson()) : Map.of();
+    }
+
+    private static void writeOverflow(Slot slot, Object value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            return;
+        }
+        gen.writeFieldName(slot.jsonName);
+        if (value instanceof Double number) {
+            gen.writeNumber(number);
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    private static int capacity(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+
+    private record Slot(String fieldName, SerializedString jsonName, FieldType type, int index, boolean overflow) {
+    }
+}
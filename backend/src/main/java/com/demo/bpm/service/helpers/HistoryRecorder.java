@@ -1,5 +1,6 @@
 package com.demo.bpm.service.helpers;
 
+import com.demo.bpm.service.cache.MergedVariableCache;
 import com.demo.bpm.util.WorkflowConstants;
 import com.demo.bpm.util.WorkflowVariableUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -19,6 +20,7 @@ public class HistoryRecorder {
 
     private final ObjectMapper objectMapper;
     private final RuntimeService runtimeService;
+    private final MergedVariableCache mergedVariableCache;
 
     public String recordEscalationHistory(String processInstanceId, String taskId, String userId,
                                           String currentLevel, String targetLevel, String reason,
@@ -44,6 +46,7 @@ public class HistoryRecorder {
 
         runtimeService.setVariable(processInstanceId, WorkflowConstants.VAR_ESCALATION_HISTORY,
             WorkflowVariableUtils.serializeList(history, objectMapper));
+        mergedVariableCache.invalidate(processInstanceId);
 
         return id;
     }
@@ -67,6 +70,7 @@ public class HistoryRecorder {
 
         runtimeService.setVariable(processInstanceId, WorkflowConstants.VAR_HANDOFF_HISTORY,
             WorkflowVariableUtils.serializeList(history, objectMapper));
+        mergedVariableCache.invalidate(processInstanceId);
     }
 
     public ApprovalRecordResult recordApprovalHistory(String processInstanceId, String taskId, String taskName,
@@ -93,9 +97,41 @@ public class HistoryRecorder {
 
         runtimeService.setVariable(processInstanceId, WorkflowConstants.VAR_APPROVAL_HISTORY,
             WorkflowVariableUtils.serializeList(history, objectMapper));
+        mergedVariableCache.invalidate(processInstanceId);
 
         return new ApprovalRecordResult(id, stepOrder);
     }
 
+    /**
+     * Record an escalation of the context's task, reading the history from the context's variables.
+     */
+    public String recordEscalationHistory(WorkflowContext context, String userId, String currentLevel,
+                                          String targetLevel, String reason, boolean isEscalation) {
+        String id = recordEscalationHistory(context.processInstanceId(), context.taskId(), userId,
+            currentLevel, targetLevel, reason, isEscalation, context.variables());
+        context.variablesChanged();
+        return id;
+    }
+
+    /**
+     * Record a handoff of the context's task, reading the history from the context's variables.
+     */
+    public void recordHandoffHistory(WorkflowContext context, String fromUserId, String toUserId, String reason) {
+        recordHandoffHistory(context.processInstanceId(), context.taskId(), context.task().getName(),
+            fromUserId, toUserId, reason, context.variables());
+        context.variablesChanged();
+    }
+
+    /**
+     * Record an approval decision on the context's task, reading the history from the context's variables.
+     */
+    public ApprovalRecordResult recordApprovalHistory(WorkflowContext context, String userId, String currentLevel,
+                                                      String decision, String comments) {
+        ApprovalRecordResult result = recordApprovalHistory(context.processInstanceId(), context.taskId(),
+            context.task().getName(), userId, currentLevel, decision, comments, context.variables());
+        context.variablesChanged();
+        return result;
+    }
+
     public record ApprovalRecordResult(String id, int stepOrder) {}
 }
@@ -2,7 +2,9 @@ package com.demo.bpm.service.helpers;
 
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
 import lombok.RequiredArgsConstructor;
+import org.flowable.engine.RuntimeService;
 import org.flowable.engine.TaskService;
 import org.flowable.task.api.Task;
 import org.springframework.stereotype.Component;
@@ -12,6 +14,9 @@ import org.springframework.stereotype.Component;
 public class TaskCommonHelper {
 
     private final TaskService taskService;
+    private final RuntimeService runtimeService;
+    private final ProcessDefinitionCache processDefinitionCache;
+    private final VariableHelper variableHelper;
 
     /**
      * Retrieves a task by ID or throws ResourceNotFoundException if not found.
@@ -31,6 +36,18 @@ public class TaskCommonHelper {
         return task;
     }
 
+    /**
+     * Loads a task and opens a context for one operation on it. The process instance, definition
+     * and merged variables are loaded on first use and then reused for the rest of the operation.
+     *
+     * @param taskId the ID of the task
+     * @return the context
+     * @throws ResourceNotFoundException if the task is not found
+     */
+    public WorkflowContext openContext(String taskId) {
+        return WorkflowContext.forTask(getTaskOrThrow(taskId), runtimeService, processDefinitionCache, variableHelper);
+    }
+
     /**
      * Validates that the user is the assignee of the task or the task is unassigned.
      *
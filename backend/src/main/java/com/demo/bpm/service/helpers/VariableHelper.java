@@ -2,31 +2,130 @@ package com.demo.bpm.service.helpers;
 
 import com.demo.bpm.dto.DocumentDTO;
 import com.demo.bpm.service.BusinessTableService;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.util.VariableStorageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.flowable.engine.RuntimeService;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class VariableHelper {
 
+    // Keeps IN lists within what every supported database accepts
+    private static final int MAX_IN_PARAMETERS = 500;
+
     private final RuntimeService runtimeService;
     private final org.flowable.engine.HistoryService historyService;
     private final BusinessTableService businessTableService;
+    private final MergedVariableCache mergedVariableCache;
 
     /**
      * Get merged variables from both Flowable (system vars) and business tables (business data).
+     * Served from {@link MergedVariableCache} until the instance's variables or business data change.
      *
      * @param processInstanceId the process instance ID
-     * @return a map of merged variables
+     * @return an unmodifiable map of merged variables
      */
     public Map<String, Object> getMergedVariables(String processInstanceId) {
+        return mergedVariableCache.get(processInstanceId, this::loadMergedVariables);
+    }
+
+    /**
+     * Batch variant of {@link #getMergedVariables(String)} for list views. Cached instances are
+     * served from {@link MergedVariableCache}; the rest are loaded with a fixed number of queries
+     * per 500 instances: one for the Flowable variables of running instances, one for the
+     * historic variables of ended ones, and one each for their documents and grid rows.
+     *
+     * @param processInstanceIds the process instance IDs
+     * @return unmodifiable maps of merged variables keyed by process instance ID, empty for unknown instances
+     */
+    public Map<String, Map<String, Object>> getMergedVariables(Collection<String> processInstanceIds) {
+        if (processInstanceIds == null || processInstanceIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return mergedVariableCache.getAll(processInstanceIds, this::loadMergedVariables);
+    }
+
+    /**
+     * Get only the named variables of a process instance, with the same precedence as
+     * {@link #getMergedVariables(String)}. Served from the merged snapshot when it is cached;
+     * otherwise the names are looked up in Flowable, and the business names also in the
+     * document's mapped columns. Grid rows are only read for business names that are not
+     * document fields, so a scalar lookup never loads the whole document.
+     *
+     * @param processInstanceId the process instance ID
+     * @param names the variable names to read
+     * @return the requested variables that have a value
+     */
+    public Map<String, Object> getVariables(String processInstanceId, Collection<String> names) {
+        Map<String, Object> variables = new HashMap<>();
+        if (names == null || names.isEmpty()) {
+            return variables;
+        }
+
+        Map<String, Object> cached = mergedVariableCache.getIfPresent(processInstanceId);
+        if (cached != null) {
+            for (String name : names) {
+                Object value = cached.get(name);
+                if (value != null) {
+                    variables.put(name, value);
+                }
+            }
+            return variables;
+        }
+
+        Set<String> wanted = new HashSet<>(names);
+        try {
+            Map<String, Object> flowableVars = runtimeService.getVariables(processInstanceId, wanted);
+            if (flowableVars != null) {
+                flowableVars.forEach((key, value) -> {
+                    if (value != null) {
+                        variables.put(key, value);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            log.debug("Could not get Flowable variables, checking historic variables: {}", e.getMessage());
+            try {
+                historyService.createHistoricVariableInstanceQuery()
+                        .processInstanceId(processInstanceId)
+                        .list()
+                        .stream()
+                        .filter(var -> wanted.contains(var.getVariableName()) && var.getValue() != null)
+                        .forEach(var -> variables.put(var.getVariableName(), var.getValue()));
+            } catch (Exception e2) {
+                log.debug("Could not get historic variables: {}", e2.getMessage());
+            }
+        }
+
+        List<String> businessNames = wanted.stream()
+                .filter(VariableStorageUtil::isBusinessVariable)
+                .collect(Collectors.toList());
+        if (!businessNames.isEmpty()) {
+            try {
+                businessTableService.getDocumentValues(processInstanceId, "main", businessNames)
+                        .ifPresent(document -> mergeDocument(variables, document));
+            } catch (Exception e) {
+                log.debug("Could not get document data: {}", e.getMessage());
+            }
+        }
+
+        return variables;
+    }
+
+    private Map<String, Object> loadMergedVariables(String processInstanceId) {
         Map<String, Object> mergedVars = new HashMap<>();
 
         // Get system variables from Flowable (variables starting with _)
@@ -49,32 +148,100 @@ public class VariableHelper {
 
         // Get business data from document table
         try {
-            Optional<DocumentDTO> documentOpt = businessTableService.getDocument(processInstanceId, "main");
-            if (documentOpt.isPresent()) {
-                DocumentDTO document = documentOpt.get();
-
-                // Add document fields
-                if (document.getFields() != null) {
-                    document.getFields().forEach((key, value) -> {
-                        if (key != null && value != null) {
-                            mergedVars.put(key, value);
-                        }
-                    });
-                }
+            businessTableService.getDocument(processInstanceId, "main")
+                    .ifPresent(document -> mergeDocument(mergedVars, document));
+        } catch (Exception e) {
+            log.debug("Could not get document data: {}", e.getMessage());
+        }
 
-                // Add grid data
-                if (document.getGrids() != null) {
-                    document.getGrids().forEach((key, value) -> {
-                        if (key != null && value != null) {
-                            mergedVars.put(key, value);
-                        }
-                    });
-                }
+        return mergedVars;
+    }
+
+    private Map<String, Map<String, Object>> loadMergedVariables(Collection<String> processInstanceIds) {
+        List<String> ids = new ArrayList<>(processInstanceIds);
+        Map<String, Map<String, Object>> flowableVars = new HashMap<>();
+        Map<String, DocumentDTO> documents = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += MAX_IN_PARAMETERS) {
+            List<String> chunk = ids.subList(i, Math.min(i + MAX_IN_PARAMETERS, ids.size()));
+            loadFlowableVariables(chunk, flowableVars);
+            try {
+                documents.putAll(businessTableService.getDocuments(chunk, "main"));
+            } catch (Exception e) {
+                log.debug("Could not get document data: {}", e.getMessage());
             }
+        }
+
+        Map<String, Map<String, Object>> result = new HashMap<>();
+        for (String processInstanceId : ids) {
+            result.put(processInstanceId, mergeVariables(flowableVars.get(processInstanceId), documents.get(processInstanceId)));
+        }
+        return result;
+    }
+
+    private void loadFlowableVariables(List<String> processInstanceIds, Map<String, Map<String, Object>> into) {
+        try {
+            runtimeService.createProcessInstanceQuery()
+                    .processInstanceIds(new HashSet<>(processInstanceIds))
+                    .includeProcessVariables()
+                    .list()
+                    .forEach(instance -> into.put(instance.getId(), instance.getProcessVariables()));
         } catch (Exception e) {
-            log.debug("Could not get document data: {}", e.getMessage());
+            log.debug("Could not get Flowable variables: {}", e.getMessage());
         }
 
+        // Instances that are no longer running keep their variables in history
+        Set<String> ended = processInstanceIds.stream()
+                .filter(id -> !into.containsKey(id))
+                .collect(Collectors.toSet());
+        if (ended.isEmpty()) {
+            return;
+        }
+        try {
+            historyService.createHistoricProcessInstanceQuery()
+                    .processInstanceIds(ended)
+                    .includeProcessVariables()
+                    .list()
+                    .forEach(instance -> into.put(instance.getId(), instance.getProcessVariables()));
+        } catch (Exception e) {
+            log.debug("Could not get historic variables: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Merge already-loaded Flowable variables and business document into a single map.
+     *
+     * @param flowableVars the process variables held by Flowable, may be null
+     * @param document the business document, may be null
+     * @return a map of merged variables
+     */
+    private Map<String, Object> mergeVariables(Map<String, Object> flowableVars, DocumentDTO document) {
+        Map<String, Object> mergedVars = new HashMap<>();
+        if (flowableVars != null) {
+            mergedVars.putAll(flowableVars);
+        }
+        if (document != null) {
+            mergeDocument(mergedVars, document);
+        }
         return mergedVars;
     }
+
+    private void mergeDocument(Map<String, Object> mergedVars, DocumentDTO document) {
+        // Add document fields
+        if (document.getFields() != null) {
+            document.getFields().forEach((key, value) -> {
+                if (key != null && value != null) {
+                    mergedVars.put(key, value);
+                }
+            });
+        }
+
+        // Add grid data
+        if (document.getGrids() != null) {
+            document.getGrids().forEach((key, value) -> {
+                if (key != null && value != null) {
+                    mergedVars.put(key, value);
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package com.demo.bpm.service.helpers;
+
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.task.api.Task;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * State of one workflow operation on a task: the task itself plus its process instance, process
+ * definition and merged variables, each loaded at most once and only when first asked for.
+ * <p>
+ * A context lives for a single service call and is not thread-safe. Obtain one from
+ * {@link TaskCommonHelper#openContext} and pass it along instead of re-querying by ID.
+ */
+public final class WorkflowContext {
+
+    private final Task task;
+    private final Supplier<ProcessInstance> processInstanceLoader;
+    private final Supplier<ProcessDefinitionInfo> processDefinitionLoader;
+    private final Supplier<Map<String, Object>> variablesLoader;
+
+    private ProcessInstance processInstance;
+    private boolean processInstanceLoaded;
+    private ProcessDefinitionInfo processDefinition;
+    private boolean processDefinitionLoaded;
+    private Map<String, Object> variables;
+
+    public WorkflowContext(Task task,
+                           Supplier<ProcessInstance> processInstanceLoader,
+                           Supplier<ProcessDefinitionInfo> processDefinitionLoader,
+                           Supplier<Map<String, Object>> variablesLoader) {
+        this.task = task;
+        this.processInstanceLoader = processInstanceLoader;
+        this.processDefinitionLoader = processDefinitionLoader;
+        this.variablesLoader = variablesLoader;
+    }
+
+    /**
+     * Context for a task that has already been loaded.
+     */
+    public static WorkflowContext forTask(Task task, RuntimeService runtimeService,
+                                          ProcessDefinitionCache processDefinitionCache,
+                                          VariableHelper variableHelper) {
+        return new WorkflowContext(task,
+                () -> runtimeService.createProcessInstanceQuery()
+                        .processInstanceId(task.getProcessInstanceId())
+                        .singleResult(),
+                () -> processDefinitionCache.get(task.getProcessDefinitionId()).orElse(null),
+                () -> variableHelper.getMergedVariables(task.getProcessInstanceId()));
+    }
+
+    public Task task() {
+        return task;
+    }
+
+    public String taskId() {
+        return task.getId();
+    }
+
+    public String processInstanceId() {
+        return task.getProcessInstanceId();
+    }
+
+    /**
+     * The task's running process instance, or {@code null} if it has ended.
+     */
+    public ProcessInstance processInstance() {
+        if (!processInstanceLoaded) {
+            processInstance = processInstanceLoader.get();
+            processInstanceLoaded = true;
+        }
+        return processInstance;
+    }
+
+    /**
+     * Metadata of the task's process definition, or {@code null} if it no longer exists.
+     */
+    public ProcessDefinitionInfo processDefinition() {
+        if (!processDefinitionLoaded) {
+            processDefinition = processDefinitionLoader.get();
+            processDefinitionLoaded = true;
+        }
+        return processDefinition;
+    }
+
+    /**
+     * Merged Flowable and business variables of the process instance, as of the first call or the
+     * last {@link #variablesChanged()}.
+     */
+    public Map<String, Object> variables() {
+        if (variables == null) {
+            variables = variablesLoader.get();
+        }
+        return variables;
+    }
+
+    /**
+     * Forget the loaded variables after this operation wrote one, so later reads see the write.
+     */
+    public void variablesChanged() {
+        variables = null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.demo.bpm.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the form attributes of a BPMN model in a single streaming pass.
+ * <p>
+ * Only the raw attribute values are collected: the {@code flowable:formFields} and
+ * {@code flowable:formGrids} JSON of every start event and user task, and the
+ * {@code flowable:fieldLibrary} and {@code flowable:conditionRules} JSON of the first process.
+ * No tree is built, so memory stays flat however many elements the model has. The shared
+ * factory has DTDs and external entities disabled.
+ */
+public final class BpmnFormExtractor {
+
+    public static final String BPMN_NS = "http://www.omg.org/spec/BPMN/20100524/MODEL";
+    public static final String FLOWABLE_NS = "http://flowable.org/bpmn";
+
+    // Configured once; creating readers from a configured factory is thread-safe
+    private static final XMLInputFactory FACTORY = newFactory();
+
+    private BpmnFormExtractor() {
+    }
+
+    /**
+     * Form attributes of one start event or user task. Missing attributes are empty strings.
+     */
+    public record ElementForm(String id, String name, String formFields, String formGrids) {
+    }
+
+    /**
+     * Form attributes of a whole model, elements in document order.
+     *
+     * @param hasProcess     whether the model has a process element; if not, the next two are empty
+     * @param fieldLibrary   field library JSON of the first process
+     * @param conditionRules condition rules JSON of the first process
+     */
+    public record BpmnForms(List<ElementForm> startEvents, List<ElementForm> userTasks,
+                            boolean hasProcess, String fieldLibrary, String conditionRules) {
+    }
+
+    public static BpmnForms extract(InputStream bpmn) throws XMLStreamException {
+        List<ElementForm> startEvents = new ArrayList<>();
+        List<ElementForm> userTasks = new ArrayList<>();
+        boolean hasProcess = false;
+        String fieldLibrary = "";
+        String conditionRules = "";
+
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(bpmn);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || !BPMN_NS.equals(reader.getNamespaceURI())) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "process" -> {
+                        if (!hasProcess) {
+                            hasProcess = true;
+                            fieldLibrary = flowableAttribute(reader, "fieldLibrary");
+                            conditionRules = flowableAttribute(reader, "conditionRules");
+                        }
+                    }
+                    case "startEvent" -> startEvents.add(elementForm(reader));
+                    case "userTask" -> userTasks.add(elementForm(reader));
+                    default -> {
+                        // Not a form-bearing element
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new BpmnForms(startEvents, userTasks, hasProcess, fieldLibrary, conditionRules);
+    }
+
+    private static ElementForm elementForm(XMLStreamReader reader) {
+        return new ElementForm(
+                attribute(reader, "id"),
+                attribute(reader, "name"),
+                flowableAttribute(reader, "formFields"),
+                flowableAttribute(reader, "formGrids"));
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
+    }
+
+    private static String flowableAttribute(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (name.equals(reader.getAttributeLocalName(i))
+                    && (FLOWABLE_NS.equals(reader.getAttributeNamespace(i)) || "flowable".equals(reader.getAttributePrefix(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return "";
+    }
+
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,86 @@
+package com.demo.bpm.util;
+
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Encoding of the {@code overflow_json} column of documents and grid rows, which holds the fields
+ * of a scope that did not get one of the 30 typed columns of their type.
+ * <p>
+ * Values are kept in their storage form: VARCHAR as strings, FLOAT as numbers and DATETIME as
+ * ISO-8601 strings. Keys are written in sorted order, so equal content always encodes to the same
+ * string and rows can be compared without parsing.
+ */
+public final class OverflowFields {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<TreeMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private OverflowFields() {
+        // Utility class, no instantiation
+    }
+
+    /**
+     * Decode an overflow column into a mutable, sorted map; empty for {@code null}.
+     */
+    public static TreeMap<String, Object> read(String json) {
+        if (json == null || json.isBlank()) {
+            return new TreeMap<>();
+        }
+        try {
+            return MAPPER.readValue(json, MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable overflow column: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Encode overflow fields; {@code null} when there are none, so rows without overflow keep the column empty.
+     */
+    public static String write(Map<String, Object> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(fields instanceof TreeMap ? fields : new TreeMap<>(fields));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode overflow fields", e);
+        }
+    }
+
+    /**
+     * Storage form of a value already converted for its field type.
+     */
+    public static Object toStored(Object converted) {
+        return converted instanceof LocalDateTime dateTime ? dateTime.toString() : converted;
+    }
+
+    /**
+     * Read a stored value back the way the typed columns return it: strings, doubles, and
+     * datetimes as ISO strings.
+     */
+    public static Object fromStored(Object stored, FieldType fieldType) {
+        if (stored == null) {
+            return null;
+        }
+        if (fieldType == FieldType.FLOAT && stored instanceof Number number) {
+            return number.doubleValue();
+        }
+        return fieldType == FieldType.FLOAT ? null : stored.toString();
+    }
+
+    /**
+     * Typed column value for a stored value, as written to {@code varchar_n}, {@code float_n} or {@code datetime_n}.
+     */
+    public static Object toColumn(Object stored, FieldType fieldType) {
+        Object value = fromStored(stored, fieldType);
+        return fieldType == FieldType.DATETIME && value != null ? LocalDateTime.parse((String) value) : value;
+    }
+}
@@ -0,0 +1,118 @@
+package com.demo.bpm.benchmark;
+
+import com.demo.bpm.util.BpmnFormExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the form attributes of a large BPMN model through a DOM tree (the previous
+ * path) with the single streaming pass of {@link BpmnFormExtractor}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.demo.bpm.benchmark.BpmnFormExtractorBenchmark}; add {@code -prof gc} to the
+ * runner options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BpmnFormExtractorBenchmark {
+
+    @Param({"50", "500"})
+    public int userTaskCount;
+
+    private byte[] bpmn;
+
+    @Setup
+    public void setUp() {
+        StringBuilder xml = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<definitions xmlns=\"").append(BpmnFormExtractor.BPMN_NS).append('"')
+                .append(" xmlns:flowable=\"").append(BpmnFormExtractor.FLOWABLE_NS).append('"')
+                .append(" targetNamespace=\"benchmark\">")
+                .append("<process id=\"benchmark\" flowable:fieldLibrary='{\"fields\":[],\"grids\":[]}'")
+                .append(" flowable:conditionRules='[]'>")
+                .append("<startEvent id=\"start\" flowable:formFields='").append(formFields(0)).append("'/>");
+        for (int t = 1; t <= userTaskCount; t++) {
+            xml.append("<userTask id=\"task").append(t).append("\" name=\"Task ").append(t).append('"')
+                    .append(" flowable:formFields='").append(formFields(t)).append('\'')
+                    .append(" flowable:formGrids='[{\"name\":\"items").append(t).append("\",\"columns\":[]}]'>")
+                    .append("<documentation>Step ").append(t).append("</documentation>")
+                    .append("</userTask>")
+                    .append("<sequenceFlow id=\"flow").append(t).append("\" sourceRef=\"task").append(t - 1)
+                    .append("\" targetRef=\"task").append(t).append("\"/>");
+        }
+        xml.append("</process></definitions>");
+        bpmn = xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<String> domTree() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(bpmn));
+
+        List<String> values = new ArrayList<>();
+        Element process = (Element) document.getElementsByTagNameNS(BpmnFormExtractor.BPMN_NS, "process").item(0);
+        values.add(process.getAttributeNS(BpmnFormExtractor.FLOWABLE_NS, "fieldLibrary"));
+        values.add(process.getAttributeNS(BpmnFormExtractor.FLOWABLE_NS, "conditionRules"));
+        for (String tag : new String[]{"startEvent", "userTask"}) {
+            NodeList elements = document.getElementsByTagNameNS(BpmnFormExtractor.BPMN_NS, tag);
+            for (int i = 0; i < elements.getLength(); i++) {
+                Element element = (Element) elements.item(i);
+                values.add(element.getAttribute("id"));
+                values.add(element.getAttributeNS(BpmnFormExtractor.FLOWABLE_NS, "formFields"));
+                values.add(element.getAttributeNS(BpmnFormExtractor.FLOWABLE_NS, "formGrids"));
+            }
+        }
+        return values;
+    }
+
+    @Benchmark
+    public BpmnFormExtractor.BpmnForms streamingExtractor() throws Exception {
+        return BpmnFormExtractor.extract(new ByteArrayInputStream(bpmn));
+    }
+
+    private static String formFields(int step) {
+        StringBuilder json = new StringBuilder("[");
+        for (int f = 1; f <= 8; f++) {
+            if (f > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"f").append(step).append('_').append(f)
+                    .append("\",\"name\":\"field").append(f)
+                    .append("\",\"type\":\"text\",\"label\":\"Field ").append(f).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BpmnFormExtractorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.demo.bpm.benchmark;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.GridRow;
+import com.demo.bpm.service.codec.GridRowCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serialising a grid to JSON through per-row maps (the previous path) with
+ * streaming it through {@link GridRowCodec}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.demo.bpm.benchmark.GridRowCodecBenchmark}; add {@code -prof gc} to the
+ * runner options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridRowCodecBenchmark {
+
+    @Param({"100", "10000"})
+    public int rowCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Map<String, ColumnMapping> mappings;
+    private List<GridRow> rows;
+
+    @Setup
+    public void setUp() {
+        mappings = new HashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            addMapping("text" + i, FieldType.VARCHAR, "varchar_" + i);
+            addMapping("number" + i, FieldType.FLOAT, "float_" + i);
+        }
+        addMapping("due", FieldType.DATETIME, "datetime_1");
+        addMapping("created", FieldType.DATETIME, "datetime_2");
+
+        rows = new ArrayList<>(rowCount);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int r = 0; r < rowCount; r++) {
+            GridRow row = new GridRow();
+            row.setRowIndex(r);
+            for (int i = 1; i <= 4; i++) {
+                row.setVarchar(i, "value " + r + "/" + i);
+                row.setFloat(i, r * 1.5 + i);
+            }
+            row.setDatetime(1, now.plusDays(r));
+            row.setDatetime(2, now);
+            rows.add(row);
+        }
+    }
+
+    @Benchmark
+    public byte[] mapPerRow() throws IOException {
+        List<Map<String, Object>> data = new ArrayList<>(rows.size());
+        for (GridRow row : rows) {
+            Map<String, Object> fields = new HashMap<>();
+            for (ColumnMapping mapping : mappings.values()) {
+                int columnIndex = mapping.getColumnIndex();
+                Object value = switch (mapping.getFieldType()) {
+                    case VARCHAR -> row.getVarchar(columnIndex);
+                    case FLOAT -> row.getFloat(columnIndex);
+                    case DATETIME -> {
+                        LocalDateTime dt = row.getDatetime(columnIndex);
+                        yield dt != null ? dt.toString() : null;
+                    }
+                };
+                if (value != null) {
+                    fields.put(mapping.getFieldName(), value);
+                }
+            }
+            data.add(fields);
+        }
+        return objectMapper.writeValueAsBytes(data);
+    }
+
+    @Benchmark
+    public byte[] streamingCodec() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() * 256);
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            GridRowCodec.of(mappings.values()).writeAll(rows, gen);
+        }
+        return out.toByteArray();
+    }
+
+    private void addMapping(String fieldName, FieldType type, String columnName) {
+        mappings.put(fieldName, ColumnMapping.builder()
+                .fieldName(fieldName)
+                .fieldType(type)
+                .columnName(columnName)
+                .build());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GridRowCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
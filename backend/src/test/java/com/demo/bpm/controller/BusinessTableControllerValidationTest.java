@@ -1,6 +1,8 @@
 package com.demo.bpm.controller;
 
 import com.demo.bpm.exception.GlobalExceptionHandler;
+import com.demo.bpm.exception.ResourceNotFoundException;
+import com.demo.bpm.service.BusinessIndexService;
 import com.demo.bpm.service.BusinessTableService;
 import com.demo.bpm.service.ProcessService;
 import org.junit.jupiter.api.Test;
@@ -13,6 +15,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -31,6 +38,9 @@ class BusinessTableControllerValidationTest {
     @MockBean
     private ProcessService processService;
 
+    @MockBean
+    private BusinessIndexService businessIndexService;
+
     @Test
     @WithMockUser
     void saveDraft_requiresProcessDefinitionKey() throws Exception {
@@ -54,4 +64,16 @@ class BusinessTableControllerValidationTest {
                 .andExpect(jsonPath("$.fieldErrors.rows").value("rows are required"))
                 .andExpect(jsonPath("$.path").value("/api/business/document-types/123/grids/main"));
     }
+
+    @Test
+    @WithMockUser
+    void streamGridRows_whenDocumentMissing_returnsNotFound() throws Exception {
+        when(businessTableService.prepareGridRowExport("123", "main", "items"))
+                .thenThrow(new ResourceNotFoundException("Document type 'main' not found for process instance: 123"));
+
+        mockMvc.perform(get("/api/business/processes/123/document-types/main/grids/items/rows"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Not Found"));
+        verify(businessTableService, never()).exportGridRows(any(), any());
+    }
 }
@@ -0,0 +1,155 @@
+package com.demo.bpm.integration;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.repository.ColumnMappingRepository;
+import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.service.BusinessTableService;
+import com.demo.bpm.service.ColumnMappingService;
+import com.demo.bpm.service.ColumnMappingWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Creates the same new fields from many threads at once and checks that every field ends up
+ * with exactly one mapping on a column of its own. Half of the threads go through a second
+ * service instance, which shares the database but not the in-memory locks and snapshots,
+ * like another application node would.
+ * <p>
+ * The connection pool is as small as in production, so a save that needs a second connection
+ * to create its mappings while holding one for its write exhausts it.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.hikari.maximum-pool-size=5",
+        "spring.datasource.hikari.connection-timeout=10000"
+})
+class ColumnMappingConcurrencyIT extends BaseIntegrationTest {
+
+    private static final int THREADS = 64;
+    private static final int FIELDS = 24;
+
+    @Autowired
+    private ColumnMappingService columnMappingService;
+
+    @Autowired
+    private ColumnMappingRepository columnMappingRepository;
+
+    @Autowired
+    private ColumnMappingWriter columnMappingWriter;
+
+    @Autowired
+    private BusinessTableService businessTableService;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getOrCreateMapping_fromManyThreads_shouldGiveEveryFieldItsOwnColumn() throws Exception {
+        String processDefKey = "concurrency-" + UUID.randomUUID();
+        ColumnMappingService otherNode = new ColumnMappingService(columnMappingRepository, columnMappingWriter);
+        Map<String, Set<String>> documentColumns = new ConcurrentHashMap<>();
+        Map<String, Set<String>> gridColumns = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                ColumnMappingService node = t % 2 == 0 ? columnMappingService : otherNode;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int f = 0; f < FIELDS; f++) {
+                        String fieldName = "field" + f;
+                        ColumnMapping document = node.getOrCreateDocumentMapping(processDefKey, "main", fieldName, FieldType.VARCHAR);
+                        documentColumns.computeIfAbsent(fieldName, key -> ConcurrentHashMap.newKeySet()).add(document.getColumnName());
+                        ColumnMapping grid = node.getOrCreateGridMapping(processDefKey, "main", "items", fieldName, FieldType.FLOAT);
+                        gridColumns.computeIfAbsent(fieldName, key -> ConcurrentHashMap.newKeySet()).add(grid.getColumnName());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertDistinctColumns(documentColumns);
+        assertDistinctColumns(gridColumns);
+        assertThat(columnMappingRepository.findAllDocumentMappingsLegacy(processDefKey)).hasSize(FIELDS);
+        assertThat(columnMappingRepository.findAllGridMappingsLegacy(processDefKey, "items")).hasSize(FIELDS);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void saveAllData_fromManyThreads_shouldCreateMappingsWithoutExhaustingThePool() throws Exception {
+        String processDefKey = "concurrency-" + UUID.randomUUID();
+        Map<String, Set<String>> documentColumns = new ConcurrentHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                String processInstanceId = processDefKey + "-" + t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Map<String, Object> variables = new HashMap<>();
+                    for (int f = 0; f < FIELDS; f++) {
+                        variables.put("field" + f, "value" + f);
+                    }
+                    variables.put("items", List.of(Map.of("amount", 1.5, "label", "a"), Map.of("amount", 2.5, "label", "b")));
+                    businessTableService.saveAllData(processInstanceId, null, processDefKey, "Concurrency",
+                            "main", variables, "user1");
+
+                    DocumentDTO document = businessTableService.getDocument(processInstanceId, "main").orElseThrow();
+                    assertThat(document.getFields()).hasSize(FIELDS).containsEntry("field0", "value0");
+                    assertThat(document.getGrids().get("items")).hasSize(2);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        columnMappingService.getDocumentMappings(processDefKey, "main").forEach((fieldName, mapping) ->
+                documentColumns.computeIfAbsent(fieldName, key -> ConcurrentHashMap.newKeySet()).add(mapping.getColumnName()));
+        assertDistinctColumns(documentColumns);
+        assertThat(columnMappingService.getGridMappings(processDefKey, "main", "items")).hasSize(2);
+    }
+
+    private static void assertDistinctColumns(Map<String, Set<String>> columnsByField) {
+        assertThat(columnsByField).hasSize(FIELDS);
+        Set<String> claimed = new HashSet<>();
+        for (Map.Entry<String, Set<String>> field : columnsByField.entrySet()) {
+            // Every thread was handed the same mapping for the field
+            assertThat(field.getValue()).as(field.getKey()).hasSize(1);
+            String column = field.getValue().iterator().next();
+            assertThat(column).isNotEqualTo(ColumnMapping.OVERFLOW_COLUMN);
+            assertThat(claimed.add(column)).as("column %s claimed twice", column).isTrue();
+        }
+    }
+}
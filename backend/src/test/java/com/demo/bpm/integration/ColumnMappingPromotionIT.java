@@ -0,0 +1,65 @@
+package com.demo.bpm.integration;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.ColumnMapping.ScopeType;
+import com.demo.bpm.repository.ColumnMappingRepository;
+import com.demo.bpm.service.ColumnMappingService;
+import com.demo.bpm.service.ColumnMappingWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Swaps columns between mappings against the real slot constraint. Updates are ordered by id when
+ * the promotion commits, so the field that is promoted is created first here.
+ */
+class ColumnMappingPromotionIT extends BaseIntegrationTest {
+
+    @Autowired
+    private ColumnMappingService columnMappingService;
+
+    @Autowired
+    private ColumnMappingRepository columnMappingRepository;
+
+    @Autowired
+    private ColumnMappingWriter columnMappingWriter;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void promoteDocumentField_whenPromotedMappingHasLowerId_shouldSwapColumns() {
+        String processDefKey = "promotion-" + UUID.randomUUID();
+        ColumnMapping older = columnMappingWriter.insert(List.of(mapping(processDefKey, "older", ColumnMapping.OVERFLOW_COLUMN))).get(0);
+        ColumnMapping newer = columnMappingWriter.insert(List.of(mapping(processDefKey, "newer", "float_2"))).get(0);
+        assertThat(older.getId()).isLessThan(newer.getId());
+
+        columnMappingService.promoteDocumentField(processDefKey, "main", "older", "newer");
+
+        Map<String, ColumnMapping> stored = columnMappingRepository.findAllDocumentMappingsLegacy(processDefKey).stream()
+                .collect(Collectors.toMap(ColumnMapping::getFieldName, Function.identity()));
+        assertThat(stored.get("older").getColumnName()).isEqualTo("float_2");
+        assertThat(stored.get("older").getColumnSlot()).isEqualTo("float_2");
+        assertThat(stored.get("newer").isOverflow()).isTrue();
+        assertThat(stored.get("newer").getColumnSlot()).isNull();
+    }
+
+    private static ColumnMapping mapping(String processDefKey, String fieldName, String columnName) {
+        return ColumnMapping.builder()
+                .scopeType(ScopeType.DOCUMENT)
+                .processDefinitionKey(processDefKey)
+                .documentType("main")
+                .fieldName(fieldName)
+                .fieldType(FieldType.FLOAT)
+                .columnName(columnName)
+                .build();
+    }
+}
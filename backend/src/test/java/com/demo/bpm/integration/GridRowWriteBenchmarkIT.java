@@ -0,0 +1,80 @@
+package com.demo.bpm.integration;
+
+import com.demo.bpm.dto.GridSaveResult;
+import com.demo.bpm.entity.Document;
+import com.demo.bpm.repository.GridRowRepository;
+import com.demo.bpm.service.BusinessTableService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures grid write throughput on H2. Not part of the default test run;
+ * execute with {@code mvn test -Dtest=GridRowWriteBenchmarkIT}.
+ */
+@Slf4j
+class GridRowWriteBenchmarkIT extends BaseIntegrationTest {
+
+    private static final int WARMUP_ROWS = 1_000;
+
+    @Autowired
+    private BusinessTableService businessTableService;
+
+    @Autowired
+    private GridRowRepository gridRowRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 50_000})
+    void saveGridRows_throughput(int rowCount) {
+        String processInstanceId = "bench-" + UUID.randomUUID();
+        Document document = businessTableService.saveDocument(processInstanceId, "BENCH", "grid-benchmark",
+                "Grid Benchmark", Map.of("title", "benchmark"), "benchmark");
+
+        businessTableService.saveGridRows(processInstanceId, "grid-benchmark", "warmup", rows(WARMUP_ROWS));
+
+        List<Map<String, Object>> rows = rows(rowCount);
+        long start = System.nanoTime();
+        businessTableService.saveGridRows(processInstanceId, "grid-benchmark", "lineItems", rows);
+        long elapsedNanos = System.nanoTime() - start;
+
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        log.info("grid rows: {}  time: {} ms  throughput: {} rows/s", rowCount,
+                String.format("%,.1f", elapsedNanos / 1_000_000.0), String.format("%,.0f", rowCount / seconds));
+
+        assertThat(gridRowRepository.countByDocumentIdAndGridName(document.getId(), "lineItems"))
+                .isEqualTo(rowCount);
+
+        // Autosave of the same grid with a single edited row
+        rows.get(rowCount / 2).put("description", "Edited line item");
+        start = System.nanoTime();
+        GridSaveResult resave = businessTableService.saveGridRows(processInstanceId, "grid-benchmark", "lineItems", rows);
+        elapsedNanos = System.nanoTime() - start;
+        log.info("grid rows: {}  resave with one edit: {} ms  rows written: {}", rowCount,
+                String.format("%,.1f", elapsedNanos / 1_000_000.0), resave.getChanged());
+
+        assertThat(resave.getChanged()).isEqualTo(1);
+    }
+
+    private List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("sku", "SKU-" + i);
+            row.put("description", "Line item " + i);
+            row.put("quantity", i % 17 + 1);
+            row.put("unitPrice", 9.99 + i % 100);
+            row.put("deliveryDate", "2024-01-01T10:00:00");
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,68 @@
+package com.demo.bpm.integration;
+
+import com.demo.bpm.service.ProcessService;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.service.helpers.VariableHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares loading the merged variables of many process instances one by one with the batch
+ * lookup, both with a cold cache. Not part of the default test run; execute with
+ * {@code mvn test -Dtest=MergedVariablesBenchmarkIT}.
+ */
+@Slf4j
+class MergedVariablesBenchmarkIT extends BaseIntegrationTest {
+
+    @Autowired
+    private ProcessService processService;
+
+    @Autowired
+    private VariableHelper variableHelper;
+
+    @Autowired
+    private MergedVariableCache mergedVariableCache;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1_000})
+    void getMergedVariables_latency(int instanceCount) {
+        List<String> processInstanceIds = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("_title", "Benchmark task " + i);
+            variables.put("_assignee", "benchmark");
+            variables.put("title", "Benchmark " + i);
+            variables.put("amount", 10.0 + i);
+            variables.put("items", List.of(Map.of("sku", "SKU-" + i, "quantity", i % 5 + 1)));
+            processInstanceIds.add(processService.startProcess("task-assignment", "BENCH-" + i, variables, "benchmark").getId());
+        }
+
+        mergedVariableCache.invalidateAll();
+        long start = System.nanoTime();
+        Map<String, Map<String, Object>> oneByOne = new HashMap<>();
+        for (String processInstanceId : processInstanceIds) {
+            oneByOne.put(processInstanceId, variableHelper.getMergedVariables(processInstanceId));
+        }
+        long oneByOneNanos = System.nanoTime() - start;
+
+        mergedVariableCache.invalidateAll();
+        start = System.nanoTime();
+        Map<String, Map<String, Object>> batch = variableHelper.getMergedVariables(processInstanceIds);
+        long batchNanos = System.nanoTime() - start;
+
+        log.info("instances: {}  one by one: {} ms  batch: {} ms", instanceCount,
+                String.format("%,.1f", oneByOneNanos / 1_000_000.0), String.format("%,.1f", batchNanos / 1_000_000.0));
+
+        assertThat(batch).isEqualTo(oneByOne);
+        assertThat(batch.get(processInstanceIds.get(0))).containsEntry("_startedBy", "benchmark").containsKey("amount");
+    }
+}
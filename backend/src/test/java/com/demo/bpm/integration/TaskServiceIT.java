@@ -1,6 +1,7 @@
 package com.demo.bpm.integration;
 
 import com.demo.bpm.dto.TaskDTO;
+import com.demo.bpm.dto.TaskView;
 import com.demo.bpm.service.ProcessService;
 import com.demo.bpm.service.TaskService;
 import org.junit.jupiter.api.Test;
@@ -27,7 +28,8 @@ class TaskServiceIT extends BaseIntegrationTest {
         processService.startProcess("expense-approval", "EXP-123", variables, "user1");
 
         // Find the task
-        TaskDTO task = taskService.getClaimableTasks("supervisor1").get(0);
+        TaskDTO task = taskService.getClaimableTaskPage("supervisor1", TaskView.FULL, null, null, null, false)
+                .getContent().get(0);
 
         TaskDTO foundTask = taskService.getTaskById(task.getId());
 
@@ -52,7 +52,8 @@ class WorkflowIntegrationTest extends BaseIntegrationTest {
         String processInstanceId = instance.getId();
 
         // 2. Verify task is created for supervisor
-        List<TaskDTO> tasks = taskService.getGroupTasks(supervisorId);
+        List<TaskDTO> tasks = taskService.getGroupTaskPage(supervisorId, null, null, null,
+                TaskView.FULL, null, null, null, false).getContent();
         assertFalse(tasks.isEmpty());
         TaskDTO supervisorTask = tasks.stream()
                 .filter(t -> t.getProcessInstanceId().equals(processInstanceId))
@@ -67,7 +68,8 @@ class WorkflowIntegrationTest extends BaseIntegrationTest {
         workflowService.escalateTask(supervisorTask.getId(), escalationRequest, supervisorId);
 
         // 4. Verify task is now with manager level
-        tasks = taskService.getGroupTasks(managerId);
+        tasks = taskService.getGroupTaskPage(managerId, null, null, null,
+                TaskView.FULL, null, null, null, false).getContent();
         TaskDTO managerTask = tasks.stream()
                 .filter(t -> t.getProcessInstanceId().equals(processInstanceId))
                 .findFirst()
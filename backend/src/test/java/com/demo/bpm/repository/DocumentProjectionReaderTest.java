@@ -0,0 +1,87 @@
+package com.demo.bpm.repository;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.Document;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentProjectionReaderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private DocumentProjectionReader reader;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        reader = new DocumentProjectionReader(jdbcTemplate, "", 10);
+        registry = new SimpleMeterRegistry();
+        reader.bindTo(registry);
+    }
+
+    @Test
+    void loadColumns_shouldKeepOneProjectionPerColumnSet() {
+        List<Document> documents = List.of(document(1L));
+        List<ColumnMapping> titleOnly = List.of(mapping("title", FieldType.VARCHAR, "varchar_1"));
+        List<ColumnMapping> titleAndAmount = List.of(
+                mapping("title", FieldType.VARCHAR, "varchar_1"),
+                mapping("amount", FieldType.FLOAT, "float_2"));
+
+        // Alternating column sets of one scope must not evict each other's statement
+        reader.loadColumns(titleOnly, documents);
+        reader.loadColumns(titleAndAmount, documents);
+        reader.loadColumns(titleOnly, documents);
+        reader.loadColumns(titleAndAmount, documents);
+
+        assertEquals(2.0, registry.get("bpm.cache.misses").tag("cache", "document-projections").functionCounter().count());
+        assertEquals(2.0, registry.get("bpm.cache.hits").tag("cache", "document-projections").functionCounter().count());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(4)).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertEquals("SELECT id, varchar_1 FROM document WHERE id IN (?)", sql.getAllValues().get(0));
+        assertEquals("SELECT id, float_2, varchar_1 FROM document WHERE id IN (?)", sql.getAllValues().get(1));
+    }
+
+    @Test
+    void loadColumns_shouldShareProjectionsAcrossScopesWithTheSameColumns() {
+        List<Document> documents = List.of(document(1L));
+
+        reader.loadColumns(List.of(mapping("title", FieldType.VARCHAR, "varchar_1")), documents);
+        reader.loadColumns(List.of(mapping("reason", FieldType.VARCHAR, "varchar_1")), documents);
+
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "document-projections").functionCounter().count());
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static Document document(Long id) {
+        Document document = new Document();
+        document.setId(id);
+        return document;
+    }
+
+    private static ColumnMapping mapping(String fieldName, FieldType fieldType, String columnName) {
+        return ColumnMapping.builder()
+                .fieldName(fieldName)
+                .fieldType(fieldType)
+                .columnName(columnName)
+                .build();
+    }
+}
@@ -0,0 +1,239 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessDataOutbox;
+import com.demo.bpm.integration.BaseIntegrationTest;
+import com.demo.bpm.repository.BusinessDataOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Lives next to the service rather than in the integration package because it drives the
+ * package-private {@code processGroup} directly.
+ * <p>
+ * Runs two outbox workers, each with its own service instance like separate application nodes,
+ * against the same outbox table and checks that the writes of one document are never applied
+ * out of order. Entries are scheduled far in the future so the application's own poller leaves
+ * them alone; {@code processGroup} picks them up regardless.
+ */
+class BusinessDataOutboxConcurrencyIT extends BaseIntegrationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BusinessDataOutboxRepository outboxRepository;
+
+    @Autowired
+    private BusinessDataOutboxClaimer outboxClaimer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void processGroup_whileAnotherWorkerHoldsTheDocument_shouldWaitForIt() throws Exception {
+        String processInstanceId = "outbox-" + UUID.randomUUID();
+        List<Object> writes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstWriting = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        BusinessDataOutboxService first = worker(blockingTables(writes, firstWriting, releaseFirst));
+        BusinessTableService secondTables = recordingTables(writes);
+        BusinessDataOutboxService second = worker(secondTables);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            save(processInstanceId, 1);
+            save(processInstanceId, 2);
+            Future<?> firstRun = executor.submit(() -> first.processGroup(processInstanceId, "main"));
+            assertThat(firstWriting.await(30, TimeUnit.SECONDS)).isTrue();
+
+            // A newer entry arrives while the first worker is still writing the older ones
+            save(processInstanceId, 3);
+            second.processGroup(processInstanceId, "main");
+            verify(secondTables, never()).saveAllData(any(), any(), any(), any(), any(), any(), any(), any());
+
+            releaseFirst.countDown();
+            firstRun.get(30, TimeUnit.SECONDS);
+            second.processGroup(processInstanceId, "main");
+
+            assertThat(writes).containsExactly(Map.of("amount", 2), Map.of("amount", 3));
+            assertThat(entries(processInstanceId)).isEmpty();
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdownNow();
+            outboxRepository.deleteAll(entries(processInstanceId));
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void processGroup_afterItsClaimExpired_shouldNotWriteOrDeleteTheEntries() throws Exception {
+        String processInstanceId = "outbox-" + UUID.randomUUID();
+        List<Object> writes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch firstWriting = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        BusinessDataOutboxService first = worker(blockingTables(writes, firstWriting, releaseFirst));
+        BusinessDataOutboxService second = worker(recordingTables(writes));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            save(processInstanceId, 1);
+            Future<?> firstRun = executor.submit(() -> first.processGroup(processInstanceId, "main"));
+            assertThat(firstWriting.await(30, TimeUnit.SECONDS)).isTrue();
+
+            // The first worker stalls past its claim timeout; its entry moves on to the second worker
+            outboxRepository.releaseClaimsOlderThan(LocalDateTime.now().plusMinutes(1));
+            save(processInstanceId, 2);
+            save(processInstanceId, 3);
+            second.processGroup(processInstanceId, "main");
+            assertThat(writes).containsExactly(Map.of("amount", 3));
+
+            save(processInstanceId, 4);
+            releaseFirst.countDown();
+            firstRun.get(30, TimeUnit.SECONDS);
+
+            assertThat(writes).containsExactly(Map.of("amount", 3));
+            assertThat(entries(processInstanceId)).singleElement()
+                    .satisfies(entry -> assertThat(entry.getPayload()).isEqualTo("{\"amount\":4}"));
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdownNow();
+            outboxRepository.deleteAll(entries(processInstanceId));
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void dequeueClaim_whenTheWriteRollsBack_shouldKeepTheEntriesClaimed() {
+        String processInstanceId = "outbox-" + UUID.randomUUID();
+        try {
+            save(processInstanceId, 1);
+            save(processInstanceId, 2);
+            String claim = outboxClaimer.claimDocument(processInstanceId, "main").get(0).getClaimedBy();
+
+            TransactionTemplate write = new TransactionTemplate(transactionManager);
+            assertThatThrownBy(() -> write.executeWithoutResult(status -> {
+                assertThat(outboxClaimer.dequeueClaim(claim, 2)).isTrue();
+                throw new IllegalStateException("write failed");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(entries(processInstanceId)).hasSize(2)
+                    .allSatisfy(entry -> assertThat(entry.getClaimedBy()).isEqualTo(claim));
+        } finally {
+            outboxRepository.deleteAll(entries(processInstanceId));
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claimDocument_fromManyThreads_shouldHandTheDocumentToOneWorker() throws Exception {
+        String processInstanceId = "outbox-" + UUID.randomUUID();
+        save(processInstanceId, 1);
+        save(processInstanceId, 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<BusinessDataOutbox>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return outboxClaimer.claimDocument(processInstanceId, "main");
+                }));
+            }
+            start.countDown();
+            List<Integer> claimed = new ArrayList<>();
+            for (Future<List<BusinessDataOutbox>> future : futures) {
+                claimed.add(future.get(1, TimeUnit.MINUTES).size());
+            }
+
+            assertThat(claimed).containsOnlyOnce(2).containsOnly(0, 2);
+        } finally {
+            executor.shutdownNow();
+            outboxRepository.deleteAll(entries(processInstanceId));
+        }
+    }
+
+    /**
+     * Tables whose write stops until {@code release} opens, then checks the claim fence as the real
+     * write transaction would.
+     */
+    private static BusinessTableService blockingTables(List<Object> writes, CountDownLatch writing,
+                                                       CountDownLatch release) {
+        BusinessTableService tables = mock(BusinessTableService.class);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return write(writes, invocation);
+        }).when(tables).saveAllData(any(), any(), any(), any(), any(), any(), any(), any());
+        return tables;
+    }
+
+    private static BusinessTableService recordingTables(List<Object> writes) {
+        BusinessTableService tables = mock(BusinessTableService.class);
+        doAnswer(invocation -> write(writes, invocation))
+                .when(tables).saveAllData(any(), any(), any(), any(), any(), any(), any(), any());
+        return tables;
+    }
+
+    private static boolean write(List<Object> writes, InvocationOnMock invocation) {
+        if (!invocation.<BooleanSupplier>getArgument(7).getAsBoolean()) {
+            return false;
+        }
+        writes.add(invocation.getArgument(5));
+        return true;
+    }
+
+    private BusinessDataOutboxService worker(BusinessTableService businessTableService) {
+        return new BusinessDataOutboxService(outboxRepository, outboxClaimer, businessTableService, objectMapper,
+                1000, 100, 1, 3, Duration.ofSeconds(2), Duration.ofMinutes(10), Duration.ofMinutes(5));
+    }
+
+    private void save(String processInstanceId, int amount) {
+        outboxRepository.save(BusinessDataOutbox.builder()
+                .processInstanceId(processInstanceId)
+                .processDefinitionKey("proc1")
+                .documentType("main")
+                .payload("{\"amount\":" + amount + "}")
+                .nextAttemptAt(LocalDateTime.now().plusDays(1))
+                .build());
+    }
+
+    private List<BusinessDataOutbox> entries(String processInstanceId) {
+        return outboxRepository.findAll().stream()
+                .filter(entry -> entry.getProcessInstanceId().equals(processInstanceId))
+                .toList();
+    }
+}
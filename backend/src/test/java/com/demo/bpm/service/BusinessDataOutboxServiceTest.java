@@ -0,0 +1,170 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessDataOutbox;
+import com.demo.bpm.entity.BusinessDataOutbox.Status;
+import com.demo.bpm.repository.BusinessDataOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusinessDataOutboxServiceTest {
+
+    @Mock
+    private BusinessDataOutboxRepository outboxRepository;
+
+    @Mock
+    private BusinessDataOutboxClaimer outboxClaimer;
+
+    @Mock
+    private BusinessTableService businessTableService;
+
+    private BusinessDataOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new BusinessDataOutboxService(outboxRepository, outboxClaimer, businessTableService, new ObjectMapper(),
+                1000, 100, 2, 3, Duration.ofSeconds(2), Duration.ofMinutes(10), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void enqueue_shouldStorePayloadWithDefaultDocumentType() {
+        outboxService.enqueue("pi1", "BK-1", "proc1", "Proc", null, Map.of("amount", 5), "user1");
+
+        ArgumentCaptor<BusinessDataOutbox> captor = ArgumentCaptor.forClass(BusinessDataOutbox.class);
+        verify(outboxRepository).save(captor.capture());
+        assertEquals("main", captor.getValue().getDocumentType());
+        assertEquals("{\"amount\":5}", captor.getValue().getPayload());
+        assertEquals(Status.PENDING, captor.getValue().getStatus());
+    }
+
+    @Test
+    void processGroup_shouldCoalescePendingEntriesIntoOneWrite() {
+        BusinessDataOutbox first = entry(1L, "{\"amount\":5,\"title\":\"Old\"}", "user1");
+        BusinessDataOutbox second = entry(2L, "{\"title\":\"New\"}", "user2");
+        when(outboxClaimer.claimDocument("pi1", "main")).thenReturn(List.of(first, second));
+        when(outboxClaimer.dequeueClaim("claim", 2)).thenReturn(true);
+        when(businessTableService.saveAllData(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<BooleanSupplier>getArgument(7).getAsBoolean());
+
+        outboxService.processGroup("pi1", "main");
+
+        verify(businessTableService).saveAllData(eq("pi1"), eq("BK-1"), eq("proc1"), eq("Proc"), eq("main"),
+                eq(Map.of("amount", 5, "title", "New")), eq("user2"), any());
+        verify(outboxClaimer).dequeueClaim("claim", 2);
+    }
+
+    @Test
+    void processGroup_whenClaimExpiredBeforeTheWrite_shouldLeaveEntriesToTheirNewHolder() {
+        BusinessDataOutbox entry = entry(1L, "{\"amount\":5}", "user1");
+        when(outboxClaimer.claimDocument("pi1", "main")).thenReturn(List.of(entry));
+        when(outboxClaimer.dequeueClaim("claim", 1)).thenReturn(false);
+        when(businessTableService.saveAllData(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<BooleanSupplier>getArgument(7).getAsBoolean());
+
+        outboxService.processGroup("pi1", "main");
+
+        verify(outboxClaimer, never()).updateClaimed(any(), any());
+    }
+
+    @Test
+    void processGroup_whenSaveFails_shouldScheduleRetryThenGiveUp() {
+        BusinessDataOutbox entry = entry(1L, "{\"amount\":5}", "user1");
+        when(outboxClaimer.claimDocument("pi1", "main")).thenAnswer(invocation -> {
+            entry.setStatus(Status.PROCESSING);
+            entry.setClaimedBy("claim");
+            return List.of(entry);
+        });
+        when(outboxClaimer.updateClaimed(eq("claim"), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<BusinessDataOutbox>>getArgument(1).accept(entry);
+            return List.of(entry);
+        });
+        doThrow(new RuntimeException("boom")).when(businessTableService)
+                .saveAllData(any(), any(), any(), any(), any(), any(), any(), any());
+
+        outboxService.processGroup("pi1", "main");
+
+        assertEquals(1, entry.getAttempts());
+        assertEquals(Status.PENDING, entry.getStatus());
+        assertEquals("boom", entry.getLastError());
+        assertNull(entry.getClaimedBy());
+        assertTrue(entry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(outboxClaimer, never()).dequeueClaim(any(), anyInt());
+
+        entry.setAttempts(2);
+        outboxService.processGroup("pi1", "main");
+
+        assertEquals(Status.FAILED, entry.getStatus());
+    }
+
+    @Test
+    void processGroup_whenSaveFailsAfterClaimExpired_shouldNotTouchTheEntries() {
+        BusinessDataOutbox entry = entry(1L, "{\"amount\":5}", "user1");
+        when(outboxClaimer.claimDocument("pi1", "main")).thenReturn(List.of(entry));
+        when(outboxClaimer.updateClaimed(eq("claim"), any())).thenReturn(List.of());
+        doThrow(new RuntimeException("boom")).when(businessTableService)
+                .saveAllData(any(), any(), any(), any(), any(), any(), any(), any());
+
+        outboxService.processGroup("pi1", "main");
+
+        assertEquals(0, entry.getAttempts());
+        assertEquals("claim", entry.getClaimedBy());
+        verify(outboxRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void processGroup_whenEntriesWereClaimedElsewhere_shouldNotWrite() {
+        when(outboxClaimer.claimDocument("pi1", "main")).thenReturn(List.of());
+
+        outboxService.processGroup("pi1", "main");
+
+        verifyNoInteractions(businessTableService);
+        verify(outboxClaimer, never()).dequeueClaim(any(), anyInt());
+    }
+
+    @Test
+    void drain_shouldReleaseStaleClaimsBeforePolling() throws InterruptedException {
+        when(outboxRepository.releaseClaimsOlderThan(any())).thenReturn(3);
+        when(outboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(eq(Status.PENDING), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, outboxService.drain());
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).releaseClaimsOlderThan(cutoff.capture());
+        assertTrue(cutoff.getValue().isBefore(LocalDateTime.now().minusMinutes(4)));
+    }
+
+    private BusinessDataOutbox entry(Long id, String payload, String userId) {
+        return BusinessDataOutbox.builder()
+                .id(id)
+                .processInstanceId("pi1")
+                .businessKey("BK-1")
+                .processDefinitionKey("proc1")
+                .processDefinitionName("Proc")
+                .documentType("main")
+                .payload(payload)
+                .userId(userId)
+                .status(Status.PROCESSING)
+                .claimedBy("claim")
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+}
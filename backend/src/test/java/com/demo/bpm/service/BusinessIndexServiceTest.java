@@ -0,0 +1,75 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.BusinessFieldIndex;
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.repository.BusinessFieldIndexRepository;
+import com.demo.bpm.repository.DocumentColumnIndexes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusinessIndexServiceTest {
+
+    @Mock
+    private BusinessFieldIndexRepository businessFieldIndexRepository;
+
+    @Mock
+    private DocumentColumnIndexes documentColumnIndexes;
+
+    @Mock
+    private ColumnMappingService columnMappingService;
+
+    @InjectMocks
+    private BusinessIndexService businessIndexService;
+
+    @Test
+    void createIndex_shouldRecordFieldAndIndexItsColumn() {
+        when(columnMappingService.getDocumentMappings(eq("purchase"), eq("main"), anyCollection()))
+                .thenReturn(Map.of("amount", mapping("amount", "float_3")));
+        when(businessFieldIndexRepository.findByProcessDefinitionKeyAndDocumentTypeAndFieldName("purchase", "main", "amount"))
+                .thenReturn(Optional.empty());
+        when(businessFieldIndexRepository.save(any(BusinessFieldIndex.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        BusinessFieldIndex index = businessIndexService.createIndex("purchase", null, "amount", "admin");
+
+        assertEquals("float_3", index.getColumnName());
+        assertEquals("admin", index.getCreatedBy());
+        verify(documentColumnIndexes).create("float_3");
+    }
+
+    @Test
+    void reconcile_shouldFollowMovedFieldsAndDropUnusedIndexes() {
+        BusinessFieldIndex vendor = BusinessFieldIndex.builder().processDefinitionKey("purchase").documentType("main")
+                .fieldName("vendor").columnName("varchar_8").build();
+        when(businessFieldIndexRepository.findAll()).thenReturn(List.of(vendor));
+        when(columnMappingService.getDocumentMappings(eq("purchase"), eq("main"), anyCollection()))
+                .thenReturn(Map.of("vendor", mapping("vendor", "varchar_2")));
+        when(documentColumnIndexes.indexedColumns()).thenReturn(Set.of("varchar_8", "float_3"));
+
+        businessIndexService.reconcile();
+
+        assertEquals("varchar_2", vendor.getColumnName());
+        verify(businessFieldIndexRepository).save(vendor);
+        verify(documentColumnIndexes).create("varchar_2");
+        verify(documentColumnIndexes).drop("varchar_8");
+        verify(documentColumnIndexes).drop("float_3");
+    }
+
+    private static ColumnMapping mapping(String fieldName, String columnName) {
+        ColumnMapping.FieldType type = columnName.startsWith("float")
+                ? ColumnMapping.FieldType.FLOAT : ColumnMapping.FieldType.VARCHAR;
+        return ColumnMapping.builder().fieldName(fieldName).fieldType(type).columnName(columnName).build();
+    }
+}
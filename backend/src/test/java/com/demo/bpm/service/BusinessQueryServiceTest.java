@@ -0,0 +1,122 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.dto.BusinessQueryRequest;
+import com.demo.bpm.dto.BusinessQueryRequest.FieldFilter;
+import com.demo.bpm.dto.BusinessQueryRequest.Operator;
+import com.demo.bpm.dto.BusinessQueryResult;
+import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.repository.DocumentQueryRepository;
+import com.demo.bpm.repository.DocumentQueryRepository.ColumnPredicate;
+import com.demo.bpm.repository.DocumentQueryRepository.KeysetRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BusinessQueryServiceTest {
+
+    @Mock
+    private ColumnMappingService columnMappingService;
+
+    @Mock
+    private DocumentQueryRepository documentQueryRepository;
+
+    @Mock
+    private BusinessTableService businessTableService;
+
+    private BusinessQueryService businessQueryService;
+
+    private final ColumnMapping amount = mapping("amount", FieldType.FLOAT, "float_3");
+    private final ColumnMapping vendor = mapping("vendor", FieldType.VARCHAR, "varchar_8");
+
+    @BeforeEach
+    void setUp() {
+        businessQueryService = new BusinessQueryService(columnMappingService, documentQueryRepository,
+                businessTableService, new ObjectMapper());
+    }
+
+    @Test
+    void query_shouldTranslateFieldsAndReturnCursorWhenMoreRowsExist() {
+        givenPurchaseMappings();
+        when(columnMappingService.convertValueForStorage(10000, FieldType.FLOAT)).thenReturn(10000.0);
+        when(columnMappingService.convertValueForStorage("X", FieldType.VARCHAR)).thenReturn("X");
+        when(documentQueryRepository.findIds(eq("purchase"), eq("main"), any(), eq(amount), eq(true), isNull(), eq(3)))
+                .thenReturn(List.of(new KeysetRow(7, 50000.0), new KeysetRow(4, 20000.0), new KeysetRow(9, 12000.0)));
+        List<DocumentDTO> documents = List.of(DocumentDTO.builder().id(7L).build(), DocumentDTO.builder().id(4L).build());
+        when(businessTableService.getDocumentsByIds(List.of(7L, 4L), Collections.emptyList())).thenReturn(documents);
+
+        BusinessQueryResult result = businessQueryService.query(BusinessQueryRequest.builder()
+                .processDefinitionKey("purchase")
+                .filters(List.of(
+                        FieldFilter.builder().field("amount").op(Operator.GT).value(10000).build(),
+                        FieldFilter.builder().field("vendor").op(Operator.EQ).value("X").build()))
+                .sortField("amount")
+                .descending(true)
+                .limit(2)
+                .build());
+
+        ArgumentCaptor<List<ColumnPredicate>> predicates = ArgumentCaptor.forClass(List.class);
+        verify(documentQueryRepository).findIds(eq("purchase"), eq("main"), predicates.capture(), eq(amount),
+                eq(true), isNull(), eq(3));
+        assertEquals(new ColumnPredicate(amount, Operator.GT, List.of(10000.0)), predicates.getValue().get(0));
+        assertEquals(new ColumnPredicate(vendor, Operator.EQ, List.of("X")), predicates.getValue().get(1));
+        assertEquals(documents, result.getItems());
+        assertNotNull(result.getNextCursor());
+    }
+
+    @Test
+    void query_shouldResumeAfterCursor() {
+        givenPurchaseMappings();
+        when(documentQueryRepository.findIds(eq("purchase"), eq("main"), any(), eq(amount), eq(false), isNull(), eq(2)))
+                .thenReturn(List.of(new KeysetRow(4, 20000.0), new KeysetRow(9, 30000.0)));
+        when(businessTableService.getDocumentsByIds(List.of(4L), Collections.emptyList())).thenReturn(List.of());
+        when(columnMappingService.convertValueForStorage(20000.0, FieldType.FLOAT)).thenReturn(20000.0);
+
+        BusinessQueryRequest first = BusinessQueryRequest.builder()
+                .processDefinitionKey("purchase").sortField("amount").limit(1).build();
+        String cursor = businessQueryService.query(first).getNextCursor();
+
+        when(documentQueryRepository.findIds(eq("purchase"), eq("main"), any(), eq(amount), eq(false),
+                eq(new KeysetRow(4, 20000.0)), eq(2))).thenReturn(List.of());
+        first.setCursor(cursor);
+        BusinessQueryResult next = businessQueryService.query(first);
+
+        assertTrue(next.getItems().isEmpty());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void query_shouldRejectUnknownAndOverflowFields() {
+        ColumnMapping note = mapping("note", FieldType.VARCHAR, ColumnMapping.OVERFLOW_COLUMN);
+        when(columnMappingService.getDocumentMappings(eq("purchase"), eq("main"), anyCollection())).thenReturn(Map.of("note", note));
+
+        assertThrows(IllegalArgumentException.class, () -> businessQueryService.query(BusinessQueryRequest.builder()
+                .processDefinitionKey("purchase").sortField("missing").build()));
+        assertThrows(IllegalArgumentException.class, () -> businessQueryService.query(BusinessQueryRequest.builder()
+                .processDefinitionKey("purchase").sortField("note").build()));
+        verifyNoInteractions(documentQueryRepository);
+    }
+
+    private void givenPurchaseMappings() {
+        when(columnMappingService.getDocumentMappings(eq("purchase"), eq("main"), anyCollection()))
+                .thenReturn(Map.of("amount", amount, "vendor", vendor));
+    }
+
+    private static ColumnMapping mapping(String fieldName, FieldType type, String columnName) {
+        return ColumnMapping.builder().fieldName(fieldName).fieldType(type).columnName(columnName).build();
+    }
+}
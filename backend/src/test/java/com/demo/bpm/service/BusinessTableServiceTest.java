@@ -1,20 +1,33 @@
 package com.demo.bpm.service;
 
 import com.demo.bpm.dto.DocumentDTO;
+import com.demo.bpm.dto.FieldPromotionResult;
+import com.demo.bpm.dto.GridSaveResult;
 import com.demo.bpm.entity.ColumnMapping;
 import com.demo.bpm.entity.Document;
 import com.demo.bpm.entity.ProcessConfig;
+import com.demo.bpm.repository.DocumentProjectionReader;
 import com.demo.bpm.repository.DocumentRepository;
+import com.demo.bpm.repository.GridRowBatchWriter;
 import com.demo.bpm.repository.GridRowRepository;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import com.demo.bpm.repository.OverflowColumnMigrator;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.demo.bpm.entity.GridRow;
 import com.demo.bpm.repository.GridRowRepository;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,12 +43,30 @@ class BusinessTableServiceTest {
     @Mock
     private GridRowRepository gridRowRepository;
 
+    @Mock
+    private GridRowBatchWriter gridRowBatchWriter;
+
+    @Mock
+    private DocumentProjectionReader documentProjectionReader;
+
+    @Mock
+    private OverflowColumnMigrator overflowColumnMigrator;
+
     @Mock
     private ProcessConfigRepository processConfigRepository;
 
     @Mock
     private ColumnMappingService columnMappingService;
 
+    @Mock
+    private FieldTypeResolver fieldTypeResolver;
+
+    @Mock
+    private MergedVariableCache mergedVariableCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private BusinessTableService businessTableService;
 
@@ -47,9 +78,9 @@ class BusinessTableServiceTest {
         document.setProcessDefinitionKey("proc1");
         document.setType("main");
 
-        when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.of(document));
+        when(documentProjectionReader.findByProcessInstanceIdsAndType(List.of("pi1"), "main")).thenReturn(List.of(document));
         when(columnMappingService.getDocumentMappings("proc1", "main")).thenReturn(Collections.emptyMap());
-        when(gridRowRepository.findByDocumentIdOrderByGridNameAscRowIndexAsc(1L)).thenReturn(Collections.emptyList());
+        when(gridRowRepository.findByDocumentIdInOrderByGridNameAscRowIndexAsc(List.of(1L))).thenReturn(Collections.emptyList());
 
         Optional<DocumentDTO> result = businessTableService.getDocument("pi1", "main");
 
@@ -57,6 +88,95 @@ class BusinessTableServiceTest {
         assertEquals("pi1", result.get().getProcessInstanceId());
     }
 
+    @Test
+    void getDocument_shouldReadOnlyMappedColumnsAndRequestedGrids() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setProcessInstanceId("pi1");
+        document.setProcessDefinitionKey("proc1");
+        document.setType("main");
+        ColumnMapping title = ColumnMapping.builder().fieldName("title").columnName("varchar_3")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+
+        when(documentProjectionReader.findByProcessInstanceIdsAndType(List.of("pi1"), "main")).thenReturn(List.of(document));
+        when(columnMappingService.getDocumentMappings("proc1", "main")).thenReturn(Map.of("title", title));
+        doAnswer(invocation -> {
+            document.setVarchar(3, "Hello");
+            return null;
+        }).when(documentProjectionReader).loadColumns(anyCollection(), eq(List.of(document)));
+
+        DocumentDTO header = businessTableService.getDocument("pi1", "main", List.of()).orElseThrow();
+
+        assertEquals("Hello", header.getFields().get("title"));
+        assertTrue(header.getGrids().isEmpty());
+        verifyNoInteractions(gridRowRepository);
+        verify(documentRepository, never()).findByProcessInstanceIdAndType(anyString(), anyString());
+
+        when(gridRowRepository.findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(List.of(1L), List.of("items")))
+                .thenReturn(Collections.emptyList());
+        businessTableService.getDocument("pi1", "main", List.of("items"));
+
+        verify(gridRowRepository, never()).findByDocumentIdInOrderByGridNameAscRowIndexAsc(anyCollection());
+    }
+
+    @Test
+    void getDocumentValues_shouldReadOnlyRequestedColumnsAndLoadGridsOnDemand() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setProcessInstanceId("pi1");
+        document.setProcessDefinitionKey("proc1");
+        document.setType("main");
+        ColumnMapping title = ColumnMapping.builder().fieldName("title").columnName("varchar_3")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+        ColumnMapping body = ColumnMapping.builder().fieldName("body").columnName("varchar_4")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+
+        when(documentProjectionReader.findByProcessInstanceIdsAndType(List.of("pi1"), "main")).thenReturn(List.of(document));
+        when(columnMappingService.getDocumentMappings("proc1", "main")).thenReturn(Map.of("title", title, "body", body));
+        doAnswer(invocation -> {
+            document.setVarchar(3, "Hello");
+            return null;
+        }).when(documentProjectionReader).loadColumns(anyCollection(), eq(List.of(document)));
+
+        DocumentDTO values = businessTableService.getDocumentValues("pi1", "main", List.of("title")).orElseThrow();
+
+        assertEquals(Map.of("title", "Hello"), values.getFields());
+        verify(documentProjectionReader).loadColumns(
+                argThat(mappings -> mappings.size() == 1 && mappings.contains(title)), eq(List.of(document)));
+        verifyNoInteractions(gridRowRepository);
+
+        // Neither a field nor a grid of the document type, e.g. a process variable
+        businessTableService.getDocumentValues("pi1", "main", List.of("currentLevel"));
+        verifyNoInteractions(gridRowRepository);
+
+        when(fieldTypeResolver.declaredGridFields("proc1", "main")).thenReturn(Map.of("items", Map.of()));
+        when(gridRowRepository.findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(List.of(1L), List.of("items")))
+                .thenReturn(Collections.emptyList());
+        businessTableService.getDocumentValues("pi1", "main", List.of("items"));
+
+        verify(gridRowRepository).findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(List.of(1L), List.of("items"));
+    }
+
+    @Test
+    void getDocumentValues_shouldLoadUndeclaredGridsThatHaveMappings() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setProcessInstanceId("pi1");
+        document.setProcessDefinitionKey("proc1");
+        document.setType("main");
+        ColumnMapping sku = ColumnMapping.builder().fieldName("sku").columnName("varchar_1")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+
+        when(documentProjectionReader.findByProcessInstanceIdsAndType(List.of("pi1"), "main")).thenReturn(List.of(document));
+        when(columnMappingService.getGridMappings("proc1", "main", "lines")).thenReturn(Map.of("sku", sku));
+        when(gridRowRepository.findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(List.of(1L), List.of("lines")))
+                .thenReturn(Collections.emptyList());
+
+        businessTableService.getDocumentValues("pi1", "main", List.of("lines"));
+
+        verify(gridRowRepository).findByDocumentIdInAndGridNameInOrderByGridNameAscRowIndexAsc(List.of(1L), List.of("lines"));
+    }
+
     @Test
     void saveDocument_shouldPersistData() {
         Map<String, Object> variables = new HashMap<>();
@@ -69,7 +189,7 @@ class BusinessTableServiceTest {
                 .build();
 
         when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.empty());
-        when(columnMappingService.determineFieldType("value")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "fieldName", "value")).thenReturn(ColumnMapping.FieldType.VARCHAR);
         when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "fieldName", ColumnMapping.FieldType.VARCHAR))
                 .thenReturn(mapping);
         when(columnMappingService.convertValueForStorage("value", ColumnMapping.FieldType.VARCHAR)).thenReturn("value");
@@ -78,6 +198,224 @@ class BusinessTableServiceTest {
         businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main", variables, "user1");
 
         verify(documentRepository).save(any(Document.class));
+        verify(mergedVariableCache).invalidate("pi1");
+    }
+
+    @Test
+    void saveDocument_whenNothingChanged_shouldSkipWrite() {
+        Document document = existingDocument("approved");
+        stubVarcharDocumentMapping();
+
+        businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main",
+                Map.of("decision", "approved"), "user2");
+
+        verify(documentRepository, never()).save(any(Document.class));
+        verifyNoInteractions(mergedVariableCache);
+        assertEquals("user1", document.getUpdatedBy());
+    }
+
+    @Test
+    void saveDocument_whenFieldChanged_shouldWriteOnlyThatColumn() {
+        Document document = existingDocument("pending");
+        document.setVarchar(2, "untouched");
+        stubVarcharDocumentMapping();
+        when(documentRepository.save(document)).thenReturn(document);
+
+        businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main",
+                Map.of("decision", "approved"), "user2");
+
+        verify(documentRepository).save(document);
+        assertEquals("approved", document.getVarchar(1));
+        assertEquals("untouched", document.getVarchar(2));
+        assertEquals("user2", document.getUpdatedBy());
+    }
+
+    private Document existingDocument(String decision) {
+        Document document = new Document();
+        document.setId(1L);
+        document.setProcessInstanceId("pi1");
+        document.setType("main");
+        document.setBusinessKey("bk1");
+        document.setProcessDefinitionKey("proc1");
+        document.setProcessDefinitionName("Proc Name");
+        document.setUpdatedBy("user1");
+        document.setVarchar(1, decision);
+        when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.of(document));
+        return document;
+    }
+
+    private void stubVarcharDocumentMapping() {
+        ColumnMapping mapping = ColumnMapping.builder()
+                .fieldName("decision")
+                .columnName("varchar_1")
+                .fieldType(ColumnMapping.FieldType.VARCHAR)
+                .build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "decision", "approved")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "decision", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(mapping);
+        when(columnMappingService.convertValueForStorage("approved", ColumnMapping.FieldType.VARCHAR)).thenReturn("approved");
+    }
+
+    @Test
+    void saveDocument_shouldStoreByMappingType() {
+        ColumnMapping amount = ColumnMapping.builder()
+                .fieldName("amount")
+                .columnName("float_4")
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .build();
+
+        when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.empty());
+        // The value alone would sniff as VARCHAR; the existing mapping decides where it is stored
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "amount", "12.5")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "amount", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(amount);
+        when(columnMappingService.convertValueForStorage("12.5", ColumnMapping.FieldType.FLOAT)).thenReturn(12.5);
+        when(documentRepository.save(any(Document.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Document saved = businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main",
+                Map.of("amount", "12.5"), "user1");
+
+        assertEquals(12.5, saved.getFloat(4));
+        assertNull(saved.getVarchar(4));
+    }
+
+    @Test
+    void saveDocument_withUnconvertibleValue_shouldRejectTheSave() {
+        Document document = existingDocument("pending");
+        document.setFloat(5, 3.0);
+        ColumnMapping quantity = ColumnMapping.builder()
+                .fieldName("quantity")
+                .columnName("float_5")
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "quantity", "n/a")).thenReturn(ColumnMapping.FieldType.FLOAT);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "quantity", ColumnMapping.FieldType.FLOAT))
+                .thenReturn(quantity);
+        when(columnMappingService.convertValueForStorage("n/a", ColumnMapping.FieldType.FLOAT)).thenReturn(null);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> businessTableService.saveDocument(
+                "pi1", "bk1", "proc1", "Proc Name", "main", Map.of("quantity", "n/a"), "user2"));
+
+        assertTrue(error.getMessage().contains("quantity"));
+        assertEquals(3.0, document.getFloat(5));
+        verify(documentRepository, never()).save(any(Document.class));
+    }
+
+    @Test
+    void saveDocument_withBlankNumberField_shouldClearTheColumn() {
+        Document document = existingDocument("pending");
+        document.setFloat(5, 3.0);
+        ColumnMapping quantity = ColumnMapping.builder()
+                .fieldName("quantity")
+                .columnName("float_5")
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "quantity", "")).thenReturn(ColumnMapping.FieldType.FLOAT);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "quantity", ColumnMapping.FieldType.FLOAT))
+                .thenReturn(quantity);
+        when(columnMappingService.convertValueForStorage("", ColumnMapping.FieldType.FLOAT)).thenReturn(null);
+        when(documentRepository.save(document)).thenReturn(document);
+
+        businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main", Map.of("quantity", ""), "user2");
+
+        assertNull(document.getFloat(5));
+        verify(documentRepository).save(document);
+    }
+
+    @Test
+    void saveDocument_withBlankDateField_shouldClearTheColumn() {
+        Document document = existingDocument("pending");
+        document.setDatetime(2, LocalDateTime.of(2024, 5, 1, 9, 30));
+        ColumnMapping dueDate = ColumnMapping.builder()
+                .fieldName("dueDate")
+                .columnName("datetime_2")
+                .fieldType(ColumnMapping.FieldType.DATETIME)
+                .build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "dueDate", "  ")).thenReturn(ColumnMapping.FieldType.DATETIME);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "dueDate", ColumnMapping.FieldType.DATETIME))
+                .thenReturn(dueDate);
+        when(columnMappingService.convertValueForStorage("  ", ColumnMapping.FieldType.DATETIME)).thenReturn(null);
+        when(documentRepository.save(document)).thenReturn(document);
+
+        businessTableService.saveDocument("pi1", "bk1", "proc1", "Proc Name", "main", Map.of("dueDate", "  "), "user2");
+
+        assertNull(document.getDatetime(2));
+        verify(documentRepository).save(document);
+    }
+
+    @Test
+    void validateStorableValues_shouldCheckMappedAndUnmappedFieldsWithoutWriting() {
+        ColumnMapping amount = ColumnMapping.builder()
+                .fieldName("amount")
+                .columnName("float_1")
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .build();
+        when(columnMappingService.getDocumentMappings("proc1", "main")).thenReturn(Map.of("amount", amount));
+        when(columnMappingService.getGridMappings("proc1", "main", "lines")).thenReturn(Map.of());
+        when(fieldTypeResolver.resolveGridField("proc1", "main", "lines", "qty", "2")).thenReturn(ColumnMapping.FieldType.FLOAT);
+        when(columnMappingService.convertValueForStorage("12.5", ColumnMapping.FieldType.FLOAT)).thenReturn(12.5);
+        when(columnMappingService.convertValueForStorage("2", ColumnMapping.FieldType.FLOAT)).thenReturn(2.0);
+        when(columnMappingService.convertValueForStorage("", ColumnMapping.FieldType.FLOAT)).thenReturn(null);
+        when(columnMappingService.convertValueForStorage("many", ColumnMapping.FieldType.FLOAT)).thenReturn(null);
+
+        Map<String, Object> valid = new HashMap<>();
+        valid.put("amount", "12.5");
+        valid.put("_decision", "approve");
+        valid.put("lines", List.of(Map.of("qty", "2"), Map.of("qty", "")));
+        businessTableService.validateStorableValues("proc1", null, valid);
+
+        Map<String, Object> invalid = new HashMap<>(valid);
+        invalid.put("lines", List.of(Map.of("qty", "2"), Map.of("qty", "many")));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> businessTableService.validateStorableValues("proc1", null, invalid));
+
+        assertTrue(error.getMessage().contains("lines.qty"));
+        verify(columnMappingService, never()).ensureDocumentMappings(anyString(), anyString(), anyMap());
+        verify(documentRepository, never()).save(any(Document.class));
+    }
+
+    @Test
+    void saveDocument_shouldWriteOverflowFieldsToOverflowJson() {
+        Document document = new Document();
+        document.setProcessInstanceId("pi1");
+        document.setOverflowJson("{\"keep\":\"x\",\"remark\":\"old\"}");
+        when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.of(document));
+
+        ColumnMapping remark = ColumnMapping.builder()
+                .fieldName("remark")
+                .columnName(ColumnMapping.OVERFLOW_COLUMN)
+                .fieldType(ColumnMapping.FieldType.VARCHAR)
+                .build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "remark", "new")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "remark", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(remark);
+        when(columnMappingService.convertValueForStorage("new", ColumnMapping.FieldType.VARCHAR)).thenReturn("new");
+        when(documentRepository.save(any(Document.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Document saved = businessTableService.saveDocument("pi1", null, "proc1", null, "main",
+                Map.of("remark", "new"), "user1");
+
+        assertEquals("{\"keep\":\"x\",\"remark\":\"new\"}", saved.getOverflowJson());
+        verify(documentRepository).save(document);
+    }
+
+    @Test
+    void promoteField_shouldMoveValuesIntoAssignedColumn() {
+        ColumnMapping promoted = ColumnMapping.builder()
+                .fieldName("remark")
+                .columnName("varchar_9")
+                .fieldType(ColumnMapping.FieldType.VARCHAR)
+                .build();
+        when(columnMappingService.promoteDocumentField("proc1", "main", "remark", null))
+                .thenReturn(List.of(new ColumnMappingService.ColumnReassignment(promoted, ColumnMapping.OVERFLOW_COLUMN)));
+        when(overflowColumnMigrator.migrateDocuments("proc1", "main", ColumnMapping.FieldType.VARCHAR, 9, "remark", null))
+                .thenReturn(42);
+
+        FieldPromotionResult result = businessTableService.promoteField("proc1", "main", null, "remark", null);
+
+        assertEquals("varchar_9", result.getColumnName());
+        assertEquals(42, result.getRowsMigrated());
+        assertNull(result.getDemotedFieldName());
     }
 
     @Test
@@ -127,34 +465,272 @@ class BusinessTableServiceTest {
                 .fieldType(ColumnMapping.FieldType.VARCHAR)
                 .build();
 
-        when(columnMappingService.determineFieldType("A")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(fieldTypeResolver.resolveGridField("proc1", "main", "grid1", "item", "A")).thenReturn(ColumnMapping.FieldType.VARCHAR);
         when(columnMappingService.getOrCreateGridMapping("proc1", "main", "grid1", "item", ColumnMapping.FieldType.VARCHAR))
                 .thenReturn(mapping);
         when(columnMappingService.convertValueForStorage("A", ColumnMapping.FieldType.VARCHAR)).thenReturn("A");
 
-        businessTableService.saveGridRows("pi1", "proc1", "grid1", rows);
+        GridSaveResult result = businessTableService.saveGridRows("pi1", "proc1", "grid1", rows);
+
+        ArgumentCaptor<List<GridRow>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(gridRowBatchWriter).insertAll(eq(1L), inserted.capture());
+        verify(gridRowRepository, never()).save(any(GridRow.class));
+        assertEquals(1, result.getInserted());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals("A", inserted.getValue().get(0).getVarchar(1));
+        assertEquals(0, inserted.getValue().get(0).getRowIndex());
+    }
+
+    @Test
+    void saveGridRows_withUnconvertibleValue_shouldRejectTheSave() {
+        gridDocument();
+        ColumnMapping qty = ColumnMapping.builder()
+                .fieldName("qty")
+                .columnName("float_1")
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .build();
+        when(fieldTypeResolver.resolveGridField("proc1", "main", "grid1", "qty", "many")).thenReturn(ColumnMapping.FieldType.FLOAT);
+        when(columnMappingService.getOrCreateGridMapping("proc1", "main", "grid1", "qty", ColumnMapping.FieldType.FLOAT))
+                .thenReturn(qty);
+        when(columnMappingService.convertValueForStorage("many", ColumnMapping.FieldType.FLOAT)).thenReturn(null);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> businessTableService.saveGridRows("pi1", "proc1", "grid1", List.of(Map.of("qty", "many"))));
+
+        assertTrue(error.getMessage().contains("grid1.qty"));
+        verify(gridRowBatchWriter, never()).insertAll(anyLong(), anyList());
+    }
+
+    @Test
+    void saveGridRows_shouldOnlyWriteChangedRows() {
+        gridDocument();
+        stubVarcharGridMapping();
+        GridRow unchanged = storedRow(10L, 0, null, "A");
+        GridRow changed = storedRow(11L, 1, null, "B");
+        GridRow removed = storedRow(12L, 2, null, "C");
+        when(gridRowRepository.findByDocumentIdAndGridNameOrderByRowIndexAsc(1L, "grid1"))
+                .thenReturn(List.of(unchanged, changed, removed));
+
+        GridSaveResult result = businessTableService.saveGridRows("pi1", "proc1", "grid1",
+                List.of(Map.of("item", "A"), Map.of("item", "B2"), Map.of("item", "D")));
+
+        assertEquals(0, result.getInserted());
+        assertEquals(2, result.getUpdated());
+        assertEquals(0, result.getDeleted());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(2, result.getChanged());
+        assertEquals("B2", changed.getVarchar(1));
+        assertEquals("D", removed.getVarchar(1));
+        verify(gridRowRepository, never()).deleteByDocumentIdAndGridName(anyLong(), anyString());
+        verify(gridRowRepository, never()).deleteAllByIdInBatch(any());
+        verify(gridRowBatchWriter).insertAll(1L, List.of());
+    }
 
-        verify(gridRowRepository).deleteByDocumentIdAndGridName(1L, "grid1");
-        verify(gridRowRepository, times(1)).save(any(GridRow.class));
+    @Test
+    void saveGridRows_shouldMatchRowsByRowKeyAndDeleteMissingOnes() {
+        gridDocument();
+        stubVarcharGridMapping();
+        GridRow first = storedRow(10L, 0, "k1", "A");
+        GridRow second = storedRow(11L, 1, "k2", "B");
+        GridRow third = storedRow(12L, 2, "k3", "C");
+        when(gridRowRepository.findByDocumentIdAndGridNameOrderByRowIndexAsc(1L, "grid1"))
+                .thenReturn(List.of(first, second, third));
+
+        GridSaveResult result = businessTableService.saveGridRows("pi1", "proc1", "grid1", List.of(
+                Map.of("_rowKey", "k2", "item", "B"),
+                Map.of("_rowKey", "k1", "item", "A"),
+                Map.of("_rowKey", "k4", "item", "E")));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getUpdated());
+        assertEquals(1, result.getDeleted());
+        assertEquals(0, second.getRowIndex());
+        assertEquals(1, first.getRowIndex());
+        verify(gridRowRepository).deleteAllByIdInBatch(List.of(12L));
+
+        ArgumentCaptor<List<GridRow>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(gridRowBatchWriter).insertAll(eq(1L), inserted.capture());
+        assertEquals("k4", inserted.getValue().get(0).getRowKey());
+        assertEquals(2, inserted.getValue().get(0).getRowIndex());
     }
 
     @Test
-    void saveAllData_shouldCallBothDocumentAndGridSave() {
-        // We use spy to verify calls to other methods in the same service
-        BusinessTableService spyService = spy(businessTableService);
+    void saveGridRows_withDuplicateRowKey_shouldRejectPayloadBeforeWriting() {
+        gridDocument();
+        stubVarcharGridMapping();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () ->
+                businessTableService.saveGridRows("pi1", "proc1", "grid1", List.of(
+                        Map.of("_rowKey", "k1", "item", "A"),
+                        Map.of("_rowKey", "k1", "item", "B"))));
+
+        assertTrue(error.getMessage().contains("k1"));
+        verify(gridRowRepository, never()).findByDocumentIdAndGridNameOrderByRowIndexAsc(anyLong(), anyString());
+        verifyNoInteractions(gridRowBatchWriter);
+    }
+
+    @Test
+    void saveGridRows_withStoredDuplicateRowKeys_shouldKeepOneRowPerIncomingRow() {
+        gridDocument();
+        stubVarcharGridMapping();
+        // Left behind by saves that happened before duplicate keys were rejected
+        GridRow first = storedRow(10L, 0, "k1", "A");
+        GridRow duplicate = storedRow(11L, 1, "k1", "B");
+        GridRow other = storedRow(12L, 2, "k2", "C");
+        List<GridRow> stored = List.of(first, duplicate, other);
+        when(gridRowRepository.findByDocumentIdAndGridNameOrderByRowIndexAsc(1L, "grid1")).thenReturn(stored);
+
+        List<Map<String, Object>> rows = List.of(
+                Map.of("_rowKey", "k1", "item", "A"),
+                Map.of("_rowKey", "k2", "item", "C2"));
+        GridSaveResult result = businessTableService.saveGridRows("pi1", "proc1", "grid1", rows);
+
+        assertEquals(0, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getDeleted());
+        verify(gridRowRepository).deleteAllByIdInBatch(List.of(11L));
+        assertEquals(rows.size(), stored.size() - result.getDeleted() + result.getInserted());
+        assertEquals("C2", other.getVarchar(1));
+        assertEquals(1, other.getRowIndex());
+    }
+
+    @Test
+    void importGridRows_shouldDecodeRowsWithoutIntermediateMaps() throws Exception {
+        gridDocument();
+        stubVarcharGridMapping();
+        stubMappedGridFields("item");
+
+        String json = "[{\"item\":\"A\",\"_rowKey\":\"k1\",\"nested\":{\"x\":1}},{\"item\":\"B\",\"empty\":null}]";
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+            GridSaveResult result = businessTableService.importGridRows("pi1", "proc1", "main", "grid1", parser);
+            assertEquals(2, result.getInserted());
+        }
+
+        ArgumentCaptor<List<GridRow>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(gridRowBatchWriter).insertAll(eq(1L), inserted.capture());
+        assertEquals("A", inserted.getValue().get(0).getVarchar(1));
+        assertEquals("k1", inserted.getValue().get(0).getRowKey());
+        assertEquals("B", inserted.getValue().get(1).getVarchar(1));
+        assertEquals(1, inserted.getValue().get(1).getRowIndex());
+    }
+
+    @Test
+    void importGridRows_shouldRejectNonObjectRowsAndTrailingContent() throws Exception {
+        gridDocument();
+        stubVarcharGridMapping();
+        stubMappedGridFields("item");
+
+        for (String json : List.of("[{\"item\":\"A\"},42,{\"item\":\"B\"}]", "[{\"item\":\"A\"}] {\"item\":\"B\"}")) {
+            try (JsonParser parser = new ObjectMapper().getFactory().createParser(json)) {
+                assertThrows(IllegalArgumentException.class, () ->
+                        businessTableService.importGridRows("pi1", "proc1", "main", "grid1", parser), json);
+            }
+        }
+        verifyNoInteractions(gridRowBatchWriter);
+    }
+
+    @Test
+    void importGridRows_shouldRejectUnmappedFieldsWithoutCreatingMappings() throws Exception {
+        gridDocument();
+        stubMappedGridFields("item");
+
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser("[{\"extra\":\"A\"}]")) {
+            assertThrows(IllegalArgumentException.class, () ->
+                    businessTableService.importGridRows("pi1", "proc1", "main", "grid1", parser));
+        }
+        verify(columnMappingService, never()).getOrCreateGridMapping(any(), any(), any(), any(), any());
+        verifyNoInteractions(gridRowBatchWriter);
+    }
+
+    @Test
+    void saveGridRows_inReplaceMode_shouldDeleteAndReinsertEveryRow() {
+        ReflectionTestUtils.setField(businessTableService, "gridSaveMode", BusinessTableService.GridSaveMode.REPLACE);
+        gridDocument();
+        stubVarcharGridMapping();
+        when(gridRowRepository.deleteByDocumentIdAndGridName(1L, "grid1")).thenReturn(2);
+        when(gridRowBatchWriter.insertAll(eq(1L), anyList())).thenReturn(2);
+
+        GridSaveResult result = businessTableService.saveGridRows("pi1", "proc1", "grid1",
+                List.of(Map.of("item", "A"), Map.of("item", "B")));
+
+        assertEquals(2, result.getInserted());
+        assertEquals(2, result.getDeleted());
+        verify(gridRowRepository, never()).findByDocumentIdAndGridNameOrderByRowIndexAsc(anyLong(), anyString());
+    }
+
+    private Document gridDocument() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setProcessInstanceId("pi1");
+        when(documentRepository.findByProcessInstanceIdAndType("pi1", "main")).thenReturn(Optional.of(document));
+        return document;
+    }
 
+    private void stubVarcharGridMapping() {
+        ColumnMapping mapping = ColumnMapping.builder()
+                .fieldName("item")
+                .columnName("varchar_1")
+                .fieldType(ColumnMapping.FieldType.VARCHAR)
+                .build();
+        when(fieldTypeResolver.resolveGridField(eq("proc1"), eq("main"), eq("grid1"), eq("item"), any())).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(columnMappingService.getOrCreateGridMapping("proc1", "main", "grid1", "item", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(mapping);
+        when(columnMappingService.convertValueForStorage(any(), eq(ColumnMapping.FieldType.VARCHAR)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private void stubMappedGridFields(String... fieldNames) {
+        Map<String, ColumnMapping> mapped = new HashMap<>();
+        for (String fieldName : fieldNames) {
+            mapped.put(fieldName, ColumnMapping.builder().fieldName(fieldName).build());
+        }
+        when(columnMappingService.getGridMappings("proc1", "main", "grid1")).thenReturn(mapped);
+    }
+
+    private GridRow storedRow(Long id, int rowIndex, String rowKey, String item) {
+        GridRow row = new GridRow();
+        row.setId(id);
+        row.setProcessInstanceId("pi1");
+        row.setGridName("grid1");
+        row.setRowIndex(rowIndex);
+        row.setRowKey(rowKey);
+        row.setVarchar(1, item);
+        return row;
+    }
+
+    @Test
+    void saveAllData_shouldCreateMappingsBeforeOpeningTheWriteTransaction() {
+        Document document = existingDocument("val0");
         Map<String, Object> variables = new HashMap<>();
         variables.put("field1", "val1");
         List<Map<String, Object>> gridData = new ArrayList<>();
         gridData.add(Map.of("col1", "cell1"));
         variables.put("grid1", gridData);
 
-        doReturn(null).when(spyService).saveDocument(anyString(), anyString(), anyString(), anyString(), anyString(), anyMap(), anyString());
-        doReturn(Collections.emptyList()).when(spyService).saveGridRows(anyString(), anyString(), anyString(), anyString(), anyList());
-
-        spyService.saveAllData("pi1", "bk1", "proc1", "ProcName", "main", variables, "user1");
-
-        verify(spyService).saveDocument(eq("pi1"), eq("bk1"), eq("proc1"), eq("ProcName"), eq("main"), anyMap(), eq("user1"));
-        verify(spyService).saveGridRows(eq("pi1"), eq("proc1"), eq("main"), eq("grid1"), eq(gridData));
+        ColumnMapping field = ColumnMapping.builder().fieldName("field1").columnName("varchar_1")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+        ColumnMapping cell = ColumnMapping.builder().fieldName("col1").columnName("varchar_1")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+        when(fieldTypeResolver.resolveDocumentField("proc1", "main", "field1", "val1")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(fieldTypeResolver.resolveGridField("proc1", "main", "grid1", "col1", "cell1")).thenReturn(ColumnMapping.FieldType.VARCHAR);
+        when(columnMappingService.getOrCreateDocumentMapping("proc1", "main", "field1", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(field);
+        when(columnMappingService.getOrCreateGridMapping("proc1", "main", "grid1", "col1", ColumnMapping.FieldType.VARCHAR))
+                .thenReturn(cell);
+        when(columnMappingService.convertValueForStorage(any(), eq(ColumnMapping.FieldType.VARCHAR)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(documentRepository.save(document)).thenReturn(document);
+
+        businessTableService.saveAllData("pi1", "bk1", "proc1", "ProcName", "main", variables, "user1");
+
+        InOrder order = inOrder(columnMappingService, transactionManager, documentRepository, gridRowBatchWriter);
+        order.verify(columnMappingService).ensureDocumentMappings("proc1", "main", Map.of("field1", ColumnMapping.FieldType.VARCHAR));
+        order.verify(columnMappingService).ensureGridMappings("proc1", "main", "grid1", Map.of("col1", ColumnMapping.FieldType.VARCHAR));
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(documentRepository).save(document);
+        order.verify(gridRowBatchWriter).insertAll(eq(1L), anyList());
+        order.verify(transactionManager).commit(any());
+        assertEquals("val1", document.getVarchar(1));
     }
 }
@@ -4,13 +4,20 @@ import com.demo.bpm.entity.ColumnMapping;
 import com.demo.bpm.repository.ColumnMappingRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +29,9 @@ class ColumnMappingServiceTest {
     @Mock
     private ColumnMappingRepository columnMappingRepository;
 
+    @Mock
+    private ColumnMappingWriter columnMappingWriter;
+
     @InjectMocks
     private ColumnMappingService columnMappingService;
 
@@ -32,33 +42,237 @@ class ColumnMappingServiceTest {
         assertEquals(ColumnMapping.FieldType.FLOAT, columnMappingService.determineFieldType(true));
         assertEquals(ColumnMapping.FieldType.DATETIME, columnMappingService.determineFieldType(LocalDateTime.now()));
         assertEquals(ColumnMapping.FieldType.DATETIME, columnMappingService.determineFieldType("2024-01-01T10:00:00"));
+        assertEquals(ColumnMapping.FieldType.DATETIME, columnMappingService.determineFieldType("2024-01-01"));
+        assertEquals(ColumnMapping.FieldType.VARCHAR, columnMappingService.determineFieldType("Tuesday at ten o'clock"));
+        assertEquals(ColumnMapping.FieldType.VARCHAR, columnMappingService.determineFieldType("12.5"));
     }
 
     @Test
     void getOrCreateDocumentMapping_whenExists_shouldReturnExisting() {
-        ColumnMapping mapping = ColumnMapping.builder().fieldName("field").build();
-        when(columnMappingRepository.findDocumentFieldMappings(
-                "proc1", "main", "field")).thenReturn(Collections.singletonList(mapping));
+        ColumnMapping mapping = ColumnMapping.builder().fieldName("field").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).columnName("varchar_1").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(Collections.singletonList(mapping));
 
         ColumnMapping result = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "field", ColumnMapping.FieldType.VARCHAR);
 
         assertEquals(mapping, result);
-        verify(columnMappingRepository, never()).save(any());
+        verifyNoInteractions(columnMappingWriter);
     }
 
     @Test
     void getOrCreateDocumentMapping_whenNew_shouldCreate() {
-        when(columnMappingRepository.findDocumentFieldMappings(any(), any(), any())).thenReturn(Collections.emptyList());
-        when(columnMappingRepository.findDocumentFieldMapping(any(), any())).thenReturn(Optional.empty());
-        when(columnMappingRepository.findUsedDocumentColumnIndices(any(), any(), any())).thenReturn(Collections.emptySet());
-        when(columnMappingRepository.save(any(ColumnMapping.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(Collections.emptyList());
+        when(columnMappingWriter.insert(anyList())).thenAnswer(i -> i.getArguments()[0]);
 
         ColumnMapping result = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "newField", ColumnMapping.FieldType.VARCHAR);
 
         assertNotNull(result);
         assertEquals("newField", result.getFieldName());
         assertNotNull(result.getColumnName());
-        verify(columnMappingRepository).save(any(ColumnMapping.class));
+        verify(columnMappingWriter).insert(anyList());
+    }
+
+    @Test
+    void getOrCreateDocumentMapping_shouldLoadScopeOnceAndServeRepeatLookupsFromMemory() {
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(Collections.emptyList());
+        when(columnMappingWriter.insert(anyList())).thenAnswer(i -> i.getArguments()[0]);
+
+        ColumnMapping first = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "a", ColumnMapping.FieldType.VARCHAR);
+        ColumnMapping second = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "b", ColumnMapping.FieldType.VARCHAR);
+        for (int i = 0; i < 100; i++) {
+            columnMappingService.getOrCreateDocumentMapping("proc1", "main", "a", ColumnMapping.FieldType.VARCHAR);
+        }
+
+        assertNotEquals(first.getColumnName(), second.getColumnName());
+        assertEquals(2, columnMappingService.getDocumentMappings("proc1", "main").size());
+        verify(columnMappingRepository, times(1)).findAllDocumentMappingsLegacy("proc1");
+        verify(columnMappingWriter, times(2)).insert(anyList());
+        verifyNoMoreInteractions(columnMappingRepository);
+    }
+
+    @Test
+    void getOrCreateDocumentMapping_shouldPreferTypedMappingOverUntypedOne() {
+        ColumnMapping untyped = ColumnMapping.builder().fieldName("amount").fieldType(ColumnMapping.FieldType.FLOAT)
+                .columnName("float_1").build();
+        ColumnMapping typed = ColumnMapping.builder().fieldName("amount").documentType("order")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName("float_2").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(List.of(untyped, typed));
+
+        assertEquals(typed, columnMappingService.getOrCreateDocumentMapping("proc1", "order", "amount", ColumnMapping.FieldType.FLOAT));
+        assertEquals(untyped, columnMappingService.getOrCreateDocumentMapping("proc1", "main", "amount", ColumnMapping.FieldType.FLOAT));
+        assertEquals(typed, columnMappingService.getDocumentMappings("proc1", "order").get("amount"));
+    }
+
+    @Test
+    void getOrCreateDocumentMapping_whenAllColumnsOfTypeAreUsed_shouldOverflow() {
+        List<ColumnMapping> existing = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            existing.add(ColumnMapping.builder().fieldName("text" + i).documentType("main")
+                    .fieldType(ColumnMapping.FieldType.VARCHAR).columnName("varchar_" + i).build());
+        }
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(existing);
+        when(columnMappingWriter.insert(anyList())).thenAnswer(i -> i.getArguments()[0]);
+
+        ColumnMapping overflow = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "text31", ColumnMapping.FieldType.VARCHAR);
+        ColumnMapping number = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "amount", ColumnMapping.FieldType.FLOAT);
+
+        assertTrue(overflow.isOverflow());
+        assertFalse(number.isOverflow());
+    }
+
+    @Test
+    void promoteDocumentField_shouldSwapColumnWithDemotedField() {
+        ColumnMapping hot = ColumnMapping.builder().id(1L).fieldName("hot").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).columnName(ColumnMapping.OVERFLOW_COLUMN).build();
+        ColumnMapping cold = ColumnMapping.builder().id(2L).fieldName("cold").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).columnName("varchar_4").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(List.of(hot, cold));
+        when(columnMappingRepository.saveAndFlush(any(ColumnMapping.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(columnMappingRepository.save(any(ColumnMapping.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        List<ColumnMappingService.ColumnReassignment> changes =
+                columnMappingService.promoteDocumentField("proc1", "main", "hot", "cold");
+
+        assertEquals("varchar_4", changes.get(0).mapping().getColumnName());
+        assertEquals(ColumnMapping.OVERFLOW_COLUMN, changes.get(0).previousColumn());
+        assertTrue(changes.get(1).mapping().isOverflow());
+        assertEquals("varchar_4", columnMappingService.getDocumentMappings("proc1", "main").get("hot").getColumnName());
+        assertTrue(columnMappingService.getDocumentMappings("proc1", "main").get("cold").isOverflow());
+    }
+
+    @Test
+    void promoteDocumentField_whenPromotedFieldHasLowerId_shouldFlushFreedColumnFirst() {
+        // Hibernate orders updates by id at flush, which would write the promoted field first
+        ColumnMapping older = ColumnMapping.builder().id(3L).fieldName("older").documentType("main")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName(ColumnMapping.OVERFLOW_COLUMN).build();
+        ColumnMapping newer = ColumnMapping.builder().id(9L).fieldName("newer").documentType("main")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName("float_2").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(List.of(older, newer));
+        when(columnMappingRepository.saveAndFlush(any(ColumnMapping.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(columnMappingRepository.save(any(ColumnMapping.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        columnMappingService.promoteDocumentField("proc1", "main", "older", "newer");
+
+        InOrder inOrder = inOrder(columnMappingRepository);
+        inOrder.verify(columnMappingRepository).saveAndFlush(argThat(m -> m.getId() == 9L && m.isOverflow()));
+        inOrder.verify(columnMappingRepository).save(argThat(m -> m.getId() == 3L && "float_2".equals(m.getColumnName())));
+        verify(columnMappingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void promoteDocumentField_whenFieldHasColumn_shouldReject() {
+        ColumnMapping mapped = ColumnMapping.builder().id(1L).fieldName("title").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).columnName("varchar_1").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(List.of(mapped));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> columnMappingService.promoteDocumentField("proc1", "main", "title", null));
+        verify(columnMappingRepository, never()).save(any(ColumnMapping.class));
+        verify(columnMappingRepository, never()).saveAndFlush(any(ColumnMapping.class));
+    }
+
+    @Test
+    void ensureDocumentMappings_shouldCreateMissingFieldsInOneBatchOnDistinctColumns() {
+        ColumnMapping existing = ColumnMapping.builder().id(1L).fieldName("title").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).columnName("varchar_1").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(List.of(existing));
+        when(columnMappingWriter.insert(anyList())).thenAnswer(i -> i.getArguments()[0]);
+
+        Map<String, ColumnMapping.FieldType> fields = new HashMap<>();
+        fields.put("title", ColumnMapping.FieldType.VARCHAR);
+        fields.put("vendor", ColumnMapping.FieldType.VARCHAR);
+        fields.put("supplier", ColumnMapping.FieldType.VARCHAR);
+        fields.put("amount", ColumnMapping.FieldType.FLOAT);
+
+        int created = columnMappingService.ensureDocumentMappings("proc1", "main", fields);
+
+        assertEquals(3, created);
+        verify(columnMappingWriter, times(1)).insert(anyList());
+        Map<String, ColumnMapping> mappings = columnMappingService.getDocumentMappings("proc1", "main");
+        assertEquals("varchar_1", mappings.get("title").getColumnName());
+        assertTrue(mappings.get("amount").getColumnName().startsWith("float_"));
+        assertNotEquals(mappings.get("vendor").getColumnName(), mappings.get("supplier").getColumnName());
+        assertNotEquals("varchar_1", mappings.get("vendor").getColumnName());
+        assertNotEquals("varchar_1", mappings.get("supplier").getColumnName());
+
+        // Warmed fields are served from memory; a save creates nothing
+        columnMappingService.getOrCreateDocumentMapping("proc1", "main", "vendor", ColumnMapping.FieldType.VARCHAR);
+        verifyNoMoreInteractions(columnMappingWriter);
+    }
+
+    @Test
+    void ensureGridMappings_whenAllFieldsMapped_shouldNotWrite() {
+        ColumnMapping existing = ColumnMapping.builder().id(1L).fieldName("qty").documentType("main").gridName("items")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName("float_5").build();
+        when(columnMappingRepository.findAllGridMappingsLegacy("proc1", "items")).thenReturn(List.of(existing));
+
+        assertEquals(0, columnMappingService.ensureGridMappings("proc1", "main", "items",
+                Map.of("qty", ColumnMapping.FieldType.FLOAT)));
+        verifyNoInteractions(columnMappingWriter);
+    }
+
+    @Test
+    void getOrCreateDocumentMapping_whenAnotherNodeClaimsTheColumn_shouldReloadAndRetry() {
+        ColumnMapping claimed = ColumnMapping.builder().id(9L).fieldName("other").documentType("main")
+                .fieldType(ColumnMapping.FieldType.VARCHAR).build();
+        List<ColumnMapping> committed = new ArrayList<>();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenAnswer(i -> new ArrayList<>(committed));
+        when(columnMappingWriter.insert(anyList()))
+                .thenAnswer(i -> {
+                    // Another node committed a mapping on the column this node picked
+                    List<ColumnMapping> attempted = i.getArgument(0);
+                    claimed.setColumnName(attempted.get(0).getColumnName());
+                    committed.add(claimed);
+                    throw new DataIntegrityViolationException("uk_column_mapping_slot");
+                })
+                .thenAnswer(i -> i.getArguments()[0]);
+
+        ColumnMapping result = columnMappingService.getOrCreateDocumentMapping("proc1", "main", "field", ColumnMapping.FieldType.VARCHAR);
+
+        assertNotEquals(claimed.getColumnName(), result.getColumnName());
+        assertEquals(2, columnMappingService.getDocumentMappings("proc1", "main").size());
+        verify(columnMappingWriter, times(2)).insert(anyList());
+    }
+
+    @Test
+    void getDocumentMappings_whenNamedFieldIsMissing_shouldReloadScope() {
+        ColumnMapping amount = ColumnMapping.builder().id(1L).fieldName("amount").documentType("main")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName("float_3").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1"))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(List.of(amount));
+
+        assertTrue(columnMappingService.getDocumentMappings("proc1", "main").isEmpty());
+        // Another node mapped the field since the snapshot was loaded
+        Map<String, ColumnMapping> mappings = columnMappingService.getDocumentMappings("proc1", "main", List.of("amount"));
+
+        assertEquals("float_3", mappings.get("amount").getColumnName());
+        assertEquals(1, columnMappingService.getDocumentMappings("proc1", "main").size());
+        columnMappingService.getDocumentMappings("proc1", "main", List.of("amount"));
+        verify(columnMappingRepository, times(2)).findAllDocumentMappingsLegacy("proc1");
+    }
+
+    @Test
+    void getDocumentMappings_whenSnapshotExpired_shouldReloadScope() {
+        ReflectionTestUtils.setField(columnMappingService, "snapshotTtl", Duration.ZERO);
+        ColumnMapping amount = ColumnMapping.builder().id(1L).fieldName("amount").documentType("main")
+                .fieldType(ColumnMapping.FieldType.FLOAT).columnName("float_3").build();
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1"))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(List.of(amount));
+
+        assertTrue(columnMappingService.getDocumentMappings("proc1", "main").isEmpty());
+        assertEquals(1, columnMappingService.getDocumentMappings("proc1", "main").size());
+    }
+
+    @Test
+    void getOrCreateDocumentMapping_whenConflictPersists_shouldGiveUp() {
+        when(columnMappingRepository.findAllDocumentMappingsLegacy("proc1")).thenReturn(Collections.emptyList());
+        when(columnMappingWriter.insert(anyList())).thenThrow(new DataIntegrityViolationException("uk_column_mapping_slot"));
+
+        assertThrows(IllegalStateException.class, () -> columnMappingService.getOrCreateDocumentMapping(
+                "proc1", "main", "field", ColumnMapping.FieldType.VARCHAR));
+        verify(columnMappingWriter, times(5)).insert(anyList());
     }
 
     @Test
@@ -0,0 +1,93 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.ProcessConfig;
+import com.demo.bpm.repository.ProcessConfigRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ColumnMappingWarmupServiceTest {
+
+    @Mock
+    private FieldTypeResolver fieldTypeResolver;
+
+    @Mock
+    private ColumnMappingService columnMappingService;
+
+    @Mock
+    private ProcessConfigRepository processConfigRepository;
+
+    @InjectMocks
+    private ColumnMappingWarmupService columnMappingWarmupService;
+
+    @Test
+    void warmUp_shouldCreateDeclaredMappingsInTheConfiguredDocumentType() {
+        when(processConfigRepository.findByProcessDefinitionKey("purchase"))
+                .thenReturn(Optional.of(ProcessConfig.builder().processDefinitionKey("purchase").documentType("order").build()));
+        when(fieldTypeResolver.declaredDocumentFields("purchase", "order"))
+                .thenReturn(Map.of("amount", FieldType.FLOAT, "_internal", FieldType.VARCHAR));
+        when(fieldTypeResolver.declaredGridFields("purchase", "order"))
+                .thenReturn(Map.of("items", Map.of("qty", FieldType.FLOAT)));
+        when(columnMappingService.ensureDocumentMappings("purchase", "order", Map.of("amount", FieldType.FLOAT)))
+                .thenReturn(1);
+        when(columnMappingService.ensureGridMappings("purchase", "order", "items", Map.of("qty", FieldType.FLOAT)))
+                .thenReturn(1);
+
+        assertEquals(2, columnMappingWarmupService.warmUp("purchase"));
+    }
+
+    @Test
+    void warmUpAfterCommit_withoutTransaction_shouldWarmUpImmediatelyAndSurviveFailures() {
+        when(processConfigRepository.findByProcessDefinitionKey(anyString())).thenReturn(Optional.empty());
+        when(fieldTypeResolver.declaredDocumentFields("broken", BusinessTableService.DEFAULT_DOCUMENT_TYPE))
+                .thenThrow(new IllegalStateException("engine unavailable"));
+        when(fieldTypeResolver.declaredDocumentFields("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE))
+                .thenReturn(Map.of("reason", FieldType.VARCHAR));
+        when(fieldTypeResolver.declaredGridFields("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE))
+                .thenReturn(Map.of());
+
+        columnMappingWarmupService.warmUpAfterCommit(List.of("broken", "leave"));
+
+        verify(columnMappingService).ensureDocumentMappings("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE,
+                Map.of("reason", FieldType.VARCHAR));
+    }
+
+    @Test
+    void warmUpAfterCommit_inTransaction_shouldInvalidateTypeTablesOnlyAfterCommitAndBeforeWarmUp() {
+        when(processConfigRepository.findByProcessDefinitionKey("leave")).thenReturn(Optional.empty());
+        when(fieldTypeResolver.declaredDocumentFields("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE))
+                .thenReturn(Map.of("reason", FieldType.VARCHAR));
+        when(fieldTypeResolver.declaredGridFields("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE))
+                .thenReturn(Map.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            columnMappingWarmupService.warmUpAfterCommit(List.of("leave"));
+            verifyNoInteractions(fieldTypeResolver, columnMappingService);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        InOrder inOrder = inOrder(fieldTypeResolver, columnMappingService);
+        inOrder.verify(fieldTypeResolver).invalidateAll();
+        inOrder.verify(fieldTypeResolver).declaredDocumentFields("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE);
+        inOrder.verify(columnMappingService).ensureDocumentMappings("leave", BusinessTableService.DEFAULT_DOCUMENT_TYPE,
+                Map.of("reason", FieldType.VARCHAR));
+    }
+}
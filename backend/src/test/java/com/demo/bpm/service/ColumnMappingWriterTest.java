@@ -0,0 +1,77 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.repository.ColumnMappingConstraints;
+import com.demo.bpm.repository.ColumnMappingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ColumnMappingWriterTest {
+
+    @Mock
+    private ColumnMappingRepository columnMappingRepository;
+
+    @Mock
+    private ColumnMappingConstraints columnMappingConstraints;
+
+    @InjectMocks
+    private ColumnMappingWriter columnMappingWriter;
+
+    @Test
+    void backfillKeys_shouldAssignScopeKeys() {
+        ColumnMapping mapping = legacyMapping(1L, "amount", "float_1");
+        when(columnMappingRepository.findByScopeKeyIsNull()).thenReturn(List.of(mapping));
+
+        columnMappingWriter.backfillKeys();
+
+        assertEquals("DOCUMENT|proc1|main|", mapping.getScopeKey());
+        assertEquals("float_1", mapping.getColumnSlot());
+        InOrder order = inOrder(columnMappingRepository, columnMappingConstraints);
+        order.verify(columnMappingRepository).save(mapping);
+        order.verify(columnMappingConstraints).requireScopeKey();
+    }
+
+    @Test
+    void backfillKeys_whenColumnIsClaimedTwice_shouldFailStartup() {
+        ColumnMapping first = legacyMapping(1L, "amount", "float_1");
+        ColumnMapping second = legacyMapping(2L, "total", "float_1");
+        when(columnMappingRepository.findByScopeKeyIsNull()).thenReturn(List.of(first, second));
+        when(columnMappingRepository.save(any(ColumnMapping.class))).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == second) {
+                throw new DataIntegrityViolationException("uk_column_mapping_slot");
+            }
+            return invocation.getArgument(0);
+        });
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> columnMappingWriter.backfillKeys());
+
+        assertTrue(error.getMessage().contains("2 (total -> float_1"));
+        assertFalse(error.getMessage().contains("1 (amount"));
+        verify(columnMappingRepository).save(first);
+        verifyNoInteractions(columnMappingConstraints);
+    }
+
+    private ColumnMapping legacyMapping(Long id, String fieldName, String columnName) {
+        return ColumnMapping.builder()
+                .id(id)
+                .scopeType(ColumnMapping.ScopeType.DOCUMENT)
+                .processDefinitionKey("proc1")
+                .documentType("main")
+                .fieldName(fieldName)
+                .fieldType(ColumnMapping.FieldType.FLOAT)
+                .columnName(columnName)
+                .build();
+    }
+}
@@ -101,7 +101,7 @@ class DashboardServiceTest {
 
         // WorkflowHistoryService
         WorkflowHistoryDTO historyDTO = WorkflowHistoryDTO.builder().processInstanceId("proc1").build();
-        when(workflowHistoryService.getWorkflowHistory(anyString())).thenReturn(historyDTO);
+        when(workflowHistoryService.getWorkflowHistories(anyCollection())).thenReturn(List.of(historyDTO));
 
         Pageable pageable = PageRequest.of(0, 10);
         DashboardDTO dashboard = dashboardService.getDashboard("user1", pageable, null, null);
@@ -111,5 +111,10 @@ class DashboardServiceTest {
         assertEquals(5L, dashboard.getStats().getTotalCompleted());
         assertEquals(3L, dashboard.getStats().getTotalPending());
         assertEquals(1L, dashboard.getStats().getAvgCompletionTimeHours());
+
+        // One batch per list instead of one lookup per row
+        verify(workflowHistoryService).getWorkflowHistories(List.of("hist1"));
+        verify(workflowHistoryService, times(2)).getWorkflowHistories(List.of("proc1"));
+        verify(workflowHistoryService, never()).getWorkflowHistory(anyString());
     }
 }
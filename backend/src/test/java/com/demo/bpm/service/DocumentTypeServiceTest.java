@@ -0,0 +1,84 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.entity.DocumentTypeDefinition;
+import com.demo.bpm.repository.DocumentTypeRepository;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTypeServiceTest {
+
+    private static final String VALID_SCHEMA =
+            "{\"fields\":[{\"name\":\"amount\",\"label\":\"Amount\",\"type\":\"currency\"}]}";
+
+    @Mock
+    private DocumentTypeRepository repository;
+
+    @Mock
+    private FieldTypeResolver fieldTypeResolver;
+
+    @Mock
+    private DocumentTypeSchemaCache documentTypeSchemaCache;
+
+    private DocumentTypeService documentTypeService;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        documentTypeService = new DocumentTypeService(repository, new ObjectMapper(), validator,
+                fieldTypeResolver, documentTypeSchemaCache);
+    }
+
+    @Test
+    void updateDocumentType_shouldInvalidateCompiledSchema() {
+        DocumentTypeDefinition existing = DocumentTypeDefinition.builder().key("invoice").name("Invoice").build();
+        when(repository.findByKey("invoice")).thenReturn(Optional.of(existing));
+        when(repository.save(existing)).thenReturn(existing);
+
+        documentTypeService.updateDocumentType("invoice",
+                DocumentTypeDefinition.builder().name("Invoice").schemaJson(VALID_SCHEMA).build());
+
+        assertEquals(VALID_SCHEMA, existing.getSchemaJson());
+        verify(documentTypeSchemaCache).invalidate("invoice");
+        verify(fieldTypeResolver).invalidateAll();
+    }
+
+    @Test
+    void createDocumentType_withInvalidSchema_shouldNotSaveOrInvalidate() {
+        when(repository.existsByKey("invoice")).thenReturn(false);
+        DocumentTypeDefinition invalid = DocumentTypeDefinition.builder()
+                .key("invoice")
+                .name("Invoice")
+                .schemaJson("{\"fields\":[{\"name\":\"amount\"}]}")
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> documentTypeService.createDocumentType(invalid));
+
+        verify(repository, never()).save(any());
+        verifyNoInteractions(documentTypeSchemaCache, fieldTypeResolver);
+    }
+
+    @Test
+    void deleteDocumentType_shouldInvalidateCompiledSchema() {
+        DocumentTypeDefinition existing = DocumentTypeDefinition.builder().key("invoice").name("Invoice").build();
+        when(repository.findByKey("invoice")).thenReturn(Optional.of(existing));
+
+        documentTypeService.deleteDocumentType("invoice");
+
+        verify(repository).delete(existing);
+        verify(documentTypeSchemaCache).invalidate("invoice");
+    }
+}
@@ -0,0 +1,138 @@
+package com.demo.bpm.service;
+
+import com.demo.bpm.dto.FormDefinitionDTO;
+import com.demo.bpm.dto.FormFieldDTO;
+import com.demo.bpm.dto.FormGridDTO;
+import com.demo.bpm.dto.ProcessFieldLibraryDTO;
+import com.demo.bpm.dto.ProcessFormConfigDTO;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache.CompiledSchema;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.flowable.engine.repository.ProcessDefinitionQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FieldTypeResolverTest {
+
+    @Mock
+    private FormDefinitionService formDefinitionService;
+
+    @Mock
+    private RepositoryService repositoryService;
+
+    @Mock
+    private ColumnMappingService columnMappingService;
+
+    @Mock
+    private ProcessDefinitionQuery processDefinitionQuery;
+
+    @Mock
+    private ProcessDefinition processDefinition;
+
+    private FieldTypeResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new FieldTypeResolver(formDefinitionService, repositoryService, columnMappingService, 10);
+    }
+
+    @Test
+    void resolve_shouldUseDeclaredTypesInsteadOfValues() {
+        stubDocumentType(
+                List.of(FormFieldDTO.builder().name("amount").label("Amount").type("currency").build()),
+                List.of(FormGridDTO.builder().name("items").label("Items").columns(List.of(
+                        FormGridDTO.GridColumnDTO.builder().name("due").label("Due").type("date").build())).build()));
+        stubProcessForms(
+                FormFieldDTO.builder().name("amount").type("text").build(),
+                FormFieldDTO.builder().name("reference").type("text").build());
+
+        // "12.5" and "" would otherwise sniff as VARCHAR
+        assertEquals(FieldType.FLOAT, resolver.resolveDocumentField("proc1", "invoice", "amount", "12.5"));
+        assertEquals(FieldType.VARCHAR, resolver.resolveDocumentField("proc1", "invoice", "reference", "2024-01-01"));
+        assertEquals(FieldType.DATETIME, resolver.resolveGridField("proc1", "invoice", "items", "due", ""));
+        verifyNoInteractions(columnMappingService);
+    }
+
+    @Test
+    void resolve_shouldFallBackToValueForUndeclaredFields() {
+        when(formDefinitionService.getDocumentTypeSchema("main")).thenReturn(null);
+        stubProcessForms();
+        when(columnMappingService.determineFieldType(42)).thenReturn(FieldType.FLOAT);
+
+        assertEquals(FieldType.FLOAT, resolver.resolveDocumentField("proc1", "main", "count", 42));
+    }
+
+    @Test
+    void resolve_shouldLoadEachScopeOnceUntilInvalidated() {
+        when(formDefinitionService.getDocumentTypeSchema("main")).thenReturn(null);
+        stubProcessForms(FormFieldDTO.builder().name("approved").type("checkbox").build());
+
+        resolver.resolveDocumentField("proc1", "main", "approved", true);
+        resolver.resolveDocumentField("proc1", "main", "approved", false);
+        verify(formDefinitionService, times(1)).getDocumentTypeSchema("main");
+
+        resolver.invalidateAll();
+        resolver.resolveDocumentField("proc1", "main", "approved", true);
+        verify(formDefinitionService, times(2)).getDocumentTypeSchema("main");
+    }
+
+    @Test
+    void resolve_whenInvalidatedWhileLoading_shouldNotCacheTheStaleTable() {
+        stubProcessForms();
+        // The schema changes and its commit invalidates the resolver while the old table is built
+        when(formDefinitionService.getDocumentTypeSchema("main")).thenAnswer(invocation -> {
+            resolver.invalidateAll();
+            return null;
+        }).thenReturn(null);
+
+        resolver.resolveDocumentField("proc1", "main", "approved", true);
+        resolver.resolveDocumentField("proc1", "main", "approved", true);
+        resolver.resolveDocumentField("proc1", "main", "approved", true);
+
+        verify(formDefinitionService, times(2)).getDocumentTypeSchema("main");
+    }
+
+    @Test
+    void storageType_shouldMapFormTypes() {
+        assertEquals(FieldType.FLOAT, FieldTypeResolver.storageType("number"));
+        assertEquals(FieldType.FLOAT, FieldTypeResolver.storageType("percentage"));
+        assertEquals(FieldType.DATETIME, FieldTypeResolver.storageType("datetime"));
+        assertEquals(FieldType.VARCHAR, FieldTypeResolver.storageType("select"));
+        assertNull(FieldTypeResolver.storageType("header"));
+    }
+
+    private void stubDocumentType(List<FormFieldDTO> fields, List<FormGridDTO> grids) {
+        CompiledSchema schema = new CompiledSchema("invoice", null, ProcessFieldLibraryDTO.builder()
+                .fields(fields)
+                .grids(grids)
+                .build());
+        when(formDefinitionService.getDocumentTypeSchema("invoice")).thenReturn(schema);
+    }
+
+    private void stubProcessForms(FormFieldDTO... fields) {
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.processDefinitionKey("proc1")).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.latestVersion()).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.singleResult()).thenReturn(processDefinition);
+        when(processDefinition.getId()).thenReturn("proc1:1:1");
+        when(formDefinitionService.getProcessFormConfig("proc1:1:1")).thenReturn(ProcessFormConfigDTO.builder()
+                .fieldLibrary(ProcessFieldLibraryDTO.builder()
+                        .fields(List.of(fields))
+                        .grids(List.<FormGridDTO>of())
+                        .build())
+                .build());
+        when(formDefinitionService.getAllFormDefinitions("proc1:1:1")).thenReturn(Map.of("start",
+                FormDefinitionDTO.builder().fields(List.of()).grids(List.of()).build()));
+    }
+}
@@ -2,10 +2,16 @@ package com.demo.bpm.service;
 
 import com.demo.bpm.dto.FormDefinitionDTO;
 import com.demo.bpm.dto.ProcessFormConfigDTO;
+import com.demo.bpm.entity.DocumentTypeDefinition;
+import com.demo.bpm.entity.ProcessConfig;
 import com.demo.bpm.repository.DocumentTypeRepository;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache.CompiledSchema;
+import com.demo.bpm.service.cache.FormDefinitionCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
 import org.flowable.engine.repository.ProcessDefinitionQuery;
 import org.flowable.engine.TaskService;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,6 +25,9 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -50,7 +59,8 @@ class FormDefinitionServiceTest {
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        formDefinitionService = new FormDefinitionService(repositoryService, taskService, objectMapper, processConfigRepository, documentTypeRepository);
+        formDefinitionService = new FormDefinitionService(repositoryService, taskService, objectMapper,
+                processConfigRepository, documentTypeRepository, new FormDefinitionCache(10), new DocumentTypeSchemaCache(10));
     }
 
     @Test
@@ -145,4 +155,83 @@ class FormDefinitionServiceTest {
         assertEquals("missing", form.getElementId());
         assertTrue(form.getFields().isEmpty());
     }
+
+    @Test
+    void formLookups_shouldParseEachDefinitionOnce() {
+        String bpmnXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" \n" +
+                "  xmlns:flowable=\"http://flowable.org/bpmn\" \n" +
+                "  targetNamespace=\"http://www.flowable.org/processdef\">\n" +
+                "  <process id=\"testProcess\" \n" +
+                "    flowable:fieldLibrary='{\"fields\":[{\"id\":\"f1\",\"name\":\"field1\"}],\"grids\":[]}'>\n" +
+                "    <startEvent id=\"start\" flowable:formFields='[{\"id\":\"s1\",\"name\":\"title\"}]'/>\n" +
+                "    <userTask id=\"review\" name=\"Review\" flowable:formFields='[{\"id\":\"r1\",\"name\":\"comment\"}]'/>\n" +
+                "    <userTask id=\"approve\" name=\"Approve\"/>\n" +
+                "  </process>\n" +
+                "</definitions>";
+
+        when(repositoryService.getProcessModel("procDefId")).thenReturn(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.processDefinitionId(anyString())).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.singleResult()).thenReturn(null);
+
+        FormDefinitionDTO review = formDefinitionService.getFormDefinitionForElement("procDefId", "review");
+        FormDefinitionDTO start = formDefinitionService.getStartFormDefinition("procDefId");
+        Map<String, FormDefinitionDTO> all = formDefinitionService.getAllFormDefinitions("procDefId");
+        ProcessFormConfigDTO config = formDefinitionService.getProcessFormConfig("procDefId");
+
+        assertEquals("bpmn:UserTask", review.getElementType());
+        assertEquals("r1", review.getFields().get(0).getId());
+        assertEquals("start", start.getElementId());
+        assertEquals(Set.of("startEvent", "review"), all.keySet());
+        assertEquals("f1", config.getFieldLibrary().getFields().get(0).getId());
+        verify(repositoryService, times(1)).getProcessModel("procDefId");
+    }
+
+    @Test
+    void getDocumentTypeSchema_shouldCompileEachDocumentTypeOnce() {
+        DocumentTypeDefinition invoice = DocumentTypeDefinition.builder()
+                .key("invoice")
+                .schemaJson("{\"fields\":[{\"id\":\"d1\",\"name\":\"amount\",\"type\":\"currency\"}],\"grids\":[]}")
+                .build();
+        when(documentTypeRepository.findByKey("invoice")).thenReturn(Optional.of(invoice));
+
+        CompiledSchema first = formDefinitionService.getDocumentTypeSchema("invoice");
+        CompiledSchema second = formDefinitionService.getDocumentTypeSchema("invoice");
+
+        assertSame(first, second);
+        assertEquals("amount", first.fieldLibrary().getFields().get(0).getName());
+        assertThrows(UnsupportedOperationException.class, () -> first.fieldLibrary().getFields().clear());
+        verify(documentTypeRepository, times(1)).findByKey("invoice");
+    }
+
+    @Test
+    void getProcessFormConfig_shouldPrependDocumentTypeFields() {
+        String bpmnXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" \n" +
+                "  xmlns:flowable=\"http://flowable.org/bpmn\">\n" +
+                "  <process id=\"invoiceProcess\" \n" +
+                "    flowable:fieldLibrary='{\"fields\":[{\"id\":\"f1\",\"name\":\"note\"}],\"grids\":[]}'/>\n" +
+                "</definitions>";
+        ProcessDefinition definition = mock(ProcessDefinition.class);
+        when(definition.getKey()).thenReturn("invoiceProcess");
+        when(repositoryService.getProcessModel("procDefId")).thenReturn(new ByteArrayInputStream(bpmnXml.getBytes(StandardCharsets.UTF_8)));
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.processDefinitionId("procDefId")).thenReturn(processDefinitionQuery);
+        when(processDefinitionQuery.singleResult()).thenReturn(definition);
+        when(processConfigRepository.findByProcessDefinitionKey("invoiceProcess"))
+                .thenReturn(Optional.of(ProcessConfig.builder().processDefinitionKey("invoiceProcess").documentType("invoice").build()));
+        when(documentTypeRepository.findByKey("invoice")).thenReturn(Optional.of(DocumentTypeDefinition.builder()
+                .key("invoice")
+                .schemaJson("{\"fields\":[{\"id\":\"d1\",\"name\":\"amount\"}]}")
+                .build()));
+
+        formDefinitionService.getProcessFormConfig("procDefId");
+        ProcessFormConfigDTO config = formDefinitionService.getProcessFormConfig("procDefId");
+
+        assertEquals(2, config.getFieldLibrary().getFields().size());
+        assertEquals("d1", config.getFieldLibrary().getFields().get(0).getId());
+        assertEquals("f1", config.getFieldLibrary().getFields().get(1).getId());
+        verify(documentTypeRepository, times(1)).findByKey("invoice");
+    }
 }
@@ -1,5 +1,6 @@
 package com.demo.bpm.service;
 
+import com.demo.bpm.dto.ProcessInstanceDTO;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.repository.ProcessConfigRepository;
@@ -8,14 +9,22 @@ import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.engine.runtime.ProcessInstanceQuery;
+
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -36,6 +45,17 @@ class ProcessServiceTest {
     private BusinessTableService businessTableService;
     @Mock
     private com.demo.bpm.mapper.ProcessMapper processMapper;
+    @Mock
+    private com.demo.bpm.service.cache.ProcessDefinitionCache processDefinitionCache;
+    @Mock
+    private FieldTypeResolver fieldTypeResolver;
+    @Mock
+    private ColumnMappingWarmupService columnMappingWarmupService;
+    @Mock
+    private com.demo.bpm.service.cache.FormDefinitionCache formDefinitionCache;
+    @Mock
+    private com.demo.bpm.service.cache.MergedVariableCache mergedVariableCache;
+
 
     @Mock
     private ProcessInstanceQuery processInstanceQuery;
@@ -64,6 +84,7 @@ class ProcessServiceTest {
 
         // Verify
         verify(runtimeService).deleteProcessInstance(processInstanceId, reason);
+        verify(mergedVariableCache).invalidate(processInstanceId);
     }
 
     @Test
@@ -173,4 +194,52 @@ class ProcessServiceTest {
         // Verify
         verify(runtimeService).activateProcessInstanceById(processInstanceId);
     }
+
+    @Test
+    void getActiveProcesses_shouldLoadFlowableVariablesWithThePage() {
+        ProcessInstance first = mock(ProcessInstance.class);
+        when(first.getId()).thenReturn("pi1");
+        when(first.getProcessDefinitionId()).thenReturn("def1");
+        when(first.getProcessVariables()).thenReturn(Map.of("_startedBy", "user1"));
+        ProcessInstance second = mock(ProcessInstance.class);
+        when(second.getId()).thenReturn("pi2");
+        when(second.getProcessDefinitionId()).thenReturn("def1");
+        when(second.getProcessVariables()).thenReturn(Map.of("_startedBy", "user1", "_decision", "approve"));
+
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.variableValueEquals("_startedBy", "user1")).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.includeProcessVariables()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.orderByStartTime()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.desc()).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.listPage(0, 10)).thenReturn(List.of(first, second));
+        when(processInstanceQuery.count()).thenReturn(2L);
+        when(processMapper.toInstanceDTO(anyString(), any(), any(), any(), any(), any(), any(), any(), anyBoolean(), anyBoolean()))
+                .thenAnswer(invocation -> ProcessInstanceDTO.builder().id(invocation.getArgument(0)).build());
+
+        Page<ProcessInstanceDTO> page = processService.getActiveProcesses("user1", PageRequest.of(0, 10));
+
+        assertEquals(2, page.getTotalElements());
+        verify(processMapper).toInstanceDTO(eq("pi2"), eq("def1"), any(), any(), any(), any(), eq("user1"),
+                eq(Map.of("_startedBy", "user1", "_decision", "approve")), eq(false), anyBoolean());
+        verify(processInstanceQuery).includeProcessVariables();
+        verify(runtimeService, never()).getVariables(anyString());
+        verifyNoInteractions(businessTableService);
+    }
+
+    @Test
+    void suspendProcessDefinition_shouldInvalidateTheCachedDefinitionOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            processService.suspendProcessDefinition("def1");
+            verify(repositoryService).suspendProcessDefinitionById("def1");
+            verify(processDefinitionCache, never()).invalidate(anyString());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(processDefinitionCache).invalidate("def1");
+        verify(processDefinitionCache, never()).invalidateAll();
+    }
 }
@@ -1,14 +1,15 @@
 package com.demo.bpm.service;
 
 import com.demo.bpm.dto.TaskDTO;
+import com.demo.bpm.dto.TaskPageDTO;
+import com.demo.bpm.dto.TaskView;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
 import com.demo.bpm.repository.ProcessConfigRepository;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
 import org.flowable.engine.HistoryService;
-import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
-import org.flowable.engine.repository.ProcessDefinition;
-import org.flowable.engine.repository.ProcessDefinitionQuery;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.engine.runtime.ProcessInstanceQuery;
 import org.flowable.task.api.Task;
@@ -22,14 +23,21 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,8 +49,6 @@ class TaskServiceTest {
     @Mock
     private RuntimeService runtimeService;
     @Mock
-    private RepositoryService repositoryService;
-    @Mock
     private HistoryService historyService;
     @Mock
     private BusinessTableService businessTableService;
@@ -54,86 +60,58 @@ class TaskServiceTest {
     private com.demo.bpm.service.helpers.TaskCommonHelper taskCommonHelper;
     @Mock
     private com.demo.bpm.service.helpers.VariableHelper variableHelper;
-
     @Mock
-    private TaskQuery taskQuery;
+    private ProcessDefinitionCache processDefinitionCache;
+    @Mock
+    private com.demo.bpm.service.cache.MergedVariableCache mergedVariableCache;
+    @Mock
+    private BusinessDataOutboxService businessDataOutboxService;
 
     @InjectMocks
     private TaskService taskService;
 
     @Test
-    void getGroupTasks_NoFilters() {
-        // Setup
+    void getGroupTaskPage_NoFilters() {
         String userId = "user1";
-
-        when(flowableTaskService.createTaskQuery()).thenReturn(taskQuery);
-        when(taskQuery.taskCandidateOrAssigned(userId)).thenReturn(taskQuery);
-        when(taskQuery.orderByTaskPriority()).thenReturn(taskQuery);
-        when(taskQuery.desc()).thenReturn(taskQuery);
-        when(taskQuery.orderByTaskCreateTime()).thenReturn(taskQuery);
-        when(taskQuery.list()).thenReturn(Collections.emptyList());
-
-        // Execute
-        List<TaskDTO> result = taskService.getGroupTasks(userId, null, null, null);
-
-        // Verify
-        verify(taskQuery).taskCandidateOrAssigned(userId);
-        verify(taskQuery, never()).taskNameLikeIgnoreCase(anyString());
-        verify(taskQuery, never()).taskPriority(anyInt());
-        verify(taskQuery, never()).taskAssignee(anyString());
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+
+        TaskPageDTO page = taskService.getGroupTaskPage(userId, null, null, null, TaskView.FULL, null, null, null, false);
+
+        assertTrue(page.getContent().isEmpty());
+        assertFalse(page.isHasMore());
+        verify(query).taskCandidateOrAssigned(userId);
+        verify(query, never()).taskNameLikeIgnoreCase(anyString());
+        verify(query, never()).taskPriority(anyInt());
+        verify(query, never()).taskAssignee(anyString());
+        verify(query, never()).list();
     }
 
     @Test
-    void getGroupTasks_AllFilters() {
-        // Setup
+    void getGroupTaskPage_AllFilters() {
         String userId = "user1";
-        String text = "test";
-        String assignee = "user1";
-        Integer priority = 50;
-
-        when(flowableTaskService.createTaskQuery()).thenReturn(taskQuery);
-        when(taskQuery.taskCandidateOrAssigned(userId)).thenReturn(taskQuery);
-        when(taskQuery.taskNameLikeIgnoreCase(anyString())).thenReturn(taskQuery);
-        when(taskQuery.taskPriority(anyInt())).thenReturn(taskQuery);
-        when(taskQuery.taskAssignee(anyString())).thenReturn(taskQuery);
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
 
-        when(taskQuery.orderByTaskPriority()).thenReturn(taskQuery);
-        when(taskQuery.desc()).thenReturn(taskQuery);
-        when(taskQuery.orderByTaskCreateTime()).thenReturn(taskQuery);
-        when(taskQuery.list()).thenReturn(Collections.emptyList());
+        taskService.getGroupTaskPage(userId, "test", "user1", 50, TaskView.FULL, null, null, null, false);
 
-        // Execute
-        taskService.getGroupTasks(userId, text, assignee, priority);
-
-        // Verify
-        verify(taskQuery).taskCandidateOrAssigned(userId);
-        verify(taskQuery).taskNameLikeIgnoreCase("%test%");
-        verify(taskQuery).taskPriority(50);
-        verify(taskQuery).taskAssignee(assignee);
+        verify(query).taskCandidateOrAssigned(userId);
+        verify(query).taskNameLikeIgnoreCase("%test%");
+        verify(query).taskPriority(50);
+        verify(query).taskAssignee("user1");
     }
 
     @Test
-    void getGroupTasks_UnassignedFilter() {
-        // Setup
+    void getGroupTaskPage_UnassignedFilter() {
         String userId = "user1";
-        String assignee = "unassigned";
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
 
-        when(flowableTaskService.createTaskQuery()).thenReturn(taskQuery);
-        when(taskQuery.taskCandidateOrAssigned(userId)).thenReturn(taskQuery);
-        when(taskQuery.taskUnassigned()).thenReturn(taskQuery);
-
-        when(taskQuery.orderByTaskPriority()).thenReturn(taskQuery);
-        when(taskQuery.desc()).thenReturn(taskQuery);
-        when(taskQuery.orderByTaskCreateTime()).thenReturn(taskQuery);
-        when(taskQuery.list()).thenReturn(Collections.emptyList());
-
-        // Execute
-        taskService.getGroupTasks(userId, null, assignee, null);
+        taskService.getGroupTaskPage(userId, null, "unassigned", null, TaskView.FULL, null, null, null, false);
 
-        // Verify
-        verify(taskQuery).taskCandidateOrAssigned(userId);
-        verify(taskQuery).taskUnassigned();
-        verify(taskQuery, never()).taskAssignee(anyString());
+        verify(query).taskCandidateOrAssigned(userId);
+        verify(query).taskUnassigned();
+        verify(query, never()).taskAssignee(anyString());
     }
 
     @Test
@@ -155,16 +133,42 @@ class TaskServiceTest {
         when(piQuery.processInstanceId("pi1")).thenReturn(piQuery);
         when(piQuery.singleResult()).thenReturn(mock(ProcessInstance.class));
 
-        ProcessDefinitionQuery pdQuery = mock(ProcessDefinitionQuery.class);
-        when(repositoryService.createProcessDefinitionQuery()).thenReturn(pdQuery);
-        when(pdQuery.processDefinitionId("pd1")).thenReturn(pdQuery);
-        when(pdQuery.singleResult()).thenReturn(mock(ProcessDefinition.class));
+        when(processDefinitionCache.get("pd1")).thenReturn(java.util.Optional.of(
+                new ProcessDefinitionInfo("pd1", "leave-request", "Leave Request", 1, "dep1", false, null)));
 
         taskService.completeTask(taskId, variables, userId);
 
         verify(flowableTaskService).complete(eq(taskId), anyMap());
     }
 
+    @Test
+    void completeTask_withUnstorableBusinessValue_shouldRejectBeforeCompleting() {
+        String taskId = "task1";
+        Map<String, Object> variables = Map.of("amount", "n/a");
+
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn(taskId);
+        when(task.getAssignee()).thenReturn("user1");
+        when(task.getProcessInstanceId()).thenReturn("pi1");
+        when(task.getProcessDefinitionId()).thenReturn("pd1");
+        when(taskCommonHelper.getTaskOrThrow(taskId)).thenReturn(task);
+
+        ProcessInstanceQuery piQuery = mock(ProcessInstanceQuery.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(piQuery);
+        when(piQuery.processInstanceId("pi1")).thenReturn(piQuery);
+        when(piQuery.singleResult()).thenReturn(mock(ProcessInstance.class));
+        when(processDefinitionCache.get("pd1")).thenReturn(java.util.Optional.of(
+                new ProcessDefinitionInfo("pd1", "expense-approval", "Expense Approval", 1, "dep1", false, null)));
+        when(processConfigRepository.findByProcessDefinitionKey("expense-approval")).thenReturn(java.util.Optional.empty());
+        doThrow(new IllegalArgumentException("Field 'amount' of document type 'main' cannot be stored as FLOAT: n/a"))
+                .when(businessTableService).validateStorableValues(eq("expense-approval"), isNull(), anyMap());
+
+        assertThrows(IllegalArgumentException.class, () -> taskService.completeTask(taskId, variables, "user1"));
+
+        verify(flowableTaskService, never()).complete(anyString(), anyMap());
+        verify(businessTableService, never()).saveAllData(any(), any(), any(), any(), any(), any(), any());
+    }
+
     @Test
     void completeTask_TaskNotFound_ThrowsException() {
         String taskId = "invalid";
@@ -266,13 +270,8 @@ class TaskServiceTest {
         when(piQuery.processInstanceId(procInstId)).thenReturn(piQuery);
         when(piQuery.singleResult()).thenReturn(pi);
 
-        ProcessDefinition pd = mock(ProcessDefinition.class);
-        when(pd.getKey()).thenReturn(procDefKey);
-        when(pd.getName()).thenReturn("Expense Approval");
-        ProcessDefinitionQuery pdQuery = mock(ProcessDefinitionQuery.class);
-        when(repositoryService.createProcessDefinitionQuery()).thenReturn(pdQuery);
-        when(pdQuery.processDefinitionId(procDefId)).thenReturn(pdQuery);
-        when(pdQuery.singleResult()).thenReturn(pd);
+        when(processDefinitionCache.get(procDefId)).thenReturn(java.util.Optional.of(
+                new ProcessDefinitionInfo(procDefId, procDefKey, "Expense Approval", 1, "dep1", false, null)));
 
         when(businessTableService.shouldPersistOnTaskComplete(procDefKey)).thenReturn(true);
         when(processConfigRepository.findByProcessDefinitionKey(procDefKey)).thenReturn(java.util.Optional.empty());
@@ -287,6 +286,7 @@ class TaskServiceTest {
             vars.containsKey("_completedAt") &&
             !vars.containsKey("amount")
         ));
+        verify(mergedVariableCache).invalidate(procInstId);
 
         // Verify all variables persisted to business table
         verify(businessTableService).saveAllData(
@@ -299,4 +299,206 @@ class TaskServiceTest {
             eq(userId)
         );
     }
+
+    @Test
+    void getGroupTaskPage_hydratesTaskListWithConstantNumberOfQueries() {
+        assertConstantQueryCount(1);
+        reset(runtimeService, processDefinitionCache, businessTableService, variableHelper, taskMapper);
+        assertConstantQueryCount(50);
+    }
+
+    private void assertConstantQueryCount(int taskCount) {
+        String userId = "user1";
+        List<Task> tasks = new java.util.ArrayList<>();
+        List<ProcessInstance> instances = new java.util.ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            Task task = mock(Task.class);
+            when(task.getProcessInstanceId()).thenReturn("pi" + i);
+            when(task.getProcessDefinitionId()).thenReturn("pd" + (i % 3));
+            tasks.add(task);
+
+            ProcessInstance pi = mock(ProcessInstance.class);
+            when(pi.getId()).thenReturn("pi" + i);
+            when(pi.getBusinessKey()).thenReturn("BK-" + i);
+            instances.add(pi);
+        }
+
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+        when(query.listPage(0, taskCount + 1)).thenReturn(tasks);
+
+        ProcessInstanceQuery piQuery = mock(ProcessInstanceQuery.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(piQuery);
+        when(piQuery.processInstanceIds(anySet())).thenReturn(piQuery);
+        when(piQuery.list()).thenReturn(instances);
+
+        when(processDefinitionCache.getAll(anySet())).thenReturn(Collections.emptyMap());
+
+        when(variableHelper.getMergedVariables(anyCollection())).thenReturn(Collections.emptyMap());
+
+        List<TaskDTO> result = taskService.getGroupTaskPage(userId, null, null, null, TaskView.FULL, null,
+                null, taskCount, false).getContent();
+
+        assertEquals(taskCount, result.size());
+        verify(runtimeService, times(1)).createProcessInstanceQuery();
+        verify(piQuery, never()).includeProcessVariables();
+        verify(processDefinitionCache, times(1)).getAll(anySet());
+        // Variables go through the cached batch loader, never one instance at a time
+        verify(variableHelper, times(1)).getMergedVariables(anyCollection());
+        verify(variableHelper, never()).getMergedVariables(anyString());
+        verifyNoInteractions(businessTableService);
+        verify(taskMapper, never()).toDTO(any(Task.class), anyMap());
+        verify(taskMapper, times(taskCount)).toDTO(any(Task.class), anyMap(), anyString(), any());
+    }
+
+    @Test
+    void getAssignedTaskPage_summaryView_readsOnlyWhitelistedFields() {
+        String userId = "user1";
+        Task task = mock(Task.class);
+        when(task.getProcessInstanceId()).thenReturn("pi1");
+        when(task.getProcessDefinitionId()).thenReturn("pd1");
+
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+        when(query.listPage(0, 11)).thenReturn(List.of(task));
+
+        ProcessInstance pi = mock(ProcessInstance.class);
+        when(pi.getId()).thenReturn("pi1");
+        when(pi.getBusinessKey()).thenReturn("BK-1");
+        ProcessInstanceQuery piQuery = mock(ProcessInstanceQuery.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(piQuery);
+        when(piQuery.processInstanceIds(anySet())).thenReturn(piQuery);
+        when(piQuery.list()).thenReturn(List.of(pi));
+
+        when(processDefinitionCache.getAll(anySet())).thenReturn(Collections.emptyMap());
+
+        Map<String, Object> header = Map.of("title", "Laptop");
+        when(businessTableService.getDocumentFields(anyCollection(), eq("main"), eq(List.of("title"))))
+                .thenReturn(Map.of("pi1", header));
+
+        taskService.getAssignedTaskPage(userId, TaskView.SUMMARY, List.of("title"), null, 10, false);
+
+        verify(query).taskAssignee(userId);
+        verify(piQuery, never()).includeProcessVariables();
+        verify(variableHelper, never()).getMergedVariables(anyString());
+        verify(businessTableService, never()).getDocuments(anyCollection(), anyString());
+        verify(taskMapper).toDTO(task, header, "BK-1", null);
+    }
+
+    @Test
+    void getAssignedTaskPage_firstPage_returnsCursorForLastTaskWhenMoreRemain() {
+        String userId = "user1";
+        Date created = new Date(1_700_000_000_000L);
+        List<Task> tasks = List.of(pagedTask("t1", 50, created), pagedTask("t2", 50, created), pagedTask("t3", 40, created));
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+        when(query.listPage(0, 3)).thenReturn(tasks);
+
+        TaskPageDTO page = taskService.getAssignedTaskPage(userId, TaskView.SUMMARY, List.of(), null, 2, false);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasMore());
+        assertNull(page.getTotalElements());
+        TaskCursor cursor = TaskCursor.decode(page.getNextCursor());
+        assertEquals(new TaskCursor(50, created, "t2"), cursor);
+        verify(query).orderByTaskId();
+        verify(query, never()).list();
+        verify(query, never()).count();
+    }
+
+    @Test
+    void getAssignedTaskPage_withCursor_seeksPastCursorWithBoundedQueries() {
+        String userId = "user1";
+        Date created = new Date(1_700_000_000_000L);
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+        // Tie segment: same priority and create time, only ids after the cursor are kept
+        List<Task> ties = List.of(pagedTask("t1", 50, created), pagedTask("t3", 50, created));
+        List<Task> older = List.of(pagedTask("t4", 50, new Date(created.getTime() - 1)));
+        List<Task> lowerPriority = List.of(pagedTask("t5", 10, created));
+        when(query.listPage(0, 3)).thenReturn(ties);
+        when(query.listPage(0, 2)).thenReturn(older);
+        when(query.listPage(0, 1)).thenReturn(lowerPriority);
+        when(query.count()).thenReturn(42L);
+
+        String cursor = new TaskCursor(50, created, "t2").encode();
+        TaskPageDTO page = taskService.getAssignedTaskPage(userId, TaskView.SUMMARY, List.of(), cursor, 2, true);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasMore());
+        assertEquals(42L, page.getTotalElements());
+        assertEquals("t4", TaskCursor.decode(page.getNextCursor()).id());
+        verify(query).taskCreatedOn(created);
+        verify(query).taskCreatedBefore(created);
+        verify(query).taskMaxPriority(49);
+        verify(query, never()).list();
+    }
+
+    @Test
+    void getAssignedTaskPage_withCursor_pagesThroughTiesInBoundedChunks() {
+        Date created = new Date(1_700_000_000_000L);
+        TaskQuery query = mock(TaskQuery.class, RETURNS_SELF);
+        when(flowableTaskService.createTaskQuery()).thenReturn(query);
+        List<Task> firstChunk = List.of(
+                pagedTask("t1", 50, created), pagedTask("t2", 50, created), pagedTask("t3", 50, created));
+        List<Task> secondChunk = List.of(pagedTask("t4", 50, created), pagedTask("t5", 50, created));
+        when(query.listPage(0, 3)).thenReturn(firstChunk);
+        when(query.listPage(3, 3)).thenReturn(secondChunk);
+
+        String cursor = new TaskCursor(50, created, "t2").encode();
+        TaskPageDTO page = taskService.getAssignedTaskPage("user1", TaskView.SUMMARY, List.of(), cursor, 2, false);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasMore());
+        assertEquals("t4", TaskCursor.decode(page.getNextCursor()).id());
+        verify(query, never()).list();
+        verify(query, never()).taskCreatedBefore(any());
+    }
+
+    @Test
+    void getAssignedTaskPage_invalidCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> taskService.getAssignedTaskPage("user1", TaskView.FULL, null, "not-a-cursor", 10, false));
+    }
+
+    private Task pagedTask(String id, int priority, Date createTime) {
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn(id);
+        when(task.getPriority()).thenReturn(priority);
+        when(task.getCreateTime()).thenReturn(createTime);
+        return task;
+    }
+
+    @Test
+    void internalCompleteTask_asyncPersistence_enqueuesInsteadOfSaving() {
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn("task1");
+        when(task.getAssignee()).thenReturn("user1");
+        when(task.getProcessInstanceId()).thenReturn("pi1");
+        when(task.getProcessDefinitionId()).thenReturn("pd1");
+
+        ProcessInstance pi = mock(ProcessInstance.class);
+        when(pi.getBusinessKey()).thenReturn("BK-1");
+        ProcessInstanceQuery piQuery = mock(ProcessInstanceQuery.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(piQuery);
+        when(piQuery.processInstanceId("pi1")).thenReturn(piQuery);
+        when(piQuery.singleResult()).thenReturn(pi);
+        when(processDefinitionCache.get("pd1")).thenReturn(java.util.Optional.of(
+                new ProcessDefinitionInfo("pd1", "purchase-request", "Purchase Request", 1, "dep1", false, null)));
+
+        when(businessTableService.shouldPersistOnTaskComplete("purchase-request")).thenReturn(true);
+        com.demo.bpm.entity.ProcessConfig config = com.demo.bpm.entity.ProcessConfig.builder()
+                .processDefinitionKey("purchase-request")
+                .documentType("order")
+                .asyncPersistence(true)
+                .build();
+        when(processConfigRepository.findByProcessDefinitionKey("purchase-request")).thenReturn(java.util.Optional.of(config));
+
+        taskService.internalCompleteTask(task, Map.of("amount", 10.0), "user1");
+
+        verify(flowableTaskService).complete(eq("task1"), anyMap());
+        verify(businessDataOutboxService).enqueue(eq("pi1"), eq("BK-1"), eq("purchase-request"), eq("Purchase Request"),
+                eq("order"), argThat(vars -> vars.containsKey("amount") && vars.containsKey("_completedBy")), eq("user1"));
+        verify(businessTableService, never()).saveAllData(any(), any(), any(), any(), any(), any(), any());
+    }
 }
@@ -1,17 +1,20 @@
 package com.demo.bpm.service;
 
+import com.demo.bpm.dto.TaskHistoryDTO;
 import com.demo.bpm.dto.WorkflowHistoryDTO;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.flowable.engine.HistoryService;
-import org.flowable.engine.RepositoryService;
 import org.flowable.engine.RuntimeService;
 import org.flowable.engine.TaskService;
 import org.flowable.engine.history.HistoricProcessInstance;
 import org.flowable.engine.history.HistoricProcessInstanceQuery;
-import org.flowable.engine.repository.ProcessDefinition;
-import org.flowable.engine.repository.ProcessDefinitionQuery;
 import org.flowable.engine.runtime.ProcessInstance;
 import org.flowable.engine.runtime.ProcessInstanceQuery;
+import org.flowable.task.api.Task;
+import org.flowable.task.api.history.HistoricTaskInstance;
+import org.flowable.variable.api.history.HistoricVariableInstance;
 import org.flowable.variable.api.history.HistoricVariableInstanceQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -26,6 +29,8 @@ import org.flowable.task.api.TaskQuery;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -45,7 +50,7 @@ class WorkflowHistoryServiceTest {
     @Mock
     private TaskService taskService;
     @Mock
-    private RepositoryService repositoryService;
+    private ProcessDefinitionCache processDefinitionCache;
     @Mock
     private com.demo.bpm.mapper.WorkflowHistoryMapper workflowHistoryMapper;
     @Mock
@@ -58,8 +63,6 @@ class WorkflowHistoryServiceTest {
     @Mock
     private TaskQuery taskQuery;
     @Mock
-    private ProcessDefinitionQuery processDefinitionQuery;
-    @Mock
     private org.flowable.task.api.history.HistoricTaskInstanceQuery historicTaskInstanceQuery;
 
     @InjectMocks
@@ -70,7 +73,6 @@ class WorkflowHistoryServiceTest {
         lenient().when(runtimeService.createProcessInstanceQuery()).thenReturn(processInstanceQuery);
         lenient().when(historyService.createHistoricProcessInstanceQuery()).thenReturn(historicProcessInstanceQuery);
         lenient().when(taskService.createTaskQuery()).thenReturn(taskQuery);
-        lenient().when(repositoryService.createProcessDefinitionQuery()).thenReturn(processDefinitionQuery);
         lenient().when(historyService.createHistoricTaskInstanceQuery()).thenReturn(historicTaskInstanceQuery);
     }
 
@@ -90,21 +92,20 @@ class WorkflowHistoryServiceTest {
 
         when(processInstanceQuery.listPage(0, 10)).thenReturn(List.of(pi));
 
-        // Mock getWorkflowHistory internals
-        when(runtimeService.createProcessInstanceQuery().processInstanceId("pi1")).thenReturn(processInstanceQuery);
-        when(processInstanceQuery.singleResult()).thenReturn(pi);
-        when(variableHelper.getMergedVariables("pi1")).thenReturn(Map.of("startedBy", "user1"));
+        // Mock getWorkflowHistories internals
+        when(processInstanceQuery.processInstanceIds(anySet())).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.list()).thenReturn(List.of(pi));
+        when(variableHelper.getMergedVariables(anyCollection())).thenReturn(Map.of("pi1", Map.of("startedBy", "user1")));
 
-        when(taskQuery.processInstanceId("pi1")).thenReturn(taskQuery);
+        when(taskQuery.processInstanceIdIn(anyCollection())).thenReturn(taskQuery);
 
-        when(historicTaskInstanceQuery.processInstanceId("pi1")).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.processInstanceIdIn(anyCollection())).thenReturn(historicTaskInstanceQuery);
         when(historicTaskInstanceQuery.orderByHistoricTaskInstanceEndTime()).thenReturn(historicTaskInstanceQuery);
         when(historicTaskInstanceQuery.asc()).thenReturn(historicTaskInstanceQuery);
         when(historicTaskInstanceQuery.list()).thenReturn(List.of());
 
-        ProcessDefinition pd = mock(ProcessDefinition.class);
-        when(processDefinitionQuery.processDefinitionId("pd1")).thenReturn(processDefinitionQuery);
-        when(processDefinitionQuery.singleResult()).thenReturn(pd);
+        when(processDefinitionCache.getAll(anyCollection())).thenReturn(Map.of("pd1",
+                new ProcessDefinitionInfo("pd1", "myProcess", "My Process", 1, "dep1", false, null)));
 
         // Execute
         List<WorkflowHistoryDTO> results = workflowHistoryService.getAllProcesses("ACTIVE", "myProcess", 0, 10);
@@ -112,6 +113,68 @@ class WorkflowHistoryServiceTest {
         // Verify
         verify(processInstanceQuery).processDefinitionKey("myProcess");
         assertEquals(1, results.size());
+        assertEquals("My Process", results.get(0).getProcessDefinitionName());
+        verify(processInstanceQuery, never()).singleResult();
+    }
+
+    @Test
+    void getWorkflowHistories_shouldAssembleWholePageWithSetBasedQueries() {
+        ProcessInstance active = mock(ProcessInstance.class);
+        when(active.getId()).thenReturn("pi1");
+        when(active.getProcessDefinitionId()).thenReturn("pd1");
+        when(active.getStartTime()).thenReturn(new Date());
+        when(processInstanceQuery.processInstanceIds(Set.of("pi1", "pi2", "pi3"))).thenReturn(processInstanceQuery);
+        when(processInstanceQuery.list()).thenReturn(List.of(active));
+
+        HistoricProcessInstance completed = mock(HistoricProcessInstance.class);
+        when(completed.getId()).thenReturn("pi2");
+        when(completed.getStartTime()).thenReturn(new Date());
+        when(completed.getEndTime()).thenReturn(new Date());
+        when(historicProcessInstanceQuery.processInstanceIds(Set.of("pi2", "pi3"))).thenReturn(historicProcessInstanceQuery);
+        when(historicProcessInstanceQuery.list()).thenReturn(List.of(completed));
+
+        when(variableHelper.getMergedVariables(List.of("pi1", "pi2", "pi3"))).thenReturn(Map.of(
+                "pi1", Map.of("startedBy", "user1"),
+                "pi2", Map.of()));
+        when(processDefinitionCache.getAll(Set.of("pd1"))).thenReturn(Map.of("pd1",
+                new ProcessDefinitionInfo("pd1", "myProcess", "My Process", 1, "dep1", false, null)));
+
+        Task currentTask = mock(Task.class);
+        when(currentTask.getId()).thenReturn("t2");
+        when(currentTask.getProcessInstanceId()).thenReturn("pi1");
+        when(taskQuery.processInstanceIdIn(List.of("pi1", "pi2", "pi3"))).thenReturn(taskQuery);
+        when(taskQuery.list()).thenReturn(List.of(currentTask));
+
+        HistoricTaskInstance doneTask = mock(HistoricTaskInstance.class);
+        when(doneTask.getId()).thenReturn("t1");
+        when(doneTask.getProcessInstanceId()).thenReturn("pi1");
+        when(historicTaskInstanceQuery.processInstanceIdIn(List.of("pi1", "pi2", "pi3"))).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.orderByHistoricTaskInstanceEndTime()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.asc()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.list()).thenReturn(List.of(doneTask));
+
+        HistoricVariableInstanceQuery variableQuery = mock(HistoricVariableInstanceQuery.class);
+        HistoricVariableInstance decision = mock(HistoricVariableInstance.class);
+        when(decision.getTaskId()).thenReturn("t1");
+        when(historyService.createHistoricVariableInstanceQuery()).thenReturn(variableQuery);
+        when(variableQuery.taskIds(Set.of("t1"))).thenReturn(variableQuery);
+        when(variableQuery.list()).thenReturn(List.of(decision));
+        TaskHistoryDTO doneTaskHistory = TaskHistoryDTO.builder().id("t1").build();
+        when(workflowHistoryMapper.toTaskHistoryDTO(doneTask, List.of(decision))).thenReturn(doneTaskHistory);
+
+        List<WorkflowHistoryDTO> results = workflowHistoryService.getWorkflowHistories(List.of("pi1", "pi2", "pi1", "pi3"));
+
+        assertEquals(2, results.size());
+        assertEquals("ACTIVE", results.get(0).getStatus());
+        assertEquals("My Process", results.get(0).getProcessDefinitionName());
+        assertEquals("t2", results.get(0).getCurrentTaskId());
+        assertEquals(List.of(doneTaskHistory), results.get(0).getTaskHistory());
+        assertEquals("COMPLETED", results.get(1).getStatus());
+        assertEquals(List.of(), results.get(1).getTaskHistory());
+
+        verify(processInstanceQuery, never()).singleResult();
+        verify(variableHelper, never()).getMergedVariables(anyString());
+        verify(historyService, times(1)).createHistoricVariableInstanceQuery();
     }
 
     @Test
@@ -129,11 +192,8 @@ class WorkflowHistoryServiceTest {
 
         when(variableHelper.getMergedVariables(procId)).thenReturn(Map.of("startedBy", "user1", "currentLevel", "SUPERVISOR"));
 
-        ProcessDefinition pd = mock(ProcessDefinition.class);
-        when(pd.getName()).thenReturn("My Process");
-        when(repositoryService.createProcessDefinitionQuery()).thenReturn(processDefinitionQuery);
-        when(processDefinitionQuery.processDefinitionId("pd1")).thenReturn(processDefinitionQuery);
-        when(processDefinitionQuery.singleResult()).thenReturn(pd);
+        when(processDefinitionCache.get("pd1")).thenReturn(Optional.of(
+                new ProcessDefinitionInfo("pd1", "myProcess", "My Process", 1, "dep1", false, null)));
 
         when(taskService.createTaskQuery()).thenReturn(taskQuery);
         when(taskQuery.processInstanceId(procId)).thenReturn(taskQuery);
@@ -189,4 +249,45 @@ class WorkflowHistoryServiceTest {
         assertEquals("COMPLETED", history.getStatus());
         assertEquals(5000L, history.getDurationInMillis());
     }
+
+    @Test
+    void getTaskHistory_shouldLoadTaskVariablesOfAllTasksInOneQuery() {
+        HistoricTaskInstance first = mock(HistoricTaskInstance.class);
+        when(first.getId()).thenReturn("t1");
+        HistoricTaskInstance second = mock(HistoricTaskInstance.class);
+        when(second.getId()).thenReturn("t2");
+        when(historicTaskInstanceQuery.processInstanceId("pi1")).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.orderByHistoricTaskInstanceEndTime()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.asc()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.list()).thenReturn(List.of(first, second));
+
+        HistoricVariableInstanceQuery variableQuery = mock(HistoricVariableInstanceQuery.class);
+        HistoricVariableInstance decision = mock(HistoricVariableInstance.class);
+        when(decision.getTaskId()).thenReturn("t2");
+        when(historyService.createHistoricVariableInstanceQuery()).thenReturn(variableQuery);
+        when(variableQuery.taskIds(Set.of("t1", "t2"))).thenReturn(variableQuery);
+        when(variableQuery.list()).thenReturn(List.of(decision));
+
+        workflowHistoryService.getTaskHistory("pi1");
+
+        verify(historyService, times(1)).createHistoricVariableInstanceQuery();
+        verify(variableQuery, never()).taskId(anyString());
+        verify(workflowHistoryMapper).toTaskHistoryDTO(first, List.of());
+        verify(workflowHistoryMapper).toTaskHistoryDTO(second, List.of(decision));
+    }
+
+    @Test
+    void getTaskHistory_withoutVariables_shouldNotQueryVariables() {
+        HistoricTaskInstance task = mock(HistoricTaskInstance.class);
+        when(task.getId()).thenReturn("t1");
+        when(historicTaskInstanceQuery.processInstanceId("pi1")).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.orderByHistoricTaskInstanceEndTime()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.asc()).thenReturn(historicTaskInstanceQuery);
+        when(historicTaskInstanceQuery.list()).thenReturn(List.of(task));
+
+        workflowHistoryService.getTaskHistory("pi1", false);
+
+        verify(historyService, never()).createHistoricVariableInstanceQuery();
+        verify(workflowHistoryMapper).toTaskHistoryDTO(task, List.of());
+    }
 }
@@ -1,9 +1,12 @@
 package com.demo.bpm.service;
 
+import com.demo.bpm.dto.ApprovalDTO;
 import com.demo.bpm.dto.EscalationDTO;
 import com.demo.bpm.dto.EscalationRequest;
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.service.helpers.HistoryRecorder;
+import com.demo.bpm.service.helpers.HistoryRecorder.ApprovalRecordResult;
+import com.demo.bpm.service.helpers.WorkflowContext;
 import com.demo.bpm.util.WorkflowConstants;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.flowable.engine.RuntimeService;
@@ -20,6 +23,7 @@ import org.mockito.quality.Strictness;
 import org.mockito.junit.jupiter.MockitoSettings;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -61,11 +65,10 @@ class WorkflowServiceTest {
         Task task = mock(Task.class);
         when(task.getProcessInstanceId()).thenReturn("proc1");
 
-        when(taskCommonHelper.getTaskOrThrow(taskId)).thenReturn(task);
+        WorkflowContext context = context(task, Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "SUPERVISOR", WorkflowConstants.VAR_ESCALATION_COUNT, 0));
+        when(taskCommonHelper.openContext(taskId)).thenReturn(context);
 
-        when(variableHelper.getMergedVariables("proc1")).thenReturn(Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "SUPERVISOR", WorkflowConstants.VAR_ESCALATION_COUNT, 0));
-
-        when(historyRecorder.recordEscalationHistory(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyBoolean(), anyMap()))
+        when(historyRecorder.recordEscalationHistory(any(WorkflowContext.class), anyString(), anyString(), anyString(), anyString(), anyBoolean()))
             .thenReturn("historyId");
 
         // Execute
@@ -74,7 +77,7 @@ class WorkflowServiceTest {
         // Verify
         assertNotNull(result);
         assertEquals("MANAGER", result.getToLevel());
-        verify(appTaskService).internalCompleteTask(eq(task), any(Map.class), eq(userId));
+        verify(appTaskService).internalCompleteTask(eq(context), any(Map.class), eq(userId));
     }
 
     @Test
@@ -89,11 +92,10 @@ class WorkflowServiceTest {
         Task task = mock(Task.class);
         when(task.getProcessInstanceId()).thenReturn("proc1");
 
-        when(taskCommonHelper.getTaskOrThrow(taskId)).thenReturn(task);
-
-        when(variableHelper.getMergedVariables("proc1")).thenReturn(Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "MANAGER"));
+        WorkflowContext context = context(task, Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "MANAGER"));
+        when(taskCommonHelper.openContext(taskId)).thenReturn(context);
 
-        when(historyRecorder.recordEscalationHistory(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyBoolean(), anyMap()))
+        when(historyRecorder.recordEscalationHistory(any(WorkflowContext.class), anyString(), anyString(), anyString(), anyString(), anyBoolean()))
             .thenReturn("historyId");
 
         // Execute
@@ -102,7 +104,7 @@ class WorkflowServiceTest {
         // Verify
         assertNotNull(result);
         assertEquals("SUPERVISOR", result.getToLevel());
-        verify(appTaskService).internalCompleteTask(eq(task), any(Map.class), eq(userId));
+        verify(appTaskService).internalCompleteTask(eq(context), any(Map.class), eq(userId));
     }
 
     @Test
@@ -116,9 +118,8 @@ class WorkflowServiceTest {
         Task task = mock(Task.class);
         when(task.getProcessInstanceId()).thenReturn("proc1");
 
-        when(taskCommonHelper.getTaskOrThrow(taskId)).thenReturn(task);
-
-        when(variableHelper.getMergedVariables("proc1")).thenReturn(Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "SUPERVISOR"));
+        WorkflowContext context = context(task, Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "SUPERVISOR"));
+        when(taskCommonHelper.openContext(taskId)).thenReturn(context);
 
         // Execute & Verify
         assertThrows(InvalidOperationException.class, () -> workflowService.escalateTask(taskId, request, userId));
@@ -135,11 +136,40 @@ class WorkflowServiceTest {
         Task task = mock(Task.class);
         when(task.getProcessInstanceId()).thenReturn("proc1");
 
-        when(taskCommonHelper.getTaskOrThrow(taskId)).thenReturn(task);
-
-        when(variableHelper.getMergedVariables("proc1")).thenReturn(Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "EXECUTIVE"));
+        WorkflowContext context = context(task, Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "EXECUTIVE"));
+        when(taskCommonHelper.openContext(taskId)).thenReturn(context);
 
         // Execute & Verify
         assertThrows(InvalidOperationException.class, () -> workflowService.escalateTask(taskId, request, userId));
     }
+
+    @Test
+    void recordApproval_shouldMergeVariablesOnceAndCompleteWithTheSameContext() {
+        String taskId = "task1";
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn(taskId);
+        when(task.getProcessInstanceId()).thenReturn("proc1");
+        AtomicInteger merges = new AtomicInteger();
+        WorkflowContext context = new WorkflowContext(task, () -> null, () -> null, () -> {
+            merges.incrementAndGet();
+            return Map.of(WorkflowConstants.VAR_CURRENT_LEVEL, "MANAGER");
+        });
+        when(taskCommonHelper.openContext(taskId)).thenReturn(context);
+        when(historyRecorder.recordApprovalHistory(context, "manager1", "MANAGER", "APPROVE", "ok"))
+            .thenAnswer(invocation -> {
+                context.variables();
+                return new ApprovalRecordResult("approvalId", 1);
+            });
+
+        ApprovalDTO result = workflowService.recordApproval(taskId, "APPROVE", "ok", "manager1");
+
+        assertEquals("MANAGER", result.getApproverLevel());
+        assertEquals(1, merges.get());
+        verify(appTaskService).internalCompleteTask(eq(context), anyMap(), eq("manager1"));
+        verifyNoInteractions(variableHelper);
+    }
+
+    private static WorkflowContext context(Task task, Map<String, Object> variables) {
+        return new WorkflowContext(task, () -> null, () -> null, () -> variables);
+    }
 }
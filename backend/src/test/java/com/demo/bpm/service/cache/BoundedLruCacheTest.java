@@ -0,0 +1,83 @@
+package com.demo.bpm.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BoundedLruCacheTest {
+
+    private final BoundedLruCache<String, String> cache = new BoundedLruCache<>("test", 2);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, String> loader = key -> {
+        loads.incrementAndGet();
+        return new String(key);
+    };
+
+    @Test
+    void get_secondLookupIsServedFromCache() {
+        String first = cache.get("a", loader);
+        String second = cache.get("a", loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(1.0, registry.get("bpm.cache.hits").tag("cache", "test").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "test").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.size").tag("cache", "test").gauge().value());
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);
+        cache.get("c", loader);
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void get_doesNotCacheNullOrLoadsThatRacedWithAnInvalidation() {
+        assertNull(cache.get("a", key -> null));
+        cache.get("a", loader);
+        assertEquals(1, loads.get());
+
+        // An invalidation lands while b is being loaded: the stale result must not be cached
+        cache.get("b", key -> {
+            cache.invalidate("b");
+            return loader.apply(key);
+        });
+        cache.get("b", loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void getAll_loadsOnlyMissesInOneCall() {
+        String cached = cache.get("a", loader);
+        List<Set<String>> batches = new ArrayList<>();
+
+        Map<String, String> result = cache.getAll(List.of("a", "b", "c"), keys -> {
+            batches.add(Set.copyOf(keys));
+            return Map.of("b", "B");
+        });
+
+        assertEquals(List.of(Set.of("b", "c")), batches);
+        assertEquals(Map.of("a", cached, "b", "B"), result);
+        assertEquals("B", cache.get("b", loader));
+        assertEquals(1, loads.get());
+    }
+}
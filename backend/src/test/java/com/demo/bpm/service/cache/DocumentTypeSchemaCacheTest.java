@@ -0,0 +1,83 @@
+package com.demo.bpm.service.cache;
+
+import com.demo.bpm.dto.ProcessFieldLibraryDTO;
+import com.demo.bpm.service.cache.DocumentTypeSchemaCache.CompiledSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DocumentTypeSchemaCacheTest {
+
+    private final DocumentTypeSchemaCache cache = new DocumentTypeSchemaCache(2);
+    private final AtomicInteger compiles = new AtomicInteger();
+    private final Function<String, CompiledSchema> loader = key -> {
+        compiles.incrementAndGet();
+        return new CompiledSchema(key, null, ProcessFieldLibraryDTO.builder()
+                .fields(List.of())
+                .grids(List.of())
+                .build());
+    };
+
+    @Test
+    void get_secondLookupIsServedFromCache() {
+        CompiledSchema first = cache.get("invoice", loader);
+        CompiledSchema second = cache.get("invoice", loader);
+
+        assertSame(first, second);
+        assertEquals(1, compiles.get());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(1.0, registry.get("bpm.cache.hits").tag("cache", "document-type-schemas").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "document-type-schemas").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.size").tag("cache", "document-type-schemas").gauge().value());
+    }
+
+    @Test
+    void get_doesNotCacheMissingDocumentTypes() {
+        assertNull(cache.get("missing", key -> null));
+        cache.get("missing", loader);
+
+        assertEquals(1, compiles.get());
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("c", loader);
+        cache.get("a", loader);
+
+        assertEquals(4, compiles.get());
+    }
+
+    @Test
+    void invalidate_onlyDropsThatDocumentType() {
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.invalidate("a");
+        cache.get("a", loader);
+        cache.get("b", loader);
+
+        assertEquals(3, compiles.get());
+    }
+
+    @Test
+    void invalidate_duringCompile_doesNotCacheTheOldSchema() {
+        // The definition is updated and committed while a reader compiles the previous version
+        cache.get("invoice", key -> {
+            cache.invalidate("invoice");
+            return loader.apply(key);
+        });
+        cache.get("invoice", loader);
+
+        assertEquals(2, compiles.get());
+    }
+}
@@ -0,0 +1,66 @@
+package com.demo.bpm.service.cache;
+
+import com.demo.bpm.service.cache.FormDefinitionCache.CompiledForms;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FormDefinitionCacheTest {
+
+    private final FormDefinitionCache cache = new FormDefinitionCache(2);
+    private final AtomicInteger parses = new AtomicInteger();
+    private final Function<String, CompiledForms> loader = id -> {
+        parses.incrementAndGet();
+        return new CompiledForms(Map.of(), Map.of(), null, List.of());
+    };
+
+    @Test
+    void get_secondLookupIsServedFromCache() {
+        CompiledForms first = cache.get("pd1", loader);
+        CompiledForms second = cache.get("pd1", loader);
+
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(1.0, registry.get("bpm.cache.hits").tag("cache", "form-definitions").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "form-definitions").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.size").tag("cache", "form-definitions").gauge().value());
+    }
+
+    @Test
+    void get_doesNotCacheMissingModels() {
+        assertNull(cache.get("missing", id -> null));
+        cache.get("missing", loader);
+
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxSize() {
+        cache.get("pd1", loader);
+        cache.get("pd2", loader);
+        cache.get("pd3", loader);
+        cache.get("pd1", loader);
+
+        assertEquals(4, parses.get());
+    }
+
+    @Test
+    void invalidateAll_forcesReparse() {
+        cache.get("pd1", loader);
+        cache.invalidateAll();
+        cache.get("pd1", loader);
+
+        assertEquals(2, parses.get());
+    }
+}
@@ -0,0 +1,146 @@
+package com.demo.bpm.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MergedVariableCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, Map<String, Object>> loader = id -> {
+        loads.incrementAndGet();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("_startedBy", "user1");
+        variables.put("comment", null);
+        return variables;
+    };
+
+    @Test
+    void get_secondLookupIsServedFromCache() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ofMinutes(1));
+
+        Map<String, Object> first = cache.get("pi1", loader);
+        Map<String, Object> second = cache.get("pi1", loader);
+
+        assertSame(first, second);
+        assertNull(first.get("comment"));
+        assertEquals(1, loads.get());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(1.0, registry.get("bpm.cache.hits").tag("cache", "merged-variables").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "merged-variables").functionCounter().count());
+        assertEquals(2.0, registry.get("bpm.cache.weight").tag("cache", "merged-variables").gauge().value());
+    }
+
+    @Test
+    void get_returnsUnmodifiableSnapshot() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ofMinutes(1));
+
+        Map<String, Object> variables = cache.get("pi1", loader);
+
+        assertThrows(UnsupportedOperationException.class, () -> variables.put("amount", 1.0));
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxWeight() {
+        // Each instance weighs 2, so only two fit
+        MergedVariableCache cache = new MergedVariableCache(4, Duration.ofMinutes(1));
+        cache.get("pi1", loader);
+        cache.get("pi2", loader);
+        cache.get("pi1", loader);
+        cache.get("pi3", loader);
+        cache.get("pi1", loader);
+        cache.get("pi2", loader);
+
+        assertEquals(4, loads.get());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(2.0, registry.get("bpm.cache.evictions").tag("cache", "merged-variables").functionCounter().count());
+    }
+
+    @Test
+    void get_doesNotCacheInstancesHeavierThanTheBound() {
+        MergedVariableCache cache = new MergedVariableCache(1, Duration.ofMinutes(1));
+        cache.get("pi1", loader);
+        cache.get("pi1", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_reloadsExpiredEntries() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ZERO);
+        cache.get("pi1", loader);
+        cache.get("pi1", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void getIfPresent_neverLoads() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ofMinutes(1));
+        assertNull(cache.getIfPresent("pi1"));
+
+        Map<String, Object> loaded = cache.get("pi1", loader);
+        assertSame(loaded, cache.getIfPresent("pi1"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getAll_loadsOnlyMissesInOneCall() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ofMinutes(1));
+        Map<String, Object> cached = cache.get("pi1", loader);
+        List<List<String>> batches = new ArrayList<>();
+
+        Map<String, Map<String, Object>> result = cache.getAll(List.of("pi1", "pi2", "pi3"), ids -> {
+            batches.add(List.copyOf(ids));
+            return Map.<String, Map<String, Object>>of("pi2", Map.of("amount", 1.0));
+        });
+
+        assertEquals(List.of(List.of("pi2", "pi3")), batches);
+        assertSame(cached, result.get("pi1"));
+        assertEquals(Map.of("amount", 1.0), result.get("pi2"));
+        assertEquals(Map.of(), result.get("pi3"));
+        assertSame(result.get("pi2"), cache.getIfPresent("pi2"));
+        assertThrows(UnsupportedOperationException.class, () -> result.get("pi3").put("amount", 1.0));
+    }
+
+    @Test
+    void invalidate_dropsEntryAndDiscardsLoadThatRacedWithIt() {
+        MergedVariableCache cache = new MergedVariableCache(100, Duration.ofMinutes(1));
+        cache.get("pi1", loader);
+        cache.invalidate("pi1");
+        cache.get("pi1", loader);
+        assertEquals(2, loads.get());
+
+        // A write lands while pi2 is being loaded: the stale result must not be cached
+        cache.get("pi2", id -> {
+            cache.invalidate("pi2");
+            return loader.apply(id);
+        });
+        cache.get("pi2", loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void weigh_countsGridCells() {
+        Map<String, Object> variables = Map.of(
+                "amount", 1.0,
+                "items", List.of(Map.of("a", 1, "b", 2), Map.of("a", 3, "b", 4)));
+
+        assertEquals(2 + 2 + 4, MergedVariableCache.weigh(variables));
+    }
+}
@@ -0,0 +1,110 @@
+package com.demo.bpm.service.cache;
+
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.flowable.engine.repository.ProcessDefinitionQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ProcessDefinitionCacheTest {
+
+    @Mock
+    private RepositoryService repositoryService;
+    @Mock
+    private ProcessDefinitionQuery query;
+
+    private ProcessDefinitionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProcessDefinitionCache(repositoryService, 2);
+        when(repositoryService.createProcessDefinitionQuery()).thenReturn(query);
+        when(query.processDefinitionId(anyString())).thenReturn(query);
+        when(query.processDefinitionIds(anySet())).thenReturn(query);
+    }
+
+    @Test
+    void get_secondLookupIsServedFromCache() {
+        ProcessDefinition pd = definition("pd1", "expense-approval");
+        when(query.singleResult()).thenReturn(pd);
+
+        Optional<ProcessDefinitionInfo> first = cache.get("pd1");
+        Optional<ProcessDefinitionInfo> second = cache.get("pd1");
+
+        assertTrue(first.isPresent());
+        assertEquals("expense-approval", second.get().key());
+        verify(repositoryService, times(1)).createProcessDefinitionQuery();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        assertEquals(1.0, registry.get("bpm.cache.hits").tag("cache", "process-definitions").functionCounter().count());
+        assertEquals(1.0, registry.get("bpm.cache.misses").tag("cache", "process-definitions").functionCounter().count());
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        ProcessDefinition pd = definition("pd1", "expense-approval");
+        when(query.singleResult()).thenReturn(pd);
+
+        cache.get("pd1");
+        cache.invalidate("pd1");
+        cache.get("pd1");
+
+        verify(repositoryService, times(2)).createProcessDefinitionQuery();
+    }
+
+    @Test
+    void getAll_loadsOnlyMissesInOneQuery() {
+        ProcessDefinition pd1 = definition("pd1", "expense-approval");
+        ProcessDefinition pd2 = definition("pd2", "leave-request");
+        when(query.singleResult()).thenReturn(pd1);
+        cache.get("pd1");
+        when(query.list()).thenReturn(List.of(pd2));
+
+        Map<String, ProcessDefinitionInfo> result = cache.getAll(Set.of("pd1", "pd2"));
+
+        assertEquals(2, result.size());
+        verify(query).processDefinitionIds(Set.of("pd2"));
+    }
+
+    @Test
+    void get_evictsLeastRecentlyUsedBeyondMaxSize() {
+        ProcessDefinition pd1 = definition("pd1", "a");
+        ProcessDefinition pd2 = definition("pd2", "b");
+        ProcessDefinition pd3 = definition("pd3", "c");
+        when(query.singleResult()).thenReturn(pd1, pd2, pd3, pd1);
+
+        cache.get("pd1");
+        cache.get("pd2");
+        cache.get("pd3");
+        cache.get("pd1");
+
+        verify(repositoryService, times(4)).createProcessDefinitionQuery();
+    }
+
+    private ProcessDefinition definition(String id, String key) {
+        ProcessDefinition pd = mock(ProcessDefinition.class);
+        when(pd.getId()).thenReturn(id);
+        when(pd.getKey()).thenReturn(key);
+        return pd;
+    }
+}
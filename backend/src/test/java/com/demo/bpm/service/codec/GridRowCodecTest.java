@@ -0,0 +1,78 @@
+package com.demo.bpm.service.codec;
+
+import com.demo.bpm.entity.ColumnMapping;
+import com.demo.bpm.entity.ColumnMapping.FieldType;
+import com.demo.bpm.entity.GridRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridRowCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final GridRowCodec codec = GridRowCodec.of(List.of(
+            mapping("item", FieldType.VARCHAR, "varchar_2"),
+            mapping("amount", FieldType.FLOAT, "float_7"),
+            mapping("due", FieldType.DATETIME, "datetime_30"),
+            mapping("note", FieldType.VARCHAR, "varchar_3")));
+
+    @Test
+    void toMap_shouldReadMappedColumnsAndSkipNulls() {
+        Map<String, Object> fields = codec.toMap(row());
+
+        assertEquals(Map.of("item", "Chair", "amount", 12.5, "due", "2024-03-01T09:30", "_rowKey", "r-1"), fields);
+    }
+
+    @Test
+    void writeAll_shouldProduceSameContentAsToMap() throws Exception {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(json)) {
+            codec.writeAll(List.of(row(), new GridRow()), gen);
+        }
+
+        List<Map<String, Object>> parsed = objectMapper.readValue(json.toString(), new TypeReference<>() {});
+        assertEquals(List.of(codec.toMap(row()), Map.of()), parsed);
+    }
+
+    @Test
+    void overflowFields_shouldBeReadFromOverflowJson() throws Exception {
+        GridRowCodec withOverflow = GridRowCodec.of(List.of(
+                mapping("item", FieldType.VARCHAR, "varchar_2"),
+                mapping("weight", FieldType.FLOAT, ColumnMapping.OVERFLOW_COLUMN),
+                mapping("shipped", FieldType.DATETIME, ColumnMapping.OVERFLOW_COLUMN)));
+        GridRow row = new GridRow();
+        row.setVarchar(2, "Desk");
+        row.setOverflowJson("{\"shipped\":\"2024-03-01T09:30\",\"weight\":3}");
+
+        Map<String, Object> fields = withOverflow.toMap(row);
+        assertEquals(Map.of("item", "Desk", "weight", 3.0, "shipped", "2024-03-01T09:30"), fields);
+
+        StringWriter json = new StringWriter();
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(json)) {
+            withOverflow.write(row, gen);
+        }
+        assertEquals(fields, objectMapper.readValue(json.toString(), new TypeReference<Map<String, Object>>() {}));
+    }
+
+    private GridRow row() {
+        GridRow row = new GridRow();
+        row.setRowKey("r-1");
+        row.setVarchar(2, "Chair");
+        row.setFloat(7, 12.5);
+        row.setDatetime(30, LocalDateTime.of(2024, 3, 1, 9, 30));
+        return row;
+    }
+
+    private static ColumnMapping mapping(String fieldName, FieldType type, String columnName) {
+        return ColumnMapping.builder().fieldName(fieldName).fieldType(type).columnName(columnName).build();
+    }
+}
@@ -1,9 +1,11 @@
 package com.demo.bpm.service.helpers;
 
+import com.demo.bpm.service.cache.MergedVariableCache;
 import com.demo.bpm.util.WorkflowConstants;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.flowable.engine.RuntimeService;
+import org.flowable.task.api.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,12 +18,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -35,11 +39,14 @@ class HistoryRecorderTest {
     @Mock
     private RuntimeService runtimeService;
 
+    @Mock
+    private MergedVariableCache mergedVariableCache;
+
     private HistoryRecorder historyRecorder;
 
     @BeforeEach
     void setUp() {
-        historyRecorder = new HistoryRecorder(objectMapper, runtimeService);
+        historyRecorder = new HistoryRecorder(objectMapper, runtimeService, mergedVariableCache);
     }
 
     @Test
@@ -67,6 +74,7 @@ class HistoryRecorderTest {
         // Assert
         assertNotNull(resultId);
         verify(runtimeService).setVariable(eq(processInstanceId), eq(WorkflowConstants.VAR_ESCALATION_HISTORY), anyString());
+        verify(mergedVariableCache).invalidate(processInstanceId);
     }
 
     @Test
@@ -119,4 +127,30 @@ class HistoryRecorderTest {
         assertEquals(1, result.stepOrder());
         verify(runtimeService).setVariable(eq(processInstanceId), eq(WorkflowConstants.VAR_APPROVAL_HISTORY), anyString());
     }
+
+    @Test
+    void recordApprovalHistory_withContext_shouldReuseItsVariablesAndForgetThemAfterWriting() throws JsonProcessingException {
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn("task-1");
+        when(task.getName()).thenReturn("Task 1");
+        when(task.getProcessInstanceId()).thenReturn("proc-1");
+        AtomicInteger loads = new AtomicInteger();
+        WorkflowContext context = new WorkflowContext(task, () -> null, () -> null, () -> {
+            loads.incrementAndGet();
+            return new HashMap<>();
+        });
+        context.variables();
+        when(objectMapper.writeValueAsString(any())).thenReturn("[]");
+
+        HistoryRecorder.ApprovalRecordResult result = historyRecorder.recordApprovalHistory(
+            context, "user-1", "SUPERVISOR", "APPROVE", "Looks good");
+
+        assertEquals(1, result.stepOrder());
+        assertEquals(1, loads.get());
+        verify(runtimeService).setVariable(eq("proc-1"), eq(WorkflowConstants.VAR_APPROVAL_HISTORY), anyString());
+        verify(mergedVariableCache).invalidate("proc-1");
+
+        context.variables();
+        assertEquals(2, loads.get());
+    }
 }
@@ -2,7 +2,12 @@ package com.demo.bpm.service.helpers;
 
 import com.demo.bpm.exception.InvalidOperationException;
 import com.demo.bpm.exception.ResourceNotFoundException;
+import com.demo.bpm.service.cache.ProcessDefinitionCache;
+import com.demo.bpm.service.cache.ProcessDefinitionCache.ProcessDefinitionInfo;
+import org.flowable.engine.RuntimeService;
 import org.flowable.engine.TaskService;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.engine.runtime.ProcessInstanceQuery;
 import org.flowable.task.api.Task;
 import org.flowable.task.api.TaskQuery;
 import org.junit.jupiter.api.Test;
@@ -11,6 +16,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Map;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -23,6 +31,15 @@ class TaskCommonHelperTest {
     @Mock
     private TaskQuery taskQuery;
 
+    @Mock
+    private RuntimeService runtimeService;
+
+    @Mock
+    private ProcessDefinitionCache processDefinitionCache;
+
+    @Mock
+    private VariableHelper variableHelper;
+
     @InjectMocks
     private TaskCommonHelper taskCommonHelper;
 
@@ -96,4 +113,34 @@ class TaskCommonHelperTest {
 
         assertThrows(InvalidOperationException.class, () -> taskCommonHelper.validateIsAssignee(mockTask, "user1"));
     }
+
+    @Test
+    void openContext_shouldLoadEachPartOnceOnFirstUse() {
+        Task task = mock(Task.class);
+        when(task.getProcessInstanceId()).thenReturn("pi1");
+        when(task.getProcessDefinitionId()).thenReturn("pd1");
+        when(taskService.createTaskQuery()).thenReturn(taskQuery);
+        when(taskQuery.taskId("task1")).thenReturn(taskQuery);
+        when(taskQuery.singleResult()).thenReturn(task);
+        ProcessInstance instance = mock(ProcessInstance.class);
+        ProcessInstanceQuery instanceQuery = mock(ProcessInstanceQuery.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(instanceQuery);
+        when(instanceQuery.processInstanceId("pi1")).thenReturn(instanceQuery);
+        when(instanceQuery.singleResult()).thenReturn(instance);
+        ProcessDefinitionInfo definition = new ProcessDefinitionInfo("pd1", "leave", "Leave", 1, "dep1", false, null);
+        when(processDefinitionCache.get("pd1")).thenReturn(Optional.of(definition));
+        when(variableHelper.getMergedVariables("pi1")).thenReturn(Map.of("amount", 1.0));
+
+        WorkflowContext context = taskCommonHelper.openContext("task1");
+        verifyNoInteractions(runtimeService, processDefinitionCache, variableHelper);
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(instance, context.processInstance());
+            assertSame(definition, context.processDefinition());
+            assertEquals(1.0, context.variables().get("amount"));
+        }
+        verify(runtimeService, times(1)).createProcessInstanceQuery();
+        verify(processDefinitionCache, times(1)).get("pd1");
+        verify(variableHelper, times(1)).getMergedVariables("pi1");
+    }
 }
@@ -2,19 +2,29 @@ package com.demo.bpm.service.helpers;
 
 import com.demo.bpm.dto.DocumentDTO;
 import com.demo.bpm.service.BusinessTableService;
+import com.demo.bpm.service.cache.MergedVariableCache;
+import org.flowable.engine.HistoryService;
 import org.flowable.engine.RuntimeService;
+import org.flowable.engine.history.HistoricProcessInstance;
+import org.flowable.engine.history.HistoricProcessInstanceQuery;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.engine.runtime.ProcessInstanceQuery;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -24,9 +34,15 @@ class VariableHelperTest {
     @Mock
     private RuntimeService runtimeService;
 
+    @Mock
+    private HistoryService historyService;
+
     @Mock
     private BusinessTableService businessTableService;
 
+    @Spy
+    private MergedVariableCache mergedVariableCache = new MergedVariableCache(1000, Duration.ofMinutes(1));
+
     @InjectMocks
     private VariableHelper variableHelper;
 
@@ -79,4 +95,101 @@ class VariableHelperTest {
         assertEquals(1, result.size());
         assertEquals("user1", result.get("_startedBy"));
     }
+
+    @Test
+    void getMergedVariables_shouldServeCachedSnapshotUntilInvalidated() {
+        String procId = "proc1";
+        when(runtimeService.getVariables(procId)).thenReturn(Map.of("_startedBy", "user1"));
+        when(businessTableService.getDocument(procId, "main")).thenReturn(Optional.empty());
+
+        Map<String, Object> first = variableHelper.getMergedVariables(procId);
+        Map<String, Object> second = variableHelper.getMergedVariables(procId);
+
+        assertEquals(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.put("amount", 1.0));
+        verify(runtimeService, times(1)).getVariables(procId);
+
+        mergedVariableCache.invalidate(procId);
+        variableHelper.getMergedVariables(procId);
+        verify(runtimeService, times(2)).getVariables(procId);
+    }
+
+    @Test
+    void getVariables_shouldReadOnlyRequestedNames() {
+        String procId = "proc1";
+        DocumentDTO doc = DocumentDTO.builder()
+                .fields(Map.of("amount", 100.0))
+                .grids(Map.of())
+                .build();
+
+        when(runtimeService.getVariables(procId, Set.of("_startedBy", "amount"))).thenReturn(Map.of("_startedBy", "user1"));
+        when(businessTableService.getDocumentValues(procId, "main", List.of("amount"))).thenReturn(Optional.of(doc));
+
+        Map<String, Object> result = variableHelper.getVariables(procId, List.of("_startedBy", "amount"));
+
+        assertEquals(Map.of("_startedBy", "user1", "amount", 100.0), result);
+        verify(runtimeService, never()).getVariables(procId);
+        verify(businessTableService, never()).getDocument(anyString(), anyString());
+    }
+
+    @Test
+    void getVariables_shouldNotReadDocumentForSystemNames() {
+        String procId = "proc1";
+        when(runtimeService.getVariables(procId, Set.of("_startedBy"))).thenReturn(Map.of("_startedBy", "user1"));
+
+        Map<String, Object> result = variableHelper.getVariables(procId, Set.of("_startedBy"));
+
+        assertEquals(Map.of("_startedBy", "user1"), result);
+        verifyNoInteractions(businessTableService);
+    }
+
+    @Test
+    void getVariables_shouldServeCachedMergedSnapshot() {
+        String procId = "proc1";
+        when(runtimeService.getVariables(procId)).thenReturn(Map.of("_startedBy", "user1", "currentLevel", "MANAGER"));
+        when(businessTableService.getDocument(procId, "main")).thenReturn(Optional.empty());
+        variableHelper.getMergedVariables(procId);
+
+        Map<String, Object> result = variableHelper.getVariables(procId, Set.of("currentLevel", "missing"));
+
+        assertEquals(Map.of("currentLevel", "MANAGER"), result);
+        verify(runtimeService, never()).getVariables(eq(procId), anyCollection());
+        verify(businessTableService, never()).getDocumentValues(anyString(), anyString(), anyCollection());
+    }
+
+    @Test
+    void getMergedVariablesBatch_shouldLoadAllInstancesWithOneQueryPerSource() {
+        ProcessInstanceQuery piQuery = mock(ProcessInstanceQuery.class);
+        ProcessInstance running = mock(ProcessInstance.class);
+        when(runtimeService.createProcessInstanceQuery()).thenReturn(piQuery);
+        when(piQuery.processInstanceIds(Set.of("pi1", "pi2", "pi3"))).thenReturn(piQuery);
+        when(piQuery.includeProcessVariables()).thenReturn(piQuery);
+        when(piQuery.list()).thenReturn(List.of(running));
+        when(running.getId()).thenReturn("pi1");
+        when(running.getProcessVariables()).thenReturn(Map.of("_startedBy", "user1"));
+
+        HistoricProcessInstanceQuery hpiQuery = mock(HistoricProcessInstanceQuery.class);
+        HistoricProcessInstance ended = mock(HistoricProcessInstance.class);
+        when(historyService.createHistoricProcessInstanceQuery()).thenReturn(hpiQuery);
+        when(hpiQuery.processInstanceIds(Set.of("pi2", "pi3"))).thenReturn(hpiQuery);
+        when(hpiQuery.includeProcessVariables()).thenReturn(hpiQuery);
+        when(hpiQuery.list()).thenReturn(List.of(ended));
+        when(ended.getId()).thenReturn("pi2");
+        when(ended.getProcessVariables()).thenReturn(Map.of("_startedBy", "user2"));
+
+        DocumentDTO doc = DocumentDTO.builder().fields(Map.of("amount", 100.0)).grids(Map.of()).build();
+        when(businessTableService.getDocuments(List.of("pi1", "pi2", "pi3"), "main")).thenReturn(Map.of("pi1", doc));
+
+        Map<String, Map<String, Object>> result = variableHelper.getMergedVariables(List.of("pi1", "pi2", "pi3"));
+
+        assertEquals(Map.of("_startedBy", "user1", "amount", 100.0), result.get("pi1"));
+        assertEquals(Map.of("_startedBy", "user2"), result.get("pi2"));
+        assertEquals(Map.of(), result.get("pi3"));
+
+        // Served from the cache, as is the single-instance lookup
+        variableHelper.getMergedVariables(List.of("pi1", "pi2"));
+        assertEquals(result.get("pi1"), variableHelper.getMergedVariables("pi1"));
+        verify(runtimeService, times(1)).createProcessInstanceQuery();
+        verify(runtimeService, never()).getVariables(anyString());
+    }
 }
@@ -0,0 +1,85 @@
+package com.demo.bpm.util;
+
+import com.demo.bpm.util.BpmnFormExtractor.BpmnForms;
+import com.demo.bpm.util.BpmnFormExtractor.ElementForm;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpmnFormExtractorTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String DEFINITIONS = "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\""
+            + " xmlns:flowable=\"http://flowable.org/bpmn\" targetNamespace=\"test\">";
+
+    @Test
+    void extract_shouldCollectFormAttributesInDocumentOrder() throws Exception {
+        String bpmn = HEADER + DEFINITIONS
+                + "<process id=\"p\" flowable:fieldLibrary='{\"fields\":[]}' flowable:conditionRules='[{\"id\":\"r1\"}]'>"
+                + "<startEvent id=\"start\" name=\"Start\" flowable:formFields='[{\"name\":\"amount\"}]'/>"
+                + "<userTask id=\"review\" name=\"Review\" flowable:formGrids='[{\"name\":\"items\"}]'/>"
+                + "<userTask id=\"approve\"/>"
+                + "</process></definitions>";
+
+        BpmnForms forms = BpmnFormExtractor.extract(stream(bpmn));
+
+        assertTrue(forms.hasProcess());
+        assertEquals("{\"fields\":[]}", forms.fieldLibrary());
+        assertEquals("[{\"id\":\"r1\"}]", forms.conditionRules());
+        assertEquals(1, forms.startEvents().size());
+        assertEquals(new ElementForm("start", "Start", "[{\"name\":\"amount\"}]", ""), forms.startEvents().get(0));
+        assertEquals(2, forms.userTasks().size());
+        assertEquals(new ElementForm("review", "Review", "", "[{\"name\":\"items\"}]"), forms.userTasks().get(0));
+        assertEquals(new ElementForm("approve", "", "", ""), forms.userTasks().get(1));
+    }
+
+    @Test
+    void extract_shouldOnlyReadFirstProcess() throws Exception {
+        String bpmn = HEADER + DEFINITIONS
+                + "<process id=\"first\" flowable:conditionRules='[1]'/>"
+                + "<process id=\"second\" flowable:conditionRules='[2]'><userTask id=\"t\"/></process>"
+                + "</definitions>";
+
+        BpmnForms forms = BpmnFormExtractor.extract(stream(bpmn));
+
+        assertEquals("[1]", forms.conditionRules());
+        assertEquals(1, forms.userTasks().size());
+    }
+
+    @Test
+    void extract_withoutProcess_shouldReportNoProcess() throws Exception {
+        BpmnForms forms = BpmnFormExtractor.extract(stream(HEADER + DEFINITIONS + "</definitions>"));
+
+        assertFalse(forms.hasProcess());
+        assertEquals("", forms.fieldLibrary());
+        assertTrue(forms.startEvents().isEmpty());
+        assertTrue(forms.userTasks().isEmpty());
+    }
+
+    @Test
+    void extract_shouldIgnoreElementsOutsideBpmnNamespace() throws Exception {
+        String bpmn = HEADER + "<definitions xmlns:other=\"urn:other\"><other:userTask id=\"t\"/></definitions>";
+
+        BpmnForms forms = BpmnFormExtractor.extract(stream(bpmn));
+
+        assertTrue(forms.userTasks().isEmpty());
+    }
+
+    @Test
+    void extract_shouldNotResolveEntities() {
+        String bpmn = HEADER
+                + "<!DOCTYPE definitions [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                + DEFINITIONS + "<process id=\"p\"><userTask id=\"t\" name=\"&xxe;\"/></process></definitions>";
+
+        assertThrows(XMLStreamException.class, () -> BpmnFormExtractor.extract(stream(bpmn)));
+    }
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
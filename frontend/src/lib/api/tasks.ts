@@ -10,51 +10,92 @@ import type {
   Approval,
   Comment,
   DocumentDTO,
-  TaskHistoryEvent
+  TaskHistoryEvent,
+  TaskPage
 } from '$lib/types';
 import { createLogger } from '$lib/utils/logger';
 
 const log = createLogger('api.tasks');
 
+/** Paging options of the cursor-paged task endpoints. */
+export interface TaskPageRequest {
+  /** The `nextCursor` of the previous page; omit for the first page. */
+  cursor?: string;
+  /** Page size, capped by the server. */
+  size?: number;
+  /** Also return the total number of matching tasks. */
+  includeTotal?: boolean;
+}
+
+/**
+ * Fetch one page of a cursor-paged task endpoint.
+ * @param path - The endpoint path.
+ * @param filters - Filters to send with the page.
+ * @param page - Cursor and size of the page.
+ * @returns A promise that resolves to the page; a plain array response is treated as the only page.
+ */
+async function fetchTaskPage(
+  path: string,
+  filters: Record<string, string | number | undefined> = {},
+  page: TaskPageRequest = {}
+): Promise<TaskPage> {
+  const result = await fetchApi<TaskPage | Task[]>(path, {
+    query: {
+      ...filters,
+      cursor: page.cursor,
+      size: page.size,
+      includeTotal: page.includeTotal || undefined
+    }
+  });
+  if (Array.isArray(result)) return { content: result, hasMore: false };
+  return { ...result, content: result.content ?? [] };
+}
+
 export const tasksApi = {
   /**
-   * Fetch a list of tasks with optional filtering.
+   * Fetch one page of tasks with optional filtering.
    * @param filters - Optional filters for text, assignee, and priority.
-   * @returns A promise that resolves to an array of tasks.
+   * @param page - Optional cursor, page size and total flag.
+   * @returns A promise that resolves to the page of tasks.
    */
-  async getTasks(filters?: {
-    text?: string;
-    assignee?: string;
-    priority?: number;
-  }): Promise<Task[]> {
-    log.debug('getTasks called', { filters });
-    const params = new URLSearchParams();
-    if (filters?.text) params.append('text', filters.text);
-    if (filters?.assignee) params.append('assignee', filters.assignee);
-    if (filters?.priority) params.append('priority', filters.priority.toString());
-
-    const queryString = params.toString() ? `?${params.toString()}` : '';
-    const result = await fetchApi<{ content: Task[] } | Task[]>(`/api/tasks${queryString}`);
-    if (Array.isArray(result)) return result;
-    return result.content ?? [];
+  async getTasks(
+    filters?: {
+      text?: string;
+      assignee?: string;
+      priority?: number;
+    },
+    page?: TaskPageRequest
+  ): Promise<TaskPage> {
+    log.debug('getTasks called', { filters, page });
+    return fetchTaskPage(
+      '/api/tasks',
+      {
+        text: filters?.text || undefined,
+        assignee: filters?.assignee || undefined,
+        priority: filters?.priority || undefined
+      },
+      page
+    );
   },
 
   /**
-   * Fetch tasks assigned to the current user.
-   * @returns A promise that resolves to an array of assigned tasks.
+   * Fetch one page of the tasks assigned to the current user.
+   * @param page - Optional cursor, page size and total flag.
+   * @returns A promise that resolves to the page of assigned tasks.
    */
-  async getAssignedTasks(): Promise<Task[]> {
-    log.debug('getAssignedTasks called');
-    return fetchApi('/api/tasks/assigned');
+  async getAssignedTasks(page?: TaskPageRequest): Promise<TaskPage> {
+    log.debug('getAssignedTasks called', { page });
+    return fetchTaskPage('/api/tasks/assigned', {}, page);
   },
 
   /**
-   * Fetch tasks that are available to be claimed by the current user.
-   * @returns A promise that resolves to an array of claimable tasks.
+   * Fetch one page of the tasks that are available to be claimed by the current user.
+   * @param page - Optional cursor, page size and total flag.
+   * @returns A promise that resolves to the page of claimable tasks.
    */
-  async getClaimableTasks(): Promise<Task[]> {
-    log.debug('getClaimableTasks called');
-    return fetchApi('/api/tasks/claimable');
+  async getClaimableTasks(page?: TaskPageRequest): Promise<TaskPage> {
+    log.debug('getClaimableTasks called', { page });
+    return fetchTaskPage('/api/tasks/claimable', {}, page);
   },
 
   /**
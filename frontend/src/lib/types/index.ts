@@ -685,6 +685,17 @@ export interface Page<T> {
   empty: boolean;
 }
 
+/**
+ * One page of a cursor-paged task list. Pass `nextCursor` back as `cursor` to get the next page.
+ */
+export interface TaskPage {
+  content: Task[];
+  nextCursor?: string;
+  hasMore: boolean;
+  /** Only present when the total was requested */
+  totalElements?: number;
+}
+
 // ============================================
 // Table/Database Types
 // ============================================
@@ -8,7 +8,11 @@ test('should fetch tasks from the backend after logging in', async ({ page, log
   });
 
   await test.step('Wait for tasks API', async () => {
-    const tasksResponse = page.waitForResponse('**/api/tasks', { timeout: 15000 });
+    // The task list requests its first page with paging parameters, so match on the path only
+    const tasksResponse = page.waitForResponse(
+      (response) => new URL(response.url()).pathname.endsWith('/api/tasks'),
+      { timeout: 15000 }
+    );
     await navigateByMenu(page, 'Tasks', '/tasks');
     const response = await tasksResponse;
     log.info('Tasks response status: %s', response.status());